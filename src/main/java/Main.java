@@ -1,5 +1,14 @@
 // Main.java
 import java.util.*;
+import java.util.function.Function;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 
 import domine.*;
@@ -8,6 +17,7 @@ import persistence.*;
 import reports.*;
 import util.*;
 import controller.*;
+import controller.http.CaeHttpServer;
 
 
 /**
@@ -25,16 +35,38 @@ public class Main {
 
     private static final Scanner scanner = new Scanner(System.in);
     private static CaeController controller;
+    // Tickets por página en los listados de pendientes e historial
+    private static final int PAGE_SIZE = 10;
+    // Atendidos que se mantienen como objetos (últimos N y de los últimos días); los anteriores
+    // bajan al archivo en disco y se leen a través de una caché LRU de HISTORY_CACHE tickets
+    private static final int HISTORY_WINDOW = 10_000;
+    private static final Duration HISTORY_MAX_AGE = Duration.ofDays(30);
+    private static final int HISTORY_CACHE = 1_000;
+    // Comandos de undo/redo en memoria (cantidad y memoria estimada); los más antiguos bajan a disco
+    private static final int UNDO_DEPTH = 100;
+    private static final long UNDO_MEMORY_BYTES = 1L << 20;
+    private static final DateTimeFormatter NOTE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
     // Punto de entrada: inicializa componentes y ejecuta el bucle CLI
     public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            cliHelper.printError(e.getMessage());
+            cliHelper.printError(Options.USAGE);
+            scanner.close();
+            return;
+        }
         try {
 
             // Atención / colas
             AttentionQueue attentionQueue = new AttentionQueue();
+            attentionQueue.setHistoryWindow(HISTORY_WINDOW);
+            attentionQueue.setHistoryMaxAge(HISTORY_MAX_AGE);
 
             // Pila de acciones (undo/redo)
-            ActionStack actionStack = new ActionStack();
+            ActionStack actionStack = new ActionStack(UNDO_DEPTH, UNDO_MEMORY_BYTES);
 
             // Persistencia
             PersistenceManager persistenceManager;
@@ -46,6 +78,19 @@ public class Main {
                 cliHelper.printInfo("Aviso: PersistenceManager no pudo instanciarse por defecto. Ajusta el Main.java. >> " + t.getMessage());
             }
 
+            // Archivo del historial: en disco con caché LRU, o fuera del heap con java Main --offheap-archive
+            if (persistenceManager != null) {
+                if (options.offHeapArchive) {
+                    attentionQueue.setArchive(new OffHeapArchive(persistenceManager.getStudentDictionary()));
+                } else {
+                    try {
+                        attentionQueue.setArchive(persistenceManager.openHistoryArchive(HISTORY_CACHE));
+                    } catch (IOException e) {
+                        cliHelper.printError("Aviso: no se pudo abrir el historial en disco; se usa el de memoria. >> " + e.getMessage());
+                    }
+                }
+            }
+
             // Reportes
             ReportManager reportManager;
             try {
@@ -62,6 +107,15 @@ public class Main {
             SystemClock clock = new SystemClock();
 
 
+            // Modo guion sin menú: java Main --script [archivo] (sin archivo o "-": entrada estándar)
+            boolean scriptMode = "--script".equals(options.mode);
+            // En modo guion el controlador solo informa advertencias y errores, con búfer
+            CLIHelper controllerCli = cliHelper;
+            if (scriptMode) {
+                controllerCli = CLIHelper.buffered(true);
+                controllerCli.setVerbosity(CLIHelper.Level.WARNING);
+            }
+
             // Construye el controlador con todas las dependencias necesarias
             controller = new CaeController(
                     attentionQueue,
@@ -70,7 +124,7 @@ public class Main {
                     reportManager,
                     stateMachine,
                     clock,
-                    cliHelper
+                    controllerCli
             );
 
             // Intentar carga/inicialización si existe start()
@@ -82,9 +136,27 @@ public class Main {
                 cliHelper.printError("Aviso: error al invocar start() del controlador: " + ex.getMessage());
             }
 
+            // Modo servicio HTTP para kioscos/pantallas: java Main --http [puerto]
+            if ("--http".equals(options.mode)) {
+                runHttpServer(options.value != null ? Integer.parseInt(options.value) : 8080);
+                return;
+            }
+
+            if (scriptMode) {
+                runScript(options.value != null ? options.value : "-", controllerCli);
+                return;
+            }
+
+            // Importación masiva sin menú: java Main --import <archivo.csv|.tsv>
+            if ("--import".equals(options.mode)) {
+                runImport(options.value);
+                return;
+            }
+
             // Bucle principal del CLI: muestra menú y procesa opciones del usuario
             boolean running = true;
             while (running) {
+                controller.processTimers(); // plazos de PENDIENTE_DOCS vencidos mientras se esperaba entrada
                 printHeader();
                 printMenu();
                 int option = askInt("Seleccione una opción: ", 1, 9);
@@ -141,6 +213,104 @@ public class Main {
     }
 
 
+    /**
+     * Opciones de línea de comandos, en cualquier orden. A lo sumo un modo (--http, --script o
+     * --import) con su valor opcional a continuación; sin modo se abre el menú interactivo.
+     */
+    private static final class Options {
+        static final String USAGE = "Uso: java Main [--http [puerto] | --script [archivo|-] | --import <archivo.csv|.tsv>] [--offheap-archive]";
+
+        String mode;            // null: menú interactivo
+        String value;           // puerto, guion o archivo del modo
+        boolean offHeapArchive;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--offheap-archive":
+                        o.offHeapArchive = true;
+                        break;
+                    case "--http":
+                    case "--script":
+                    case "--import":
+                        if (o.mode != null) throw new IllegalArgumentException("Solo se admite un modo: " + o.mode + " y " + arg);
+                        o.mode = arg;
+                        if (i + 1 < args.length && !args[i + 1].startsWith("--")) o.value = args[++i];
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opción desconocida: " + arg);
+                }
+            }
+            if ("--import".equals(o.mode) && o.value == null) throw new IllegalArgumentException("Falta el archivo de --import");
+            if ("--http".equals(o.mode) && o.value != null) {
+                try {
+                    Integer.parseInt(o.value);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Puerto inválido: " + o.value);
+                }
+            }
+            return o;
+        }
+    }
+
+    // Levanta el servicio HTTP y espera ENTER para detenerlo y guardar
+    private static void runHttpServer(int port) throws java.io.IOException {
+        CaeHttpServer server = new CaeHttpServer(controller, port);
+        server.start();
+        cliHelper.printSuccess("Servicio HTTP escuchando en http://localhost:" + server.getPort() + "/tickets");
+        Runnable stopAndSave = () -> {
+            server.stop(1);
+            synchronized (controller) {
+                controller.shutdown();
+            }
+        };
+        cliHelper.printInfo("Presione ENTER para detener el servicio.");
+        // Cada petición pasa por el controlador: en la consola quedan solo advertencias y errores
+        cliHelper.setVerbosity(CLIHelper.Level.WARNING);
+        if (scanner.hasNextLine()) {
+            scanner.nextLine();
+            stopAndSave.run();
+            return;
+        }
+        // Sin entrada estándar (proceso en segundo plano): correr hasta que la JVM termine
+        Runtime.getRuntime().addShutdownHook(new Thread(stopAndSave));
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Ejecuta un guion de comandos (ver ScriptRunner), imprime el resumen y guarda
+    private static void runScript(String path, CLIHelper controllerCli) throws IOException {
+        ScriptRunner.Summary summary;
+        try (Reader script = path.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            summary = new ScriptRunner(controller).run(script);
+        } finally {
+            controller.shutdown();
+            controllerCli.flush();
+        }
+        System.out.print(summary);
+    }
+
+    // Importa un CSV/TSV de tickets con BulkImporter; los rechazados van a <archivo>.rejects.csv
+    private static void runImport(String path) throws IOException {
+        Path input = Paths.get(path);
+        Path rejects = input.resolveSibling(input.getFileName() + ".rejects.csv");
+        BulkImporter.Result result;
+        try {
+            result = new BulkImporter(controller).importFile(input, rejects);
+        } finally {
+            controller.shutdown();
+        }
+        cliHelper.printSuccess("Importación: " + result);
+        if (result.getRejected() > 0) cliHelper.printAlert("Filas rechazadas en " + rejects);
+    }
+
     // Menú y acciones
     private static void printHeader() {
         System.out.println("======================================");
@@ -169,6 +339,8 @@ public class Main {
         try {
             Ticket t = controller.createTicket(student, type, urgent);
             cliHelper.printSuccess("✓(Ticket creado)✓ ID: " + t.getId() + " - " + t.getStudent() + " (" + t.getProcedureType() + ")");
+            QueuePosition pos = controller.getQueuePosition(t.getId());
+            if (pos != null) cliHelper.printInfo(pos.toString());
         } catch (Exception e) {
             cliHelper.printError("Error al crear ticket: " + e.getMessage());
         }
@@ -234,42 +406,41 @@ public class Main {
         }
     }
 
-    // Opción 3: listar tickets pendientes
+    // Opción 3: listar tickets pendientes (por páginas)
     private static void opcionListarPendientes() {
         System.out.println("-- Tickets pendientes 9--");
         try {
-            List<Ticket> pendientes = controller.listPending();
-            if (pendientes == null || pendientes.isEmpty()) {
+            if (!mostrarPaginas(cursor -> controller.pagePending(cursor, PAGE_SIZE))) {
                 cliHelper.printInfo("?(info)? No hay tickets pendientes.");
-                return;
-            }
-            for (Ticket t : pendientes) {
-                System.out.println(formatTicketLine(t));
             }
         } catch (Exception e) {
             cliHelper.printError("Error al listar pendientes: " + e.getMessage());
         }
     }
 
-    // Opción 4: mostrar historial de atendidos
+    // Opción 4: mostrar historial de atendidos (por páginas)
     private static void opcionConsultarHistorial() {
         System.out.println("-- Historial (completados) --");
         try {
-            SimpleList<Ticket> history = controller.getAttentionQueue().getAttendedHistory();
-            if (history == null || history.isEmpty()) {
+            if (!mostrarPaginas(cursor -> controller.pageHistory(cursor, PAGE_SIZE))) {
                 cliHelper.printInfo("?(info)? No hay historial registrado.");
-                return;
-            }
-            Node<Ticket> cursor = history.head;
-            while (cursor != null) {
-                System.out.println(formatTicketLine(cursor.value));
-                cursor = cursor.next;
             }
         } catch (Exception e) {
             cliHelper.printError("Error al consultar historial: " + e.getMessage());
         }
     }
 
+    // Muestra página por página hasta que no haya más o el usuario corte; false si no había nada
+    private static boolean mostrarPaginas(Function<String, Page<Ticket>> fetch) {
+        Page<Ticket> page = fetch.apply(null);
+        if (page.getItems().isEmpty()) return false;
+        while (true) {
+            for (Ticket t : page.getItems()) System.out.println(formatTicketLine(t));
+            if (!page.hasMore() || !askYesNo("¿Ver más? (s/n): ")) return true;
+            page = fetch.apply(page.getNextCursor());
+        }
+    }
+
     // Opción 5: cambiar estado de ticket (interactivo)
     private static void opcionCambiarEstado() {
         System.out.println("-- Cambiar estado de ticket --");
@@ -305,8 +476,8 @@ public class Main {
     // Opción 6: deshacer última acción (undo)
     private static void opcionUndo() {
         try {
-            if(!controller.getActionStack().getUndoStack().isEmpty()){
-                IAction accion = controller.getActionStack().getUndoStack().peek();
+            IAction accion = controller.getActionStack().peekUndo();
+            if(accion != null){
                 controller.undo();
                 cliHelper.printSuccess("✓(Deshacer)✓ Acción deshecha: " + accion.toString());
                 return;
@@ -321,8 +492,8 @@ public class Main {
     // Opción 7: rehacer (redo)
     private static void opcionRedo() {
         try {
-            if(!controller.getActionStack().getRedoStack().isEmpty()){
-                IAction accion = controller.getActionStack().getRedoStack().peek();
+            IAction accion = controller.getActionStack().peekRedo();
+            if(accion != null){
                 controller.redo();
                 cliHelper.printSuccess("✓(Rehacer)✓ Acción rehecha: " + accion.toString());
                 return;
@@ -339,8 +510,10 @@ public class Main {
         System.out.println("1) Pendientes por tipo");
         System.out.println("2) Completados");
         System.out.println("3) Top K por notas");
-        System.out.println("4) Volver");
-        int r = askInt("Elija: ", 1, 4);
+        System.out.println("4) Conteos por tipo y estado");
+        System.out.println("5) Filtrar tickets (estado / tipo / estudiante / notas)");
+        System.out.println("6) Volver");
+        int r = askInt("Elija: ", 1, 6);
         switch (r) {
             case 1:
                 boolean saveCsv = askYesNo("¿Exportar CSV? (s/n): ");
@@ -351,7 +524,7 @@ public class Main {
                 break;
             case 2:
                 try {
-                    controller.getReportManager().showCompleted(controller.getAttentionQueue().getAttendedHistory(), true, "completed");
+                    controller.generateReportCompleted(true, "completed");
                     cliHelper.printSuccess("Reporte completados generado.");
                 } catch (Exception e) {
                     cliHelper.printError("Error generando reporte completados: " + e.getMessage());
@@ -360,17 +533,46 @@ public class Main {
             case 3:
                 int k = askInt("Top K (k): ", 1, 100);
                 try {
-                    controller.getReportManager().showTopKByNotes(controller.buildPendingSnapshotFromQueues(), k, true, "topk");
+                    controller.generateReportTopKByNotes(k, true, "topk");
                     cliHelper.printSuccess("Top K generado.");
                 } catch (Exception e) {
                     cliHelper.printError("Error al generar TopK: " + e.getMessage());
                 }
                 break;
             case 4:
+                boolean countsCsv = askYesNo("¿Exportar CSV? (s/n): ");
+                controller.generateReportCountsByStateAndType(countsCsv, countsCsv ? askString("Nombre del archivo (ej: conteos): ") : null);
+                break;
+            case 5:
+                opcionFiltrarTickets();
+                break;
+            case 6:
                 break;
         }
     }
 
+    // Listado con filtro combinado (TicketQuery elige índice: estudiante, bitmaps o recorrido)
+    private static void opcionFiltrarTickets() {
+        TicketQuery q = new TicketQuery();
+        if (askYesNo("¿Filtrar por estado? (s/n): ")) q.states(askTicketState());
+        if (askYesNo("¿Filtrar por tipo de trámite? (s/n): ")) q.types(askProcedureType());
+        if (askYesNo("¿Filtrar por estudiante? (s/n): ")) q.student(askString("Nombre del estudiante: "));
+        if (askYesNo("¿Filtrar por cantidad de notas? (s/n): ")) q.minNotes(askInt("Mínimo de notas: ", 0, Integer.MAX_VALUE));
+        if (askYesNo("¿Ordenar por cantidad de notas? (s/n): ")) q.orderBy(TicketQuery.SortField.NOTES, true);
+        try {
+            cliHelper.printInfo("Plan: " + controller.explain(q));
+            List<Ticket> found = controller.query(q);
+            if (found.isEmpty()) {
+                cliHelper.printInfo("?(info)? Ningún ticket cumple el filtro.");
+                return;
+            }
+            for (Ticket t : found) System.out.println(formatTicketLine(t));
+            cliHelper.printInfo(found.size() + " ticket(s).");
+        } catch (Exception e) {
+            cliHelper.printError("Error al filtrar tickets: " + e.getMessage());
+        }
+    }
+
     // ---------- Utilitarios ----------
     // Construye una línea legible para un ticket (uso en listados)
     private static String formatTicketLine(Ticket t) {
@@ -380,10 +582,9 @@ public class Main {
                 .append(" | ").append(t.getProcedureType())
                 .append(" | Estado: ").append(t.getState())
                 .append(" | Notas:");
-        for(int i = 0; i < t.getNoteHistory().size(); i++) {
-                sb.append("\n\t- ");
-            Note n = t.getNoteHistory().findByIndex(i);
-            sb.append("[").append(n.getTimestamp().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))).append(" - ").append(n.getObservation()).append("]");
+        for (Note n : t.getNoteHistory()) {
+            sb.append("\n\t- ");
+            sb.append("[").append(n.getTimestamp().format(NOTE_TIME_FORMAT)).append(" - ").append(n.getObservation()).append("]");
         }
         return sb.toString();
     }
@@ -0,0 +1,16 @@
+package controller;
+
+/**
+ * Convierte comandos de undo/redo en bytes y de vuelta, para que ActionStack pueda bajarlos a
+ * disco (UndoJournal). Los comandos guardan referencias a tickets y colas; en bytes se guardan
+ * el id del ticket y los datos necesarios, y al decodificar se vuelven a buscar.
+ * @author Jaime Landázuri
+ */
+public interface ActionCodec {
+
+    /** Bytes del comando, o null si este comando no se puede guardar fuera de memoria. */
+    byte[] encode(IAction action);
+
+    /** El comando reconstruido, o null si ya no se puede aplicar (p. ej. su ticket se archivó). */
+    IAction decode(byte[] record);
+}
@@ -1,51 +1,279 @@
 package controller;
 
 import estructures.Stack;
+import persistence.UndoJournal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
     Clase que gestiona las acciones realizadas en la aplicacion,
     permitiendo deshacer y rehacer acciones.
     se utilizan dos pilas: una para las acciones deshechas (undoStack)
     y otra para las acciones rehechas (redoStack).
+
+    Con enableSpill() cada pila se escribe completa en un UndoJournal en disco (cada alta se
+    codifica con un ActionCodec y se agrega al final; cada baja trunca el archivo), así undo y
+    redo siguen disponibles después de reiniciar. En memoria quedan decodificados solo los
+    comandos más recientes, acotados en cantidad (maxDepth) y en memoria estimada (maxBytes, ver
+    IAction.estimatedBytes(), que se consulta una sola vez al apilar y se guarda junto al
+    comando): al pasarse se sueltan los más antiguos hasta 3/4 del límite, y cuando la parte en
+    memoria se vacía se vuelven a decodificar de a uno desde el diario.
+    Al arrancar no se lee nada más que la cabecera del diario. Cuando supera maxSpilled
+    registros se compacta (quedan los 3/4 más recientes). Sin diario, lo que excede los límites
+    se descarta.
     @author Jaime Landázuri
 */
 
 public class ActionStack {
-    private Stack<IAction> undoStack = new Stack<>();
-    private Stack<IAction> redoStack = new Stack<>();
+    public static final int DEFAULT_MAX_SPILLED = 50_000;
+
+    private final int maxDepth;
+    private final long maxBytes;
+    private final Side undo = new Side();
+    private final Side redo = new Side();
+    private ActionCodec codec;
+    private int maxSpilled = DEFAULT_MAX_SPILLED;
+    private long dropped;
+
+    // Sin límites: todo queda en memoria
+    public ActionStack() {
+        this(Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public ActionStack(int maxDepth, long maxBytes) {
+        if (maxDepth < 1 || maxBytes < 1) throw new IllegalArgumentException("Los límites deben ser positivos");
+        this.maxDepth = maxDepth;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Activa el diario en disco: codec para convertir comandos y un diario para cada pila.
+     * Si los diarios ya tienen comandos (de una ejecución anterior) quedan disponibles para
+     * deshacer/rehacer; se decodifican recién cuando se usan.
+     */
+    public void enableSpill(ActionCodec codec, UndoJournal undoJournal, UndoJournal redoJournal) {
+        this.codec = codec;
+        this.undo.journal = undoJournal;
+        this.redo.journal = redoJournal;
+    }
+
+    public void setMaxSpilled(int maxSpilled) {
+        if (maxSpilled < 0) throw new IllegalArgumentException("maxSpilled no puede ser negativo");
+        this.maxSpilled = maxSpilled;
+    }
 
     public void registerAction(IAction action) {
-        undoStack.push(action);
-        redoStack.clear();
+        undo.push(action);
+        if (!redo.isEmpty()) redo.clear(); // vaciar el diario lo reescribe: solo si hace falta
     }
 
+    // Se aplica antes de sacarla: si la acción falla queda donde estaba (en memoria y en el diario)
     public void undo() {
-        if (undoStack.isEmpty()) return;
-
-        IAction action = undoStack.pop();
+        IAction action = undo.peek();
+        if (action == null) return;
         action.undo();
-        redoStack.push(action);
+        undo.pop();
+        redo.push(action);
     }
 
     public void redo() {
-        if (redoStack.isEmpty()) return;
-
-        IAction action = redoStack.pop();
+        IAction action = redo.peek();
+        if (action == null) return;
         action.execute();
-        undoStack.push(action);
+        redo.pop();
+        undo.push(action);
     }
 
     // Devuelve true si no hay acciones para deshacer
     public boolean isEmpty() {
-        return undoStack.isEmpty();
+        return undo.isEmpty();
+    }
+
+    // Próxima acción a deshacer/rehacer (la sube de disco si hace falta), o null
+    public IAction peekUndo() {
+        return undo.peek();
+    }
+
+    public IAction peekRedo() {
+        return redo.peek();
+    }
+
+    // Acciones por deshacer/rehacer, en memoria y en disco
+    public int undoSize() {
+        return undo.size();
+    }
+
+    public int redoSize() {
+        return redo.size();
+    }
+
+    // Memoria estimada de los comandos que siguen en memoria
+    public long getMemoryBytes() {
+        return undo.bytes + redo.bytes;
+    }
+
+    // Comandos que están solo en disco (no decodificados en memoria)
+    public int getSpilledCount() {
+        return undo.spilled() + redo.spilled();
     }
 
+    // Comandos descartados (sin diario, no codificables, ya no aplicables o compactados)
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    // Parte en memoria de cada pila (ver peekUndo()/undoSize() para incluir la de disco)
     public Stack<IAction> getUndoStack() {
-        return undoStack;
+        return undo.memory;
     }
 
     public Stack<IAction> getRedoStack() {
-        return redoStack;
+        return redo.memory;
     }
 
+    /**
+     * Una de las dos pilas: con diario, el diario tiene la pila completa y memory sus
+     * memory.size() comandos de arriba ya decodificados. Un comando que el codec no puede
+     * guardar se anota como registro vacío (ocupa su lugar; tras un reinicio se descarta).
+     * La estimación de cada comando se guarda al apilarlo en sizes (paralelo a memory, del
+     * fondo en sizes[lo] a la cima): un comando que luego crece (p. ej. su ticket recibe notas)
+     * no descuadra la suma al sacarlo.
+     */
+    private final class Side {
+        final Stack<IAction> memory = new Stack<>();
+        UndoJournal journal;
+        long bytes;
+        private long[] sizes = new long[16];
+        private int lo;
+
+        void push(IAction action) {
+            if (journal != null) {
+                byte[] record = codec.encode(action);
+                try {
+                    journal.push(record == null ? new byte[0] : record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo escribir el diario de acciones", e);
+                }
+                if (journal.size() > maxSpilled) compact();
+            }
+            pushMemory(action);
+            if (memory.size() > maxDepth || bytes > maxBytes) trim();
+        }
+
+        IAction pop() {
+            if (memory.isEmpty()) pageIn();
+            if (memory.isEmpty()) return null;
+            IAction action = memory.pop();
+            bytes -= sizes[lo + memory.size()];
+            if (journal != null) {
+                try {
+                    journal.pop();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo actualizar el diario de acciones", e);
+                }
+            }
+            return action;
+        }
+
+        IAction peek() {
+            if (memory.isEmpty()) pageIn();
+            return memory.isEmpty() ? null : memory.peek();
+        }
+
+        boolean isEmpty() {
+            return size() == 0;
+        }
+
+        int size() {
+            return journal == null ? memory.size() : journal.size();
+        }
+
+        int spilled() {
+            return journal == null ? 0 : journal.size() - memory.size();
+        }
+
+        void clear() {
+            memory.clear();
+            bytes = 0;
+            lo = 0;
+            if (journal == null) return;
+            try {
+                journal.clear();
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo vaciar el diario de acciones", e);
+            }
+        }
+
+        // Suelta los más antiguos hasta 3/4 de los límites (al menos el último); sin diario se pierden
+        private void trim() {
+            int keep = 0;
+            long kept = 0;
+            long byteTarget = maxBytes - maxBytes / 4;
+            int depthTarget = Math.max(1, maxDepth - maxDepth / 4);
+            for (int i = lo + memory.size() - 1; i >= lo; i--) {
+                if (keep > 0 && (keep >= depthTarget || kept + sizes[i] > byteTarget)) break;
+                keep++;
+                kept += sizes[i];
+            }
+            int released = memory.truncate(keep).size();
+            releaseOldest(released);
+            if (journal == null) dropped += released;
+        }
+
+        // Quedan los 3/4 más recientes; memory nunca tiene más comandos que el diario
+        private void compact() {
+            try {
+                dropped += journal.compact(maxSpilled - maxSpilled / 4);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo compactar el diario de acciones", e);
+            }
+            if (memory.size() > journal.size()) {
+                releaseOldest(memory.truncate(journal.size()).size());
+            }
+        }
+
+        // Decodifica el de arriba del diario recién cuando se lo necesita (así un comando puede
+        // referir a un ticket que recrea el anterior); los que ya no aplican se sacan del diario
+        private void pageIn() {
+            if (journal == null) return;
+            try {
+                while (!journal.isEmpty()) {
+                    byte[] record = journal.newest(1).get(0);
+                    IAction a = record.length == 0 ? null : codec.decode(record);
+                    if (a != null) {
+                        pushMemory(a);
+                        return;
+                    }
+                    journal.pop();
+                    dropped++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el diario de acciones", e);
+            }
+        }
+
+        // Apila en memoria y anota su estimación (la única vez que se llama a estimatedBytes())
+        private void pushMemory(IAction action) {
+            int n = memory.size();
+            if (n == 0) lo = 0;
+            if (lo + n == sizes.length) {
+                // corre al principio lo que sobrevivió; si igual está lleno, duplica
+                long[] target = n >= sizes.length / 2 ? new long[sizes.length * 2] : sizes;
+                System.arraycopy(sizes, lo, target, 0, n);
+                sizes = target;
+                lo = 0;
+            }
+            long size = action.estimatedBytes();
+            memory.push(action);
+            sizes[lo + n] = size;
+            bytes += size;
+        }
+
+        // Descuenta los count más antiguos que ya salieron de memory (truncate)
+        private void releaseOldest(int count) {
+            for (int i = lo; i < lo + count; i++) bytes -= sizes[i];
+            lo += count;
+        }
+    }
 }
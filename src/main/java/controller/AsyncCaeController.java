@@ -0,0 +1,188 @@
+package controller;
+
+import domine.Note;
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Fachada asíncrona sobre CaeController.
+ * Cada operación se ejecuta en el executor configurado y devuelve un CompletableFuture,
+ * de modo que un front end puede encadenar operaciones (thenCompose/thenCombine)
+ * sin bloquear un hilo por llamada.
+ *
+ * Los errores no se imprimen: el future se completa excepcionalmente con un
+ * {@link CaeOperationException} (envuelto en CompletionException) que trae su ErrorCode.
+ * Conviene construir el CaeController con {@link CLIHelper#silent()} para evitar salida por consola.
+ *
+ * El controlador no es thread-safe: las operaciones se encolan en orden y se ejecutan de a una
+ * sobre el executor (a lo sumo una tarea suya ocupa un hilo a la vez, sin hilos bloqueados
+ * esperando turno). Dentro de la tarea se toma el monitor del controlador, que en ese momento
+ * solo disputan otros frentes (servicio HTTP, guiones).
+ * @author Wilson Palma
+ */
+public class AsyncCaeController {
+
+    private final CaeController controller;
+    private final Executor executor;
+    private final Queue<Task<?>> pending = new ArrayDeque<>();
+    private boolean running;
+    // scheduleNext() en curso en este hilo (para executors que corren la tarea en el llamador)
+    private final ThreadLocal<Trampoline> trampoline = ThreadLocal.withInitial(Trampoline::new);
+
+    public AsyncCaeController(CaeController controller, Executor executor) {
+        this.controller = controller;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Ticket> createTicket(String student, ProcedureType type, boolean urgent) {
+        return submit(() -> controller.createTicket(student, type, urgent));
+    }
+
+    public CompletableFuture<Ticket> attendNext() {
+        return submit(controller::attendNext);
+    }
+
+    public CompletableFuture<Note> addNote(int ticketId, String observation) {
+        return submit(() -> controller.addNoteToTicket(requireTicket(ticketId), observation));
+    }
+
+    public CompletableFuture<Void> changeState(int ticketId, TicketState newState) {
+        return submit(() -> {
+            controller.changeTicketState(ticketId, newState);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> finalizeTicket(int ticketId) {
+        return submit(() -> {
+            controller.finalizeTicket(requireTicket(ticketId));
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> undo() {
+        return submit(() -> {
+            controller.undoOrFail();
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> redo() {
+        return submit(() -> {
+            controller.redoOrFail();
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<Ticket>> listPending() {
+        return submit(controller::listPending);
+    }
+
+    public CompletableFuture<Ticket> findTicketById(int ticketId) {
+        return submit(() -> requireTicket(ticketId));
+    }
+
+    public CaeController getController() {
+        return controller;
+    }
+
+    // ------------------ Helpers privados ------------------
+
+    private Ticket requireTicket(int ticketId) {
+        Ticket t = controller.findTicketById(ticketId);
+        if (t == null) throw new NoSuchElementException("Ticket no encontrado: " + ticketId);
+        return t;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        Task<T> task = new Task<>(operation);
+        synchronized (pending) {
+            pending.add(task);
+            if (running) return task.result;
+            running = true;
+        }
+        scheduleNext();
+        return task.result;
+    }
+
+    // Ejecutor serial: la próxima tarea se manda al executor recién cuando termina la anterior.
+    // Si el executor la corre en el mismo hilo (Runnable::run, CallerRunsPolicy), el
+    // scheduleNext() del final de la tarea no se anida: avisa al de más arriba, que sigue en su
+    // bucle, así la pila no crece con cada tarea encolada.
+    private void scheduleNext() {
+        Trampoline tr = trampoline.get();
+        if (tr.active) {
+            tr.again = true;
+            return;
+        }
+        tr.active = true;
+        try {
+            do {
+                tr.again = false;
+                Task<?> task;
+                synchronized (pending) {
+                    task = pending.poll();
+                    if (task == null) {
+                        running = false;
+                        return;
+                    }
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            task.run();
+                        } finally {
+                            scheduleNext();
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    task.result.completeExceptionally(new CompletionException(new CaeOperationException(
+                            CaeOperationException.ErrorCode.INTERNAL, "Executor no disponible", ex)));
+                    tr.again = true;
+                }
+            } while (tr.again);
+        } finally {
+            tr.active = false;
+        }
+    }
+
+    private static final class Trampoline {
+        boolean active;
+        boolean again;
+    }
+
+    private final class Task<T> implements Runnable {
+        final Supplier<T> operation;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Task(Supplier<T> operation) {
+            this.operation = operation;
+        }
+
+        @Override
+        public void run() {
+            try {
+                T value;
+                synchronized (controller) {
+                    value = operation.get();
+                }
+                result.complete(value);
+            } catch (Throwable ex) {
+                // también un Error: el future no puede quedar sin completar
+                result.completeExceptionally(new CompletionException(CaeOperationException.from(ex)));
+                if (ex instanceof Error) throw (Error) ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package controller;
+
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+import util.StateMachine;
+import util.TextNormalizer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Importación masiva de tickets desde un archivo CSV o TSV, sin cargarlo entero en memoria.
+ *
+ * Un hilo lee el archivo y lo corta en lotes de batchSize líneas; cada lote se interpreta y
+ * valida en paralelo (trámite, estado inicial permitido por la StateMachine, fecha). Los lotes
+ * se encolan en el orden del archivo con CaeController.importTickets(), que reserva los ids del
+ * lote de una vez y persiste una sola vez por lote. Como mucho hay 2 lotes por hilo en vuelo,
+ * así la memoria no depende del tamaño del archivo.
+ *
+ * Columnas: estudiante, trámite y opcionalmente estado y fecha de creación. Si la primera línea
+ * es una cabecera reconocible (student/estudiante, procedure/tramite, state/estado,
+ * created/fecha, en cualquier orden) se usan sus posiciones; si no, van en ese orden. El
+ * separador es el tabulador para '.tsv' o si la primera línea lo tiene; si no, la coma (con
+ * comillas como en los CSV del sistema).
+ *
+ * Las filas rechazadas van al archivo de errores como "linea,motivo,fila original".
+ * @author Wilson Palma
+ */
+public class BulkImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    private static final int STUDENT = 0;
+    private static final int PROCEDURE = 1;
+    private static final int STATE = 2;
+    private static final int CREATED = 3;
+    private static final List<List<String>> HEADER_ALIASES = Arrays.asList(
+            Arrays.asList("student", "estudiante", "alumno", "nombre"),
+            Arrays.asList("procedure", "tramite", "tipo", "procedure_type"),
+            Arrays.asList("state", "estado"),
+            Arrays.asList("created", "fecha", "creado", "created_at"));
+
+    private final CaeController controller;
+    private final int threads;
+    private final int batchSize;
+    private final Set<TicketState> initialStates;
+
+    public BulkImporter(CaeController controller) {
+        this(controller, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE);
+    }
+
+    public BulkImporter(CaeController controller, int threads, int batchSize) {
+        if (threads < 1 || batchSize < 1) throw new IllegalArgumentException("threads y batchSize deben ser positivos");
+        this.controller = controller;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.initialStates = initialStates(controller.getStateMachine());
+    }
+
+    /**
+     * Importa el archivo. Los tickets válidos quedan encolados y persistidos; los rechazados,
+     * en rejectsFile (se sobrescribe).
+     *
+     * @throws IOException si no se puede leer el archivo o escribir el de errores
+     */
+    public Result importFile(Path input, Path rejectsFile) throws IOException {
+        long started = System.nanoTime();
+        long imported = 0;
+        long rejected = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "bulk-import");
+            t.setDaemon(true);
+            return t;
+        });
+        Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8)) {
+            rejects.write("line,reason,raw");
+            rejects.newLine();
+
+            String first = reader.readLine();
+            if (first != null && first.startsWith("\uFEFF")) first = first.substring(1); // BOM
+            char separator = input.toString().toLowerCase(Locale.ROOT).endsWith(".tsv")
+                    || (first != null && first.indexOf('\t') >= 0) ? '\t' : ',';
+            int[] columns = first == null ? null : headerColumns(split(first, separator));
+            Format format = new Format(separator, columns != null ? columns : new int[]{ 0, 1, 2, 3 });
+
+            long lineNo = 1;
+            long batchStart = 1;
+            List<String> lines = new ArrayList<>(batchSize);
+            if (first != null && columns == null) lines.add(first);
+            while (first != null) {
+                String line = reader.readLine();
+                if (line != null) {
+                    if (lines.isEmpty()) batchStart = lineNo + 1;
+                    lineNo++;
+                    lines.add(line);
+                }
+                if (lines.size() >= batchSize || (line == null && !lines.isEmpty())) {
+                    List<String> batch = lines;
+                    long from = batchStart;
+                    inFlight.add(pool.submit(() -> parse(batch, from, format)));
+                    lines = new ArrayList<>(batchSize);
+                    while (inFlight.size() > threads * 2) {
+                        Chunk c = drain(inFlight.poll(), rejects);
+                        imported += c.tickets.size();
+                        rejected += c.rejects.size();
+                    }
+                }
+                if (line == null) break;
+            }
+            while (!inFlight.isEmpty()) {
+                Chunk c = drain(inFlight.poll(), rejects);
+                imported += c.tickets.size();
+                rejected += c.rejects.size();
+            }
+        } finally {
+            for (Future<Chunk> f : inFlight) f.cancel(true);
+            pool.shutdownNow();
+        }
+        return new Result(imported, rejected, System.nanoTime() - started);
+    }
+
+    // Encola un lote interpretado (en el orden del archivo) y anota sus rechazos
+    private Chunk drain(Future<Chunk> future, BufferedWriter rejects) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error interpretando el archivo: " + e.getCause().getMessage(), e.getCause());
+        }
+        synchronized (controller) {
+            controller.importTickets(chunk.tickets);
+        }
+        for (String reject : chunk.rejects) {
+            rejects.write(reject);
+            rejects.newLine();
+        }
+        return chunk;
+    }
+
+    // ------------------ Interpretación (en los hilos del pool) ------------------
+
+    private Chunk parse(List<String> lines, long firstLine, Format format) {
+        Chunk chunk = new Chunk(lines.size());
+        long lineNo = firstLine;
+        for (String line : lines) {
+            String error = null;
+            if (!line.trim().isEmpty()) {
+                try {
+                    chunk.tickets.add(toTicket(split(line, format.separator), format.columns));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    error = e.getMessage();
+                }
+            }
+            if (error != null) chunk.rejects.add(lineNo + "," + quote(error) + "," + quote(line));
+            lineNo++;
+        }
+        return chunk;
+    }
+
+    private Ticket toTicket(List<String> fields, int[] columns) {
+        String student = field(fields, columns[STUDENT]);
+        if (student.isEmpty()) throw new IllegalArgumentException("Estudiante vacío");
+        String procedure = field(fields, columns[PROCEDURE]);
+        ProcedureType type = enumValue(ProcedureType.class, procedure, "Trámite desconocido: " + procedure);
+
+        String stateName = field(fields, columns[STATE]);
+        TicketState state = stateName.isEmpty() ? TicketState.EN_COLA
+                : enumValue(TicketState.class, stateName, "Estado desconocido: " + stateName);
+        if (!initialStates.contains(state)) throw new IllegalArgumentException("Estado inicial no permitido: " + state);
+
+        Ticket t = new Ticket(student, type);
+        t.setState(state);
+        String created = field(fields, columns[CREATED]);
+        // sin fecha: la del reloj del controlador, como un ticket creado a mano
+        t.setCreatedAt(created.isEmpty() ? controller.getClock().now()
+                : created.length() <= 10 ? LocalDate.parse(created).atStartOfDay() : LocalDateTime.parse(created));
+        return t;
+    }
+
+    // Estados con los que puede entrar un ticket: EN_COLA y a los que se pasa desde EN_COLA sin atenderlo
+    private static Set<TicketState> initialStates(StateMachine machine) {
+        Set<TicketState> states = EnumSet.of(TicketState.EN_COLA);
+        states.addAll(machine.allowedNextStates(TicketState.EN_COLA));
+        states.remove(TicketState.EN_ATENCION);
+        states.remove(TicketState.COMPLETADO);
+        return states;
+    }
+
+    // "Matrícula", "retiro asignatura" -> MATRICULA, RETIRO_ASIGNATURA
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String text, String error) {
+        String name = TextNormalizer.normalize(text).toUpperCase(Locale.ROOT).replace(' ', '_');
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    // Posiciones de las columnas si la línea es una cabecera reconocible, o null
+    private static int[] headerColumns(List<String> fields) {
+        int[] columns = { -1, -1, -1, -1 };
+        for (int i = 0; i < fields.size(); i++) {
+            String name = TextNormalizer.normalize(fields.get(i)).replace(' ', '_');
+            for (int c = 0; c < columns.length; c++) {
+                if (columns[c] < 0 && HEADER_ALIASES.get(c).contains(name)) columns[c] = i;
+            }
+        }
+        return columns[STUDENT] >= 0 && columns[PROCEDURE] >= 0 ? columns : null;
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column < 0 || column >= fields.size() ? "" : fields.get(column).trim();
+    }
+
+    // Separa una línea; con coma respeta las comillas ("" dentro de comillas es una comilla)
+    static List<String> split(String line, char separator) {
+        List<String> fields = new ArrayList<>();
+        if (separator == '\t') {
+            int from = 0;
+            for (int i = line.indexOf('\t'); i >= 0; i = line.indexOf('\t', from)) {
+                fields.add(line.substring(from, i));
+                from = i + 1;
+            }
+            fields.add(line.substring(from));
+            return fields;
+        }
+        StringBuilder current = new StringBuilder();
+        boolean inQuotes = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else if (c == separator && !inQuotes) {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+
+    private static final class Format {
+        final char separator;
+        final int[] columns;
+
+        Format(char separator, int[] columns) {
+            this.separator = separator;
+            this.columns = columns;
+        }
+    }
+
+    private static final class Chunk {
+        final List<Ticket> tickets;
+        final List<String> rejects = new ArrayList<>();
+
+        Chunk(int size) {
+            this.tickets = new ArrayList<>(size);
+        }
+    }
+
+    /**
+     * Resumen de una importación.
+     */
+    public static final class Result {
+        private final long imported;
+        private final long rejected;
+        private final long elapsedNanos;
+
+        Result(long imported, long rejected, long elapsedNanos) {
+            this.imported = imported;
+            this.rejected = rejected;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getImported() { return imported; }
+        public long getRejected() { return rejected; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        public double ticketsPerSecond() {
+            return elapsedNanos == 0 ? 0 : imported * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d importados, %d rechazados en %.1f ms (%.0f tickets/s)",
+                    imported, rejected, elapsedNanos / 1e6, ticketsPerSecond());
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package controller;
 
-import java.util.InputMismatchException;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.regex.Pattern;
 
 /**
  * CLIHelper
@@ -18,14 +26,50 @@ import java.util.Scanner;
  *   String ask(String prompt)
  *   int askOption(String prompt, int min, int max)
  *
+ * - Salida: directa a System.out/System.err (por defecto), con búfer (buffered(), para corridas
+ *   por lotes: se escribe al llenarse el búfer, en flush() o en close()) o descartada (silent()).
+ *   setVerbosity() elige hasta qué nivel se muestra (ERROR < WARNING < SUCCESS < INFO); lo que
+ *   queda afuera no se formatea.
+ * - Advertencias y errores repetidos se limitan: de cada mensaje (los que solo difieren en
+ *   números cuentan como el mismo) se muestran los primeros 'burst' por ventana de tiempo y el
+ *   resto se resume en una línea con el primer mensaje que se imprima después de cerrar la
+ *   ventana, o en flush().
+ *
  * Nota: usa ANSI colors; en terminales que no soporten ANSI los códigos aparecerán tal cual.
  * Si necesitás quitar los colores, asigná ENABLE_COLOR = false.
+ * Es seguro usarlo desde varios hilos.
  * @author Wilson Palma
  */
 public class CLIHelper implements AutoCloseable {
 
-    private final Scanner scanner;
+    /** Niveles de mensaje, del más al menos importante. */
+    public enum Level { ERROR, WARNING, SUCCESS, INFO }
+
+    public static final int DEFAULT_BURST = 5;
+    public static final Duration DEFAULT_WINDOW = Duration.ofSeconds(10);
+    private static final int MAX_TRACKED = 256;
+    private static final Pattern NUMBERS = Pattern.compile("\\d+");
+
+    private Scanner scanner;
     private final boolean ENABLE_COLOR;
+    private final PrintStream out;   // null = descartar (silent)
+    private final PrintStream err;
+    private Level verbosity = Level.INFO;
+    private int burst = DEFAULT_BURST;
+    private long windowNanos = DEFAULT_WINDOW.toNanos();
+    // mensaje sin números -> ventana de repeticiones (los menos usados se olvidan primero; si
+    // tenían mensajes omitidos, se escribe su resumen antes de olvidarlos)
+    private final Map<String, Repeats> repeats = new LinkedHashMap<String, Repeats>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Repeats> eldest) {
+            if (size() <= MAX_TRACKED) return false;
+            if (eldest.getValue().suppressed > 0) writeSuppressed(eldest.getValue());
+            return true;
+        }
+    };
+    // Hay mensajes omitidos sin resumir; el primer cierre de ventana entre ellos (en nanoTime)
+    private boolean summaryPending;
+    private long nextSummaryAt;
 
     // ANSI color codes
     private static final String RESET = "\u001B[0m";
@@ -34,6 +78,8 @@ public class CLIHelper implements AutoCloseable {
     private static final String YELLOW = "\u001B[33m";
     private static final String BLUE = "\u001B[34m";
     private static final String BOLD = "\u001B[1m";
+    private static final String[] COLORS = { RED, YELLOW, GREEN, BLUE };
+    private static final String[] TAGS = { "!!(error)!!", "!(warning)!", "✓(success)✓", "?(info)?" };
 
     public CLIHelper() {
         this(true);
@@ -44,45 +90,166 @@ public class CLIHelper implements AutoCloseable {
      * @param enableColor habilita/deshabilita códigos ANSI (útil en entornos Windows sin soporte ANSI)
      */
     public CLIHelper(boolean enableColor) {
-        this.scanner = new Scanner(System.in);
+        this(enableColor, System.out, System.err);
+    }
+
+    /**
+     * Constructor con destinos propios (p. ej. un archivo); errores van a err.
+     * Con ambos en null los mensajes se descartan.
+     */
+    public CLIHelper(boolean enableColor, PrintStream out, PrintStream err) {
         this.ENABLE_COLOR = enableColor;
+        this.out = out;
+        this.err = err != null ? err : out;
+    }
+
+    /**
+     * silent - helper que descarta todos los mensajes.
+     * Para llamadores que no son la consola (API asíncrona, servicios, benchmarks) y no quieren efectos secundarios.
+     */
+    public static CLIHelper silent() {
+        return new CLIHelper(false, null, null);
+    }
+
+    /**
+     * buffered - helper que escribe en la consola a través de un búfer de 64 KB, sin vaciarlo en
+     * cada línea. Para corridas por lotes; hay que llamar flush() (o close()) al terminar.
+     */
+    public static CLIHelper buffered(boolean enableColor) {
+        return new CLIHelper(enableColor,
+                new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false),
+                new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.err), 1 << 13), false));
+    }
+
+    // -------------------- Configuración --------------------
+
+    /** Muestra solo los mensajes hasta este nivel (INFO = todos). */
+    public synchronized void setVerbosity(Level verbosity) {
+        if (verbosity == null) throw new IllegalArgumentException("verbosity no puede ser null");
+        this.verbosity = verbosity;
+    }
+
+    public synchronized Level getVerbosity() {
+        return verbosity;
+    }
+
+    /** true si un mensaje de este nivel se mostraría (para no armar mensajes caros en vano). */
+    public synchronized boolean isEnabled(Level level) {
+        return out != null && level.compareTo(verbosity) <= 0;
+    }
+
+    /**
+     * Cuántas advertencias/errores iguales se muestran por ventana de tiempo.
+     * burst = Integer.MAX_VALUE desactiva el límite.
+     */
+    public synchronized void setRateLimit(int burst, Duration window) {
+        if (burst < 1 || window == null || window.isNegative()) throw new IllegalArgumentException("Límite inválido");
+        this.burst = burst;
+        this.windowNanos = window.toNanos();
+        if (summaryPending) nextSummaryAt = System.nanoTime(); // recalcular con la nueva ventana
     }
 
     // -------------------- Mensajes (uso los símbolos solicitados) --------------------
 
     public void printInfo(String msg) {
-        String tag = "?(info)?";
-        if (ENABLE_COLOR) {
-            System.out.println(BLUE + tag + " " + msg + RESET);
-        } else {
-            System.out.println(tag + " " + msg);
-        }
+        print(Level.INFO, msg);
     }
 
     public void printSuccess(String msg) {
-        String tag = "✓(success)✓";
-        if (ENABLE_COLOR) {
-            System.out.println(GREEN + tag + " " + msg + RESET);
-        } else {
-            System.out.println(tag + " " + msg);
-        }
+        print(Level.SUCCESS, msg);
     }
 
     public void printAlert(String msg) {
-        String tag = "!(warning)!";
-        if (ENABLE_COLOR) {
-            System.out.println(YELLOW + tag + " " + msg + RESET);
-        } else {
-            System.out.println(tag + " " + msg);
-        }
+        print(Level.WARNING, msg);
     }
 
     public void printError(String msg) {
-        String tag = "!!(error)!!";
-        if (ENABLE_COLOR) {
-            System.err.println(RED + tag + " " + msg + RESET);
-        } else {
-            System.err.println(tag + " " + msg);
+        print(Level.ERROR, msg);
+    }
+
+    /** Escribe los resúmenes de mensajes omitidos pendientes y vacía el búfer. */
+    public synchronized void flush() {
+        if (out == null) return;
+        for (Repeats r : repeats.values()) {
+            if (r.suppressed > 0) writeSuppressed(r);
+        }
+        summaryPending = false;
+        out.flush();
+        if (err != out) err.flush();
+    }
+
+    private synchronized void print(Level level, String msg) {
+        if (out == null) return;
+        if (summaryPending && System.nanoTime() - nextSummaryAt >= 0) writeExpiredSummaries();
+        if (level.compareTo(verbosity) > 0) return;
+        if (level.compareTo(Level.WARNING) <= 0 && burst != Integer.MAX_VALUE && !allow(level, msg)) return;
+        write(level, msg);
+    }
+
+    // Aplica el límite de repeticiones; false si el mensaje se omite
+    private boolean allow(Level level, String msg) {
+        String key = level.ordinal() + NUMBERS.matcher(msg).replaceAll("#");
+        long now = System.nanoTime();
+        Repeats r = repeats.get(key);
+        if (r == null || now - r.start >= windowNanos) {
+            if (r != null && r.suppressed > 0) writeSuppressed(r);
+            r = new Repeats(level, now);
+            repeats.put(key, r);
+        }
+        if (r.printed < burst) {
+            r.printed++;
+            return true;
+        }
+        if (r.suppressed++ == 0) scheduleSummary(r.start + windowNanos);
+        r.last = msg;
+        return false;
+    }
+
+    // Resume los mensajes omitidos de las ventanas ya cerradas y las olvida
+    private void writeExpiredSummaries() {
+        long now = System.nanoTime();
+        summaryPending = false;
+        for (Iterator<Repeats> it = repeats.values().iterator(); it.hasNext(); ) {
+            Repeats r = it.next();
+            if (now - r.start >= windowNanos) {
+                if (r.suppressed > 0) writeSuppressed(r);
+                it.remove();
+            } else if (r.suppressed > 0) {
+                scheduleSummary(r.start + windowNanos);
+            }
+        }
+    }
+
+    private void scheduleSummary(long at) {
+        if (!summaryPending || at - nextSummaryAt < 0) nextSummaryAt = at;
+        summaryPending = true;
+    }
+
+    private void writeSuppressed(Repeats r) {
+        write(r.level, "(" + r.suppressed + " mensajes similares omitidos; el último: " + r.last + ")");
+        r.suppressed = 0;
+    }
+
+    private void write(Level level, String msg) {
+        PrintStream stream = level == Level.ERROR ? err : out;
+        if (ENABLE_COLOR) stream.print(COLORS[level.ordinal()]);
+        stream.print(TAGS[level.ordinal()]);
+        stream.print(' ');
+        stream.print(msg);
+        if (ENABLE_COLOR) stream.print(RESET);
+        stream.println();
+    }
+
+    private static final class Repeats {
+        final Level level;
+        final long start;
+        int printed;
+        int suppressed;
+        String last;
+
+        Repeats(Level level, long start) {
+            this.level = level;
+            this.start = start;
         }
     }
 
@@ -95,8 +262,9 @@ public class CLIHelper implements AutoCloseable {
      */
     public String ask(String prompt) {
         try {
+            flush();
             System.out.print(prompt + " ");
-            String line = scanner.nextLine();
+            String line = scanner().nextLine();
             if (line == null) return "";
             return line.trim();
         } catch (NoSuchElementException | IllegalStateException ex) {
@@ -119,8 +287,9 @@ public class CLIHelper implements AutoCloseable {
         if (min > max) throw new IllegalArgumentException("min no puede ser mayor que max");
         while (true) {
             try {
+                flush();
                 System.out.print(String.format("%s (%d-%d): ", prompt, min, max));
-                String line = scanner.nextLine();
+                String line = scanner().nextLine();
                 if (line == null) {
                     printAlert("Entrada no disponible.");
                     continue;
@@ -161,11 +330,18 @@ public class CLIHelper implements AutoCloseable {
         }
     }
 
-    /** Cierra recursos (scanner). */
+    // El Scanner sobre System.in se crea recién al pedir la primera entrada
+    private synchronized Scanner scanner() {
+        if (scanner == null) scanner = new Scanner(System.in);
+        return scanner;
+    }
+
+    /** Vacía la salida y cierra recursos (scanner). */
     @Override
     public void close() {
+        flush();
         try {
-            scanner.close();
+            if (scanner != null) scanner.close();
         } catch (Exception ignored) {}
     }
 }
@@ -4,21 +4,42 @@ import domine.Ticket;
 import domine.TicketState;
 import domine.ProcedureType;
 import domine.Note;
+import domine.NoteIndex;
+import domine.TicketIndex;
+import domine.TicketQuery;
 import controller.command.AddTicketCommand;
 import controller.command.AddNoteCommand;
+import controller.command.BatchCommand;
+import controller.command.ChangeStateCommand;
 import controller.command.CloseCaseCommand;
+import controller.command.TicketCommandCodec;
+import controller.event.TicketEventPublisher;
+import domine.TicketEvent;
 import persistence.PersistenceManager;
+import persistence.UndoJournal;
 import reports.ReportManager;
+import util.IdAllocator;
 import util.StateMachine;
 import util.SystemClock;
 import estructures.AttentionQueue;
+import estructures.HistoryTable;
 import estructures.Queue;
 import estructures.SimpleList;
 import estructures.Node;
+import estructures.Page;
+import estructures.QueuePosition;
+import estructures.TicketArchive;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Controlador principal del sistema CAE.
@@ -30,12 +51,26 @@ public class CaeController {
 
     // Dependencias inyectadas (colas, persistencia, reportes, utilidades)
     private final AttentionQueue attentionQueue;
+    private static final String UNDO_JOURNAL = "undo_journal.bin";
+    private static final String REDO_JOURNAL = "redo_journal.bin";
+    private static final int ARCHIVE_FLUSH_BATCH = 1024;
+
     private final ActionStack actionStack;
     private final PersistenceManager persistenceManager;
     private final ReportManager reportManager;
     private final StateMachine stateMachine;
     private final SystemClock clock;
     private final CLIHelper cli;
+    private final TicketEventPublisher events;
+    private final PendingDocsTimers docsTimers;
+    private final NoteIndex noteIndex = new NoteIndex();
+    // id -> instante en que empezó su atención (alimenta la estimación de tiempos por tipo)
+    private final Map<Integer, Long> serviceStarts = new HashMap<>();
+    private final IdAllocator importIds = new IdAllocator();
+    // Archivados que todavía no se agregaron a 'archived_history.csv' (ver persistHistory)
+    private final List<Ticket> newlyArchived = new ArrayList<>();
+    private UndoJournal undoJournal;
+    private UndoJournal redoJournal;
 
     // Constructor: recibe e inicializa todas las dependencias necesarias
     public CaeController(AttentionQueue attentionQueue,
@@ -45,6 +80,19 @@ public class CaeController {
                          StateMachine stateMachine,
                          SystemClock clock,
                          CLIHelper cli) {
+        this(attentionQueue, actionStack, persistenceManager, reportManager, stateMachine, clock, cli,
+                new TicketEventPublisher());
+    }
+
+    // Constructor con publicador de eventos propio (executor/buffer configurados por el llamador)
+    public CaeController(AttentionQueue attentionQueue,
+                         ActionStack actionStack,
+                         PersistenceManager persistenceManager,
+                         ReportManager reportManager,
+                         StateMachine stateMachine,
+                         SystemClock clock,
+                         CLIHelper cli,
+                         TicketEventPublisher events) {
         this.attentionQueue = attentionQueue;
         this.actionStack = actionStack;
         this.persistenceManager = persistenceManager;
@@ -52,6 +100,27 @@ public class CaeController {
         this.stateMachine = stateMachine;
         this.clock = clock;
         this.cli = cli;
+        this.events = events;
+        this.docsTimers = new PendingDocsTimers(clock);
+        // el archivo del historial usa los mismos códigos de estudiante que los snapshots
+        if (attentionQueue != null && persistenceManager != null
+                && attentionQueue.getArchive() instanceof HistoryTable && attentionQueue.getArchive().size() == 0) {
+            attentionQueue.setArchive(new HistoryTable(persistenceManager.getStudentDictionary()));
+        }
+        if (attentionQueue != null && persistenceManager != null) attentionQueue.setArchiveListener(this::onArchived);
+        if (actionStack != null && persistenceManager != null) enableActionSpill();
+    }
+
+    // Las pilas de undo/redo se escriben en disco y sobreviven a un reinicio; los comandos de
+    // una ejecución anterior se decodifican recién al usarse, ya con los tickets cargados por start()
+    private void enableActionSpill() {
+        try {
+            undoJournal = persistenceManager.openUndoJournal(UNDO_JOURNAL);
+            redoJournal = persistenceManager.openUndoJournal(REDO_JOURNAL);
+            actionStack.enableSpill(new TicketCommandCodec(attentionQueue, noteIndex, events), undoJournal, redoJournal);
+        } catch (IOException ex) {
+            cli.printAlert("No se pudo abrir el diario de undo/redo; no se conservará entre ejecuciones: " + ex.getMessage());
+        }
     }
 
     // ------------------ Ciclo de vida ------------------
@@ -63,26 +132,33 @@ public class CaeController {
     public void start() {
         try {
             Queue<Ticket> pendingFromDisk = new Queue<>();
-            Queue<Ticket> historyFromDisk = new Queue<>();
-            persistenceManager.loadData(pendingFromDisk, historyFromDisk);
+            persistenceManager.loadPending(pendingFromDisk);
 
             while (!pendingFromDisk.isEmpty()) {
                 Ticket t = pendingFromDisk.dequeue();
                 try {
                     attentionQueue.addTicket(t);
+                    if (t.getState() == TicketState.PENDIENTE_DOCS) trackPendingDocs(t);
                 } catch (Exception inner) {
                     cli.printAlert("No se pudo agregar ticket ID=" + t.getId() + " durante carga: " + inner.getMessage());
                 }
             }
 
-            while (!historyFromDisk.isEmpty()) {
-                Ticket t = historyFromDisk.dequeue();
+            // El historial se lee de a un ticket: los archivados van directo al archivo y los
+            // recientes a memoria (los que exceden la ventana vuelven a bajar al archivo)
+            TicketArchive archive = attentionQueue.getArchive();
+            persistenceManager.loadHistory(archive::append, t -> {
+                // ya archivado: el proceso se cortó entre agregarlo al archivo y reescribir los recientes
+                if (archive.findById(t.getId()) != null) return;
                 try {
                     attentionQueue.moveToHistory(t);
                 } catch (Exception inner) {
                     cli.printAlert("No se pudo mover a historial ticket ID=" + t.getId() + ": " + inner.getMessage());
                 }
-            }
+            });
+            flushArchived();
+
+            loadNoteIndex();
 
             cli.printSuccess("Sistema cargado correctamente.");
         } catch (Exception ex) {
@@ -99,15 +175,34 @@ public class CaeController {
             persistenceManager.saveTickets(pendingSnapshot);
 
             SimpleList<Ticket> history = attentionQueue.getAttendedHistory();
-            persistenceManager.saveHistory(history);
+            persistHistory();
 
             saveAllTicketNotes(pendingSnapshot);
             saveAllTicketNotes(history);
+            persistenceManager.saveNoteIndex(noteIndex);
+            persistenceManager.saveTicketBitmaps(attentionQueue.getIndex());
 
             cli.printSuccess("Estado guardado correctamente.");
         } catch (Exception ex) {
             cli.printError("Error al persistir datos en shutdown: " + ex.getMessage());
         }
+        // el archivo en disco es de desborde: ya quedó todo en archived_history.csv y completed_history.csv
+        if (attentionQueue.getArchive() instanceof Closeable) {
+            try {
+                ((Closeable) attentionQueue.getArchive()).close();
+            } catch (IOException ex) {
+                cli.printError("Error al cerrar el archivo del historial: " + ex.getMessage());
+            }
+        }
+        for (UndoJournal journal : new UndoJournal[]{ undoJournal, redoJournal }) {
+            if (journal == null) continue;
+            try {
+                journal.close();
+            } catch (IOException ex) {
+                cli.printError("Error al cerrar el diario de undo/redo: " + ex.getMessage());
+            }
+        }
+        events.close();
     }
 
     // ------------------ Operaciones principales ------------------
@@ -122,17 +217,22 @@ public class CaeController {
             throw new IllegalArgumentException("El nombre del estudiante no puede ser vacío");
         }
 
+        // estudiantes que vuelven comparten la instancia del nombre
+        if (persistenceManager != null) student = persistenceManager.getStudentDictionary().canonical(student);
         Ticket t = new Ticket(student, type);
         t.setState(urgentFlag ? TicketState.URGENTE : TicketState.EN_COLA);
-        t.setId(attentionQueue.getTotalWaiting() + attentionQueue.getAttendedHistory().size() + 1);
+        t.setCreatedAt(clock.now());
+        t.setId(attentionQueue.getTotalWaiting() + attentionQueue.getHistorySize() + 1);
+        noteIndex.removeTicket(t.getId()); // el id puede reutilizarse tras deshacer una creación
 
         try {
             Queue<Ticket> targetQueue = urgentFlag ? attentionQueue.getUrgentQueue() : attentionQueue.getNormalQueue();
             if (targetQueue == null) {
                 attentionQueue.addTicket(t);
+                events.publish(TicketEvent.Type.CREATED, t, null, t.getState(), t.getStudent());
                 cli.printAlert("Cola interna no disponible; ticket añadido via attentionQueue.addTicket().");
             } else {
-                AddTicketCommand cmd = new AddTicketCommand(targetQueue, t);
+                AddTicketCommand cmd = new AddTicketCommand(targetQueue, t, events);
                 cmd.execute();
                 actionStack.registerAction(cmd);
             }
@@ -143,7 +243,8 @@ public class CaeController {
                 cli.printAlert("Advertencia: no se pudo persistir inmediatamente: " + pex.getMessage());
             }
 
-            cli.printSuccess("✓(Ticket creado)✓ ID=" + t.getId());
+            // con la salida filtrada (guiones, --script) ni se arma el mensaje
+            if (cli.isEnabled(CLIHelper.Level.SUCCESS)) cli.printSuccess("✓(Ticket creado)✓ ID=" + t.getId());
             return t;
         } catch (Exception ex) {
             cli.printError("Error creando ticket: " + ex.getMessage());
@@ -170,7 +271,13 @@ public class CaeController {
             }
 
             next.setState(TicketState.EN_ATENCION);
-            cli.printInfo("Atendiendo ticket ID=" + next.getId() + " — alumno: " + next.getStudent());
+            if (prev != TicketState.EN_ATENCION) attentionQueue.markServed(next);
+            if (prev == TicketState.PENDIENTE_DOCS) docsTimers.cancel(next.getId());
+            serviceStarts.putIfAbsent(next.getId(), clock.getClock().millis());
+            if (prev != TicketState.EN_ATENCION) {
+                events.publish(TicketEvent.Type.STATE_CHANGED, next, prev, TicketState.EN_ATENCION, null);
+            }
+            if (cli.isEnabled(CLIHelper.Level.INFO)) cli.printInfo("Atendiendo ticket ID=" + next.getId() + " — alumno: " + next.getStudent());
             return next;
         } catch (NoSuchElementException ex) {
             throw ex;
@@ -204,18 +311,24 @@ public class CaeController {
 
             SimpleList<Ticket> attendedHistory = attentionQueue.getAttendedHistory();
 
-            CloseCaseCommand closeCmd = new CloseCaseCommand(ticket, sourceQueue, attendedHistory);
+            CloseCaseCommand closeCmd = new CloseCaseCommand(ticket, sourceQueue, attendedHistory, events);
             closeCmd.execute();
             actionStack.registerAction(closeCmd);
 
+            Long startedAt = serviceStarts.remove(ticket.getId());
+            if (startedAt != null) {
+                attentionQueue.getServiceTimes().record(ticket.getProcedureType(),
+                        Duration.ofMillis(clock.getClock().millis() - startedAt));
+            }
+
             try {
-                persistenceManager.saveHistory(attentionQueue.getAttendedHistory());
+                persistHistory();
                 persistenceManager.saveTickets(buildPendingSnapshotFromQueues());
             } catch (Exception pex) {
                 cli.printAlert("Advertencia: no se pudo persistir inmediatamente tras finalizar: " + pex.getMessage());
             }
 
-            cli.printSuccess("✓(Ticket finalizado)✓ ID=" + ticket.getId());
+            if (cli.isEnabled(CLIHelper.Level.SUCCESS)) cli.printSuccess("✓(Ticket finalizado)✓ ID=" + ticket.getId());
         } catch (Exception ex) {
             cli.printError("Error finalizando ticket ID=" + ticket.getId() + ": " + ex.getMessage());
             throw new RuntimeException("finalizeTicket failed", ex);
@@ -235,10 +348,11 @@ public class CaeController {
             cli.printError("!(This field cannot be empty)!");
             throw new IllegalArgumentException("observación vacía");
         }
+        requireWritable(ticket, "notas");
 
         try {
             Note note = new Note(observation);
-            AddNoteCommand cmd = new AddNoteCommand(ticket, note);
+            AddNoteCommand cmd = new AddNoteCommand(ticket, note, events, noteIndex);
             cmd.execute();
             actionStack.registerAction(cmd);
 
@@ -248,7 +362,7 @@ public class CaeController {
                 cli.printAlert("Advertencia: no se pudo persistir las notas inmediatamente: " + pex.getMessage());
             }
 
-            cli.printSuccess("✓(Nota agregada)✓ Ticket ID=" + ticket.getId());
+            if (cli.isEnabled(CLIHelper.Level.SUCCESS)) cli.printSuccess("✓(Nota agregada)✓ Ticket ID=" + ticket.getId());
             return note;
         } catch (Exception ex) {
             cli.printError("Error agregando nota a ticket ID=" + ticket.getId() + ": " + ex.getMessage());
@@ -266,6 +380,7 @@ public class CaeController {
                 cli.printError("Ticket no encontrado: " + ticketId);
                 throw new NoSuchElementException("Ticket no encontrado");
             }
+            requireWritable(t, "cambios de estado");
             TicketState from = t.getState();
             if (!stateMachine.isValidTransition(from, newState)) {
                 cli.printAlert("Transición inválida: " + from + " -> " + newState);
@@ -280,26 +395,28 @@ public class CaeController {
 
             }
 
-            if(newState == TicketState.URGENTE) {
-                attentionQueue.getNormalQueue().remove(t);
-                attentionQueue.getUrgentQueue().enqueue(t);
-            }
-
-            if(t.getState() == TicketState.URGENTE && newState == TicketState.EN_COLA) {
-                attentionQueue.getUrgentQueue().remove(t);
-                attentionQueue.getNormalQueue().enqueue(t);
+            // URGENTE vive en la cola urgente y EN_COLA en la normal (aunque venga de PENDIENTE_DOCS)
+            if (newState == TicketState.URGENTE || newState == TicketState.EN_COLA) {
+                moveToLane(t, newState == TicketState.URGENTE);
             }
 
             t.setState(newState);
+            if (from != newState) events.publish(TicketEvent.Type.STATE_CHANGED, t, from, newState, null);
+
+            if (newState == TicketState.PENDIENTE_DOCS && from != TicketState.PENDIENTE_DOCS) {
+                trackPendingDocs(t);
+            } else if (from == TicketState.PENDIENTE_DOCS && newState != TicketState.PENDIENTE_DOCS) {
+                docsTimers.cancel(ticketId);
+            }
 
             try {
                 persistenceManager.saveTickets(buildPendingSnapshotFromQueues());
-                persistenceManager.saveHistory(attentionQueue.getAttendedHistory());
+                persistHistory();
             } catch (Exception pex) {
                 cli.printAlert("Advertencia: error al persistir tras cambio de estado: " + pex.getMessage());
             }
 
-            cli.printSuccess("✓(Estado cambiado)✓ ID=" + ticketId + ": " + from + " -> " + newState);
+            if (cli.isEnabled(CLIHelper.Level.SUCCESS)) cli.printSuccess("✓(Estado cambiado)✓ ID=" + ticketId + ": " + from + " -> " + newState);
         } catch (Exception ex) {
             cli.printError("Error cambiando estado ticket ID=" + ticketId + ": " + ex.getMessage());
             // Propagar la excepción (sin re-lanzarla sin procesamiento) para mantener la traza original
@@ -307,45 +424,272 @@ public class CaeController {
         }
     }
 
-    // ------------------ Undo/Redo ------------------
-
     /**
-     * Deshace la última acción registrada en la pila de acciones.
-     * Persiste el estado resultante.
+     * Cambia el estado de varios tickets como una sola acción: valida todo el lote antes de
+     * tocar nada (si algo falla no se aplica ninguno), registra una única entrada de undo y
+     * persiste una sola vez al final. COMPLETADO cierra los tickets, pasando por EN_ATENCION
+     * cuando la máquina de estados lo exige (p. ej. cerrar los de un trámite cancelado).
+     *
+     * @return cantidad de tickets modificados
      */
-    public void undo() {
+    public int batch(List<Integer> ticketIds, TicketState newState) {
+        if (ticketIds == null || newState == null) {
+            throw new IllegalArgumentException("ids y estado no pueden ser null");
+        }
+        if (newState == TicketState.EN_ATENCION && ticketIds.size() > 1) {
+            cli.printAlert("No se puede atender más de un ticket a la vez.");
+            throw new IllegalArgumentException("EN_ATENCION no se aplica en lote");
+        }
+
+        // Una sola pasada de validación
+        List<Ticket> tickets = new ArrayList<>(ticketIds.size());
+        List<String> problems = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (Integer id : ticketIds) {
+            if (id == null || !seen.add(id)) {
+                problems.add("ID " + id + ": repetido o nulo");
+                continue;
+            }
+            Ticket t = findTicketById(id);
+            if (t == null || t.getState() == TicketState.COMPLETADO) {
+                problems.add("ID " + id + ": no está en espera");
+                continue;
+            }
+            TicketState from = t.getState();
+            boolean valid = newState == TicketState.COMPLETADO && from != TicketState.EN_ATENCION
+                    ? stateMachine.isValidTransition(from, TicketState.EN_ATENCION)
+                        && stateMachine.isValidTransition(TicketState.EN_ATENCION, TicketState.COMPLETADO)
+                    : stateMachine.isValidTransition(from, newState);
+            if (!valid) {
+                problems.add("ID " + id + ": " + from + " -> " + newState);
+                continue;
+            }
+            tickets.add(t);
+        }
+        if (!problems.isEmpty()) {
+            cli.printAlert("Lote rechazado (" + problems.size() + " problemas): "
+                    + String.join("; ", problems.subList(0, Math.min(5, problems.size())))
+                    + (problems.size() > 5 ? "; ..." : ""));
+            throw new IllegalArgumentException("Lote inválido: " + problems.get(0));
+        }
+        if (tickets.isEmpty()) return 0;
+
         try {
-            actionStack.undo();
+            List<IAction> actions = new ArrayList<>(tickets.size() * 2);
+            for (Ticket t : tickets) {
+                if (newState == TicketState.COMPLETADO) {
+                    if (t.getState() != TicketState.EN_ATENCION) {
+                        actions.add(new ChangeStateCommand(attentionQueue, t, TicketState.EN_ATENCION, events));
+                    }
+                    Queue<Ticket> source = findSourceQueueForTicket(t);
+                    actions.add(new CloseCaseCommand(t, source != null ? source : attentionQueue.getNormalQueue(),
+                            attentionQueue.getAttendedHistory(), events));
+                } else {
+                    actions.add(new ChangeStateCommand(attentionQueue, t, newState, events));
+                }
+            }
+            List<TicketState> before = new ArrayList<>(tickets.size());
+            for (Ticket t : tickets) before.add(t.getState());
+
+            BatchCommand cmd = new BatchCommand(actions, "Lote: " + tickets.size() + " tickets -> " + newState);
+            cmd.execute();
+            actionStack.registerAction(cmd);
+
+            for (int i = 0; i < tickets.size(); i++) {
+                Ticket t = tickets.get(i);
+                if (newState == TicketState.PENDIENTE_DOCS && before.get(i) != TicketState.PENDIENTE_DOCS) {
+                    trackPendingDocs(t);
+                } else if (before.get(i) == TicketState.PENDIENTE_DOCS && newState != TicketState.PENDIENTE_DOCS) {
+                    docsTimers.cancel(t.getId());
+                }
+                if (newState == TicketState.COMPLETADO) serviceStarts.remove(t.getId());
+            }
+
             try {
                 persistenceManager.saveTickets(buildPendingSnapshotFromQueues());
-                persistenceManager.saveHistory(attentionQueue.getAttendedHistory());
+                persistHistory();
             } catch (Exception pex) {
-                cli.printAlert("Advertencia: error al persistir tras undo: " + pex.getMessage());
+                cli.printAlert("Advertencia: error al persistir tras el lote: " + pex.getMessage());
             }
-            cli.printSuccess("✓(Undo realizado)✓");
+
+            cli.printSuccess("✓(Lote aplicado)✓ " + tickets.size() + " tickets -> " + newState);
+            return tickets.size();
         } catch (Exception ex) {
-            cli.printError("No se pudo realizar undo: " + ex.getMessage());
+            cli.printError("Error aplicando lote: " + ex.getMessage());
+            throw new RuntimeException("batch failed", ex);
         }
     }
 
     /**
-     * Rehace la última acción deshecha.
+     * Encola un lote de tickets ya validados (importación masiva, ver BulkImporter): reserva
+     * los ids del lote de una vez, los agrega a su cola según el estado y los agrega al
+     * archivo de pendientes con una sola escritura. Como la carga inicial, no se registra
+     * para deshacer.
+     *
+     * @return cantidad de tickets encolados
      */
-    public void redo() {
+    public int importTickets(List<Ticket> tickets) {
+        if (tickets == null || tickets.isEmpty()) return 0;
         try {
-            actionStack.redo();
+            importIds.ensureAbove(attentionQueue.getTotalWaiting() + attentionQueue.getHistorySize());
+            int id = importIds.allocate(tickets.size());
+            for (Ticket t : tickets) {
+                if (persistenceManager != null) {
+                    t.setStudent(persistenceManager.getStudentDictionary().canonical(t.getStudent()));
+                }
+                t.setId(id++);
+                noteIndex.removeTicket(t.getId());
+                attentionQueue.addTicket(t);
+                if (t.getState() == TicketState.PENDIENTE_DOCS) trackPendingDocs(t);
+                events.publish(TicketEvent.Type.CREATED, t, null, t.getState(), t.getStudent());
+            }
+
             try {
-                persistenceManager.saveTickets(buildPendingSnapshotFromQueues());
-                persistenceManager.saveHistory(attentionQueue.getAttendedHistory());
+                persistenceManager.appendTickets(tickets);
             } catch (Exception pex) {
-                cli.printAlert("Advertencia: error al persistir tras redo: " + pex.getMessage());
+                cli.printAlert("Advertencia: no se pudo persistir el lote importado: " + pex.getMessage());
             }
+            return tickets.size();
+        } catch (Exception ex) {
+            cli.printError("Error importando tickets: " + ex.getMessage());
+            throw new RuntimeException("importTickets failed", ex);
+        }
+    }
+
+    // ------------------ Plazos de PENDIENTE_DOCS ------------------
+
+    /**
+     * Dispara los recordatorios y vencimientos de PENDIENTE_DOCS que ya cumplieron su plazo
+     * según el reloj del sistema. Se llama periódicamente (bucle del CLI, servicio HTTP).
+     * De paso baja al archivo los atendidos que superaron la antigüedad del historial en memoria.
+     *
+     * @return cantidad de temporizadores disparados
+     */
+    public int processTimers() {
+        attentionQueue.archiveExpiredHistory();
+        return docsTimers.advance();
+    }
+
+    // Programa recordatorio y vencimiento de un ticket que acaba de entrar a PENDIENTE_DOCS
+    private void trackPendingDocs(Ticket t) {
+        int id = t.getId();
+        long since = clock.getClock().millis();
+        docsTimers.track(id, () -> remindPendingDocs(id, since), () -> expirePendingDocs(id));
+    }
+
+    // Recordatorio: nota automática (no se registra en undo/redo)
+    private void remindPendingDocs(int ticketId, long sinceMillis) {
+        Ticket t = findTicketById(ticketId);
+        if (t == null || t.getState() != TicketState.PENDIENTE_DOCS) return;
+        long hours = (clock.getClock().millis() - sinceMillis) / 3_600_000L;
+        try {
+            new AddNoteCommand(t, new Note("Recordatorio automático: documentos pendientes desde hace "
+                    + hours + " h"), events, noteIndex).execute();
+            persistenceManager.saveNotesForTicket(t);
+            cli.printAlert("Recordatorio: ticket ID=" + ticketId + " sigue pendiente de documentos.");
+        } catch (Exception ex) {
+            cli.printAlert("No se pudo registrar recordatorio del ticket ID=" + ticketId + ": " + ex.getMessage());
+        }
+    }
+
+    // Vencimiento: reencolar o escalar, pasando por la validación de la máquina de estados
+    private void expirePendingDocs(int ticketId) {
+        Ticket t = findTicketById(ticketId);
+        if (t == null || t.getState() != TicketState.PENDIENTE_DOCS) return;
+        TicketState target = docsTimers.getExpiryAction().getTarget();
+        try {
+            changeTicketState(ticketId, target);
+            cli.printAlert("Plazo de documentos vencido: ticket ID=" + ticketId + " pasa a " + target);
+        } catch (Exception ex) {
+            cli.printAlert("No se pudo aplicar el vencimiento del ticket ID=" + ticketId + ": " + ex.getMessage());
+        }
+    }
+
+    // ------------------ Undo/Redo ------------------
+
+    /**
+     * Deshace la última acción (para la CLI: los errores se informan por consola).
+     */
+    public void undo() {
+        try {
+            undoOrFail();
+            cli.printSuccess("✓(Undo realizado)✓");
+        } catch (Exception ex) {
+            cli.printError("No se pudo realizar undo: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Rehace la última acción deshecha (para la CLI: los errores se informan por consola).
+     */
+    public void redo() {
+        try {
+            redoOrFail();
             cli.printSuccess("✓(Redo realizado)✓");
         } catch (Exception ex) {
             cli.printError("No se pudo realizar redo: " + ex.getMessage());
         }
     }
 
+    /**
+     * Deshace la última acción y persiste. Para llamadores que no son la CLI (API asíncrona,
+     * guiones): si no hay nada que deshacer lanza NoSuchElementException; si la acción falla,
+     * RuntimeException("undo failed", causa).
+     */
+    public void undoOrFail() {
+        if (actionStack.peekUndo() == null) throw new NoSuchElementException("No hay acciones por deshacer");
+        try {
+            actionStack.undo();
+        } catch (Exception ex) {
+            throw new RuntimeException("undo failed", ex);
+        }
+        persistAfter("undo");
+    }
+
+    /**
+     * Rehace la última acción deshecha y persiste; errores como en undoOrFail().
+     */
+    public void redoOrFail() {
+        if (actionStack.peekRedo() == null) throw new NoSuchElementException("No hay acciones por rehacer");
+        try {
+            actionStack.redo();
+        } catch (Exception ex) {
+            throw new RuntimeException("redo failed", ex);
+        }
+        persistAfter("redo");
+    }
+
+    private void persistAfter(String operation) {
+        try {
+            persistenceManager.saveTickets(buildPendingSnapshotFromQueues());
+            persistHistory();
+        } catch (Exception pex) {
+            cli.printAlert("Advertencia: error al persistir tras " + operation + ": " + pex.getMessage());
+        }
+    }
+
+    /**
+     * Persiste el historial sin reescribirlo entero: aplica la ventana en memoria, agrega los
+     * recién archivados a su archivo (solo se agregan líneas) y reescribe el de recientes.
+     */
+    private void persistHistory() {
+        attentionQueue.trimHistory();
+        flushArchived();
+        persistenceManager.saveHistory(attentionQueue.getAttendedHistory());
+    }
+
+    // Cada ticket que AttentionQueue pasa al archivo; se escriben por lotes para acotar la memoria
+    private void onArchived(Ticket t) {
+        newlyArchived.add(t);
+        if (newlyArchived.size() >= ARCHIVE_FLUSH_BATCH) flushArchived();
+    }
+
+    private void flushArchived() {
+        if (newlyArchived.isEmpty()) return;
+        persistenceManager.appendArchivedHistory(newlyArchived);
+        newlyArchived.clear();
+    }
+
     // ------------------ Reportes / Consultas ------------------
 
     /**
@@ -364,10 +708,89 @@ public class CaeController {
         return out;
     }
 
+    /**
+     * Página de tickets pendientes (urgentes y luego normales) a partir de un cursor
+     * (null = primera página). Memoria y tiempo dependen del tamaño de página, no de la cola.
+     */
+    public Page<Ticket> pagePending(String cursor, int limit) {
+        return attentionQueue.page(cursor, limit);
+    }
+
+    // Página del historial de atendidos, en orden de atención
+    public Page<Ticket> pageHistory(String cursor, int limit) {
+        return attentionQueue.pageHistory(cursor, limit);
+    }
+
+    /**
+     * Posición en la sala de espera y tiempo estimado de un ticket en cola, sin recorrer las colas.
+     * Retorna null si el ticket no está en cola.
+     */
+    public QueuePosition getQueuePosition(int ticketId) {
+        return attentionQueue.getQueuePosition(ticketId);
+    }
+
+    /**
+     * Tickets (en cola o en historial) de un estudiante; el nombre se compara sin tildes,
+     * mayúsculas ni espacios extra.
+     */
+    public List<Ticket> findTicketsByStudent(String student) {
+        return attentionQueue.getIndex().byStudent(student);
+    }
+
+    public List<Ticket> findTicketsByState(TicketState state) {
+        return attentionQueue.getIndex().byState(state);
+    }
+
+    public List<Ticket> findTicketsByType(ProcedureType type) {
+        return attentionQueue.getIndex().byType(type);
+    }
+
+    /**
+     * Filtro combinado por estado, tipo y si tiene notas (null = cualquiera), resuelto con
+     * operaciones de bitmaps. Resultado en orden de id.
+     */
+    public List<Ticket> filterTickets(TicketState state, ProcedureType type, Boolean hasNotes) {
+        TicketQuery q = new TicketQuery();
+        if (state != null) q.states(state);
+        if (type != null) q.types(type);
+        if (hasNotes != null) {
+            if (hasNotes) q.minNotes(1);
+            else q.maxNotes(0);
+        }
+        return query(q);
+    }
+
+    /**
+     * Ejecuta una consulta sobre todos los tickets (colas e historial); el planificador de
+     * TicketQuery elige el índice a usar.
+     */
+    public List<Ticket> query(TicketQuery q) {
+        return q.list(attentionQueue.getIndex());
+    }
+
+    public TicketQuery.QueryPlan explain(TicketQuery q) {
+        return q.plan(attentionQueue.getIndex());
+    }
+
+    public void generateReportCountsByStateAndType(boolean exportCsv, String csvPath) {
+        try {
+            reportManager.showCountsByStateAndType(attentionQueue.getIndex(), attentionQueue.getArchive(), exportCsv, csvPath);
+        } catch (Exception ex) {
+            cli.printError("Error generando reporte de conteos: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Busca en las notas de todos los tickets (sin tildes ni mayúsculas; "ced*" busca por prefijo).
+     * Retorna los ids de ticket, primero los de más coincidencias.
+     */
+    public List<Integer> searchNotes(String query) {
+        return noteIndex.search(query);
+    }
+
     public void generateReportPendingByType(boolean exportCsv, String csvPath) {
         try {
-            SimpleList<Ticket> snapshot = buildPendingSnapshotFromQueues();
-            reportManager.showPendingByType(snapshot, exportCsv, csvPath);
+            reportManager.showPendingByType(buildPendingSnapshotFromQueues(), exportCsv, csvPath);
             cli.printInfo("Reporte generado en pantalla.");
             if (exportCsv) cli.printSuccess("CSV guardado en: " + csvPath);
         } catch (Exception ex) {
@@ -375,6 +798,14 @@ public class CaeController {
         }
     }
 
+    public void generateReportCompleted(boolean exportCsv, String csvPath) {
+        reportManager.showCompleted(attentionQueue.getIndex(), attentionQueue.getArchive(), exportCsv, csvPath);
+    }
+
+    public void generateReportTopKByNotes(int k, boolean exportCsv, String csvPath) {
+        reportManager.showTopKByNotes(attentionQueue.getIndex(), k, exportCsv, csvPath);
+    }
+
     // ------------------ Helpers privados ------------------
 
     /**
@@ -403,6 +834,37 @@ public class CaeController {
         return null;
     }
 
+    /**
+     * Carga el índice de notas guardado; si no existe o no coincide con las notas cargadas
+     * (por ejemplo, tras un cierre inesperado) se reconstruye recorriendo las notas.
+     */
+    private void loadNoteIndex() {
+        List<Ticket> pending = listPending();
+        int notes = 0;
+        for (Ticket t : pending) notes += t.getNoteHistory().size();
+        for (Ticket t : attentionQueue.fullHistory()) notes += t.getNoteHistory().size();
+
+        if (persistenceManager.loadNoteIndex(noteIndex) && noteIndex.noteCount() == notes) return;
+        noteIndex.clear();
+        for (Ticket t : pending) {
+            for (Note n : t.getNoteHistory()) noteIndex.addNote(t.getId(), n);
+        }
+        for (Ticket t : attentionQueue.fullHistory()) {
+            for (Note n : t.getNoteHistory()) noteIndex.addNote(t.getId(), n);
+        }
+    }
+
+    /**
+     * Mueve el ticket a la cola urgente o normal si está en la otra.
+     */
+    private void moveToLane(Ticket t, boolean urgent) {
+        Queue<Ticket> target = urgent ? attentionQueue.getUrgentQueue() : attentionQueue.getNormalQueue();
+        Queue<Ticket> source = findSourceQueueForTicket(t);
+        if (source == null || source == target) return;
+        source.remove(t);
+        target.enqueue(t);
+    }
+
     /**
      * Construye un SimpleList con snapshot de las colas pendientes (urgente + normal).
      * Mantiene el orden relativo: primero urgentes luego normales.
@@ -427,19 +889,18 @@ public class CaeController {
     }
 
     /**
-     * Lee todos los elementos de la cola y los devuelve en una lista, restaurando la cola original.
-     * Útil para crear snapshots sin alterar el estado.
+     * Lee todos los elementos de la cola y los devuelve en una lista, sin alterar la cola.
+     * Recorre los nodos en lugar de desencolar/re-encolar, para que la política de atención
+     * no vea salidas y entradas falsas (perdería el tiempo de espera de cada ticket).
      */
     private List<Ticket> snapshotQueuePreserve(Queue<Ticket> q) {
         List<Ticket> res = new ArrayList<>();
         if (q == null) return res;
-        Queue<Ticket> tmp = new Queue<>();
-        while (!q.isEmpty()) {
-            Ticket t = q.dequeue();
-            res.add(t);
-            tmp.enqueue(t);
+        Node<Ticket> n = q.getFront();
+        while (n != null) {
+            res.add(n.value);
+            n = n.next;
         }
-        while (!tmp.isEmpty()) q.enqueue(tmp.dequeue());
         return res;
     }
 
@@ -460,27 +921,25 @@ public class CaeController {
     }
 
     /**
-     * Busca un ticket por ID en las colas y en el historial.
-     * Retorna null si no lo encuentra.
+     * Los tickets archivados que devuelve findTicketById son vistas de solo lectura: se rechaza
+     * la escritura con un error claro (CONFLICT) en vez de dejar que la vista falle.
+     */
+    private void requireWritable(Ticket t, String what) {
+        if (!t.isReadOnly()) return;
+        cli.printAlert("El ticket ID=" + t.getId() + " está archivado; no admite " + what + ".");
+        throw new CaeOperationException(CaeOperationException.ErrorCode.CONFLICT,
+                "El ticket ID=" + t.getId() + " está archivado (solo lectura): no admite " + what, null);
+    }
+
+    /**
+     * Busca un ticket por ID: en el índice (ambas colas e historial en memoria) y luego en el
+     * archivo. Retorna null si no lo encuentra.
      */
     public Ticket findTicketById(int ticketId) {
         try {
-            Queue<Ticket> urgentQ = attentionQueue.getUrgentQueue();
-            if (urgentQ != null) {
-                for (Ticket t : snapshotQueuePreserve(urgentQ)) if (t.getId() == ticketId) return t;
-            }
-            Queue<Ticket> normalQ = attentionQueue.getNormalQueue();
-            if (normalQ != null) {
-                for (Ticket t : snapshotQueuePreserve(normalQ)) if (t.getId() == ticketId) return t;
-            }
-            SimpleList<Ticket> history = attentionQueue.getAttendedHistory();
-            if (history != null) {
-                Node<Ticket> n = history.head;
-                while (n != null) {
-                    if (n.value.getId() == ticketId) return n.value;
-                    n = n.next;
-                }
-            }
+            Ticket indexed = attentionQueue.getIndex().findById(ticketId);
+            if (indexed != null) return indexed;
+            return attentionQueue.getArchive().findById(ticketId);
         } catch (Exception ex) {
             cli.printAlert("Advertencia al buscar ticket por ID: " + ex.getMessage());
         }
@@ -494,4 +953,8 @@ public class CaeController {
     public StateMachine getStateMachine() { return stateMachine; }
     public SystemClock getClock() { return clock; }
     public ActionStack getActionStack() { return actionStack; }
+    public TicketEventPublisher getEvents() { return events; }
+    public PendingDocsTimers getDocsTimers() { return docsTimers; }
+    public CLIHelper getCli() { return cli; }
+    public NoteIndex getNoteIndex() { return noteIndex; }
 }
\ No newline at end of file
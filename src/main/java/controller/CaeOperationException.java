@@ -0,0 +1,73 @@
+package controller;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Error estructurado de una operación del controlador.
+ * Reemplaza los mensajes por consola y los RuntimeException genéricos
+ * para llamadores que no son la CLI (API asíncrona, servicio HTTP).
+ * @author Wilson Palma
+ */
+public class CaeOperationException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Categoría del error, estable para que los llamadores puedan decidir qué hacer. */
+    public enum ErrorCode {
+        INVALID_ARGUMENT(400),   // parámetros vacíos, tipo o estado inexistente
+        NOT_FOUND(404),          // ticket inexistente o colas vacías
+        CONFLICT(409),           // transición inválida o ticket ya en atención
+        INTERNAL(500);           // cualquier otro error
+
+        private final int httpStatus;
+
+        ErrorCode(int httpStatus) {
+            this.httpStatus = httpStatus;
+        }
+
+        public int getHttpStatus() {
+            return httpStatus;
+        }
+    }
+
+    private final ErrorCode code;
+
+    public CaeOperationException(ErrorCode code, String message, Throwable cause) {
+        super(message, cause);
+        this.code = code;
+    }
+
+    public ErrorCode getCode() {
+        return code;
+    }
+
+    /**
+     * Traduce una excepción lanzada por CaeController a un error estructurado.
+     * Desenvuelve los RuntimeException("... failed", causa) que usa el controlador.
+     */
+    public static CaeOperationException from(Throwable ex) {
+        if (ex instanceof CaeOperationException) return (CaeOperationException) ex;
+        Throwable cause = ex;
+        while (cause.getClass() == RuntimeException.class && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof CaeOperationException) return (CaeOperationException) cause;
+        ErrorCode code;
+        if (cause instanceof NoSuchElementException) {
+            code = ErrorCode.NOT_FOUND;
+        } else if (cause instanceof IllegalStateException) {
+            code = ErrorCode.CONFLICT;
+        } else if (cause instanceof IllegalArgumentException) {
+            code = ErrorCode.INVALID_ARGUMENT; // incluye NumberFormatException y Enum.valueOf()
+        } else {
+            code = ErrorCode.INTERNAL;
+        }
+        String msg = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        return new CaeOperationException(code, msg, cause);
+    }
+
+    @Override
+    public String toString() {
+        return "CaeOperationException{" + code + ": " + getMessage() + '}';
+    }
+}
@@ -8,4 +8,9 @@ package controller;
 public interface IAction {
     void execute();
     void undo();
+
+    // Memoria aproximada que retiene el comando (presupuesto de ActionStack)
+    default long estimatedBytes() {
+        return 64;
+    }
 }
@@ -0,0 +1,121 @@
+package controller;
+
+import domine.TicketState;
+import util.SystemClock;
+import util.TimingWheel;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Plazos de los tickets en PENDIENTE_DOCS, sobre una TimingWheel.
+ * Por ticket se programan dos temporizadores: un recordatorio (nota automática) y un vencimiento
+ * que devuelve el ticket a la cola o lo escala a URGENTE según ExpiryAction.
+ * Programar y cancelar son O(1); no hay que recorrer las colas buscando tickets vencidos.
+ * Los plazos no se persisten: al arrancar se vuelven a contar desde cero.
+ * @author Wilson Palma
+ */
+public class PendingDocsTimers {
+
+    // Qué hacer cuando vence el plazo de documentos
+    public enum ExpiryAction {
+        REQUEUE(TicketState.EN_COLA),
+        ESCALATE(TicketState.URGENTE);
+
+        private final TicketState target;
+
+        ExpiryAction(TicketState target) {
+            this.target = target;
+        }
+
+        public TicketState getTarget() {
+            return target;
+        }
+    }
+
+    public static final long DEFAULT_TICK_MILLIS = 1000;
+
+    private final TimingWheel wheel;
+    private final Map<Integer, TimingWheel.Timeout[]> byTicket = new HashMap<>();
+    private Duration reminderAfter = Duration.ofHours(24);
+    private Duration expireAfter = Duration.ofHours(72);
+    private ExpiryAction expiryAction = ExpiryAction.REQUEUE;
+
+    public PendingDocsTimers(SystemClock clock) {
+        this(clock, DEFAULT_TICK_MILLIS);
+    }
+
+    public PendingDocsTimers(SystemClock clock, long tickMillis) {
+        this.wheel = new TimingWheel(clock, tickMillis);
+    }
+
+    /**
+     * Configura los plazos para los próximos tickets que entren a PENDIENTE_DOCS.
+     * reminderAfter null desactiva el recordatorio.
+     */
+    public synchronized void configure(Duration reminderAfter, Duration expireAfter, ExpiryAction action) {
+        Objects.requireNonNull(expireAfter, "expireAfter no puede ser null");
+        Objects.requireNonNull(action, "action no puede ser null");
+        if (expireAfter.isNegative() || (reminderAfter != null && reminderAfter.isNegative())) {
+            throw new IllegalArgumentException("Los plazos no pueden ser negativos");
+        }
+        this.reminderAfter = reminderAfter;
+        this.expireAfter = expireAfter;
+        this.expiryAction = action;
+    }
+
+    /**
+     * Programa recordatorio y vencimiento de un ticket (reemplaza los que tuviera).
+     */
+    public synchronized void track(int ticketId, Runnable onReminder, Runnable onExpiry) {
+        cancel(ticketId);
+        TimingWheel.Timeout[] handles = new TimingWheel.Timeout[2];
+        if (reminderAfter != null && reminderAfter.compareTo(expireAfter) < 0) {
+            handles[0] = wheel.schedule(reminderAfter.toMillis(), onReminder);
+        }
+        handles[1] = wheel.schedule(expireAfter.toMillis(), () -> {
+            synchronized (this) {
+                byTicket.remove(ticketId);
+            }
+            onExpiry.run();
+        });
+        byTicket.put(ticketId, handles);
+    }
+
+    /**
+     * Cancela los plazos de un ticket (salió de PENDIENTE_DOCS).
+     *
+     * @return true si tenía plazos pendientes
+     */
+    public synchronized boolean cancel(int ticketId) {
+        TimingWheel.Timeout[] handles = byTicket.remove(ticketId);
+        if (handles == null) return false;
+        for (TimingWheel.Timeout h : handles) {
+            if (h != null) h.cancel();
+        }
+        return true;
+    }
+
+    /**
+     * Ejecuta los recordatorios y vencimientos que ya cumplieron su plazo.
+     *
+     * @return cantidad de temporizadores disparados
+     */
+    public int advance() {
+        return wheel.advance();
+    }
+
+    public synchronized boolean isTracked(int ticketId) {
+        return byTicket.containsKey(ticketId);
+    }
+
+    public synchronized int trackedCount() {
+        return byTicket.size();
+    }
+
+    public synchronized Duration getReminderAfter() { return reminderAfter; }
+    public synchronized Duration getExpireAfter() { return expireAfter; }
+    public synchronized ExpiryAction getExpiryAction() { return expiryAction; }
+}
@@ -0,0 +1,271 @@
+package controller;
+
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ejecuta un guion de comandos contra el CaeController, sin menú ni preguntas (java Main --script).
+ * Sirve para repetir una sesión de operador o medir el sistema completo por el mismo camino que
+ * el CLI: al terminar entrega el throughput y las latencias por comando.
+ *
+ * Un comando por línea; las líneas vacías y las que empiezan con '#' se ignoran. Los textos con
+ * espacios van entre comillas dobles.
+ * <pre>
+ *   create "Ana Perez" MATRICULA [urgente]
+ *   attend
+ *   note &lt;id&gt; texto de la observación
+ *   state &lt;id&gt; PENDIENTE_DOCS
+ *   close [id]                      (sin id: el último atendido)
+ *   undo | redo
+ *   report pending|completed|counts|topk [k]
+ * </pre>
+ * Un comando que falla se cuenta como error y el guion sigue. Cada comando se ejecuta con el
+ * controlador sincronizado (como el servicio HTTP) y antes se procesan los plazos vencidos, como
+ * en cada vuelta del menú.
+ * @author Jaime Landázuri
+ */
+public class ScriptRunner {
+
+    private static final int MAX_ERRORS_KEPT = 20;
+    private static final List<String> COMMANDS = Arrays.asList(
+            "create", "attend", "note", "state", "close", "undo", "redo", "report");
+
+    private final CaeController controller;
+    private Ticket current; // último atendido, para close sin id
+
+    public ScriptRunner(CaeController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Ejecuta el guion completo.
+     *
+     * @throws IOException si no se puede leer el guion
+     */
+    public Summary run(Reader script) throws IOException {
+        Summary summary = new Summary();
+        BufferedReader reader = script instanceof BufferedReader ? (BufferedReader) script : new BufferedReader(script);
+        long started = System.nanoTime();
+        int lineNo = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNo++;
+            List<String> args = tokenize(line);
+            if (args.isEmpty() || args.get(0).startsWith("#")) continue;
+            String command = args.get(0).toLowerCase(Locale.ROOT);
+
+            long t0 = System.nanoTime();
+            try {
+                synchronized (controller) {
+                    controller.processTimers();
+                    t0 = System.nanoTime();
+                    execute(command, args);
+                }
+                summary.record(command, System.nanoTime() - t0);
+            } catch (RuntimeException e) {
+                summary.recordError(command, System.nanoTime() - t0, "línea " + lineNo + " (" + line.trim() + "): "
+                        + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+            }
+        }
+        summary.elapsedNanos = System.nanoTime() - started;
+        return summary;
+    }
+
+    private void execute(String command, List<String> args) {
+        switch (command) {
+            case "create": {
+                require(args, 3, "create <estudiante> <trámite> [urgente]");
+                boolean urgent = args.size() > 3 && (args.get(3).equalsIgnoreCase("urgente") || args.get(3).equalsIgnoreCase("urgent"));
+                controller.createTicket(args.get(1), enumValue(ProcedureType.class, args.get(2)), urgent);
+                break;
+            }
+            case "attend":
+                current = controller.attendNext();
+                break;
+            case "note": {
+                require(args, 3, "note <id> <observación>");
+                controller.addNoteToTicket(ticket(args.get(1)), String.join(" ", args.subList(2, args.size())));
+                break;
+            }
+            case "state":
+                require(args, 3, "state <id> <estado>");
+                controller.changeTicketState(id(args.get(1)), enumValue(TicketState.class, args.get(2)));
+                break;
+            case "close": {
+                Ticket t = args.size() > 1 ? ticket(args.get(1)) : current;
+                if (t == null) throw new IllegalArgumentException("No hay ticket en atención para cerrar");
+                controller.finalizeTicket(t);
+                if (t == current) current = null;
+                break;
+            }
+            case "undo":
+                controller.undoOrFail();
+                break;
+            case "redo":
+                controller.redoOrFail();
+                break;
+            case "report":
+                report(args);
+                break;
+            default:
+                throw new IllegalArgumentException("Comando desconocido: " + command + " (válidos: " + COMMANDS + ")");
+        }
+    }
+
+    private void report(List<String> args) {
+        require(args, 2, "report pending|completed|counts|topk [k]");
+        switch (args.get(1).toLowerCase(Locale.ROOT)) {
+            case "pending":
+                controller.generateReportPendingByType(false, null);
+                break;
+            case "completed":
+                controller.generateReportCompleted(false, null);
+                break;
+            case "counts":
+                controller.generateReportCountsByStateAndType(false, null);
+                break;
+            case "topk":
+                controller.generateReportTopKByNotes(args.size() > 2 ? Integer.parseInt(args.get(2)) : 5, false, null);
+                break;
+            default:
+                throw new IllegalArgumentException("Reporte desconocido: " + args.get(1));
+        }
+    }
+
+    private Ticket ticket(String id) {
+        Ticket t = controller.findTicketById(id(id));
+        if (t == null) throw new IllegalArgumentException("Ticket no encontrado: " + id);
+        return t;
+    }
+
+    private static int id(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Id inválido: " + text);
+        }
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String text) {
+        try {
+            return Enum.valueOf(type, text.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Valor inválido para " + type.getSimpleName() + ": " + text);
+        }
+    }
+
+    private static void require(List<String> args, int n, String usage) {
+        if (args.size() < n) throw new IllegalArgumentException("Uso: " + usage);
+    }
+
+    // Separa por espacios; "entre comillas" es un solo argumento
+    static List<String> tokenize(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inQuotes = false;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                inQuotes = !inQuotes;
+                quoted = true;
+            } else if (Character.isWhitespace(c) && !inQuotes) {
+                if (current.length() > 0 || quoted) out.add(current.toString());
+                current.setLength(0);
+                quoted = false;
+            } else {
+                current.append(c);
+            }
+        }
+        if (current.length() > 0 || quoted) out.add(current.toString());
+        return out;
+    }
+
+    /**
+     * Resultado de un guion: comandos ejecutados, errores y latencias por comando.
+     */
+    public static final class Summary {
+        private final Map<String, Latencies> byCommand = new LinkedHashMap<>();
+        private final List<String> errorMessages = new ArrayList<>();
+        private int commands;
+        private int errors;
+        private long elapsedNanos;
+
+        private void record(String command, long nanos) {
+            byCommand.computeIfAbsent(command, c -> new Latencies()).add(nanos);
+            commands++;
+        }
+
+        private void recordError(String command, long nanos, String message) {
+            record(command, nanos);
+            errors++;
+            if (errorMessages.size() < MAX_ERRORS_KEPT) errorMessages.add(message);
+        }
+
+        public int getCommands() { return commands; }
+        public int getErrors() { return errors; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        // Los primeros errores (hasta 20), con su línea
+        public List<String> getErrorMessages() { return errorMessages; }
+
+        public int count(String command) {
+            Latencies l = byCommand.get(command);
+            return l == null ? 0 : l.size;
+        }
+
+        public double commandsPerSecond() {
+            return elapsedNanos == 0 ? 0 : commands * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ROOT, "Comandos: %d | Errores: %d | Tiempo: %.1f ms | %.0f comandos/s%n",
+                    commands, errors, elapsedNanos / 1e6, commandsPerSecond()));
+            sb.append(String.format(Locale.ROOT, "%-8s %8s %10s %10s %10s %10s%n",
+                    "comando", "n", "media ms", "p50 ms", "p99 ms", "max ms"));
+            for (Map.Entry<String, Latencies> e : byCommand.entrySet()) {
+                long[] sorted = e.getValue().sorted();
+                sb.append(String.format(Locale.ROOT, "%-8s %8d %10.3f %10.3f %10.3f %10.3f%n",
+                        e.getKey(), sorted.length, e.getValue().total / 1e6 / sorted.length,
+                        percentile(sorted, 50) / 1e6, percentile(sorted, 99) / 1e6, sorted[sorted.length - 1] / 1e6));
+            }
+            for (String m : errorMessages) sb.append("  ").append(m).append(System.lineSeparator());
+            return sb.toString();
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+        }
+    }
+
+    // Latencias de un comando en un arreglo primitivo que crece al doble
+    private static final class Latencies {
+        long[] values = new long[16];
+        int size;
+        long total;
+
+        void add(long nanos) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = nanos;
+            total += nanos;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package controller.command;
 
 import controller.IAction;
+import controller.event.TicketEventPublisher;
 import domine.Note;
+import domine.NoteIndex;
 import domine.Ticket;
+import domine.TicketEvent;
 
 
 /**
@@ -14,20 +17,52 @@ import domine.Ticket;
 public class AddNoteCommand implements IAction {
     private Ticket ticket;
     private Note note;
+    private TicketEventPublisher events;
+    private NoteIndex noteIndex;
 
     public AddNoteCommand(Ticket ticket, Note note) {
+        this(ticket, note, null);
+    }
+
+    // events puede ser null si nadie observa los cambios
+    public AddNoteCommand(Ticket ticket, Note note, TicketEventPublisher events) {
+        this(ticket, note, events, null);
+    }
+
+    // noteIndex puede ser null si no se indexan las notas
+    public AddNoteCommand(Ticket ticket, Note note, TicketEventPublisher events, NoteIndex noteIndex) {
         this.ticket = ticket;
         this.note = note;
+        this.events = events;
+        this.noteIndex = noteIndex;
     }
 
     @Override
     public void execute() {
         ticket.getNoteHistory().pushBack(note);
+        if (noteIndex != null) noteIndex.addNote(ticket.getId(), note);
+        if (events != null) events.publish(TicketEvent.Type.NOTE_ADDED, ticket, null, null, note.getObservation());
     }
 
     @Override
     public void undo() {
         ticket.getNoteHistory().remove(note);
+        if (noteIndex != null) noteIndex.removeNote(ticket.getId(), note);
+        if (events != null) events.publish(TicketEvent.Type.NOTE_REMOVED, ticket, null, null, note.getObservation());
+    }
+
+    @Override
+    public long estimatedBytes() {
+        String text = note.getObservation();
+        return 96 + (text == null ? 0 : 2L * text.length());
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public Note getNote() {
+        return note;
     }
 
     @Override
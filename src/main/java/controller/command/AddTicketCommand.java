@@ -1,7 +1,10 @@
 package controller.command;
 
 import controller.IAction;
+import controller.event.TicketEventPublisher;
 import domine.Ticket;
+import domine.TicketEvent;
+import estructures.Node;
 import estructures.Queue;
 
 /**
@@ -13,29 +16,62 @@ import estructures.Queue;
 public class AddTicketCommand implements IAction {
     private Queue<Ticket> ticketQueue;
     private Ticket newTicket;
+    private TicketEventPublisher events;
+    // Nodo que ocupa en la cola y su vecino anterior al deshacer: undo/redo en O(1)
+    private Node<Ticket> node;
+    private Node<Ticket> prevOnUndo;
 
     public AddTicketCommand(Queue<Ticket> ticketQueue, Ticket newTicket) {
+        this(ticketQueue, newTicket, null);
+    }
+
+    // events puede ser null si nadie observa los cambios
+    public AddTicketCommand(Queue<Ticket> ticketQueue, Ticket newTicket, TicketEventPublisher events) {
         this.ticketQueue = ticketQueue;
         this.newTicket = newTicket;
+        this.events = events;
     }
 
     @Override
     public void execute() {
-        ticketQueue.enqueue(newTicket);
+        if (node == null) {
+            ticketQueue.enqueue(newTicket);
+            node = ticketQueue.getRear();
+        } else {
+            // redo: vuelve al lugar que tenía (detrás del mismo vecino), o al final si ese ya no está
+            Node<Ticket> prev = prevOnUndo == null || ticketQueue.contains(prevOnUndo) ? prevOnUndo : ticketQueue.getRear();
+            ticketQueue.insertAfter(prev, node);
+        }
+        if (events != null) events.publish(TicketEvent.Type.CREATED, newTicket, null, newTicket.getState(), newTicket.getStudent());
     }
 
     @Override
     public void undo() {
-        Queue<Ticket> tempQueue = new Queue<>();
-        while (!ticketQueue.isEmpty()) {
-            Ticket ticket = ticketQueue.dequeue();
-            if (!ticket.equals(newTicket)) { // BIEN
-                tempQueue.enqueue(ticket);
-            }
-        }
-        while (!tempQueue.isEmpty()) {
-            ticketQueue.enqueue(tempQueue.dequeue());
+        // Quitar solo el ticket agregado; los demás conservan su lugar (y su tiempo de espera).
+        // Sin nodo propio (comando reconstruido del diario) se busca con nodeOf()
+        Node<Ticket> current = ticketQueue.contains(node) ? node : ticketQueue.nodeOf(newTicket);
+        if (current != null) {
+            prevOnUndo = current.prev;
+            ticketQueue.unlink(current);
+            node = current;
+        } else {
+            node = null; // ya no estaba en la cola: un redo lo encola al final
         }
+        if (events != null) events.publish(TicketEvent.Type.CREATION_UNDONE, newTicket, newTicket.getState(), null, null);
+    }
+
+    // El ticket queda retenido por el comando aunque ya se haya archivado
+    @Override
+    public long estimatedBytes() {
+        return 64 + TicketSizes.estimate(newTicket);
+    }
+
+    public Ticket getTicket() {
+        return newTicket;
+    }
+
+    public Queue<Ticket> getQueue() {
+        return ticketQueue;
     }
 
     @Override
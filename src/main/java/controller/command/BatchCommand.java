@@ -0,0 +1,77 @@
+package controller.command;
+
+import controller.IAction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Esta clase representa un lote de comandos que se ejecuta y se deshace como una sola acción
+ * (una sola entrada en ActionStack). Se ejecutan en orden y se deshacen en orden inverso.
+ * Es atómico: si un comando falla, los que ya se aplicaron se revierten y se relanza el error.
+ * @author Jaime Landázuri
+ * */
+
+public class BatchCommand implements IAction {
+    private final List<IAction> actions;
+    private final String description;
+
+    public BatchCommand(List<? extends IAction> actions) {
+        this(actions, null);
+    }
+
+    // description: texto para mostrar en undo/redo (null = "Lote de N acciones")
+    public BatchCommand(List<? extends IAction> actions, String description) {
+        this.actions = Collections.unmodifiableList(new ArrayList<>(actions));
+        this.description = description;
+    }
+
+    @Override
+    public void execute() {
+        int done = 0;
+        try {
+            for (IAction a : actions) {
+                a.execute();
+                done++;
+            }
+        } catch (RuntimeException ex) {
+            for (int i = done - 1; i >= 0; i--) actions.get(i).undo();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void undo() {
+        int undone = 0;
+        try {
+            for (int i = actions.size() - 1; i >= 0; i--) {
+                actions.get(i).undo();
+                undone++;
+            }
+        } catch (RuntimeException ex) {
+            for (int i = actions.size() - undone; i < actions.size(); i++) actions.get(i).execute();
+            throw ex;
+        }
+    }
+
+    @Override
+    public long estimatedBytes() {
+        long bytes = 32 + 8L * actions.size();
+        for (IAction a : actions) bytes += a.estimatedBytes();
+        return bytes;
+    }
+
+    public List<IAction> getActions() {
+        return actions;
+    }
+
+    public int size() {
+        return actions.size();
+    }
+
+    @Override
+    public String toString() {
+        return description != null ? description : "Lote de " + actions.size() + " acciones";
+    }
+}
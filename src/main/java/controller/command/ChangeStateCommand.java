@@ -0,0 +1,125 @@
+package controller.command;
+
+import controller.IAction;
+import controller.event.TicketEventPublisher;
+import domine.Ticket;
+import domine.TicketEvent;
+import domine.TicketState;
+import estructures.AttentionQueue;
+import estructures.Node;
+import estructures.Queue;
+
+/**
+ * Esta clase representa un comando para cambiar el estado de un ticket en espera.
+ * URGENTE vive en la cola urgente y EN_COLA en la normal: si el nuevo estado pide otra cola,
+ * el ticket pasa al final de esa cola. Guarda el nodo y su vecino anterior, así el undo lo
+ * devuelve a su lugar exacto en O(1).
+ * No valida la transición: eso lo hace quien crea el comando (CaeController con la StateMachine).
+ * @author Jaime Landázuri
+ * */
+
+public class ChangeStateCommand implements IAction {
+    private AttentionQueue attentionQueue;
+    private Ticket ticket;
+    private TicketState fromState;
+    private TicketState toState;
+    private TicketEventPublisher events;
+    // Cola de la que salió (null = no cambió de cola), su vecino anterior allí y el nodo que se mueve
+    private Queue<Ticket> fromLane;
+    private Node<Ticket> fromPrev;
+    private Node<Ticket> node;
+
+    // events puede ser null si nadie observa los cambios
+    public ChangeStateCommand(AttentionQueue attentionQueue, Ticket ticket, TicketState toState,
+                              TicketEventPublisher events) {
+        this(attentionQueue, ticket, ticket.getState(), toState, events);
+    }
+
+    // Con el estado de origen explícito (comando reconstruido del diario, ya ejecutado)
+    ChangeStateCommand(AttentionQueue attentionQueue, Ticket ticket, TicketState fromState, TicketState toState,
+                       TicketEventPublisher events) {
+        this.attentionQueue = attentionQueue;
+        this.ticket = ticket;
+        this.fromState = fromState;
+        this.toState = toState;
+        this.events = events;
+    }
+
+    @Override
+    public void execute() {
+        fromState = ticket.getState();
+        Queue<Ticket> current = laneOf(ticket);
+        Queue<Ticket> target = laneFor(toState, current);
+        fromLane = null;
+        if (current != null && target != current) {
+            node = current.nodeOf(ticket);
+            fromPrev = node.prev;
+            current.unlink(node);
+            target.insertAfter(target.getRear(), node);
+            fromLane = current;
+        }
+        ticket.setState(toState);
+        if (events != null && fromState != toState) {
+            events.publish(TicketEvent.Type.STATE_CHANGED, ticket, fromState, toState, null);
+        }
+    }
+
+    @Override
+    public void undo() {
+        Queue<Ticket> current = laneOf(ticket);
+        if (fromLane != null && current != null && current.contains(node)) {
+            // Detrás del vecino que tenía; si ese ya no está, al final
+            current.unlink(node);
+            Node<Ticket> prev = fromPrev == null || fromLane.contains(fromPrev) ? fromPrev : fromLane.getRear();
+            fromLane.insertAfter(prev, node);
+        } else if (current != null) {
+            // Sin nodos propios (comando reconstruido del diario) o nodo ya viejo (el ticket se
+            // movió por otro camino): a la cola de su estado anterior, al final
+            Queue<Ticket> target = laneFor(fromState, current);
+            if (target != current) {
+                current.remove(ticket);
+                target.enqueue(ticket);
+            }
+        }
+        fromLane = null;
+        ticket.setState(fromState);
+        if (events != null && fromState != toState) {
+            events.publish(TicketEvent.Type.STATE_CHANGED, ticket, toState, fromState, null);
+        }
+    }
+
+    @Override
+    public long estimatedBytes() {
+        return 64 + TicketSizes.estimate(ticket);
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public TicketState getFromState() {
+        return fromState;
+    }
+
+    public TicketState getToState() {
+        return toState;
+    }
+
+    // Cola que contiene al ticket, O(1) con las colas de AttentionQueue
+    private Queue<Ticket> laneOf(Ticket t) {
+        if (attentionQueue.getUrgentQueue().nodeOf(t) != null) return attentionQueue.getUrgentQueue();
+        if (attentionQueue.getNormalQueue().nodeOf(t) != null) return attentionQueue.getNormalQueue();
+        return null;
+    }
+
+    private Queue<Ticket> laneFor(TicketState state, Queue<Ticket> current) {
+        if (state == TicketState.URGENTE) return attentionQueue.getUrgentQueue();
+        if (state == TicketState.EN_COLA) return attentionQueue.getNormalQueue();
+        return current;
+    }
+
+    @Override
+    public String toString() {
+        return "Cambiar estado";
+    }
+}
@@ -1,12 +1,16 @@
 package controller.command;
 
 import controller.IAction;
+import controller.event.TicketEventPublisher;
 import domine.Ticket;
+import domine.TicketEvent;
 import domine.TicketState;
 import estructures.Node;
 import estructures.Queue;
 import estructures.SimpleList;
 
+import java.util.NoSuchElementException;
+
 /**
  * Esta clase representa un comando para cerrar un ticket.
  * Implementa la interfaz IAction, que define los métodos execute y undo.
@@ -17,6 +21,14 @@ public class CloseCaseCommand implements IAction {
     private Ticket ticket;
     private Queue<Ticket> sourceQueue;
     private SimpleList<Ticket> attendedHistory;
+    private TicketEventPublisher events;
+    // Nodos que ocupa en la cola y en el historial, y su vecino anterior en la cola al cerrarse:
+    // undo/redo en O(1) y el ticket vuelve exactamente a su lugar
+    private Node<Ticket> queueNode;
+    private Node<Ticket> queuePrev;
+    private Node<Ticket> historyNode;
+    // Estado que tenía al cerrarse (normalmente EN_ATENCION); undo lo restaura
+    private TicketState priorState;
 
     /**
      * El constructor recibe la cola de la que proviene el ticket.
@@ -24,29 +36,77 @@ public class CloseCaseCommand implements IAction {
      * la cola de 'urgentes' o la de 'en_cola' en el parámetro 'sourceQueue'.
      */
     public CloseCaseCommand(Ticket ticket, Queue<Ticket> sourceQueue, SimpleList<Ticket> attendedHistory ) {
+        this(ticket, sourceQueue, attendedHistory, null);
+    }
+
+    // events puede ser null si nadie observa los cambios
+    public CloseCaseCommand(Ticket ticket, Queue<Ticket> sourceQueue, SimpleList<Ticket> attendedHistory,
+                            TicketEventPublisher events) {
+        this(ticket, sourceQueue, attendedHistory, events, TicketState.EN_ATENCION);
+    }
+
+    // Con el estado previo al cierre ya conocido (comando reconstruido del diario, ya ejecutado)
+    public CloseCaseCommand(Ticket ticket, Queue<Ticket> sourceQueue, SimpleList<Ticket> attendedHistory,
+                            TicketEventPublisher events, TicketState priorState) {
         this.ticket = ticket;
         this.sourceQueue = sourceQueue;
         this.attendedHistory = attendedHistory;
+        this.events = events;
+        this.priorState = priorState;
     }
 
     @Override
     public void execute() {
-        sourceQueue.remove(ticket);
+        Node<Ticket> node = sourceQueue.contains(queueNode) ? queueNode : sourceQueue.nodeOf(ticket);
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        queuePrev = node.prev;
+        queueNode = node;
+        sourceQueue.unlink(node);
 
+        priorState = ticket.getState();
         attendedHistory.pushBack(ticket);
+        historyNode = attendedHistory.lastNode();
         ticket.setState(TicketState.COMPLETADO);
+        if (events != null) events.publish(TicketEvent.Type.CLOSED, ticket, priorState, TicketState.COMPLETADO, null);
     }
 
+    // Vuelve a su lugar en la cola con el estado que tenía; el evento sale recién con el movimiento hecho
     @Override
     public void undo() {
-        ticket.setState(TicketState.EN_COLA);
+        if (attendedHistory.contains(historyNode)) {
+            attendedHistory.unlink(historyNode);
+        } else {
+            attendedHistory.remove(ticket); // comando reconstruido del diario: sin nodo propio
+        }
+        historyNode = null;
+
+        // Detrás del vecino que tenía; si ese ya no está (o no se conoce), al frente
+        Node<Ticket> node = queueNode != null && !sourceQueue.contains(queueNode) ? queueNode : new Node<>(ticket);
+        Node<Ticket> prev = queuePrev != null && sourceQueue.contains(queuePrev) ? queuePrev : null;
+        sourceQueue.insertAfter(prev, node);
+        queueNode = node;
 
-        attendedHistory.remove(ticket);
+        ticket.setState(priorState);
+        if (events != null) events.publish(TicketEvent.Type.REOPENED, ticket, TicketState.COMPLETADO, priorState, null);
+    }
 
-        Node<Ticket> newFront = new Node<>(ticket);
-        newFront.next = sourceQueue.getFront();
+    @Override
+    public long estimatedBytes() {
+        return 64 + TicketSizes.estimate(ticket);
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public Queue<Ticket> getSourceQueue() {
+        return sourceQueue;
+    }
 
-        sourceQueue.setFront(newFront);
+    public TicketState getPriorState() {
+        return priorState;
     }
 
     @Override
@@ -0,0 +1,203 @@
+package controller.command;
+
+import controller.ActionCodec;
+import controller.IAction;
+import controller.event.TicketEventPublisher;
+import domine.Note;
+import domine.NoteIndex;
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+import estructures.AttentionQueue;
+import estructures.Queue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codificación compacta de los comandos sobre tickets: tipo(1) id del ticket(4) y datos propios.
+ * - Agregar ticket: cola urgente(1), estudiante, trámite(1), estado(1), creación(8). Con esto el
+ *   ticket se puede volver a crear si ya no existe (redo de una creación deshecha).
+ * - Finalizar caso: cola de origen urgente(1) y estado previo al cierre(1) (los registros
+ *   anteriores no lo tienen: se toma EN_ATENCION, el único desde el que se cierra).
+ * - Agregar nota: hora(8) y observación.
+ * - Cambiar estado: estado de origen(1) y destino(1).
+ * - Lote: en lugar del id va la cantidad de comandos(4); luego la descripción y cada comando
+ *   como largo(4) + registro. Si alguno no se puede codificar o reconstruir, el lote tampoco.
+ * Al decodificar, el ticket se busca por id en el TicketIndex de la AttentionQueue (colas e
+ * historial en memoria); si ya no está (p. ej. se archivó) el comando no se reconstruye.
+ * Las fechas van como epoch millis UTC y los textos como largo(4) + UTF-8 (-1 = null).
+ * @author Jaime Landázuri
+ */
+public class TicketCommandCodec implements ActionCodec {
+
+    static final byte ADD_TICKET = 1;
+    static final byte CLOSE_CASE = 2;
+    static final byte ADD_NOTE = 3;
+    static final byte CHANGE_STATE = 4;
+    static final byte BATCH = 5;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final AttentionQueue attentionQueue;
+    private final NoteIndex noteIndex;
+    private final TicketEventPublisher events;
+
+    // noteIndex y events pueden ser null (como en los comandos)
+    public TicketCommandCodec(AttentionQueue attentionQueue, NoteIndex noteIndex, TicketEventPublisher events) {
+        this.attentionQueue = attentionQueue;
+        this.noteIndex = noteIndex;
+        this.events = events;
+    }
+
+    @Override
+    public byte[] encode(IAction action) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (action instanceof AddTicketCommand) {
+                AddTicketCommand cmd = (AddTicketCommand) action;
+                Ticket t = cmd.getTicket();
+                out.writeByte(ADD_TICKET);
+                out.writeInt(t.getId());
+                out.writeBoolean(cmd.getQueue() == attentionQueue.getUrgentQueue());
+                writeString(out, t.getStudent());
+                out.writeByte(t.getProcedureType().ordinal());
+                out.writeByte(t.getState().ordinal());
+                out.writeLong(toMillis(t.getCreatedAt()));
+            } else if (action instanceof CloseCaseCommand) {
+                CloseCaseCommand cmd = (CloseCaseCommand) action;
+                out.writeByte(CLOSE_CASE);
+                out.writeInt(cmd.getTicket().getId());
+                out.writeBoolean(cmd.getSourceQueue() == attentionQueue.getUrgentQueue());
+                out.writeByte(cmd.getPriorState().ordinal());
+            } else if (action instanceof AddNoteCommand) {
+                AddNoteCommand cmd = (AddNoteCommand) action;
+                out.writeByte(ADD_NOTE);
+                out.writeInt(cmd.getTicket().getId());
+                out.writeLong(toMillis(cmd.getNote().getTimestamp()));
+                writeString(out, cmd.getNote().getObservation());
+            } else if (action instanceof ChangeStateCommand) {
+                ChangeStateCommand cmd = (ChangeStateCommand) action;
+                out.writeByte(CHANGE_STATE);
+                out.writeInt(cmd.getTicket().getId());
+                out.writeByte(cmd.getFromState().ordinal());
+                out.writeByte(cmd.getToState().ordinal());
+            } else if (action instanceof BatchCommand) {
+                BatchCommand cmd = (BatchCommand) action;
+                out.writeByte(BATCH);
+                out.writeInt(cmd.size());
+                writeString(out, cmd.toString());
+                for (IAction sub : cmd.getActions()) {
+                    byte[] record = encode(sub);
+                    if (record == null) return null;
+                    out.writeInt(record.length);
+                    out.write(record);
+                }
+            } else {
+                return null;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // no ocurre con ByteArrayOutputStream
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public IAction decode(byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            byte type = in.readByte();
+            int id = in.readInt();
+            if (type == BATCH) return decodeBatch(in, id);
+            Ticket ticket = attentionQueue.getIndex().findById(id);
+            switch (type) {
+                case ADD_TICKET: {
+                    Queue<Ticket> queue = lane(in.readBoolean());
+                    String student = readString(in);
+                    ProcedureType procedure = ProcedureType.values()[in.readByte()];
+                    TicketState state = TicketState.values()[in.readByte()];
+                    LocalDateTime created = fromMillis(in.readLong());
+                    if (ticket == null) {
+                        ticket = new Ticket(student, procedure);
+                        ticket.setId(id);
+                        ticket.setState(state);
+                        ticket.setCreatedAt(created);
+                    }
+                    return new AddTicketCommand(queue, ticket, events);
+                }
+                case CLOSE_CASE: {
+                    Queue<Ticket> source = lane(in.readBoolean());
+                    TicketState prior = in.available() > 0 ? TicketState.values()[in.readByte()] : TicketState.EN_ATENCION;
+                    return ticket == null ? null
+                            : new CloseCaseCommand(ticket, source, attentionQueue.getAttendedHistory(), events, prior);
+                }
+                case ADD_NOTE: {
+                    LocalDateTime time = fromMillis(in.readLong());
+                    String observation = readString(in);
+                    return ticket == null ? null
+                            : new AddNoteCommand(ticket, new Note(observation, time), events, noteIndex);
+                }
+                case CHANGE_STATE: {
+                    TicketState from = TicketState.values()[in.readByte()];
+                    TicketState to = TicketState.values()[in.readByte()];
+                    return ticket == null ? null : new ChangeStateCommand(attentionQueue, ticket, from, to, events);
+                }
+                default:
+                    throw new IllegalArgumentException("Tipo de comando desconocido: " + type);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Registro de comando inválido", e);
+        }
+    }
+
+    private IAction decodeBatch(DataInputStream in, int count) throws IOException {
+        String description = readString(in);
+        List<IAction> actions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] record = new byte[in.readInt()];
+            in.readFully(record);
+            IAction sub = decode(record);
+            if (sub == null) return null;
+            actions.add(sub);
+        }
+        return new BatchCommand(actions, description);
+    }
+
+    private Queue<Ticket> lane(boolean urgent) {
+        return urgent ? attentionQueue.getUrgentQueue() : attentionQueue.getNormalQueue();
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return millis == NO_TIME ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+}
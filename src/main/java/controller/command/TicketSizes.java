@@ -0,0 +1,23 @@
+package controller.command;
+
+import domine.Note;
+import domine.Ticket;
+
+/**
+ * Estimación gruesa de la memoria que retiene un Ticket (objeto, nombre, fecha y notas), para el
+ * presupuesto de memoria de ActionStack.
+ * @author Jaime Landázuri
+ */
+final class TicketSizes {
+
+    private TicketSizes() {
+    }
+
+    static long estimate(Ticket t) {
+        long bytes = 160 + 2L * (t.getStudent() == null ? 0 : t.getStudent().length());
+        for (Note n : t.getNoteHistory()) {
+            bytes += 16 + 2L * (n.getObservation() == null ? 0 : n.getObservation().length());
+        }
+        return bytes;
+    }
+}
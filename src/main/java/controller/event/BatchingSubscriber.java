@@ -0,0 +1,137 @@
+package controller.event;
+
+import domine.TicketEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Suscriptor que agrupa los eventos en lotes antes de entregarlos al consumidor.
+ *
+ * Pide los eventos de a batchSize (backpressure: nunca tiene más de un lote pendiente)
+ * y entrega el lote cuando se llena, cuando el primer evento del lote cumple maxDelay de
+ * antigüedad (un temporizador lo entrega aunque no lleguen más eventos, así una pantalla
+ * de sala no queda esperando) o cuando el publicador se cierra.
+ * El lote se protege con el monitor del suscriptor porque el temporizador corre en otro
+ * hilo; el consumidor recibe los lotes de a uno y en orden, desde cualquiera de los dos.
+ * @author Jaime Landázuri
+ */
+public class BatchingSubscriber implements Flow.Subscriber<TicketEvent> {
+
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final Consumer<List<TicketEvent>> consumer;
+    private ScheduledFuture<?> timer;   // entrega por antigüedad del lote actual
+
+    private Flow.Subscription subscription;
+    private List<TicketEvent> batch;
+    private long batchStartNanos;
+    private long outstanding;          // elementos pedidos y aún no recibidos
+    private volatile long delivered;   // eventos entregados al consumidor
+    private volatile long batches;
+    private volatile Throwable error;
+
+    public BatchingSubscriber(int batchSize, Duration maxDelay, Consumer<List<TicketEvent>> consumer) {
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize debe ser positivo");
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay == null ? Long.MAX_VALUE : maxDelay.toNanos();
+        this.consumer = consumer;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        outstanding = batchSize;
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(TicketEvent item) {
+        synchronized (this) {
+            if (batch.isEmpty()) {
+                batchStartNanos = System.nanoTime();
+                if (maxDelayNanos != Long.MAX_VALUE) {
+                    long start = batchStartNanos;
+                    timer = Timers.INSTANCE.schedule(() -> flushIfOlder(start), maxDelayNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+            batch.add(item);
+            if (batch.size() >= batchSize || System.nanoTime() - batchStartNanos >= maxDelayNanos) {
+                flush();
+            }
+        }
+        if (--outstanding == 0) {
+            outstanding = batchSize;
+            subscription.request(batchSize);
+        }
+    }
+
+    @Override
+    public synchronized void onError(Throwable throwable) {
+        this.error = throwable;
+        flush();
+    }
+
+    @Override
+    public synchronized void onComplete() {
+        flush();
+    }
+
+    /** Deja de recibir eventos; lo que quede en el lote actual se descarta. */
+    public synchronized void cancel() {
+        cancelTimer();
+        batch = new ArrayList<>(batchSize);
+        if (subscription != null) subscription.cancel();
+    }
+
+    // Llamado por el temporizador: entrega el lote si sigue siendo el que lo programó
+    private synchronized void flushIfOlder(long start) {
+        if (!batch.isEmpty() && batchStartNanos == start) flush();
+    }
+
+    private void cancelTimer() {
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+    }
+
+    private void flush() {
+        cancelTimer();
+        if (batch.isEmpty()) return;
+        List<TicketEvent> out = batch;
+        batch = new ArrayList<>(batchSize);
+        delivered += out.size();
+        batches++;
+        consumer.accept(out);
+    }
+
+    public long getDeliveredCount() {
+        return delivered;
+    }
+
+    public long getBatchCount() {
+        return batches;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    // Un solo hilo (daemon) para los temporizadores de todos los suscriptores
+    private static final class Timers {
+        static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ticket-event-batches");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package controller.event;
+
+import domine.Ticket;
+import domine.TicketEvent;
+import domine.TicketState;
+import util.SystemClock;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Publica los eventos de tickets a través de un {@link SubmissionPublisher}.
+ *
+ * - Cada suscriptor tiene su propio buffer (capacidad configurable) y pide elementos
+ *   con request(n), es decir, hay backpressure por suscriptor.
+ * - publish() nunca bloquea al operador: si el buffer de un suscriptor lento está lleno,
+ *   el evento se descarta para ese suscriptor y se contabiliza en {@link #getDroppedCount()}.
+ * @author Jaime Landázuri
+ */
+public class TicketEventPublisher implements Flow.Publisher<TicketEvent>, AutoCloseable {
+
+    public static final int DEFAULT_BUFFER = 1024;
+
+    private final SubmissionPublisher<TicketEvent> publisher;
+    private final SystemClock clock;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public TicketEventPublisher() {
+        this(new SystemClock(), ForkJoinPool.commonPool(), DEFAULT_BUFFER);
+    }
+
+    /**
+     * @param clock          reloj usado para sellar los eventos
+     * @param executor       executor donde se entregan los eventos a los suscriptores
+     * @param bufferCapacity capacidad del buffer de cada suscriptor
+     */
+    public TicketEventPublisher(SystemClock clock, Executor executor, int bufferCapacity) {
+        this.clock = clock;
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super TicketEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Suscribe un consumidor que recibe los eventos en lotes de hasta batchSize elementos.
+     * Ver {@link BatchingSubscriber}.
+     */
+    public BatchingSubscriber subscribeBatched(int batchSize, Duration maxDelay, Consumer<List<TicketEvent>> consumer) {
+        BatchingSubscriber s = new BatchingSubscriber(batchSize, maxDelay, consumer);
+        publisher.subscribe(s);
+        return s;
+    }
+
+    // ------------------ Publicación ------------------
+
+    public void publish(TicketEvent.Type type, Ticket ticket, TicketState from, TicketState to, String detail) {
+        publish(new TicketEvent(type, ticket.getId(), ticket.getProcedureType(), from, to, detail, clock.now()));
+    }
+
+    public void publish(TicketEvent event) {
+        if (publisher.isClosed()) return;
+        published.increment();
+        if (!publisher.hasSubscribers()) return;
+        // offer sin espera: el operador nunca se bloquea por un suscriptor lento
+        publisher.offer(event, (subscriber, ev) -> {
+            dropped.increment();
+            return false;
+        });
+    }
+
+    // ------------------ Estado ------------------
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    /** Cantidad de entregas descartadas porque el buffer de algún suscriptor estaba lleno. */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /** Completa a los suscriptores (onComplete) una vez entregado lo que ya está en sus buffers. */
+    @Override
+    public void close() {
+        publisher.close();
+    }
+}
@@ -0,0 +1,347 @@
+package controller.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import controller.CaeController;
+import controller.CaeOperationException;
+import domine.Note;
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+import estructures.Page;
+import estructures.QueuePosition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio HTTP local (com.sun.net.httpserver) sobre el CaeController.
+ * Pensado para kioscos y pantallas de ventanilla dentro de la red local.
+ *
+ * Endpoints (parámetros como query string o form-urlencoded):
+ *   POST /tickets                 student, type, urgent  -> crea ticket
+ *   POST /tickets/next                                   -> atiende el siguiente
+ *   POST /tickets/{id}/notes      observation            -> agrega nota
+ *   POST /tickets/{id}/state      state                  -> cambia estado
+ *   POST /tickets/{id}/close                             -> finaliza ticket
+ *   GET  /tickets                 student | state | type -> busca por índice (cola e historial)
+ *   GET  /tickets/pending         [limit, cursor]        -> lista pendientes (por páginas si hay limit)
+ *   GET  /tickets/history         limit, [cursor]        -> historial de atendidos por páginas
+ *   GET  /tickets/search          q                      -> busca en las notas ("ced*" = prefijo)
+ *   GET  /tickets/{id}/position                          -> posición y espera estimada
+ *
+ * Cada petición corre en su propio hilo virtual cuando la JVM lo soporta (JDK 21+);
+ * en JVMs anteriores se usa un pool de hilos de plataforma como respaldo.
+ * El controlador no es thread-safe, por lo que las operaciones se serializan sobre él.
+ * Un hilo aparte dispara cada segundo los plazos de PENDIENTE_DOCS vencidos.
+ * @author Wilson Palma
+ */
+public class CaeHttpServer {
+
+    private final CaeController controller;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor();
+
+    public CaeHttpServer(CaeController controller, int port) throws IOException {
+        this.controller = controller;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = newPerRequestExecutor();
+        this.server.setExecutor(executor);
+        this.server.createContext("/tickets", this::handle);
+    }
+
+    public void start() {
+        server.start();
+        timers.scheduleWithFixedDelay(this::processTimers, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Detiene el servidor esperando como máximo delaySeconds a que terminen las peticiones en curso.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        timers.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Devuelve un executor de un hilo virtual por tarea si la JVM lo soporta;
+     * si no, un pool de hilos de plataforma que crece bajo demanda.
+     */
+    public static ExecutorService newPerRequestExecutor() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void processTimers() {
+        try {
+            synchronized (controller) {
+                controller.processTimers();
+            }
+        } catch (RuntimeException ex) {
+            // un fallo puntual no debe cancelar las ejecuciones siguientes, pero se informa
+            controller.getCli().printAlert("No se pudieron procesar los plazos de documentos: " + ex.getMessage());
+        }
+    }
+
+    // ------------------ Enrutamiento ------------------
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String[] parts = exchange.getRequestURI().getPath().split("/");
+            // parts[0] = "", parts[1] = "tickets"
+            Map<String, String> params = readParams(exchange);
+
+            if (parts.length == 2 && method.equals("POST")) {
+                send(exchange, 201, createTicket(params));
+            } else if (parts.length == 2 && method.equals("GET")) {
+                send(exchange, 200, search(params));
+            } else if (parts.length == 3 && parts[2].equals("pending") && method.equals("GET")) {
+                send(exchange, 200, params.containsKey("limit") ? pagePending(params) : listPending());
+            } else if (parts.length == 3 && parts[2].equals("history") && method.equals("GET")) {
+                send(exchange, 200, pageHistory(params));
+            } else if (parts.length == 3 && parts[2].equals("search") && method.equals("GET")) {
+                send(exchange, 200, searchNotes(require(params, "q")));
+            } else if (parts.length == 3 && parts[2].equals("next") && method.equals("POST")) {
+                send(exchange, 200, attendNext());
+            } else if (parts.length == 4 && parts[3].equals("position") && method.equals("GET")) {
+                send(exchange, 200, position(Integer.parseInt(parts[2])));
+            } else if (parts.length == 4 && method.equals("POST")) {
+                int id = Integer.parseInt(parts[2]);
+                switch (parts[3]) {
+                    case "notes":
+                        send(exchange, 201, addNote(id, params.get("observation")));
+                        break;
+                    case "state":
+                        send(exchange, 200, changeState(id, params.get("state")));
+                        break;
+                    case "close":
+                        send(exchange, 200, close(id));
+                        break;
+                    default:
+                        send(exchange, 404, error("Ruta no encontrada"));
+                }
+            } else {
+                send(exchange, 404, error("Ruta no encontrada"));
+            }
+        } catch (Exception ex) {
+            CaeOperationException err = CaeOperationException.from(ex);
+            send(exchange, err.getCode().getHttpStatus(), error(err.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // ------------------ Operaciones ------------------
+
+    private String createTicket(Map<String, String> params) {
+        String student = params.get("student");
+        ProcedureType type = ProcedureType.valueOf(require(params, "type").toUpperCase());
+        boolean urgent = Boolean.parseBoolean(params.getOrDefault("urgent", "false"));
+        synchronized (controller) {
+            return ticketJson(controller.createTicket(student, type, urgent));
+        }
+    }
+
+    private String attendNext() {
+        synchronized (controller) {
+            return ticketJson(controller.attendNext());
+        }
+    }
+
+    private String addNote(int id, String observation) {
+        synchronized (controller) {
+            Ticket t = requireTicket(id);
+            Note n = controller.addNoteToTicket(t, observation);
+            return "{\"ticket\":" + id + ",\"timestamp\":\"" + n.getTimestamp()
+                    + "\",\"observation\":" + quote(n.getObservation()) + "}";
+        }
+    }
+
+    private String changeState(int id, String state) {
+        if (state == null) throw new IllegalArgumentException("Falta el parámetro 'state'");
+        TicketState target = TicketState.valueOf(state.toUpperCase());
+        synchronized (controller) {
+            controller.changeTicketState(id, target);
+            return ticketJson(requireTicket(id));
+        }
+    }
+
+    private String close(int id) {
+        synchronized (controller) {
+            Ticket t = requireTicket(id);
+            controller.finalizeTicket(t);
+            return ticketJson(t);
+        }
+    }
+
+    private String position(int id) {
+        QueuePosition p;
+        synchronized (controller) {
+            p = controller.getQueuePosition(id);
+        }
+        if (p == null) throw new NoSuchElementException("El ticket " + id + " no está en cola");
+        return "{\"id\":" + id + ",\"position\":" + p.getPosition()
+                + ",\"estimatedWaitSeconds\":" + p.getEstimatedWait().getSeconds() + "}";
+    }
+
+    // Los tickets son mutables: el JSON se arma sin soltar el controlador
+    private String listPending() {
+        synchronized (controller) {
+            return ticketsJson(controller.listPending());
+        }
+    }
+
+    private String pagePending(Map<String, String> params) {
+        int limit = Integer.parseInt(params.get("limit"));
+        synchronized (controller) {
+            return pageJson(controller.pagePending(params.get("cursor"), limit));
+        }
+    }
+
+    private String pageHistory(Map<String, String> params) {
+        int limit = Integer.parseInt(require(params, "limit"));
+        synchronized (controller) {
+            return pageJson(controller.pageHistory(params.get("cursor"), limit));
+        }
+    }
+
+    private String search(Map<String, String> params) {
+        synchronized (controller) {
+            List<Ticket> found;
+            if (params.containsKey("student")) {
+                found = controller.findTicketsByStudent(params.get("student"));
+            } else if (params.containsKey("state")) {
+                found = controller.findTicketsByState(TicketState.valueOf(params.get("state").toUpperCase()));
+            } else if (params.containsKey("type")) {
+                found = controller.findTicketsByType(ProcedureType.valueOf(params.get("type").toUpperCase()));
+            } else {
+                throw new IllegalArgumentException("Indique 'student', 'state' o 'type'");
+            }
+            return ticketsJson(found);
+        }
+    }
+
+    private String searchNotes(String query) {
+        List<Ticket> found = new ArrayList<>();
+        synchronized (controller) {
+            for (int id : controller.searchNotes(query)) {
+                Ticket t = controller.findTicketById(id);
+                if (t != null) found.add(t);
+            }
+            return ticketsJson(found);
+        }
+    }
+
+    private static String pageJson(Page<Ticket> page) {
+        return "{\"items\":" + ticketsJson(page.getItems()) + ",\"nextCursor\":"
+                + (page.hasMore() ? quote(page.getNextCursor()) : "null") + "}";
+    }
+
+    private static String ticketsJson(List<Ticket> tickets) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < tickets.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(ticketJson(tickets.get(i)));
+        }
+        return sb.append(']').toString();
+    }
+
+    // ------------------ Helpers ------------------
+
+    private Ticket requireTicket(int id) {
+        Ticket t = controller.findTicketById(id);
+        if (t == null) throw new NoSuchElementException("Ticket no encontrado: " + id);
+        return t;
+    }
+
+    private static String require(Map<String, String> params, String key) {
+        String v = params.get(key);
+        if (v == null || v.trim().isEmpty()) {
+            throw new IllegalArgumentException("Falta el parámetro '" + key + "'");
+        }
+        return v.trim();
+    }
+
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        try (InputStream in = exchange.getRequestBody()) {
+            parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseForm(String raw, Map<String, String> out) {
+        if (raw == null || raw.isEmpty()) return;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            out.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static String ticketJson(Ticket t) {
+        return "{\"id\":" + t.getId()
+                + ",\"student\":" + quote(t.getStudent())
+                + ",\"type\":\"" + t.getProcedureType() + "\""
+                + ",\"state\":\"" + t.getState() + "\""
+                + ",\"notes\":" + t.getNoteHistory().size() + "}";
+    }
+
+    private static String error(String msg) {
+        return "{\"error\":" + quote(msg == null ? "error interno" : msg) + "}";
+    }
+
+    private static String quote(String s) {
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
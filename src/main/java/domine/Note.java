@@ -2,10 +2,14 @@ package domine;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
 
 /**
  * Esta clase representa una nota asociada a un ticket.
  * Contiene una observación y una marca de tiempo.
+ * Dos notas son iguales si tienen la misma observación y la misma hora al milisegundo
+ * (es la precisión con que las guarda UnrolledNoteList).
  * @author Jaime Landázuri
  */
 
@@ -31,6 +35,24 @@ public class Note {
         return timestamp;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Note)) return false;
+        Note other = (Note) o;
+        return Objects.equals(observation, other.observation)
+                && Objects.equals(truncatedTimestamp(), other.truncatedTimestamp());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(observation, truncatedTimestamp());
+    }
+
+    private LocalDateTime truncatedTimestamp() {
+        return timestamp == null ? null : timestamp.truncatedTo(ChronoUnit.MILLIS);
+    }
+
     @Override
     public String toString() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -0,0 +1,211 @@
+package domine;
+
+import util.TextNormalizer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Índice invertido sobre las observaciones de las notas: palabra -> (id de ticket -> apariciones).
+ * Las palabras se normalizan (minúsculas, sin tildes) y se descartan las palabras vacías,
+ * así "Falta CÉDULA" se encuentra buscando "falta cedula".
+ *
+ * Se actualiza de forma incremental al agregar/quitar notas (AddNoteCommand) y se persiste como
+ * un archivo binario de postings: palabras en orden, ids con codificación delta y enteros de
+ * longitud variable.
+ * @author Jaime Landázuri
+ */
+public class NoteIndex {
+
+    private static final int MAGIC = 0x43414E58; // "CANX"
+    private static final int VERSION = 1;
+
+    private final NavigableMap<String, TreeMap<Integer, Integer>> postings = new TreeMap<>();
+    private final Map<Integer, Map<String, Integer>> termsByTicket = new HashMap<>();
+    private int noteCount;
+
+    // ------------------ Actualización ------------------
+
+    public void addNote(int ticketId, Note note) {
+        for (String term : TextNormalizer.tokenize(note.getObservation())) {
+            postings.computeIfAbsent(term, k -> new TreeMap<>()).merge(ticketId, 1, Integer::sum);
+            termsByTicket.computeIfAbsent(ticketId, k -> new HashMap<>()).merge(term, 1, Integer::sum);
+        }
+        noteCount++;
+    }
+
+    public void removeNote(int ticketId, Note note) {
+        for (String term : TextNormalizer.tokenize(note.getObservation())) {
+            decrement(postings.get(term), ticketId);
+            if (postings.containsKey(term) && postings.get(term).isEmpty()) postings.remove(term);
+            Map<String, Integer> own = termsByTicket.get(ticketId);
+            if (own != null) {
+                decrement(own, term);
+                if (own.isEmpty()) termsByTicket.remove(ticketId);
+            }
+        }
+        if (noteCount > 0) noteCount--;
+    }
+
+    // Quita todo lo indexado para un ticket (por ejemplo, si su id se reutiliza)
+    public void removeTicket(int ticketId) {
+        Map<String, Integer> own = termsByTicket.remove(ticketId);
+        if (own == null) return;
+        for (String term : own.keySet()) {
+            TreeMap<Integer, Integer> p = postings.get(term);
+            if (p == null) continue;
+            p.remove(ticketId);
+            if (p.isEmpty()) postings.remove(term);
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        termsByTicket.clear();
+        noteCount = 0;
+    }
+
+    // ------------------ Consultas ------------------
+
+    // Tickets cuyas notas contienen la palabra, de más a menos apariciones
+    public List<Integer> searchTerm(String term) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        accumulate(scores, normalizeTerm(term), false);
+        return rank(scores);
+    }
+
+    // Tickets con palabras que empiezan por el prefijo ("ced" -> cedula, cedulas...)
+    public List<Integer> searchPrefix(String prefix) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        accumulate(scores, normalizeTerm(prefix), true);
+        return rank(scores);
+    }
+
+    /**
+     * Consulta de varias palabras: suma las apariciones de cada una (una palabra terminada
+     * en '*' se busca como prefijo). Los tickets que coinciden con más palabras quedan primero.
+     */
+    public List<Integer> search(String query) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        if (query == null) return Collections.emptyList();
+        for (String raw : query.trim().split("\\s+")) {
+            boolean prefix = raw.endsWith("*");
+            for (String term : TextNormalizer.tokenize(prefix ? raw.substring(0, raw.length() - 1) : raw)) {
+                accumulate(scores, term, prefix);
+            }
+        }
+        return rank(scores);
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    public int noteCount() {
+        return noteCount;
+    }
+
+    // ------------------ Serialización ------------------
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(noteCount);
+        out.writeInt(postings.size());
+        for (Map.Entry<String, TreeMap<Integer, Integer>> e : postings.entrySet()) {
+            out.writeUTF(e.getKey());
+            writeVarInt(out, e.getValue().size());
+            int prev = 0;
+            for (Map.Entry<Integer, Integer> p : e.getValue().entrySet()) {
+                writeVarInt(out, p.getKey() - prev);
+                writeVarInt(out, p.getValue());
+                prev = p.getKey();
+            }
+        }
+    }
+
+    // Reemplaza el contenido por el leído; lanza IOException si el formato no es válido
+    public void readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Formato de índice de notas desconocido");
+        }
+        clear();
+        noteCount = in.readInt();
+        int terms = in.readInt();
+        for (int i = 0; i < terms; i++) {
+            String term = in.readUTF();
+            int n = readVarInt(in);
+            TreeMap<Integer, Integer> p = new TreeMap<>();
+            int id = 0;
+            for (int k = 0; k < n; k++) {
+                id += readVarInt(in);
+                int count = readVarInt(in);
+                p.put(id, count);
+                termsByTicket.computeIfAbsent(id, x -> new HashMap<>()).put(term, count);
+            }
+            postings.put(term, p);
+        }
+    }
+
+    // ------------------ Internos ------------------
+
+    private void accumulate(Map<Integer, Integer> scores, String term, boolean prefix) {
+        if (term.isEmpty()) return;
+        if (!prefix) {
+            TreeMap<Integer, Integer> p = postings.get(term);
+            if (p != null) p.forEach((id, c) -> scores.merge(id, c, Integer::sum));
+            return;
+        }
+        for (TreeMap<Integer, Integer> p : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+            p.forEach((id, c) -> scores.merge(id, c, Integer::sum));
+        }
+    }
+
+    private static List<Integer> rank(Map<Integer, Integer> scores) {
+        List<Map.Entry<Integer, Integer>> entries = new ArrayList<>(scores.entrySet());
+        entries.sort((a, b) -> a.getValue().equals(b.getValue())
+                ? Integer.compare(a.getKey(), b.getKey())
+                : Integer.compare(b.getValue(), a.getValue()));
+        List<Integer> ids = new ArrayList<>(entries.size());
+        for (Map.Entry<Integer, Integer> e : entries) ids.add(e.getKey());
+        return ids;
+    }
+
+    private static String normalizeTerm(String term) {
+        return TextNormalizer.normalize(term);
+    }
+
+    private static <K> void decrement(Map<K, Integer> counts, K key) {
+        if (counts == null) return;
+        Integer c = counts.get(key);
+        if (c == null) return;
+        if (c <= 1) counts.remove(key);
+        else counts.put(key, c - 1);
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Entero variable mal formado");
+    }
+}
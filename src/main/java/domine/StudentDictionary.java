@@ -0,0 +1,113 @@
+package domine;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diccionario de nombres de estudiantes: cada nombre distinto recibe un código entero compacto
+ * (0, 1, 2, ...) y una única instancia de String compartida por todos sus tickets.
+ *
+ * - canonical() se usa al crear tickets (alta o carga desde disco) para no repetir el texto del
+ *   nombre en memoria por cada ticket de un estudiante que vuelve.
+ * - code()/name() se usan al escribir y leer los snapshots, que guardan el código en lugar del nombre.
+ * - Los códigos nunca cambian ni se reutilizan: se persisten de forma incremental (solo los nuevos).
+ * - Está acotado: al llegar a maxEntries no asigna más códigos; los nombres nuevos se usan tal cual
+ *   (code() devuelve -1 y el snapshot guarda el nombre completo).
+ * Es seguro para altas concurrentes: las búsquedas no toman lock; asignar un código nuevo sí.
+ * @author Jaime Landázuri
+ */
+public class StudentDictionary {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 20;
+    public static final int NO_CODE = -1;
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private volatile int size;
+
+    public StudentDictionary() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public StudentDictionary(int maxEntries) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries debe ser positivo");
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Código del nombre, asignándole uno nuevo si no lo tenía.
+     *
+     * @return código, o NO_CODE si el nombre es null o el diccionario está lleno
+     */
+    public int code(String name) {
+        if (name == null) return NO_CODE;
+        Integer code = codes.get(name);
+        if (code != null) return code;
+        synchronized (this) {
+            code = codes.get(name);
+            if (code != null) return code;
+            if (size >= maxEntries) return NO_CODE;
+            return register(name, size);
+        }
+    }
+
+    // Código ya asignado (sin asignar uno nuevo), o NO_CODE
+    public int lookup(String name) {
+        if (name == null) return NO_CODE;
+        Integer code = codes.get(name);
+        return code == null ? NO_CODE : code;
+    }
+
+    /**
+     * Instancia compartida del nombre (la registra si hay lugar). Si el diccionario está lleno
+     * y el nombre es nuevo, devuelve el mismo String recibido.
+     */
+    public String canonical(String name) {
+        int code = code(name);
+        return code == NO_CODE ? name : name(code);
+    }
+
+    /**
+     * Nombre de un código.
+     *
+     * @throws IllegalArgumentException si el código no existe
+     */
+    public String name(int code) {
+        int n = size;                 // lectura volátil: publica names[0..n)
+        String[] snapshot = names;
+        if (code < 0 || code >= n) throw new IllegalArgumentException("Código de estudiante desconocido: " + code);
+        return snapshot[code];
+    }
+
+    /**
+     * Registra un código leído de disco. Los códigos se cargan en orden (0, 1, 2, ...).
+     */
+    public synchronized void restore(int code, String name) {
+        if (code != size) throw new IllegalArgumentException("Código fuera de orden: " + code + " (esperado " + size + ")");
+        Integer existing = codes.get(name);
+        if (existing != null) throw new IllegalArgumentException("Nombre repetido en el diccionario: " + name);
+        register(name, code);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public boolean isFull() {
+        return size >= maxEntries;
+    }
+
+    // Con el lock tomado
+    private int register(String name, int code) {
+        if (code == names.length) names = Arrays.copyOf(names, names.length * 2);
+        names[code] = name;
+        size = code + 1;              // escritura volátil después de llenar la posición
+        codes.put(name, code);        // visible recién cuando name(code) ya funciona
+        return code;
+    }
+}
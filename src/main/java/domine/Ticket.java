@@ -1,11 +1,15 @@
 package domine;
 
-import estructures.SimpleList;
+import estructures.UnrolledNoteList;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * Clase que representa un ticket de trámite solicitado por un estudiante.
  * Cada ticket tiene un ID único, el nombre del estudiante que lo solicitó,
- * el tipo de trámite, el estado actual del ticket y un historial de notas asociadas al ticket.
+ * el tipo de trámite, el estado actual del ticket, la fecha de creación y un historial de notas asociadas al ticket.
  * @author Jaime Landázuri
  * */
 
@@ -14,13 +18,23 @@ public class Ticket {
     private String student;
     private ProcedureType procedureType;
     private TicketState state;
-    private SimpleList<Note> noteHistory;
+    private UnrolledNoteList noteHistory;
+    private LocalDateTime createdAt;
+    TicketIndex index; // índice que hay que avisar en cada cambio de estado (o null)
 
     public Ticket(String student, ProcedureType procedureType ) {
         this.student = student;
         this.procedureType = procedureType;
         this.state = TicketState.EN_COLA;
-        this.noteHistory = new SimpleList<>();
+        this.noteHistory = new NoteList();
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * Para vistas de solo lectura que leen sus datos de otra estructura (ver HistoryTable):
+     * no reserva historial de notas ni fecha; la subclase redefine los getters.
+     */
+    protected Ticket() {
     }
 
     public int getId() {
@@ -36,10 +50,17 @@ public class Ticket {
     }
 
     public void setState(TicketState state) {
+        TicketState from = this.state;
         this.state = state;
+        if (index != null && from != state) index.onStateChanged(this, from);
     }
 
-    public SimpleList<Note> getNoteHistory() {
+    // Las vistas archivadas (ver HistoryTable, ArchivedTicket) no admiten notas ni cambios de estado
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    public UnrolledNoteList getNoteHistory() {
         return noteHistory;
     }
 
@@ -47,13 +68,101 @@ public class Ticket {
         return student;
     }
 
+    // Solo antes de encolarlo (p. ej. para compartir la instancia del nombre al importar)
+    public void setStudent(String student) {
+        if (index != null) throw new IllegalStateException("El ticket ya está indexado");
+        this.student = student;
+    }
+
     public ProcedureType getProcedureType() {
         return procedureType;
     }
 
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    // Las últimas n notas, en orden cronológico (vista, sin copiar)
+    public Iterable<Note> recentNotes(int n) {
+        return getNoteHistory().lastN(n);
+    }
+
+    /**
+     * Notas con marca de tiempo igual o posterior a since, en el orden del historial.
+     * Una nota sin marca de tiempo cuenta como anterior a cualquier since (no se incluye).
+     * Se filtran al recorrer: una sola pasada, sin copiar.
+     */
+    public Iterable<Note> notesSince(LocalDateTime since) {
+        return () -> new Iterator<Note>() {
+            private final Iterator<Note> all = getNoteHistory().iterator();
+            private Note next = advance();
+
+            private Note advance() {
+                while (all.hasNext()) {
+                    Note n = all.next();
+                    if (n.getTimestamp() != null && !n.getTimestamp().isBefore(since)) return n;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Note next() {
+                if (next == null) throw new NoSuchElementException();
+                Note n = next;
+                next = advance();
+                return n;
+            }
+        };
+    }
+
     public Note agregarNota(String observacion) {
         Note nuevaNota = new Note(observacion);
-        noteHistory.pushBack(nuevaNota);
+        getNoteHistory().pushBack(nuevaNota);
         return nuevaNota;
     }
+
+    /**
+     * Historial de notas (lista desenrollada, compacta) que avisa al índice cuando el ticket
+     * pasa a tener (o deja de tener) notas.
+     */
+    private class NoteList extends UnrolledNoteList {
+
+        @Override
+        public void pushFront(Note note) {
+            super.pushFront(note);
+            notesChanged();
+        }
+
+        @Override
+        public void pushBack(Note note) {
+            super.pushBack(note);
+            notesChanged();
+        }
+
+        @Override
+        public Note remove(Note note) {
+            Note removed = super.remove(note);
+            notesChanged();
+            return removed;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            notesChanged();
+        }
+
+        private void notesChanged() {
+            if (index != null) index.onNotesChanged(Ticket.this);
+        }
+    }
 }
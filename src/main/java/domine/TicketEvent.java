@@ -0,0 +1,82 @@
+package domine;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de dominio sobre un ticket (alta, cambio de estado, notas, cierre y sus deshacer).
+ * Es inmutable: se publica a los consumidores (pantalla de sala de espera, reportes, réplicas)
+ * para que no tengan que releer los archivos CSV.
+ * @author Jaime Landázuri
+ */
+public final class TicketEvent {
+
+    public enum Type {
+        CREATED,            // ticket encolado
+        CREATION_UNDONE,    // undo del alta: el ticket sale del sistema
+        STATE_CHANGED,      // cambio de estado (incluye pasar a EN_ATENCION)
+        NOTE_ADDED,
+        NOTE_REMOVED,       // undo de una nota
+        CLOSED,             // movido al historial como COMPLETADO
+        REOPENED            // undo del cierre
+    }
+
+    private final Type type;
+    private final int ticketId;
+    private final ProcedureType procedureType;
+    private final TicketState fromState;
+    private final TicketState toState;
+    private final String detail;
+    private final LocalDateTime timestamp;
+
+    public TicketEvent(Type type, int ticketId, ProcedureType procedureType,
+                       TicketState fromState, TicketState toState,
+                       String detail, LocalDateTime timestamp) {
+        this.type = type;
+        this.ticketId = ticketId;
+        this.procedureType = procedureType;
+        this.fromState = fromState;
+        this.toState = toState;
+        this.detail = detail;
+        this.timestamp = timestamp;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getTicketId() {
+        return ticketId;
+    }
+
+    public ProcedureType getProcedureType() {
+        return procedureType;
+    }
+
+    /** Estado anterior; null si el evento no implica cambio de estado. */
+    public TicketState getFromState() {
+        return fromState;
+    }
+
+    /** Estado nuevo; null si el evento no implica cambio de estado. */
+    public TicketState getToState() {
+        return toState;
+    }
+
+    /** Texto adicional (por ejemplo, la observación de una nota); puede ser null. */
+    public String getDetail() {
+        return detail;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(type).append(" #").append(ticketId);
+        if (fromState != null || toState != null) sb.append(' ').append(fromState).append(" -> ").append(toState);
+        if (detail != null) sb.append(" (").append(detail).append(')');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,234 @@
+package domine;
+
+import estructures.RoaringBitmap;
+import util.TextNormalizer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índices secundarios de los tickets del sistema (en cola y en historial):
+ * por estudiante (nombre normalizado), por ProcedureType, por TicketState y por tipo+estado.
+ * Además guarda los ids en bitmaps comprimidos por estado, por tipo y "tiene notas", para
+ * filtros combinados (URGENTE AND MATRICULA AND con notas) y conteos con AND/OR de bitmaps.
+ *
+ * Las colas y el historial de AttentionQueue avisan altas y bajas; los cambios de estado los
+ * avisa el propio Ticket. Así cualquier camino (controlador, comandos, undo/redo) mantiene el
+ * índice sin código adicional. Las consultas cuestan O(tamaño del resultado).
+ * Un ticket puede estar registrado más de una vez de forma transitoria (por ejemplo, al deshacer
+ * un cierre entra a la cola antes de salir del historial): se cuentan las referencias.
+ * @author Jaime Landázuri
+ */
+public class TicketIndex {
+
+    private final Map<Ticket, Integer> refs = new IdentityHashMap<>();
+    private final Map<String, Set<Ticket>> byStudent = new HashMap<>();
+    private final Map<ProcedureType, Map<TicketState, Set<Ticket>>> byTypeAndState = new EnumMap<>(ProcedureType.class);
+    private final Map<Integer, Ticket> byId = new HashMap<>();
+    private final Map<TicketState, RoaringBitmap> stateBits = new EnumMap<>(TicketState.class);
+    private final Map<ProcedureType, RoaringBitmap> typeBits = new EnumMap<>(ProcedureType.class);
+    private final RoaringBitmap withNotes = new RoaringBitmap();
+
+    public TicketIndex() {
+        for (ProcedureType type : ProcedureType.values()) {
+            Map<TicketState, Set<Ticket>> states = new EnumMap<>(TicketState.class);
+            for (TicketState state : TicketState.values()) states.put(state, new LinkedHashSet<>());
+            byTypeAndState.put(type, states);
+            typeBits.put(type, new RoaringBitmap());
+        }
+        for (TicketState state : TicketState.values()) stateBits.put(state, new RoaringBitmap());
+    }
+
+    // Registra el ticket (una referencia más si ya estaba)
+    public void add(Ticket t) {
+        if (refs.merge(t, 1, Integer::sum) > 1) return;
+        t.index = this;
+        byStudent.computeIfAbsent(studentKey(t.getStudent()), k -> new LinkedHashSet<>()).add(t);
+        bucket(t.getProcedureType(), t.getState()).add(t);
+        int id = t.getId();
+        byId.put(id, t);
+        if (id >= 0) {
+            stateBits.get(t.getState()).add(id);
+            typeBits.get(t.getProcedureType()).add(id);
+            if (!t.getNoteHistory().isEmpty()) withNotes.add(id);
+        }
+    }
+
+    // Quita una referencia; al llegar a cero el ticket sale de los índices
+    public void remove(Ticket t) {
+        Integer n = refs.get(t);
+        if (n == null) return;
+        if (n > 1) {
+            refs.put(t, n - 1);
+            return;
+        }
+        refs.remove(t);
+        if (t.index == this) t.index = null;
+        String key = studentKey(t.getStudent());
+        Set<Ticket> own = byStudent.get(key);
+        if (own != null) {
+            own.remove(t);
+            if (own.isEmpty()) byStudent.remove(key);
+        }
+        bucket(t.getProcedureType(), t.getState()).remove(t);
+        int id = t.getId();
+        if (byId.remove(id, t)) {
+            stateBits.get(t.getState()).remove(id);
+            typeBits.get(t.getProcedureType()).remove(id);
+            withNotes.remove(id);
+        }
+    }
+
+    // Llamado por Ticket.setState
+    void onStateChanged(Ticket t, TicketState from) {
+        if (!refs.containsKey(t)) return;
+        bucket(t.getProcedureType(), from).remove(t);
+        bucket(t.getProcedureType(), t.getState()).add(t);
+        if (byId.get(t.getId()) == t && t.getId() >= 0) {
+            stateBits.get(from).remove(t.getId());
+            stateBits.get(t.getState()).add(t.getId());
+        }
+    }
+
+    // Llamado por el historial de notas del Ticket
+    void onNotesChanged(Ticket t) {
+        if (!refs.containsKey(t) || byId.get(t.getId()) != t || t.getId() < 0) return;
+        if (t.getNoteHistory().isEmpty()) withNotes.remove(t.getId());
+        else withNotes.add(t.getId());
+    }
+
+    // ------------------ Consultas ------------------
+
+    // Tickets de un estudiante (sin importar mayúsculas, tildes ni espacios extra)
+    public List<Ticket> byStudent(String student) {
+        Set<Ticket> own = byStudent.get(studentKey(student));
+        return own == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(own));
+    }
+
+    public List<Ticket> byType(ProcedureType type) {
+        List<Ticket> out = new ArrayList<>();
+        for (Set<Ticket> s : byTypeAndState.get(type).values()) out.addAll(s);
+        return Collections.unmodifiableList(out);
+    }
+
+    public List<Ticket> byState(TicketState state) {
+        List<Ticket> out = new ArrayList<>();
+        for (Map<TicketState, Set<Ticket>> states : byTypeAndState.values()) out.addAll(states.get(state));
+        return Collections.unmodifiableList(out);
+    }
+
+    // Por ejemplo: todos los HOMOLOGACION completados (en historial)
+    public List<Ticket> byTypeAndState(ProcedureType type, TicketState state) {
+        return Collections.unmodifiableList(new ArrayList<>(bucket(type, state)));
+    }
+
+    // Búsqueda por id en colas e historial, O(1)
+    public Ticket findById(int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Ids que cumplen todos los filtros dados (null = sin filtro en ese campo).
+     * hasNotes = true/false filtra tickets con/sin notas.
+     */
+    public RoaringBitmap filterIds(TicketState state, ProcedureType type, Boolean hasNotes) {
+        RoaringBitmap result = null;
+        if (state != null) result = stateBits.get(state).copy();
+        if (type != null) result = result == null ? typeBits.get(type).copy() : RoaringBitmap.and(result, typeBits.get(type));
+        if (hasNotes != null) {
+            RoaringBitmap base = result != null ? result : allIds();
+            result = hasNotes ? RoaringBitmap.and(base, withNotes) : RoaringBitmap.andNot(base, withNotes);
+        }
+        return result != null ? result : allIds();
+    }
+
+    // Cantidad de tickets que cumplen los filtros (null = sin filtro)
+    public long count(TicketState state, ProcedureType type, Boolean hasNotes) {
+        if (hasNotes == null && state != null && type != null) {
+            return RoaringBitmap.andCardinality(stateBits.get(state), typeBits.get(type));
+        }
+        if (hasNotes == null && type == null && state != null) return stateBits.get(state).cardinality();
+        if (hasNotes == null && state == null && type != null) return typeBits.get(type).cardinality();
+        return filterIds(state, type, hasNotes).cardinality();
+    }
+
+    // Tickets de los ids dados, en orden de id
+    public List<Ticket> resolve(RoaringBitmap ids) {
+        List<Ticket> out = new ArrayList<>((int) ids.cardinality());
+        ids.forEach(id -> {
+            Ticket t = byId.get(id);
+            if (t != null) out.add(t);
+        });
+        return out;
+    }
+
+    // Unión de los bitmaps por estado = todos los ids indexados
+    private RoaringBitmap allIds() {
+        RoaringBitmap all = new RoaringBitmap();
+        for (RoaringBitmap b : stateBits.values()) all = RoaringBitmap.or(all, b);
+        return all;
+    }
+
+    // ------------------ Serialización de bitmaps ------------------
+
+    /**
+     * Escribe los bitmaps (por estado, por tipo y con notas) para guardarlos junto al snapshot.
+     */
+    public void writeBitmapsTo(DataOutput out) throws IOException {
+        out.writeInt(stateBits.size() + typeBits.size() + 1);
+        for (Map.Entry<TicketState, RoaringBitmap> e : stateBits.entrySet()) {
+            out.writeUTF("state:" + e.getKey().name());
+            e.getValue().writeTo(out);
+        }
+        for (Map.Entry<ProcedureType, RoaringBitmap> e : typeBits.entrySet()) {
+            out.writeUTF("type:" + e.getKey().name());
+            e.getValue().writeTo(out);
+        }
+        out.writeUTF("notes");
+        withNotes.writeTo(out);
+    }
+
+    /**
+     * Lee bitmaps escritos por writeBitmapsTo: clave ("state:URGENTE", "type:MATRICULA", "notes") -> ids.
+     * Permite contar y filtrar sobre un snapshot sin cargar los tickets.
+     */
+    public static Map<String, RoaringBitmap> readBitmaps(DataInput in) throws IOException {
+        Map<String, RoaringBitmap> out = new HashMap<>();
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            String key = in.readUTF();
+            out.put(key, RoaringBitmap.readFrom(in));
+        }
+        return out;
+    }
+
+    public int countByTypeAndState(ProcedureType type, TicketState state) {
+        return bucket(type, state).size();
+    }
+
+    public boolean contains(Ticket t) {
+        return refs.containsKey(t);
+    }
+
+    public int size() {
+        return refs.size();
+    }
+
+    private Set<Ticket> bucket(ProcedureType type, TicketState state) {
+        return byTypeAndState.get(type).get(state);
+    }
+
+    private static String studentKey(String student) {
+        return TextNormalizer.normalize(student);
+    }
+}
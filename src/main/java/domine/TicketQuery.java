@@ -0,0 +1,295 @@
+package domine;
+
+import estructures.RoaringBitmap;
+import util.TextNormalizer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Consulta componible sobre los tickets del TicketIndex (cola e historial).
+ * Filtros: rango de ids, estudiante, tipos, estados, cantidad de notas y rango de creación;
+ * además orden, offset y límite.
+ *
+ * Al ejecutar, un planificador elige la vía de acceso más barata según el índice:
+ *  - ID_RANGE: recorrer el rango de ids pedido (búsquedas O(1) por id),
+ *  - STUDENT:  el índice secundario por estudiante,
+ *  - BITMAP:   AND/OR de los bitmaps de estado, tipo y "tiene notas",
+ *  - FULL_SCAN: todos los tickets indexados.
+ * El resto de los filtros se aplica sobre los candidatos. Sin orden explícito los resultados
+ * salen por id ascendente y se producen de forma perezosa (Stream); con orden y límite se
+ * usa un montículo acotado en lugar de ordenar todo.
+ *
+ * Ejemplo: new TicketQuery().states(TicketState.URGENTE).types(ProcedureType.MATRICULA)
+ *              .minNotes(1).orderBy(TicketQuery.SortField.NOTES, true).limit(10).list(index)
+ * @author Jaime Landázuri
+ */
+public class TicketQuery {
+
+    public enum SortField { ID, STUDENT, CREATED, NOTES }
+
+    public enum AccessPath { ID_RANGE, STUDENT, BITMAP, FULL_SCAN }
+
+    private Integer minId;
+    private Integer maxId;
+    private String studentKey;
+    private EnumSet<ProcedureType> types;
+    private EnumSet<TicketState> states;
+    private Integer minNotes;
+    private Integer maxNotes;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+    private SortField sortField;
+    private boolean descending;
+    private int offset;
+    private int limit = -1;
+
+    // ------------------ Filtros ------------------
+
+    // ids entre minId y maxId (inclusive)
+    public TicketQuery idBetween(int minId, int maxId) {
+        this.minId = minId;
+        this.maxId = maxId;
+        return this;
+    }
+
+    // nombre del estudiante (sin importar mayúsculas, tildes ni espacios extra)
+    public TicketQuery student(String student) {
+        this.studentKey = TextNormalizer.normalize(student);
+        return this;
+    }
+
+    // cualquiera de los tipos dados
+    public TicketQuery types(ProcedureType first, ProcedureType... rest) {
+        this.types = EnumSet.of(first, rest);
+        return this;
+    }
+
+    // cualquiera de los estados dados
+    public TicketQuery states(TicketState first, TicketState... rest) {
+        this.states = EnumSet.of(first, rest);
+        return this;
+    }
+
+    public TicketQuery minNotes(int n) {
+        this.minNotes = n;
+        return this;
+    }
+
+    public TicketQuery maxNotes(int n) {
+        this.maxNotes = n;
+        return this;
+    }
+
+    // creados en [from, to); cualquiera de los extremos puede ser null
+    public TicketQuery createdBetween(LocalDateTime from, LocalDateTime to) {
+        this.createdFrom = from;
+        this.createdTo = to;
+        return this;
+    }
+
+    // ------------------ Orden y paginado ------------------
+
+    public TicketQuery orderBy(SortField field, boolean descending) {
+        this.sortField = field;
+        this.descending = descending;
+        return this;
+    }
+
+    public TicketQuery offset(int offset) {
+        if (offset < 0) throw new IllegalArgumentException("offset no puede ser negativo");
+        this.offset = offset;
+        return this;
+    }
+
+    public TicketQuery limit(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("limit no puede ser negativo");
+        this.limit = limit;
+        return this;
+    }
+
+    // ------------------ Ejecución ------------------
+
+    /**
+     * Plan elegido para esta consulta sobre el índice dado (vía de acceso y filas estimadas).
+     */
+    public QueryPlan plan(TicketIndex index) {
+        QueryPlan best = new QueryPlan(AccessPath.FULL_SCAN, index.size());
+        if (minId != null) {
+            long range = Math.max(0L, (long) maxId - minId + 1);
+            if (range < best.getEstimatedRows()) best = new QueryPlan(AccessPath.ID_RANGE, range);
+        }
+        if (studentKey != null) {
+            long rows = index.byStudent(studentKey).size();
+            if (rows < best.getEstimatedRows()) best = new QueryPlan(AccessPath.STUDENT, rows);
+        }
+        if (states != null || types != null || notesFilter() != null) {
+            long rows = bitmapCandidates(index).cardinality();
+            if (rows < best.getEstimatedRows()) best = new QueryPlan(AccessPath.BITMAP, rows);
+        }
+        return best;
+    }
+
+    /**
+     * Ejecuta la consulta. El Stream es perezoso si no hay orden explícito; no modificar
+     * los tickets ni las colas mientras se consume.
+     */
+    public Stream<Ticket> stream(TicketIndex index) {
+        Stream<Ticket> candidates = candidates(index, plan(index).getAccessPath()).filter(this::matches);
+        if (sortField == null) {
+            Stream<Ticket> s = candidates.skip(offset);
+            return limit >= 0 ? s.limit(limit) : s;
+        }
+        Comparator<Ticket> order = comparator();
+        if (limit < 0) return candidates.sorted(order).skip(offset);
+        return topK(candidates, order, offset + limit).stream().skip(offset);
+    }
+
+    public List<Ticket> list(TicketIndex index) {
+        List<Ticket> out = new ArrayList<>();
+        stream(index).forEach(out::add);
+        return out;
+    }
+
+    public long count(TicketIndex index) {
+        return stream(index).count();
+    }
+
+    // ------------------ Internos ------------------
+
+    private Stream<Ticket> candidates(TicketIndex index, AccessPath path) {
+        switch (path) {
+            case ID_RANGE: {
+                PrimitiveIterator.OfInt ids = java.util.stream.IntStream.rangeClosed(minId, maxId).iterator();
+                return lazy(ids).map(index::findById).filter(t -> t != null);
+            }
+            case STUDENT: {
+                List<Ticket> own = new ArrayList<>(index.byStudent(studentKey));
+                own.sort(Comparator.comparingInt(Ticket::getId));
+                return own.stream();
+            }
+            case BITMAP:
+                return lazy(bitmapCandidates(index).iterator()).map(index::findById).filter(t -> t != null);
+            default:
+                return lazy(index.filterIds(null, null, null).iterator()).map(index::findById).filter(t -> t != null);
+        }
+    }
+
+    // Ids que cumplen estado, tipo y (si se deduce de las notas pedidas) "tiene notas"
+    private RoaringBitmap bitmapCandidates(TicketIndex index) {
+        RoaringBitmap result = null;
+        if (states != null) {
+            RoaringBitmap any = new RoaringBitmap();
+            for (TicketState s : states) any = RoaringBitmap.or(any, index.filterIds(s, null, null));
+            result = any;
+        }
+        if (types != null) {
+            RoaringBitmap any = new RoaringBitmap();
+            for (ProcedureType t : types) any = RoaringBitmap.or(any, index.filterIds(null, t, null));
+            result = result == null ? any : RoaringBitmap.and(result, any);
+        }
+        Boolean hasNotes = notesFilter();
+        if (hasNotes != null) {
+            RoaringBitmap notes = index.filterIds(null, null, hasNotes);
+            result = result == null ? notes : RoaringBitmap.and(result, notes);
+        }
+        return result != null ? result : index.filterIds(null, null, null);
+    }
+
+    // minNotes >= 1 implica "tiene notas"; maxNotes == 0 implica "sin notas"
+    private Boolean notesFilter() {
+        if (minNotes != null && minNotes >= 1) return Boolean.TRUE;
+        if (maxNotes != null && maxNotes <= 0) return Boolean.FALSE;
+        return null;
+    }
+
+    private boolean matches(Ticket t) {
+        if (minId != null && (t.getId() < minId || t.getId() > maxId)) return false;
+        if (studentKey != null && !studentKey.equals(TextNormalizer.normalize(t.getStudent()))) return false;
+        if (types != null && !types.contains(t.getProcedureType())) return false;
+        if (states != null && !states.contains(t.getState())) return false;
+        if (minNotes != null || maxNotes != null) {
+            int notes = t.getNoteHistory().size();
+            if (minNotes != null && notes < minNotes) return false;
+            if (maxNotes != null && notes > maxNotes) return false;
+        }
+        if (createdFrom != null || createdTo != null) {
+            LocalDateTime c = t.getCreatedAt();
+            if (c == null) return false;
+            if (createdFrom != null && c.isBefore(createdFrom)) return false;
+            if (createdTo != null && !c.isBefore(createdTo)) return false;
+        }
+        return true;
+    }
+
+    private Comparator<Ticket> comparator() {
+        Comparator<Ticket> c;
+        switch (sortField) {
+            case STUDENT:
+                c = Comparator.comparing(t -> TextNormalizer.normalize(t.getStudent()));
+                break;
+            case CREATED:
+                c = Comparator.comparing(Ticket::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+                break;
+            case NOTES:
+                c = Comparator.comparingInt(t -> t.getNoteHistory().size());
+                break;
+            default:
+                c = Comparator.comparingInt(Ticket::getId);
+        }
+        if (descending) c = c.reversed();
+        return c.thenComparingInt(Ticket::getId); // desempate estable
+    }
+
+    // Los k primeros según el orden, con un montículo de tamaño k
+    private static List<Ticket> topK(Stream<Ticket> candidates, Comparator<Ticket> order, int k) {
+        List<Ticket> out = new ArrayList<>();
+        if (k == 0) return out;
+        PriorityQueue<Ticket> heap = new PriorityQueue<>(k, order.reversed());
+        candidates.forEach(t -> {
+            if (heap.size() < k) {
+                heap.add(t);
+            } else if (order.compare(t, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(t);
+            }
+        });
+        out.addAll(heap);
+        out.sort(order);
+        return out;
+    }
+
+    private static Stream<Integer> lazy(PrimitiveIterator.OfInt ids) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(ids, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Vía de acceso elegida y cantidad estimada de candidatos.
+     */
+    public static final class QueryPlan {
+        private final AccessPath accessPath;
+        private final long estimatedRows;
+
+        QueryPlan(AccessPath accessPath, long estimatedRows) {
+            this.accessPath = accessPath;
+            this.estimatedRows = estimatedRows;
+        }
+
+        public AccessPath getAccessPath() { return accessPath; }
+        public long getEstimatedRows() { return estimatedRows; }
+
+        @Override
+        public String toString() {
+            return accessPath + " (~" + estimatedRows + " candidatos)";
+        }
+    }
+}
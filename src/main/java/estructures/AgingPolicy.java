@@ -0,0 +1,51 @@
+package estructures;
+
+import domine.Ticket;
+
+import java.time.Duration;
+
+/**
+ * Prioridad por envejecimiento: la prioridad efectiva de un ticket crece con su tiempo de espera
+ * y un urgente vale como si llevara urgentBoost esperando de más.
+ * Con crecimiento lineal la clave de cada ticket es fija (llegada - bonificación), así que
+ * se guarda en un montículo indexado: elegir es O(1) y encolar/quitar O(log n).
+ * Ningún normal espera más de urgentBoost por detrás de un urgente que llegó después.
+ * @author Alejandro Padilla
+ */
+public class AgingPolicy implements SchedulingPolicy {
+
+    private final long urgentBoostMillis;
+    private final IndexedMinHeap<Ticket> heap = new IndexedMinHeap<>();
+
+    public AgingPolicy(Duration urgentBoost) {
+        if (urgentBoost.isNegative()) throw new IllegalArgumentException("urgentBoost no puede ser negativo");
+        this.urgentBoostMillis = urgentBoost.toMillis();
+    }
+
+    @Override
+    public void onEnqueue(Ticket t, boolean urgent, long nowMillis) {
+        long key = urgent ? nowMillis - urgentBoostMillis : nowMillis;
+        if (heap.contains(t)) heap.updateKey(t, key);
+        else heap.add(t, key);
+    }
+
+    @Override
+    public void onRemove(Ticket t, boolean urgent) {
+        heap.remove(t);
+    }
+
+    @Override
+    public Ticket select(Queue<Ticket> urgentQueue, Queue<Ticket> normalQueue, long nowMillis) {
+        return heap.peek();
+    }
+
+    @Override
+    public void reset() {
+        heap.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "Envejecimiento (urgente = +" + Duration.ofMillis(urgentBoostMillis).toMinutes() + " min)";
+    }
+}
@@ -0,0 +1,101 @@
+package estructures;
+
+import domine.Note;
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ticket archivado ya leído de su registro (ver TicketCodec): copia de solo lectura, no cambia
+ * si luego se purga. Dos copias son iguales si salen del mismo archivo y posición.
+ * @author Wilson Palma
+ */
+final class ArchivedTicket extends Ticket {
+    private final TicketArchive owner;
+    private final long position;
+    private final int id;
+    private final String student;
+    private final ProcedureType type;
+    private final TicketState state;
+    private final LocalDateTime createdAt;
+    private final UnrolledNoteList notes;
+
+    ArchivedTicket(TicketArchive owner, long position, int id, String student, ProcedureType type,
+                   TicketState state, LocalDateTime createdAt, UnrolledNoteList notes) {
+        this.owner = owner;
+        this.position = position;
+        this.id = id;
+        this.student = student;
+        this.type = type;
+        this.state = state;
+        this.createdAt = createdAt;
+        this.notes = notes;
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public String getStudent() {
+        return student;
+    }
+
+    @Override
+    public ProcedureType getProcedureType() {
+        return type;
+    }
+
+    @Override
+    public TicketState getState() {
+        return state;
+    }
+
+    @Override
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public UnrolledNoteList getNoteHistory() {
+        return notes;
+    }
+
+    @Override
+    public void setId(int id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setState(TicketState state) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setCreatedAt(LocalDateTime createdAt) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ArchivedTicket && ((ArchivedTicket) o).owner == owner
+                && ((ArchivedTicket) o).position == position;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(position);
+    }
+
+    private UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("El ticket " + id + " está archivado (solo lectura)");
+    }
+}
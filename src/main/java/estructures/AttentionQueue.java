@@ -1,28 +1,75 @@
-
 package estructures;
 
+import domine.ProcedureType;
 import domine.Ticket;
+import domine.TicketIndex;
 import domine.TicketState;
+import util.ServiceTimeEstimator;
+import util.SystemClock;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 /**
  * Clase que representa una cola de atención con dos niveles de prioridad: normal y urgente.
- * Los tickets urgentes se atienden antes que los normales.
+ * El orden en que se atienden lo decide una SchedulingPolicy intercambiable
+ * (por defecto prioridad estricta: los urgentes antes que los normales).
  * Además, mantiene un historial de tickets atendidos.
+ * Lleva un índice de posiciones (QueuePositionIndex) y estimaciones de tiempo de atención
+ * por tipo para responder "¿qué posición tengo y cuánto falta?" en O(log n),
+ * y un TicketIndex (por estudiante, tipo y estado) sobre colas e historial.
+ * Pendientes e historial se pueden recorrer por páginas con cursores estables (CursorIndex),
+ * sin copiar las colas completas.
+ * Con setHistoryWindow() el historial en memoria se limita a los últimos N atendidos, y con
+ * setHistoryMaxAge() a los de los últimos N días; los más antiguos pasan a un TicketArchive
+ * (por defecto HistoryTable compacta; DiskArchive para tenerlos en disco con caché LRU) y quedan
+ * de solo lectura, fuera del TicketIndex. setArchiveListener() avisa cada ticket que se archiva
+ * (así la persistencia lo agrega a su archivo en vez de reescribir todo el historial).
  * @author Alejandro Padilla
  * */
 
 public class AttentionQueue {
 
+    // Prefijos de cursor: carril urgente, carril normal e historial
+    private static final String URGENT_CURSOR = "U";
+    private static final String NORMAL_CURSOR = "N";
+    private static final String HISTORY_CURSOR = "H";
+    private static final String ARCHIVE_CURSOR = "A";
+
     private Queue<Ticket> normalQueue;
     private Queue<Ticket> urgentQueue;
     private SimpleList<Ticket> attendedHistory;
+    private SchedulingPolicy policy;
+    private final SystemClock clock;
+    private final QueuePositionIndex positions = new QueuePositionIndex();
+    private final TicketIndex index = new TicketIndex();
+    private final CursorIndex<Ticket> urgentCursors = new CursorIndex<>();
+    private final CursorIndex<Ticket> normalCursors = new CursorIndex<>();
+    private final CursorIndex<Ticket> historyCursors = new CursorIndex<>();
+    private final ServiceTimeEstimator serviceTimes = new ServiceTimeEstimator();
+    private int serviceDesks = 1;
+    private TicketArchive archive = new HistoryTable();
+    private int historyWindow = Integer.MAX_VALUE;
+    private Duration historyMaxAge; // null = sin límite de antigüedad
+    private Consumer<Ticket> archiveListener; // null = nadie escucha
 
     public AttentionQueue() {
-        this.normalQueue = new Queue<>();
-        this.urgentQueue = new Queue<>();
-        this.attendedHistory = new SimpleList<>();
+        this(new StrictPriorityPolicy(), new SystemClock());
+    }
+
+    public AttentionQueue(SchedulingPolicy policy, SystemClock clock) {
+        this.clock = clock;
+        this.policy = policy;
+        this.normalQueue = new Lane(false);
+        this.urgentQueue = new Lane(true);
+        this.attendedHistory = new History();
     }
 
     public void addTicket(Ticket t) {
@@ -35,19 +82,283 @@ public class AttentionQueue {
     }
 
     public Ticket nextTicket() {
-        if (!urgentQueue.isEmpty()) {
-            return urgentQueue.peek();   // <-- antes: dequeue()
-        }
-
-        if (normalQueue.isEmpty()) {
+        if (urgentQueue.isEmpty() && normalQueue.isEmpty()) {
             throw new NoSuchElementException("No tickets in any queue.");
         }
+        return policy.select(urgentQueue, normalQueue, clock.getClock().millis()); // peek, no dequeue
+    }
 
-        return normalQueue.peek();       // <-- antes: dequeue()
+    /**
+     * Avisa a la política que el ticket (elegido con nextTicket) pasó a atenderse. Sigue en su
+     * cola hasta cerrarse; no hace nada si no está en ninguna.
+     */
+    public void markServed(Ticket t) {
+        boolean urgent = urgentQueue.nodeOf(t) != null;
+        if (!urgent && normalQueue.nodeOf(t) == null) return;
+        policy.onServed(t, urgent, clock.getClock().millis());
     }
 
     public void moveToHistory(Ticket t) {
         attendedHistory.pushBack(t);
+        trimHistory();
+    }
+
+    /**
+     * Aplica la ventana y la antigüedad máxima al historial en memoria. Los cierres agregan al
+     * historial directamente (CloseCaseCommand), así que quien los registra llama a esto después.
+     *
+     * @return cantidad de tickets archivados
+     */
+    public int trimHistory() {
+        return archiveHistory(historyWindow) + archiveExpiredHistory();
+    }
+
+    /**
+     * Pasa al archivo los atendidos más antiguos hasta dejar keepRecent en memoria.
+     * Los archivados salen del TicketIndex y ya no se pueden reabrir (undo de su cierre).
+     *
+     * @return cantidad de tickets archivados
+     */
+    public int archiveHistory(int keepRecent) {
+        int moved = 0;
+        while (attendedHistory.size() > keepRecent) {
+            archiveOldest();
+            moved++;
+        }
+        return moved;
+    }
+
+    private void archiveOldest() {
+        Ticket oldest = attendedHistory.head.value;
+        archive.append(oldest);
+        attendedHistory.unlink(attendedHistory.head);
+        if (archiveListener != null) archiveListener.accept(oldest);
+    }
+
+    /**
+     * Se llama con cada ticket que pasa del historial en memoria al archivo (después de
+     * archivarlo), en orden de atención. null = ninguno.
+     */
+    public void setArchiveListener(Consumer<Ticket> listener) {
+        this.archiveListener = listener;
+    }
+
+    /**
+     * Máximo de atendidos que se mantienen en memoria como objetos (Integer.MAX_VALUE = sin límite).
+     * Si ya hay más, se archivan ahora.
+     */
+    public void setHistoryWindow(int maxInMemory) {
+        if (maxInMemory < 0) throw new IllegalArgumentException("La ventana no puede ser negativa");
+        this.historyWindow = maxInMemory;
+        archiveHistory(maxInMemory);
+    }
+
+    public int getHistoryWindow() {
+        return historyWindow;
+    }
+
+    /**
+     * Antigüedad máxima (por fecha de creación) de los atendidos en memoria; null = sin límite.
+     * Si ya hay más antiguos, se archivan ahora.
+     */
+    public void setHistoryMaxAge(Duration maxAge) {
+        if (maxAge != null && maxAge.isNegative()) throw new IllegalArgumentException("La antigüedad no puede ser negativa");
+        this.historyMaxAge = maxAge;
+        archiveExpiredHistory();
+    }
+
+    public Duration getHistoryMaxAge() {
+        return historyMaxAge;
+    }
+
+    /**
+     * Archiva los atendidos creados antes de ahora - historyMaxAge (los que no tienen fecha
+     * cuentan como antiguos). Recorre en orden de atención y se detiene en el primero que
+     * todavía es reciente.
+     *
+     * @return cantidad de tickets archivados
+     */
+    public int archiveExpiredHistory() {
+        if (historyMaxAge == null) return 0;
+        LocalDateTime cutoff = clock.now().minus(historyMaxAge);
+        int moved = 0;
+        while (!attendedHistory.isEmpty()) {
+            LocalDateTime created = attendedHistory.head.value.getCreatedAt();
+            if (created != null && !created.isBefore(cutoff)) break;
+            archiveOldest();
+            moved++;
+        }
+        return moved;
+    }
+
+    /**
+     * Cambia el almacén de archivados. Solo mientras esté vacío el actual.
+     */
+    public void setArchive(TicketArchive archive) {
+        if (this.archive.size() > 0) throw new IllegalStateException("El archivo actual tiene tickets");
+        this.archive = archive;
+    }
+
+    public TicketArchive getArchive() {
+        return archive;
+    }
+
+    // Ticket atendido con ese id: en memoria o (como vista de solo lectura) en el archivo
+    public Ticket findInHistory(int id) {
+        Ticket t = index.findById(id);
+        if (t != null && t.getState() == TicketState.COMPLETADO) return t;
+        return archive.findById(id);
+    }
+
+    // Atendidos en total (en memoria + archivados)
+    public int getHistorySize() {
+        return attendedHistory.size() + archive.size();
+    }
+
+    /**
+     * Todo el historial en orden de atención: primero los archivados, luego los de memoria.
+     */
+    public Iterable<Ticket> fullHistory() {
+        return () -> new Iterator<Ticket>() {
+            private Iterator<Ticket> current = archive.iterator();
+            private boolean inMemory;
+
+            @Override
+            public boolean hasNext() {
+                if (!current.hasNext() && !inMemory) {
+                    current = attendedHistory.iterator();
+                    inMemory = true;
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Ticket next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Cambia la política de atención. La nueva política se alimenta con los tickets
+     * que ya están en cola (se consideran encolados ahora, en su orden actual).
+     */
+    public void setPolicy(SchedulingPolicy newPolicy) {
+        newPolicy.reset();
+        long now = clock.getClock().millis();
+        Node<Ticket> n = urgentQueue.getFront();
+        while (n != null) {
+            newPolicy.onEnqueue(n.value, true, now);
+            n = n.next;
+        }
+        n = normalQueue.getFront();
+        while (n != null) {
+            newPolicy.onEnqueue(n.value, false, now);
+            n = n.next;
+        }
+        this.policy = newPolicy;
+    }
+
+    public SchedulingPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Posición y espera estimada del ticket con ese id, o null si no está en cola.
+     * La espera suma la estimación de atención de cada ticket que tiene delante (por tipo)
+     * y la reparte entre las ventanillas activas.
+     */
+    public QueuePosition getQueuePosition(int ticketId) {
+        Ticket t = positions.findById(ticketId);
+        if (t == null) return null;
+        long[] ahead = positions.aheadByType(t);
+        double workMillis = 0;
+        int count = 0;
+        for (ProcedureType type : ProcedureType.values()) {
+            workMillis += ahead[type.ordinal()] * serviceTimes.estimateMillis(type);
+            count += ahead[type.ordinal()];
+        }
+        return new QueuePosition(ticketId, count + 1, Duration.ofMillis(Math.round(workMillis / serviceDesks)));
+    }
+
+    public TicketIndex getIndex() {
+        return index;
+    }
+
+    public QueuePositionIndex getPositionIndex() {
+        return positions;
+    }
+
+    public ServiceTimeEstimator getServiceTimes() {
+        return serviceTimes;
+    }
+
+    public int getServiceDesks() {
+        return serviceDesks;
+    }
+
+    // Cantidad de ventanillas atendiendo en paralelo (para la espera estimada)
+    public void setServiceDesks(int serviceDesks) {
+        if (serviceDesks < 1) throw new IllegalArgumentException("Debe haber al menos una ventanilla");
+        this.serviceDesks = serviceDesks;
+    }
+
+    /**
+     * Página de tickets pendientes en el orden del listado (urgentes y luego normales).
+     * cursor null = desde el principio; luego usar getNextCursor() de la página anterior.
+     * Los tickets encolados o atendidos entre página y página no desplazan a los que faltan.
+     */
+    public Page<Ticket> page(String cursor, int limit) {
+        checkLimit(limit);
+        List<Ticket> items = new ArrayList<>(Math.min(limit, getTotalWaiting()));
+        boolean urgentPart = cursor == null || cursor.startsWith(URGENT_CURSOR);
+        Long after = cursor == null ? null : parseCursor(cursor, urgentPart ? URGENT_CURSOR : NORMAL_CURSOR);
+        if (urgentPart) {
+            Long last = urgentCursors.collect(after, limit, items);
+            Long pos = last != null ? last : after;
+            if (items.size() == limit && urgentCursors.hasAfter(pos)) return new Page<>(items, URGENT_CURSOR + pos);
+            after = null;
+        }
+        Long last = normalCursors.collect(after, limit - items.size(), items);
+        Long pos = last != null ? last : after;
+        return new Page<>(items, normalCursors.hasAfter(pos) ? NORMAL_CURSOR + (pos == null ? "" : pos) : null);
+    }
+
+    /**
+     * Página del historial de atendidos, en orden de atención. Mismo uso de cursores que page().
+     */
+    public Page<Ticket> pageHistory(String cursor, int limit) {
+        checkLimit(limit);
+        List<Ticket> items = new ArrayList<>(Math.min(limit, getHistorySize()));
+        Long after = null;
+        if (cursor == null || cursor.startsWith(ARCHIVE_CURSOR)) {
+            // primero los archivados (los más antiguos)
+            Long fromArchive = cursor == null ? null : parseCursor(cursor, ARCHIVE_CURSOR);
+            long pos = archive.collect(fromArchive == null ? -1 : fromArchive, limit, items);
+            if (items.size() == limit && archive.hasAfter(pos)) return new Page<>(items, ARCHIVE_CURSOR + pos);
+        } else {
+            after = parseCursor(cursor, HISTORY_CURSOR);
+        }
+        Long last = historyCursors.collect(after, limit - items.size(), items);
+        Long pos = last != null ? last : after;
+        return new Page<>(items, historyCursors.hasAfter(pos) ? HISTORY_CURSOR + (pos == null ? "" : pos) : null);
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1) throw new IllegalArgumentException("El tamaño de página debe ser >= 1");
+    }
+
+    // "U12", "N-3", "N" (inicio de los normales), "H40"
+    private static Long parseCursor(String cursor, String prefix) {
+        if (!cursor.startsWith(prefix)) throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        String seq = cursor.substring(prefix.length());
+        if (seq.isEmpty()) return null;
+        try {
+            return Long.parseLong(seq);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
     }
 
     public SimpleList<Ticket> getAttendedHistory() {
@@ -65,4 +376,133 @@ public class AttentionQueue {
     public Queue<Ticket> getUrgentQueue() {
         return urgentQueue;
     }
-}
\ No newline at end of file
+
+    /**
+     * Cola interna que avisa a la política y al índice de posiciones de cada alta/baja. Así quedan
+     * sincronizados aunque los comandos y el controlador operen directamente sobre las colas.
+     */
+    private class Lane extends Queue<Ticket> {
+        private final boolean urgent;
+        // ticket -> su nodo: nodeOf()/remove() en O(1) (los tickets se comparan por referencia)
+        private final Map<Ticket, Node<Ticket>> nodes = new IdentityHashMap<>();
+
+        Lane(boolean urgent) {
+            this.urgent = urgent;
+        }
+
+        @Override
+        public void enqueue(Ticket value) {
+            super.enqueue(value);
+            nodes.put(value, getRear());
+            positions.onEnqueue(value, urgent, getFront());
+            cursors().addLast(value);
+            index.add(value);
+            policy.onEnqueue(value, urgent, clock.getClock().millis());
+        }
+
+        // dequeue() y remove() pasan por aquí
+        @Override
+        public Ticket unlink(Node<Ticket> node) {
+            Ticket t = super.unlink(node);
+            nodes.remove(t);
+            positions.onRemove(t, urgent);
+            cursors().remove(t);
+            index.remove(t);
+            policy.onRemove(t, urgent);
+            return t;
+        }
+
+        // Reinserción en su lugar (undo de un cierre): los índices reusan el hueco que dejó
+        @Override
+        public void insertAfter(Node<Ticket> prev, Node<Ticket> node) {
+            super.insertAfter(prev, node);
+            Ticket t = node.value;
+            Ticket before = prev == null ? null : prev.value;
+            Ticket after = node.next == null ? null : node.next.value;
+            nodes.put(t, node);
+            positions.onInsert(t, urgent, before, after, getFront());
+            cursors().insertAfter(t, before, after);
+            index.add(t);
+            policy.onEnqueue(t, urgent, clock.getClock().millis());
+        }
+
+        @Override
+        public Node<Ticket> nodeOf(Ticket key) {
+            return nodes.get(key);
+        }
+
+        @Override
+        public void setFront(Node<Ticket> front) {
+            Node<Ticket> old = getFront();
+            super.setFront(front);
+            // Uso heredado: re-insertar un ticket al frente (ver insertAfter); reusa su hueco
+            if (front != null && front.next == old) {
+                positions.onInsert(front.value, urgent, null, old == null ? null : old.value, front);
+                nodes.put(front.value, front);
+                cursors().addFirst(front.value);
+                index.add(front.value);
+                policy.onEnqueue(front.value, urgent, clock.getClock().millis());
+                return;
+            }
+            // Cadena reemplazada: bajas de los que ya no están, altas de los nuevos y orden de
+            // los cursores según la cadena nueva
+            positions.rebuild(urgent, front);
+            Map<Ticket, Node<Ticket>> previous = new IdentityHashMap<>(nodes);
+            nodes.clear();
+            cursors().clear();
+            long now = clock.getClock().millis();
+            for (Node<Ticket> n = front; n != null; n = n.next) {
+                nodes.put(n.value, n);
+                cursors().addLast(n.value);
+                if (previous.remove(n.value) == null) {
+                    index.add(n.value);
+                    policy.onEnqueue(n.value, urgent, now);
+                }
+            }
+            for (Ticket gone : previous.keySet()) {
+                index.remove(gone);
+                policy.onRemove(gone, urgent);
+            }
+        }
+
+        private CursorIndex<Ticket> cursors() {
+            return urgent ? urgentCursors : normalCursors;
+        }
+    }
+
+    /**
+     * Historial que avisa al índice de cada alta/baja (cierres y sus undo).
+     */
+    private class History extends SimpleList<Ticket> {
+
+        @Override
+        public void pushFront(Ticket value) {
+            super.pushFront(value);
+            historyCursors.addFirst(value);
+            index.add(value);
+        }
+
+        @Override
+        public void pushBack(Ticket value) {
+            super.pushBack(value);
+            historyCursors.addLast(value);
+            index.add(value);
+        }
+
+        // remove() pasa por aquí
+        @Override
+        public Ticket unlink(Node<Ticket> node) {
+            Ticket t = super.unlink(node);
+            historyCursors.remove(t);
+            index.remove(t);
+            return t;
+        }
+
+        @Override
+        public void clear() {
+            for (Node<Ticket> n = head; n != null; n = n.next) index.remove(n.value);
+            historyCursors.clear();
+            super.clear();
+        }
+    }
+}
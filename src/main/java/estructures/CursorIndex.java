@@ -0,0 +1,111 @@
+package estructures;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Numeración estable de los elementos de una cola o lista, para paginar con cursores.
+ * Cada elemento recibe un número de secuencia al entrar: al final = mayor que todos,
+ * al frente = menor que todos, de vuelta a su lugar (undo) = una intermedia entre sus vecinos,
+ * de modo que el orden por secuencia coincide con el de la estructura.
+ * Un cursor es la secuencia del último elemento entregado: las altas y bajas posteriores no
+ * desplazan a los que faltan (no se repiten ni se saltan elementos, a diferencia de un offset).
+ * Pedir una página es O(log n + tamaño de página).
+ * @param <T> Tipo de los elementos (se identifican por referencia).
+ * @author Alejandro Padilla
+ */
+public class CursorIndex<T> {
+
+    // Separación entre secuencias consecutivas: deja lugar para reinsertar entre vecinos
+    private static final long STRIDE = 1L << 20;
+
+    private final NavigableMap<Long, T> bySeq = new TreeMap<>();
+    private final Map<T, Long> seqOf = new IdentityHashMap<>();
+    private long first;
+    private long last = -1;
+
+    // ------------------ Ganchos de la estructura ------------------
+
+    void addLast(T value) {
+        if (bySeq.isEmpty()) first = last = 0;
+        else last += STRIDE;
+        put(value, last);
+    }
+
+    void addFirst(T value) {
+        if (bySeq.isEmpty()) first = last = 0;
+        else first -= STRIDE;
+        put(value, first);
+    }
+
+    // Entre prev y next (null = extremo): toma la secuencia del medio del hueco, así caben
+    // ~log2(STRIDE) reinserciones anidadas; sin hueco corre los siguientes (un cursor entre
+    // medio puede repetir un elemento)
+    void insertAfter(T value, T prev, T next) {
+        if (prev == null || bySeq.isEmpty()) {
+            addFirst(value);
+            return;
+        }
+        if (next == null) {
+            addLast(value);
+            return;
+        }
+        long lo = seqOf.get(prev);
+        long hi = seqOf.get(next);
+        if (hi - lo <= 1) {
+            for (Map.Entry<Long, T> e : new ArrayList<>(bySeq.tailMap(hi, true).descendingMap().entrySet())) {
+                put(e.getValue(), e.getKey() + STRIDE);
+            }
+            last += STRIDE;
+            hi += STRIDE;
+        }
+        put(value, lo + (hi - lo) / 2);
+    }
+
+    void remove(T value) {
+        Long seq = seqOf.remove(value);
+        if (seq != null) bySeq.remove(seq);
+    }
+
+    void clear() {
+        bySeq.clear();
+        seqOf.clear();
+    }
+
+    private void put(T value, long seq) {
+        remove(value);
+        bySeq.put(seq, value);
+        seqOf.put(value, seq);
+    }
+
+    // ------------------ Consultas ------------------
+
+    /**
+     * Agrega a out hasta limit elementos posteriores a la secuencia after (null = desde el principio).
+     *
+     * @return secuencia del último elemento agregado, o null si no agregó ninguno
+     */
+    public Long collect(Long after, int limit, List<T> out) {
+        NavigableMap<Long, T> tail = after == null ? bySeq : bySeq.tailMap(after, false);
+        Long lastSeq = null;
+        for (Map.Entry<Long, T> e : tail.entrySet()) {
+            if (limit-- <= 0) break;
+            out.add(e.getValue());
+            lastSeq = e.getKey();
+        }
+        return lastSeq;
+    }
+
+    // ¿Hay elementos después de la secuencia dada?
+    public boolean hasAfter(Long after) {
+        return after == null ? !bySeq.isEmpty() : bySeq.higherKey(after) != null;
+    }
+
+    public int size() {
+        return bySeq.size();
+    }
+}
@@ -0,0 +1,309 @@
+package estructures;
+
+import domine.ProcedureType;
+import domine.StudentDictionary;
+import domine.Ticket;
+import domine.TicketState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Nivel frío del historial: los tickets archivados se escriben en disco y se vuelven a leer
+ * a través de una caché LRU acotada (con contadores de aciertos, fallos y desalojos).
+ * La memoria ocupada queda fija (caché + conteos) sin importar el tamaño del archivo.
+ *
+ * - 'history_archive.dat': registros [largo(4)][registro de TicketCodec] solo agregados al final;
+ *   la posición de cada registro (su offset) es el cursor de paginación. Al purgar un ticket se
+ *   marca su byte libre y el espacio no se recupera.
+ * - 'history_archive.idx': id -> offset + 1 en 8 bytes por id (archivo disperso, 0 = no está),
+ *   así findById() cuesta dos lecturas sin tener el índice en memoria.
+ *
+ * Es un almacén de desborde: se vacía al abrirlo, porque al arrancar los archivados se vuelven a
+ * cargar desde 'archived_history.csv' (y los recientes que exceden la ventana vuelven a bajar).
+ * Los recorridos (collect, iterator) leen directo del archivo sin pasar por la caché, así
+ * paginar el historial no desaloja los tickets consultados.
+ * @author Alejandro Padilla
+ */
+public class DiskArchive implements TicketArchive, Closeable {
+
+    public static final String DATA_FILE = "history_archive.dat";
+    public static final String INDEX_FILE = "history_archive.idx";
+    public static final int DEFAULT_CACHE_CAPACITY = 1_000;
+    private static final byte LIVE = 0;
+    private static final byte DELETED = 1;
+    private static final ProcedureType[] TYPES = ProcedureType.values();
+    private static final TicketState[] STATES = TicketState.values();
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final TicketCodec codec;
+    private final int cacheCapacity;
+    private final Map<Integer, Ticket> cache;
+    private long dataEnd;
+    private int live;
+    // conteos por estado, tipo y con/sin notas, para count() sin leer el archivo
+    private final long[][][] counts = new long[STATES.length][TYPES.length][2];
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public DiskArchive(Path dir, StudentDictionary dictionary) throws IOException {
+        this(dir, dictionary, DEFAULT_CACHE_CAPACITY);
+    }
+
+    public DiskArchive(Path dir, StudentDictionary dictionary, int cacheCapacity) throws IOException {
+        if (cacheCapacity < 0) throw new IllegalArgumentException("La capacidad de la caché no puede ser negativa");
+        this.codec = new TicketCodec(dictionary);
+        this.cacheCapacity = cacheCapacity;
+        this.cache = new LinkedHashMap<Integer, Ticket>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Ticket> eldest) {
+                if (size() <= DiskArchive.this.cacheCapacity) return false;
+                evictions++;
+                return true;
+            }
+        };
+        this.data = FileChannel.open(dir.resolve(DATA_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            this.index = FileChannel.open(dir.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+    }
+
+    // ------------------ TicketArchive ------------------
+
+    @Override
+    public synchronized void append(Ticket t) {
+        if (t.getId() < 0) throw new IllegalArgumentException("Id inválido para el archivo: " + t.getId());
+        remove(t.getId());
+        ByteBuffer record = codec.encode(t);
+        ByteBuffer framed = ByteBuffer.allocate(4 + record.remaining());
+        framed.putInt(record.remaining()).put(record).flip();
+        long offset = dataEnd;
+        try {
+            writeFully(data, framed, offset);
+            writeIndex(t.getId(), offset + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo archivar el ticket " + t.getId(), e);
+        }
+        dataEnd += framed.capacity();
+        counts[t.getState().ordinal()][t.getProcedureType().ordinal()][t.getNoteHistory().isEmpty() ? 0 : 1]++;
+        live++;
+    }
+
+    @Override
+    public synchronized Ticket findById(int id) {
+        Ticket cached = cache.get(id);
+        if (cached != null) {
+            hits++;
+            return cached;
+        }
+        misses++;
+        long offset = offsetOf(id);
+        if (offset < 0) return null;
+        Ticket t = codec.decode(readRecord(offset), 0, this, offset);
+        if (cacheCapacity > 0) cache.put(id, t);
+        return t;
+    }
+
+    @Override
+    public synchronized boolean remove(int id) {
+        long offset = offsetOf(id);
+        if (offset < 0) return false;
+        ByteBuffer record = readRecord(offset);
+        try {
+            writeFully(data, ByteBuffer.wrap(new byte[]{ DELETED }), offset + 4 + TicketCodec.SPARE);
+            writeIndex(id, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo purgar el ticket " + id, e);
+        }
+        cache.remove(id);
+        counts[TicketCodec.state(record, 0).ordinal()][TicketCodec.type(record, 0).ordinal()]
+                [TicketCodec.noteCount(record, 0) > 0 ? 1 : 0]--;
+        live--;
+        return true;
+    }
+
+    @Override
+    public synchronized int size() {
+        return live;
+    }
+
+    @Override
+    public synchronized long count(TicketState state, ProcedureType type, Boolean hasNotes) {
+        long n = 0;
+        for (int s = 0; s < STATES.length; s++) {
+            if (state != null && state.ordinal() != s) continue;
+            for (int ty = 0; ty < TYPES.length; ty++) {
+                if (type != null && type.ordinal() != ty) continue;
+                if (hasNotes == null || !hasNotes) n += counts[s][ty][0];
+                if (hasNotes == null || hasNotes) n += counts[s][ty][1];
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized long collect(long after, int limit, List<Ticket> out) {
+        long last = after;
+        for (long pos = nextLive(firstAfter(after)); pos < dataEnd && limit > 0; pos = nextLive(pos + 4 + readLength(pos))) {
+            out.add(codec.decode(readRecord(pos), 0, this, pos));
+            last = pos;
+            limit--;
+        }
+        return last;
+    }
+
+    @Override
+    public synchronized boolean hasAfter(long after) {
+        return nextLive(firstAfter(after)) < dataEnd;
+    }
+
+    @Override
+    public Iterator<Ticket> iterator() {
+        return new Iterator<Ticket>() {
+            private long pos = -1;
+            private Ticket next = advance();
+
+            private Ticket advance() {
+                synchronized (DiskArchive.this) {
+                    long p = nextLive(firstAfter(pos));
+                    if (p >= dataEnd) return null;
+                    pos = p;
+                    return codec.decode(readRecord(p), 0, DiskArchive.this, p);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Ticket next() {
+                if (next == null) throw new NoSuchElementException();
+                Ticket t = next;
+                next = advance();
+                return t;
+            }
+        };
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        cache.clear();
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    // ------------------ Caché ------------------
+
+    public synchronized long getCacheHits() {
+        return hits;
+    }
+
+    public synchronized long getCacheMisses() {
+        return misses;
+    }
+
+    public synchronized long getCacheEvictions() {
+        return evictions;
+    }
+
+    public synchronized int getCacheSize() {
+        return cache.size();
+    }
+
+    public int getCacheCapacity() {
+        return cacheCapacity;
+    }
+
+    /** Bytes escritos en el archivo de datos (incluye los registros purgados). */
+    public synchronized long getDataBytes() {
+        return dataEnd;
+    }
+
+    // ------------------ Internos ------------------
+
+    // Offset del registro siguiente a la posición after (-1 = el primero)
+    private long firstAfter(long after) {
+        return after < 0 ? 0 : after + 4 + readLength(after);
+    }
+
+    // Primer registro vigente desde pos (o dataEnd)
+    private long nextLive(long pos) {
+        while (pos < dataEnd && readByte(pos + 4 + TicketCodec.SPARE) != LIVE) pos += 4 + readLength(pos);
+        return pos;
+    }
+
+    private long offsetOf(int id) {
+        if (id < 0) return -1;
+        ByteBuffer buf = ByteBuffer.allocate(8);
+        try {
+            long at = (long) id * 8;
+            if (at + 8 > index.size()) return -1;
+            readFully(index, buf, at);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el índice del archivo", e);
+        }
+        return buf.getLong(0) - 1;
+    }
+
+    private void writeIndex(int id, long value) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8);
+        buf.putLong(0, value);
+        writeFully(index, buf, (long) id * 8);
+    }
+
+    private int readLength(long pos) {
+        return read(pos, 4).getInt(0);
+    }
+
+    private byte readByte(long pos) {
+        return read(pos, 1).get(0);
+    }
+
+    private ByteBuffer readRecord(long offset) {
+        return read(offset + 4, readLength(offset));
+    }
+
+    private ByteBuffer read(long pos, int length) {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        try {
+            readFully(data, buf, pos);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el archivo del historial", e);
+        }
+        return buf;
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos + buf.position());
+            if (n < 0) throw new IOException("Fin de archivo inesperado en " + pos);
+        }
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) ch.write(buf, pos + buf.position());
+    }
+}
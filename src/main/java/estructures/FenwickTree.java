@@ -0,0 +1,51 @@
+package estructures;
+
+/**
+ * Árbol de Fenwick (Binary Indexed Tree) de capacidad fija sobre posiciones 0..capacity-1.
+ * add() y prefixSum() son O(log n); sirve para contar cuántos elementos hay antes de una posición.
+ * @author Alejandro Padilla
+ */
+public class FenwickTree {
+
+    private final long[] tree;   // indexado desde 1
+
+    public FenwickTree(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("La capacidad debe ser >= 1");
+        tree = new long[capacity + 1];
+    }
+
+    // Suma delta en la posición i
+    public void add(int i, long delta) {
+        checkIndex(i);
+        for (int x = i + 1; x < tree.length; x += x & -x) {
+            tree[x] += delta;
+        }
+    }
+
+    // Suma de las posiciones 0..i (inclusive); i = -1 devuelve 0
+    public long prefixSum(int i) {
+        if (i < 0) return 0;
+        checkIndex(i);
+        long sum = 0;
+        for (int x = i + 1; x > 0; x -= x & -x) {
+            sum += tree[x];
+        }
+        return sum;
+    }
+
+    // Suma de las posiciones from..to (inclusive)
+    public long rangeSum(int from, int to) {
+        if (to < from) return 0;
+        return prefixSum(to) - prefixSum(from - 1);
+    }
+
+    public int capacity() {
+        return tree.length - 1;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= tree.length - 1) {
+            throw new IndexOutOfBoundsException("Posición fuera de rango: " + i);
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package estructures;
+
+import domine.Note;
+import domine.ProcedureType;
+import domine.StudentDictionary;
+import domine.Ticket;
+import domine.TicketState;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Historial de tickets cerrados guardado por columnas (struct-of-arrays) en arreglos primitivos
+ * que crecen al doble: id, tipo, estado, estudiante (codificado con un diccionario), cantidad de
+ * notas y fecha de creación. Las notas de los tickets que tienen se guardan en una
+ * UnrolledNoteList compacta.
+ *
+ * Un Ticket del historial en memoria cuesta unos 500 bytes (objeto, String del estudiante,
+ * LocalDateTime, lista de notas vacía, nodo, entradas de TicketIndex); aquí una fila son ~50 bytes
+ * contando el índice por id (ver HistoryFootprintBenchmark). Los conteos por estado y tipo
+ * recorren solo dos byte[] contiguos.
+ *
+ * findById() y el iterador devuelven vistas livianas (Row) que leen la fila al momento de
+ * consultarlas; son de solo lectura. Las filas purgadas quedan marcadas y no se reutilizan,
+ * así la posición de cada fila sirve de cursor estable.
+ *
+ * El diccionario de estudiantes puede compartirse con PersistenceManager (mismos códigos en
+ * memoria y en disco). Si está lleno, el nombre de la fila se guarda aparte.
+ * @author Alejandro Padilla
+ */
+public class HistoryTable implements TicketArchive {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final byte DELETED = -1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final ProcedureType[] TYPES = ProcedureType.values();
+    private static final TicketState[] STATES = TicketState.values();
+
+    // Columnas
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private byte[] states = new byte[INITIAL_CAPACITY];
+    private int[] students = new int[INITIAL_CAPACITY];
+    private int[] noteCounts = new int[INITIAL_CAPACITY];
+    private long[] created = new long[INITIAL_CAPACITY];
+    private UnrolledNoteList[] notes = new UnrolledNoteList[INITIAL_CAPACITY];
+    private int rows;   // filas usadas (incluye purgadas)
+    private int live;   // filas vigentes
+
+    // Diccionario de estudiantes: nombre <-> código; filas sin código (diccionario lleno) -> nombre
+    private final StudentDictionary dictionary;
+    private final Map<Integer, String> uncodedStudents = new HashMap<>();
+
+    // id -> fila, direccionamiento abierto sobre int[] (sin objetos por entrada)
+    private int[] slotIds = new int[INITIAL_CAPACITY * 2];
+    private int[] slotRows = newSlots(INITIAL_CAPACITY * 2);
+    private int slotsUsed;
+
+    public HistoryTable() {
+        this(new StudentDictionary());
+    }
+
+    public HistoryTable(StudentDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    // ------------------ TicketArchive ------------------
+
+    @Override
+    public void append(Ticket t) {
+        int old = rowOf(t.getId());
+        if (old >= 0) deleteRow(old);
+        if (rows == ids.length) grow();
+        int r = rows++;
+        ids[r] = t.getId();
+        types[r] = (byte) t.getProcedureType().ordinal();
+        states[r] = (byte) t.getState().ordinal();
+        students[r] = dictionary.code(t.getStudent());
+        if (students[r] == StudentDictionary.NO_CODE) uncodedStudents.put(r, t.getStudent());
+        created[r] = t.getCreatedAt() == null ? NO_TIME : t.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+        UnrolledNoteList own = t.getNoteHistory();
+        noteCounts[r] = own.size();
+        notes[r] = own.isEmpty() ? null : FrozenNotes.copyOf(own);
+        putSlot(t.getId(), r);
+        live++;
+    }
+
+    @Override
+    public Ticket findById(int id) {
+        int r = rowOf(id);
+        return r < 0 ? null : new Row(r);
+    }
+
+    @Override
+    public boolean remove(int id) {
+        int r = rowOf(id);
+        if (r < 0) return false;
+        deleteRow(r);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return live;
+    }
+
+    @Override
+    public long count(TicketState state, ProcedureType type, Boolean hasNotes) {
+        int s = state == null ? -1 : state.ordinal();
+        int ty = type == null ? -1 : type.ordinal();
+        long n = 0;
+        for (int r = 0; r < rows; r++) {
+            if (states[r] == DELETED) continue;
+            if ((s < 0 || states[r] == s) && (ty < 0 || types[r] == ty)
+                    && (hasNotes == null || hasNotes == (noteCounts[r] > 0))) n++;
+        }
+        return n;
+    }
+
+    @Override
+    public long collect(long after, int limit, List<Ticket> out) {
+        long last = after;
+        for (int r = (int) Math.max(0, after + 1); r < rows && limit > 0; r++) {
+            if (states[r] == DELETED) continue;
+            out.add(new Row(r));
+            last = r;
+            limit--;
+        }
+        return last;
+    }
+
+    @Override
+    public boolean hasAfter(long after) {
+        for (int r = (int) Math.max(0, after + 1); r < rows; r++) {
+            if (states[r] != DELETED) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<Ticket> iterator() {
+        return new Iterator<Ticket>() {
+            private int r = nextLive(0);
+
+            @Override
+            public boolean hasNext() {
+                return r < rows;
+            }
+
+            @Override
+            public Ticket next() {
+                if (r >= rows) throw new NoSuchElementException();
+                Ticket t = new Row(r);
+                r = nextLive(r + 1);
+                return t;
+            }
+        };
+    }
+
+    /** Cantidad de estudiantes distintos en el diccionario. */
+    public int studentCount() {
+        return dictionary.size();
+    }
+
+    // ------------------ Internos ------------------
+
+    private int nextLive(int from) {
+        while (from < rows && states[from] == DELETED) from++;
+        return from;
+    }
+
+    private void deleteRow(int r) {
+        states[r] = DELETED;
+        notes[r] = null;
+        uncodedStudents.remove(r);
+        removeSlot(ids[r]);
+        live--;
+    }
+
+    private void grow() {
+        int cap = ids.length * 2;
+        ids = Arrays.copyOf(ids, cap);
+        types = Arrays.copyOf(types, cap);
+        states = Arrays.copyOf(states, cap);
+        students = Arrays.copyOf(students, cap);
+        noteCounts = Arrays.copyOf(noteCounts, cap);
+        created = Arrays.copyOf(created, cap);
+        notes = Arrays.copyOf(notes, cap);
+    }
+
+    // --- tabla id -> fila (sondeo lineal; borrado con reubicación, sin marcas) ---
+
+    private static int[] newSlots(int n) {
+        int[] a = new int[n];
+        Arrays.fill(a, -1);
+        return a;
+    }
+
+    private int slotFor(int id, int[] keys, int[] vals) {
+        int mask = keys.length - 1;
+        int i = (id * 0x9E3779B9 >>> 7) & mask;
+        while (vals[i] >= 0 && keys[i] != id) i = (i + 1) & mask;
+        return i;
+    }
+
+    private int rowOf(int id) {
+        int i = slotFor(id, slotIds, slotRows);
+        return slotRows[i];
+    }
+
+    private void putSlot(int id, int row) {
+        if ((slotsUsed + 1) * 2 > slotIds.length) rehash(slotIds.length * 2);
+        int i = slotFor(id, slotIds, slotRows);
+        if (slotRows[i] < 0) slotsUsed++;
+        slotIds[i] = id;
+        slotRows[i] = row;
+    }
+
+    private void removeSlot(int id) {
+        int mask = slotIds.length - 1;
+        int i = slotFor(id, slotIds, slotRows);
+        if (slotRows[i] < 0) return;
+        slotRows[i] = -1;
+        slotsUsed--;
+        // reubicar el resto del grupo para no cortar las secuencias de sondeo
+        for (int j = (i + 1) & mask; slotRows[j] >= 0; j = (j + 1) & mask) {
+            int key = slotIds[j];
+            int row = slotRows[j];
+            slotRows[j] = -1;
+            int k = slotFor(key, slotIds, slotRows);
+            slotIds[k] = key;
+            slotRows[k] = row;
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] keys = new int[capacity];
+        int[] vals = newSlots(capacity);
+        for (int i = 0; i < slotIds.length; i++) {
+            if (slotRows[i] < 0) continue;
+            int k = slotFor(slotIds[i], keys, vals);
+            keys[k] = slotIds[i];
+            vals[k] = slotRows[i];
+        }
+        slotIds = keys;
+        slotRows = vals;
+    }
+
+    // ------------------ Vista de una fila ------------------
+
+    /**
+     * Ticket de solo lectura respaldado por una fila de la tabla (flyweight: solo guarda el número
+     * de fila). Si la fila se purga, la vista deja de ser válida.
+     */
+    private final class Row extends Ticket {
+        private final int row;
+
+        Row(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return true;
+        }
+
+        @Override
+        public int getId() {
+            return ids[row];
+        }
+
+        @Override
+        public String getStudent() {
+            int code = students[row];
+            return code == StudentDictionary.NO_CODE ? uncodedStudents.get(row) : dictionary.name(code);
+        }
+
+        @Override
+        public ProcedureType getProcedureType() {
+            return TYPES[types[row]];
+        }
+
+        @Override
+        public TicketState getState() {
+            if (states[row] == DELETED) throw new IllegalStateException("Ticket purgado del archivo");
+            return STATES[states[row]];
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            long millis = created[row];
+            return millis == NO_TIME ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+        }
+
+        @Override
+        public UnrolledNoteList getNoteHistory() {
+            return notes[row] != null ? notes[row] : FrozenNotes.EMPTY;
+        }
+
+        @Override
+        public void setId(int id) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setState(TicketState state) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setCreatedAt(LocalDateTime createdAt) {
+            throw readOnly();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Row && ((Row) o).row == row && ((Row) o).table() == HistoryTable.this;
+        }
+
+        @Override
+        public int hashCode() {
+            return row;
+        }
+
+        private HistoryTable table() {
+            return HistoryTable.this;
+        }
+
+        private UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("El ticket " + getId() + " está archivado (solo lectura)");
+        }
+    }
+
+    /**
+     * Notas de un ticket archivado: se cargan una vez y luego no admiten cambios.
+     */
+    static final class FrozenNotes extends UnrolledNoteList {
+        static final FrozenNotes EMPTY = new FrozenNotes();
+        private boolean frozen;
+
+        static FrozenNotes copyOf(Iterable<Note> source) {
+            FrozenNotes copy = new FrozenNotes();
+            for (Note n : source) copy.pushBack(n);
+            copy.frozen = true;
+            return copy;
+        }
+
+        private FrozenNotes() {
+        }
+
+        @Override
+        public void pushBack(Note note) {
+            check();
+            super.pushBack(note);
+        }
+
+        @Override
+        public void pushFront(Note note) {
+            check();
+            super.pushFront(note);
+        }
+
+        @Override
+        public Note remove(Note key) {
+            check();
+            return super.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            check();
+            super.clear();
+        }
+
+        private void check() {
+            if (frozen || this == EMPTY) throw new UnsupportedOperationException("Notas de un ticket archivado");
+        }
+    }
+}
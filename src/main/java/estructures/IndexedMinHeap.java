@@ -0,0 +1,174 @@
+package estructures;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Montículo binario de mínimos con índice de posiciones.
+ * Cada elemento tiene una clave (long); a igual clave se respeta el orden de inserción.
+ * Además de add/peek/poll permite remove y updateKey de un elemento arbitrario en O(log n),
+ * porque guarda la posición de cada elemento en el arreglo (por identidad del objeto).
+ * @param <T> Tipo de dato que almacena el montículo.
+ * @author Alejandro Padilla
+ */
+public class IndexedMinHeap<T> {
+
+    private Object[] items;
+    private long[] keys;
+    private long[] seqs;              // desempate FIFO
+    private int size;
+    private long nextSeq;
+    private final Map<T, Integer> positions = new IdentityHashMap<>();
+
+    public IndexedMinHeap() {
+        this(16);
+    }
+
+    public IndexedMinHeap(int initialCapacity) {
+        int cap = Math.max(2, initialCapacity);
+        items = new Object[cap];
+        keys = new long[cap];
+        seqs = new long[cap];
+    }
+
+    // Inserta un elemento con su clave. Lanza excepción si ya estaba.
+    public void add(T item, long key) {
+        if (positions.containsKey(item)) {
+            throw new IllegalArgumentException("El elemento ya está en el montículo");
+        }
+        if (size == items.length) grow();
+        items[size] = item;
+        keys[size] = key;
+        seqs[size] = nextSeq++;
+        positions.put(item, size);
+        siftUp(size++);
+    }
+
+    // Devuelve el elemento de menor clave sin quitarlo
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        if (size == 0) throw new NoSuchElementException("Heap is empty");
+        return (T) items[0];
+    }
+
+    // Quita y devuelve el elemento de menor clave
+    public T poll() {
+        T top = peek();
+        removeAt(0);
+        return top;
+    }
+
+    // Quita un elemento cualquiera; devuelve false si no estaba
+    public boolean remove(T item) {
+        Integer pos = positions.get(item);
+        if (pos == null) return false;
+        removeAt(pos);
+        return true;
+    }
+
+    // Cambia la clave de un elemento y lo reubica (conserva su orden de inserción para desempates)
+    public void updateKey(T item, long newKey) {
+        Integer pos = positions.get(item);
+        if (pos == null) throw new NoSuchElementException();
+        long old = keys[pos];
+        keys[pos] = newKey;
+        if (newKey < old) siftUp(pos);
+        else siftDown(pos);
+    }
+
+    public long keyOf(T item) {
+        Integer pos = positions.get(item);
+        if (pos == null) throw new NoSuchElementException();
+        return keys[pos];
+    }
+
+    public boolean contains(T item) {
+        return positions.containsKey(item);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) items[i] = null;
+        size = 0;
+        positions.clear();
+    }
+
+    // ------------------ Internos ------------------
+
+    @SuppressWarnings("unchecked")
+    private void removeAt(int pos) {
+        positions.remove((T) items[pos]);
+        int last = --size;
+        if (pos != last) {
+            move(last, pos);
+            items[last] = null;
+            if (pos > 0 && less(pos, (pos - 1) >>> 1)) siftUp(pos);
+            else siftDown(pos);
+        } else {
+            items[last] = null;
+        }
+    }
+
+    private boolean less(int a, int b) {
+        return keys[a] < keys[b] || (keys[a] == keys[b] && seqs[a] < seqs[b]);
+    }
+
+    private void siftUp(int pos) {
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!less(pos, parent)) break;
+            swap(pos, parent);
+            pos = parent;
+        }
+    }
+
+    private void siftDown(int pos) {
+        while (true) {
+            int left = 2 * pos + 1;
+            if (left >= size) break;
+            int right = left + 1;
+            int min = (right < size && less(right, left)) ? right : left;
+            if (!less(min, pos)) break;
+            swap(pos, min);
+            pos = min;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void move(int from, int to) {
+        items[to] = items[from];
+        keys[to] = keys[from];
+        seqs[to] = seqs[from];
+        positions.put((T) items[to], to);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void swap(int a, int b) {
+        Object it = items[a]; items[a] = items[b]; items[b] = it;
+        long k = keys[a]; keys[a] = keys[b]; keys[b] = k;
+        long s = seqs[a]; seqs[a] = seqs[b]; seqs[b] = s;
+        positions.put((T) items[a], a);
+        positions.put((T) items[b], b);
+    }
+
+    private void grow() {
+        int cap = items.length * 2;
+        Object[] ni = new Object[cap];
+        long[] nk = new long[cap];
+        long[] ns = new long[cap];
+        System.arraycopy(items, 0, ni, 0, size);
+        System.arraycopy(keys, 0, nk, 0, size);
+        System.arraycopy(seqs, 0, ns, 0, size);
+        items = ni;
+        keys = nk;
+        seqs = ns;
+    }
+}
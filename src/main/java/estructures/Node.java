@@ -1,6 +1,7 @@
 package estructures;
 /**
  * Clase que representa un nodo en una estructura de datos enlazada.
+ * prev solo lo mantienen las estructuras doblemente enlazadas (Queue, SimpleList); en Stack queda null.
  * @param <T> Tipo de dato que almacena el nodo.
  * @author Jaime Landázuri
  * */
@@ -8,6 +9,7 @@ package estructures;
 public class Node<T> {
     public T value;
     public Node<T> next;
+    public Node<T> prev;
 
     public Node(T value) {
         this.value = value;
@@ -0,0 +1,325 @@
+package estructures;
+
+import domine.ProcedureType;
+import domine.StudentDictionary;
+import domine.Ticket;
+import domine.TicketState;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Archivo de tickets cerrados fuera del heap: cada ticket (con sus notas) se serializa en un
+ * bloque de un ByteBuffer directo. El recolector no recorre estos datos, así la pausa de GC no
+ * crece con los años de historial (ver ArchiveGcBenchmark).
+ *
+ * - Asignador por losas (slabs): se reservan buffers directos de slabSize bytes y se cortan en
+ *   bloques de tamaño potencia de dos (64 bytes o más). Un ticket que no entra en una losa
+ *   recibe una losa propia del tamaño justo.
+ * - Los bloques de tickets purgados van a una lista libre por tamaño y se reutilizan primero.
+ * - Índice id -> dirección en arreglos primitivos: id -> posición (direccionamiento abierto,
+ *   como HistoryTable) y posición -> dirección (losa en los 32 bits altos, desplazamiento en
+ *   los bajos). En el heap quedan unos pocos arreglos grandes, sin un objeto por ticket.
+ *
+ * findById() y el iterador decodifican el bloque en una copia de solo lectura. Las posiciones
+ * no se reutilizan (sirven de cursor); los bloques sí.
+ *
+ * Cada bloque guarda el registro de TicketCodec con la clase de tamaño en su byte libre.
+ * @author Wilson Palma
+ */
+public class OffHeapArchive implements TicketArchive {
+
+    public static final int DEFAULT_SLAB_SIZE = 4 << 20;
+    private static final int MIN_BLOCK_SHIFT = 6;      // bloques de 64 bytes como mínimo
+    private static final long NO_ADDRESS = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int slabSize;
+    private final TicketCodec codec;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int bumpSlab = -1;     // losa en la que se siguen cortando bloques
+    private int bumpOffset;
+
+    // Listas libres: una pila de direcciones por clase de tamaño (2^clase bytes)
+    private final long[][] freeBlocks = new long[32][];
+    private final int[] freeCounts = new int[32];
+
+    // posición -> dirección (NO_ADDRESS si se purgó)
+    private long[] addresses = new long[INITIAL_CAPACITY];
+    private int positions;
+    private int live;
+    private long usedBytes;
+
+    // id -> posición
+    private int[] slotIds = new int[INITIAL_CAPACITY * 2];
+    private int[] slotPositions = newSlots(INITIAL_CAPACITY * 2);
+    private int slotsUsed;
+
+    public OffHeapArchive() {
+        this(new StudentDictionary());
+    }
+
+    public OffHeapArchive(StudentDictionary dictionary) {
+        this(dictionary, DEFAULT_SLAB_SIZE);
+    }
+
+    public OffHeapArchive(StudentDictionary dictionary, int slabSize) {
+        if (Integer.bitCount(slabSize) != 1 || slabSize < (1 << MIN_BLOCK_SHIFT)) {
+            throw new IllegalArgumentException("slabSize debe ser potencia de dos y >= 64");
+        }
+        this.codec = new TicketCodec(dictionary);
+        this.slabSize = slabSize;
+    }
+
+    // ------------------ TicketArchive ------------------
+
+    @Override
+    public void append(Ticket t) {
+        remove(t.getId());
+
+        ByteBuffer record = codec.encode(t);
+        int sizeClass = sizeClass(record.remaining());
+        long address = allocate(sizeClass);
+        ByteBuffer block = slabs.get(slabOf(address)).duplicate();
+        block.position(offsetOf(address));
+        block.put(record);
+        slabs.get(slabOf(address)).put(offsetOf(address) + TicketCodec.SPARE, (byte) sizeClass);
+
+        if (positions == addresses.length) addresses = Arrays.copyOf(addresses, positions * 2);
+        addresses[positions] = address;
+        putSlot(t.getId(), positions++);
+        usedBytes += 1L << sizeClass;
+        live++;
+    }
+
+    @Override
+    public Ticket findById(int id) {
+        int pos = positionOf(id);
+        return pos < 0 ? null : decode(pos);
+    }
+
+    @Override
+    public boolean remove(int id) {
+        int pos = positionOf(id);
+        if (pos < 0) return false;
+        long address = addresses[pos];
+        int sizeClass = slabs.get(slabOf(address)).get(offsetOf(address) + TicketCodec.SPARE);
+        release(sizeClass, address);
+        addresses[pos] = NO_ADDRESS;
+        removeSlot(id);
+        usedBytes -= 1L << sizeClass;
+        live--;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return live;
+    }
+
+    @Override
+    public long count(TicketState state, ProcedureType type, Boolean hasNotes) {
+        long n = 0;
+        for (int pos = 0; pos < positions; pos++) {
+            long address = addresses[pos];
+            if (address == NO_ADDRESS) continue;
+            if (TicketCodec.matches(slabs.get(slabOf(address)), offsetOf(address), state, type, hasNotes)) n++;
+        }
+        return n;
+    }
+
+    @Override
+    public long collect(long after, int limit, List<Ticket> out) {
+        long last = after;
+        for (int pos = (int) Math.max(0, after + 1); pos < positions && limit > 0; pos++) {
+            if (addresses[pos] == NO_ADDRESS) continue;
+            out.add(decode(pos));
+            last = pos;
+            limit--;
+        }
+        return last;
+    }
+
+    @Override
+    public boolean hasAfter(long after) {
+        for (int pos = (int) Math.max(0, after + 1); pos < positions; pos++) {
+            if (addresses[pos] != NO_ADDRESS) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<Ticket> iterator() {
+        return new Iterator<Ticket>() {
+            private int pos = nextLive(0);
+
+            @Override
+            public boolean hasNext() {
+                return pos < positions;
+            }
+
+            @Override
+            public Ticket next() {
+                if (pos >= positions) throw new NoSuchElementException();
+                Ticket t = decode(pos);
+                pos = nextLive(pos + 1);
+                return t;
+            }
+        };
+    }
+
+    // ------------------ Estadísticas ------------------
+
+    /** Cantidad de losas reservadas. */
+    public int slabCount() {
+        return slabs.size();
+    }
+
+    /** Bytes fuera del heap reservados en losas. */
+    public long reservedBytes() {
+        long total = 0;
+        for (ByteBuffer slab : slabs) total += slab.capacity();
+        return total;
+    }
+
+    /** Bytes en bloques ocupados por tickets vigentes. */
+    public long usedBytes() {
+        return usedBytes;
+    }
+
+    /** Bloques de tickets purgados esperando reutilizarse. */
+    public int freeBlockCount() {
+        int n = 0;
+        for (int c : freeCounts) n += c;
+        return n;
+    }
+
+    // ------------------ Asignador ------------------
+
+    private long allocate(int sizeClass) {
+        if (freeCounts[sizeClass] > 0) return freeBlocks[sizeClass][--freeCounts[sizeClass]];
+        int block = 1 << sizeClass;
+        if (block > slabSize) {
+            slabs.add(ByteBuffer.allocateDirect(block));  // losa propia para un ticket enorme
+            return address(slabs.size() - 1, 0);
+        }
+        if (bumpSlab < 0 || bumpOffset + block > slabSize) {
+            // el resto de la losa anterior se corta en bloques libres para no perderlo
+            if (bumpSlab >= 0) releaseTail(bumpSlab, bumpOffset);
+            slabs.add(ByteBuffer.allocateDirect(slabSize));
+            bumpSlab = slabs.size() - 1;
+            bumpOffset = 0;
+        }
+        long address = address(bumpSlab, bumpOffset);
+        bumpOffset += block;
+        return address;
+    }
+
+    private void release(int sizeClass, long address) {
+        long[] stack = freeBlocks[sizeClass];
+        if (stack == null) {
+            stack = freeBlocks[sizeClass] = new long[8];
+        } else if (freeCounts[sizeClass] == stack.length) {
+            stack = freeBlocks[sizeClass] = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[freeCounts[sizeClass]++] = address;
+    }
+
+    // Como los bloques son potencias de dos y se cortan en orden, el resto se parte en
+    // bloques alineados del mayor tamaño posible
+    private void releaseTail(int slab, int offset) {
+        while (slabSize - offset >= (1 << MIN_BLOCK_SHIFT)) {
+            int sizeClass = Math.min(Integer.numberOfTrailingZeros(offset),
+                    31 - Integer.numberOfLeadingZeros(slabSize - offset));
+            release(sizeClass, address(slab, offset));
+            offset += 1 << sizeClass;
+        }
+    }
+
+    private static int sizeClass(int length) {
+        int c = 32 - Integer.numberOfLeadingZeros(length - 1);
+        return Math.max(MIN_BLOCK_SHIFT, c);
+    }
+
+    private static long address(int slab, int offset) {
+        return ((long) slab << 32) | offset;
+    }
+
+    private static int slabOf(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    private Ticket decode(int pos) {
+        long address = addresses[pos];
+        return codec.decode(slabs.get(slabOf(address)), offsetOf(address), this, pos);
+    }
+
+    private int nextLive(int from) {
+        while (from < positions && addresses[from] == NO_ADDRESS) from++;
+        return from;
+    }
+
+    // --- tabla id -> posición (sondeo lineal; borrado con reubicación, sin marcas) ---
+
+    private static int[] newSlots(int n) {
+        int[] a = new int[n];
+        Arrays.fill(a, -1);
+        return a;
+    }
+
+    private static int slotFor(int id, int[] keys, int[] vals) {
+        int mask = keys.length - 1;
+        int i = (id * 0x9E3779B9 >>> 7) & mask;
+        while (vals[i] >= 0 && keys[i] != id) i = (i + 1) & mask;
+        return i;
+    }
+
+    private int positionOf(int id) {
+        return slotPositions[slotFor(id, slotIds, slotPositions)];
+    }
+
+    private void putSlot(int id, int pos) {
+        if ((slotsUsed + 1) * 2 > slotIds.length) rehash(slotIds.length * 2);
+        int i = slotFor(id, slotIds, slotPositions);
+        if (slotPositions[i] < 0) slotsUsed++;
+        slotIds[i] = id;
+        slotPositions[i] = pos;
+    }
+
+    private void removeSlot(int id) {
+        int mask = slotIds.length - 1;
+        int i = slotFor(id, slotIds, slotPositions);
+        if (slotPositions[i] < 0) return;
+        slotPositions[i] = -1;
+        slotsUsed--;
+        for (int j = (i + 1) & mask; slotPositions[j] >= 0; j = (j + 1) & mask) {
+            int key = slotIds[j];
+            int pos = slotPositions[j];
+            slotPositions[j] = -1;
+            int k = slotFor(key, slotIds, slotPositions);
+            slotIds[k] = key;
+            slotPositions[k] = pos;
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] keys = new int[capacity];
+        int[] vals = newSlots(capacity);
+        for (int i = 0; i < slotIds.length; i++) {
+            if (slotPositions[i] < 0) continue;
+            int k = slotFor(slotIds[i], keys, vals);
+            keys[k] = slotIds[i];
+            vals[k] = slotPositions[i];
+        }
+        slotIds = keys;
+        slotPositions = vals;
+    }
+}
@@ -0,0 +1,29 @@
+package estructures;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Una página de resultados y el cursor para pedir la siguiente.
+ * El cursor es opaco (se devuelve tal cual en la próxima llamada); null = no hay más.
+ * @param <T> Tipo de los elementos.
+ * @author Alejandro Padilla
+ */
+public final class Page<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean hasMore() { return nextCursor != null; }
+
+    public int size() { return items.size(); }
+}
@@ -4,6 +4,9 @@ import java.util.NoSuchElementException;
 
 /**
  * Clase que representa una cola (FIFO - First In First Out).
+ * Los nodos están doblemente enlazados: quien guarda un nodo (getRear(), nodeOf()) puede sacarlo
+ * con unlink() y volver a ponerlo en su lugar con insertAfter() en O(1). Así los comandos de
+ * undo/redo restauran el orden exacto sin recorrer la cola.
  * @param <T> Tipo de dato que almacena la cola.
  * @author Jaime Landázuri
  * */
@@ -11,6 +14,7 @@ import java.util.NoSuchElementException;
 public class Queue<T> {
     private Node<T> front;
     private Node<T> rear;
+    private int size;
 
     public Queue() {
         this.front = null;
@@ -19,14 +23,7 @@ public class Queue<T> {
 
     // Agrega un elemento al final de la cola
     public void enqueue(T value) {
-        Node<T> newNode = new Node<>(value);
-        if (rear != null) {
-            rear.next = newNode;
-        }
-        rear = newNode;
-        if (front == null) {
-            front = newNode;
-        }
+        link(rear, new Node<>(value));
     }
 
     // Elimina y devuelve el elemento al frente de la cola, si la cola está vacía, devuelve -1
@@ -34,12 +31,7 @@ public class Queue<T> {
         if (isEmpty()) {
             throw new NoSuchElementException("Queue is empty");
         }
-        T value = front.value;
-        front = front.next;
-        if (front == null) {
-            rear = null;
-        }
-        return value;
+        return unlink(front);
     }
 
     // Devuelve el elemento al frente de la cola sin eliminarlo, si la cola está vacía, devuelve -1
@@ -55,62 +47,117 @@ public class Queue<T> {
         return front == null;
     }
 
-    // Devuelve el número de elementos en la cola
+    // Devuelve el número de elementos en la cola (contador mantenido en cada alta/baja)
     public int size() {
-        int count = 0;
-        Node<T> current = front;
-        while (current != null) {
-            count++;
-            current = current.next;
-        }
-        return count;
+        return size;
     }
 
     public T find(T key){
-        Node<T> current = front;
-        while(current != null){
-            if(current.value.equals(key)){
-                return current.value;
-            }
-            current = current.next;
+        Node<T> node = nodeOf(key);
+        if (node == null) {
+            throw new NoSuchElementException();
         }
-        throw new NoSuchElementException();
+        return node.value;
     }
 
     public T remove(T key){
-        Node<T> current = front;
-        Node<T> prev = null;
-
-        // Si el nodo a eliminar es el front
-        if(current != null && current.value.equals(key)){
-            front = current.next;
-            if(front == null){
-                rear = null;
-            }
-            return current.value;
+        Node<T> node = nodeOf(key);
+        if (node == null) {
+            throw new NoSuchElementException();
         }
+        return unlink(node);
+    }
 
-        while(current != null && !current.value.equals(key)){
-            prev = current;
-            current = current.next;
+    // Nodo que contiene al valor (por equals), o null si no está. O(n); las subclases pueden indexarlo
+    public Node<T> nodeOf(T key) {
+        for (Node<T> current = front; current != null; current = current.next) {
+            if (current.value.equals(key)) return current;
         }
+        return null;
+    }
+
+    // ¿El nodo (obtenido de esta cola) sigue enlazado en ella? O(1)
+    public boolean contains(Node<T> node) {
+        if (node == null) return false;
+        return node.prev != null ? node.prev.next == node : front == node;
+    }
 
-        if(current == null){
+    /**
+     * Saca el nodo de la cola en O(1) y deja sus enlaces en null. Quien quiera volver a
+     * insertarlo en su lugar debe guardar antes node.prev.
+     *
+     * @return el valor del nodo
+     */
+    public T unlink(Node<T> node) {
+        if (!contains(node)) {
             throw new NoSuchElementException();
         }
+        if (node.prev == null) front = node.next; else node.prev.next = node.next;
+        if (node.next == null) rear = node.prev; else node.next.prev = node.prev;
+        node.prev = node.next = null;
+        size--;
+        return node.value;
+    }
 
-        prev.next = current.next;
-        if(current == rear){
-            rear = prev;
+    /**
+     * Inserta un nodo suelto detrás de prev (null = al frente), en O(1).
+     * Con el prev que tenía antes de unlink() el nodo vuelve exactamente a su lugar.
+     */
+    public void insertAfter(Node<T> prev, Node<T> node) {
+        if (prev != null && !contains(prev)) {
+            throw new NoSuchElementException();
+        }
+        if (node.prev != null || node.next != null || node == front) {
+            throw new IllegalStateException("El nodo ya está enlazado");
         }
-        return current.value;
+        link(prev, node);
     }
 
     public Node<T> getFront() {
         return front;
     }
 
+    // Último nodo (el del último encolado), o null si la cola está vacía
+    public Node<T> getRear() {
+        return rear;
+    }
+
+    /**
+     * Reemplaza el primer nodo. Si la nueva cadena desemboca en el frente anterior (se
+     * agregaron nodos adelante) solo se recorren los nuevos; si no, la cadena completa.
+     * Ajusta prev, rear y el tamaño. Preferir insertAfter(null, nodo).
+     */
     public void setFront(Node<T> front) {
+        Node<T> old = this.front;
         this.front = front;
+        if (front == null) {
+            rear = null;
+            size = 0;
+            return;
+        }
+        front.prev = null;
+        int added = 1;
+        Node<T> n = front;
+        while (n.next != null && n.next != old) {
+            n.next.prev = n;
+            n = n.next;
+            added++;
+        }
+        if (old != null && n.next == old) {
+            old.prev = n;
+            size += added;
+        } else {
+            rear = n;
+            size = added;
+        }
+    }
+
+    private void link(Node<T> prev, Node<T> node) {
+        Node<T> next = prev == null ? front : prev.next;
+        node.prev = prev;
+        node.next = next;
+        if (prev == null) front = node; else prev.next = node;
+        if (next == null) rear = node; else next.prev = node;
+        size++;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package estructures;
+
+import java.time.Duration;
+
+/**
+ * Posición de un ticket en la sala de espera y el tiempo estimado hasta ser atendido.
+ * @author Alejandro Padilla
+ */
+public final class QueuePosition {
+
+    private final int ticketId;
+    private final int position;
+    private final Duration estimatedWait;
+
+    public QueuePosition(int ticketId, int position, Duration estimatedWait) {
+        this.ticketId = ticketId;
+        this.position = position;
+        this.estimatedWait = estimatedWait;
+    }
+
+    public int getTicketId() { return ticketId; }
+
+    // 1 = el siguiente en ser atendido
+    public int getPosition() { return position; }
+
+    public int getTicketsAhead() { return position - 1; }
+
+    public Duration getEstimatedWait() { return estimatedWait; }
+
+    @Override
+    public String toString() {
+        return "Ticket " + ticketId + ": posición " + position + ", espera estimada "
+                + estimatedWait.toMinutes() + " min";
+    }
+}
@@ -0,0 +1,183 @@
+package estructures;
+
+import domine.ProcedureType;
+import domine.Ticket;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Índice de posiciones de los tickets en espera, alimentado por las colas de AttentionQueue.
+ * Cada cola (urgente/normal) numera a sus tickets en orden de cola y guarda un árbol de
+ * Fenwick por ProcedureType: contar cuántos tickets (y de qué tipo) hay delante de uno es
+ * O(T log n) con T = cantidad de tipos, sin recorrer la cola.
+ *
+ * El rango se calcula en el orden del listado de pendientes: todos los urgentes y luego los
+ * normales. Con la política de prioridad estricta coincide con el orden de atención; con otras
+ * políticas es una aproximación.
+ * @author Alejandro Padilla
+ */
+public class QueuePositionIndex {
+
+    private static final int TYPES = ProcedureType.values().length;
+
+    private final LaneIndex urgent = new LaneIndex();
+    private final LaneIndex normal = new LaneIndex();
+    private final Map<Integer, Ticket> byId = new HashMap<>();
+
+    // ------------------ Ganchos de las colas ------------------
+
+    // front: primer nodo de la cola, que ya contiene al ticket encolado
+    void onEnqueue(Ticket t, boolean urgentLane, Node<Ticket> front) {
+        lane(urgentLane).add(t, front);
+        byId.put(t.getId(), t);
+    }
+
+    void onRemove(Ticket t, boolean urgentLane) {
+        if (lane(urgentLane).remove(t)) byId.remove(t.getId(), t);
+    }
+
+    // Ticket reinsertado entre prev y next (null = extremo); front ya lo contiene
+    void onInsert(Ticket t, boolean urgentLane, Ticket prev, Ticket next, Node<Ticket> front) {
+        lane(urgentLane).insert(t, prev, next, front);
+        byId.put(t.getId(), t);
+    }
+
+    // La cola cambió de forma no secuencial (inserción al frente): renumerar
+    void rebuild(boolean urgentLane, Node<Ticket> front) {
+        lane(urgentLane).rebuild(front);
+        for (Node<Ticket> n = front; n != null; n = n.next) byId.put(n.value.getId(), n.value);
+    }
+
+    // ------------------ Consultas ------------------
+
+    /**
+     * Posición (1 = el primero) del ticket en el orden urgentes-luego-normales, o -1 si no está en cola.
+     */
+    public int positionOf(Ticket t) {
+        long[] ahead = aheadByType(t);
+        if (ahead == null) return -1;
+        long sum = 0;
+        for (long c : ahead) sum += c;
+        return (int) sum + 1;
+    }
+
+    /**
+     * Cantidad de tickets delante del dado, por tipo (índice = ProcedureType.ordinal()),
+     * o null si el ticket no está en cola.
+     */
+    public long[] aheadByType(Ticket t) {
+        long[] ahead = urgent.aheadByType(t);
+        if (ahead != null) return ahead;
+        ahead = normal.aheadByType(t);
+        if (ahead == null) return null;
+        for (int i = 0; i < TYPES; i++) ahead[i] += urgent.totals[i];
+        return ahead;
+    }
+
+    // Búsqueda por id entre los tickets en cola, O(1)
+    public Ticket findById(int id) {
+        return byId.get(id);
+    }
+
+    public int size() {
+        return urgent.slots.size() + normal.slots.size();
+    }
+
+    private LaneIndex lane(boolean urgentLane) {
+        return urgentLane ? urgent : normal;
+    }
+
+    /**
+     * Numeración de una cola. Los tickets entran al final con números crecientes y salen por
+     * cualquier punto dejando huecos; un ticket que vuelve a su lugar (undo) reusa el hueco.
+     * Al agotarse la capacidad se renumera recorriendo la cola, lo que además compacta los
+     * huecos. Costo amortizado O(log n) por alta.
+     */
+    private static final class LaneIndex {
+        private static final int MIN_CAPACITY = 16;
+
+        private FenwickTree[] perType = newTrees(MIN_CAPACITY);
+        private int[] typeAt = new int[MIN_CAPACITY];
+        private int nextSlot;
+        private final Map<Ticket, Integer> slots = new IdentityHashMap<>();
+        // número que dejó cada ticket al salir (a lo sumo uno por número: se vacía al renumerar)
+        private final Map<Ticket, Integer> vacated = new IdentityHashMap<>();
+        private final long[] totals = new long[TYPES];
+
+        void add(Ticket t, Node<Ticket> front) {
+            if (nextSlot == typeAt.length) {
+                rebuild(front);
+                return;
+            }
+            put(t, nextSlot++);
+        }
+
+        // Vuelve a su número si sigue libre entre los vecinos (undo en orden inverso), si no al
+        // primero libre entre ellos, O(log n); sin hueco se renumera
+        void insert(Ticket t, Ticket prev, Ticket next, Node<Ticket> front) {
+            Integer own = vacated.remove(t);
+            if (next == null) {
+                add(t, front);
+                return;
+            }
+            Integer lo = prev == null ? Integer.valueOf(-1) : slots.get(prev);
+            Integer hi = slots.get(next);
+            if (lo == null || hi == null || hi - lo <= 1) {
+                rebuild(front);
+            } else if (own != null && lo < own && own < hi) {
+                put(t, own);
+            } else {
+                put(t, lo + 1);
+            }
+        }
+
+        boolean remove(Ticket t) {
+            Integer slot = slots.remove(t);
+            if (slot == null) return false;
+            vacated.put(t, slot);
+            int type = typeAt[slot];
+            perType[type].add(slot, -1);
+            totals[type]--;
+            return true;
+        }
+
+        long[] aheadByType(Ticket t) {
+            Integer slot = slots.get(t);
+            if (slot == null) return null;
+            long[] ahead = new long[TYPES];
+            for (int i = 0; i < TYPES; i++) ahead[i] = perType[i].prefixSum(slot - 1);
+            return ahead;
+        }
+
+        void rebuild(Node<Ticket> front) {
+            int n = 0;
+            for (Node<Ticket> x = front; x != null; x = x.next) n++;
+            int capacity = MIN_CAPACITY;
+            while (capacity < 2 * n) capacity *= 2;
+            perType = newTrees(capacity);
+            typeAt = new int[capacity];
+            nextSlot = 0;
+            slots.clear();
+            vacated.clear();
+            Arrays.fill(totals, 0);
+            for (Node<Ticket> x = front; x != null; x = x.next) put(x.value, nextSlot++);
+        }
+
+        private void put(Ticket t, int slot) {
+            int type = t.getProcedureType().ordinal();
+            typeAt[slot] = type;
+            slots.put(t, slot);
+            perType[type].add(slot, 1);
+            totals[type]++;
+        }
+
+        private static FenwickTree[] newTrees(int capacity) {
+            FenwickTree[] trees = new FenwickTree[TYPES];
+            for (int i = 0; i < TYPES; i++) trees[i] = new FenwickTree(capacity);
+            return trees;
+        }
+    }
+}
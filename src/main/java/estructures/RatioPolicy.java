@@ -0,0 +1,48 @@
+package estructures;
+
+import domine.Ticket;
+import domine.TicketState;
+
+/**
+ * Proporción fija urgente:normal. Atiende hasta urgentPerNormal urgentes seguidos y luego
+ * un normal (si hay), de modo que la cola normal siempre avanza. Decidir es O(1).
+ * Si el ticket al frente de alguna cola ya está EN_ATENCION se devuelve ese mismo.
+ * Los turnos se cuentan en onServed (cuando el elegido pasa a atenderse), así consultar el
+ * siguiente o listar la cola no gasta la cuota de urgentes.
+ * @author Alejandro Padilla
+ */
+public class RatioPolicy implements SchedulingPolicy {
+
+    private final int urgentPerNormal;
+    private int urgentStreak;
+
+    public RatioPolicy(int urgentPerNormal) {
+        if (urgentPerNormal < 1) throw new IllegalArgumentException("urgentPerNormal debe ser >= 1");
+        this.urgentPerNormal = urgentPerNormal;
+    }
+
+    @Override
+    public Ticket select(Queue<Ticket> urgentQueue, Queue<Ticket> normalQueue, long nowMillis) {
+        Ticket urgent = urgentQueue.isEmpty() ? null : urgentQueue.peek();
+        Ticket normal = normalQueue.isEmpty() ? null : normalQueue.peek();
+        if (urgent != null && urgent.getState() == TicketState.EN_ATENCION) return urgent;
+        if (normal != null && normal.getState() == TicketState.EN_ATENCION) return normal;
+
+        return normal == null || (urgent != null && urgentStreak < urgentPerNormal) ? urgent : normal;
+    }
+
+    @Override
+    public void onServed(Ticket t, boolean urgent, long nowMillis) {
+        urgentStreak = urgent ? urgentStreak + 1 : 0;
+    }
+
+    @Override
+    public void reset() {
+        urgentStreak = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Proporción " + urgentPerNormal + ":1";
+    }
+}
@@ -0,0 +1,608 @@
+package estructures;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Conjunto comprimido de enteros no negativos al estilo "Roaring bitmap".
+ * Los valores se agrupan en bloques de 65536 según sus 16 bits altos; cada bloque guarda
+ * los 16 bits bajos en el contenedor más compacto:
+ *  - arreglo ordenado de char si tiene hasta 4096 valores (2 bytes por valor),
+ *  - mapa de bits de 1024 long (8 KB fijos) si tiene más.
+ * Con ids densos casi todo queda en mapas de bits: AND/OR/cardinalidad trabajan palabra a palabra.
+ * No es thread-safe.
+ * @author Alejandro Padilla
+ */
+public class RoaringBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+    private static final byte ARRAY_TYPE = 0;
+    private static final byte BITMAP_TYPE = 1;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;   // cantidad de bloques
+
+    public RoaringBitmap() {}
+
+    public static RoaringBitmap of(int... values) {
+        RoaringBitmap b = new RoaringBitmap();
+        for (int v : values) b.add(v);
+        return b;
+    }
+
+    // ------------------ Operaciones por elemento ------------------
+
+    public boolean add(int value) {
+        checkValue(value);
+        char hb = (char) (value >>> 16);
+        int i = indexOf(hb);
+        if (i < 0) {
+            i = -i - 1;
+            insertAt(i, hb, new ArrayContainer());
+        }
+        Container c = containers[i];
+        int before = c.cardinality();
+        containers[i] = c.add((char) value);
+        return containers[i].cardinality() != before;
+    }
+
+    public boolean remove(int value) {
+        if (value < 0) return false;
+        int i = indexOf((char) (value >>> 16));
+        if (i < 0) return false;
+        Container c = containers[i];
+        int before = c.cardinality();
+        Container after = c.remove((char) value);
+        if (after.cardinality() == 0) {
+            removeAt(i);
+        } else {
+            containers[i] = after;
+        }
+        return after.cardinality() != before;
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) return false;
+        int i = indexOf((char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    public long cardinality() {
+        long total = 0;
+        for (int i = 0; i < size; i++) total += containers[i].cardinality();
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        keys = new char[4];
+        containers = new Container[4];
+        size = 0;
+    }
+
+    // ------------------ Operaciones de conjunto (devuelven un bitmap nuevo) ------------------
+
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap out = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container c = a.containers[i].and(b.containers[j]);
+                if (c.cardinality() > 0) out.append(a.keys[i], c);
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap out = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.size || j < b.size) {
+            if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                out.append(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i >= a.size || b.keys[j] < a.keys[i]) {
+                out.append(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                out.append(a.keys[i], a.containers[i].or(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    // Elementos de a que no están en b
+    public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap out = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) j++;
+            Container c = (j < b.size && b.keys[j] == a.keys[i])
+                    ? a.containers[i].andNot(b.containers[j])
+                    : a.containers[i].copy();
+            if (c.cardinality() > 0) out.append(a.keys[i], c);
+        }
+        return out;
+    }
+
+    // |a AND b| sin construir el resultado
+    public static long andCardinality(RoaringBitmap a, RoaringBitmap b) {
+        long total = 0;
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                total += a.containers[i].andCardinality(b.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    public RoaringBitmap copy() {
+        RoaringBitmap out = new RoaringBitmap();
+        for (int i = 0; i < size; i++) out.append(keys[i], containers[i].copy());
+        return out;
+    }
+
+    // ------------------ Recorrido ------------------
+
+    // Recorre los valores en orden ascendente
+    public void forEach(IntConsumer action) {
+        PrimitiveIterator.OfInt it = iterator();
+        while (it.hasNext()) action.accept(it.nextInt());
+    }
+
+    // Iterador perezoso en orden ascendente (no admite modificaciones concurrentes)
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int block = 0;
+            private int pos = -1;   // posición dentro del bloque (arreglo) o bit (mapa)
+            private int next = advance();
+
+            private int advance() {
+                while (block < size) {
+                    Container c = containers[block];
+                    if (c instanceof ArrayContainer) {
+                        ArrayContainer a = (ArrayContainer) c;
+                        if (pos + 1 < a.card) {
+                            pos++;
+                            return (keys[block] << 16) | a.content[pos];
+                        }
+                    } else {
+                        int low = ((BitmapContainer) c).nextFrom(pos + 1);
+                        if (low >= 0) {
+                            pos = low;
+                            return (keys[block] << 16) | low;
+                        }
+                    }
+                    block++;
+                    pos = -1;
+                }
+                return -1;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0) throw new NoSuchElementException();
+                int v = next;
+                next = advance();
+                return v;
+            }
+        };
+    }
+
+    public int[] toArray() {
+        int[] out = new int[(int) cardinality()];
+        int[] k = {0};
+        forEach(v -> out[k[0]++] = v);
+        return out;
+    }
+
+    // ------------------ Serialización ------------------
+
+    /**
+     * Formato: cantidad de bloques y, por bloque, clave (char), tipo (byte) y cardinalidad (int),
+     * seguidos de los valores (arreglo) o de las 1024 palabras (mapa de bits).
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeChar(keys[i]);
+            Container c = containers[i];
+            if (c instanceof ArrayContainer) {
+                ArrayContainer a = (ArrayContainer) c;
+                out.writeByte(ARRAY_TYPE);
+                out.writeInt(a.card);
+                for (int k = 0; k < a.card; k++) out.writeChar(a.content[k]);
+            } else {
+                BitmapContainer b = (BitmapContainer) c;
+                out.writeByte(BITMAP_TYPE);
+                out.writeInt(b.card);
+                for (long w : b.words) out.writeLong(w);
+            }
+        }
+    }
+
+    public static RoaringBitmap readFrom(DataInput in) throws IOException {
+        RoaringBitmap out = new RoaringBitmap();
+        int blocks = in.readInt();
+        char prev = 0;
+        for (int i = 0; i < blocks; i++) {
+            char key = in.readChar();
+            if (i > 0 && key <= prev) throw new IOException("Bloques fuera de orden");
+            prev = key;
+            byte type = in.readByte();
+            int card = in.readInt();
+            if (type == ARRAY_TYPE) {
+                if (card < 0 || card > ARRAY_MAX) throw new IOException("Cardinalidad inválida");
+                ArrayContainer a = new ArrayContainer(Math.max(4, card));
+                for (int k = 0; k < card; k++) a.content[k] = in.readChar();
+                a.card = card;
+                out.append(key, a);
+            } else if (type == BITMAP_TYPE) {
+                BitmapContainer b = new BitmapContainer();
+                for (int k = 0; k < WORDS; k++) b.words[k] = in.readLong();
+                b.card = card;
+                out.append(key, b);
+            } else {
+                throw new IOException("Tipo de contenedor desconocido: " + type);
+            }
+        }
+        return out;
+    }
+
+    // Bytes que ocupa serializado
+    public long serializedSize() {
+        long bytes = 4;
+        for (int i = 0; i < size; i++) {
+            bytes += 2 + 1 + 4;
+            bytes += containers[i] instanceof ArrayContainer ? 2L * containers[i].cardinality() : 8L * WORDS;
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RoaringBitmap)) return false;
+        return Arrays.equals(toArray(), ((RoaringBitmap) o).toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return "RoaringBitmap{cardinalidad=" + cardinality() + ", bloques=" + size + "}";
+    }
+
+    // ------------------ Internos ------------------
+
+    private static void checkValue(int value) {
+        if (value < 0) throw new IllegalArgumentException("Solo se admiten valores no negativos: " + value);
+    }
+
+    private int indexOf(char key) {
+        // la mayoría de las altas caen en el último bloque
+        if (size > 0 && keys[size - 1] == key) return size - 1;
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertAt(int i, char key, Container c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = c;
+        size++;
+    }
+
+    private void removeAt(int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+        containers[--size] = null;
+    }
+
+    // Agrega un bloque con clave mayor que todas las existentes
+    private void append(char key, Container c) {
+        insertAt(size, key, c);
+    }
+
+    /**
+     * Contenedor de los 16 bits bajos de un bloque. Las operaciones que cambian el tamaño
+     * devuelven el contenedor a usar (puede cambiar de representación).
+     */
+    private abstract static class Container {
+        abstract int cardinality();
+        abstract boolean contains(char x);
+        abstract Container add(char x);
+        abstract Container remove(char x);
+        abstract Container and(Container other);
+        abstract Container or(Container other);
+        abstract Container andNot(Container other);
+        abstract int andCardinality(Container other);
+        abstract Container copy();
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] content;
+        int card;
+
+        ArrayContainer() {
+            this(4);
+        }
+
+        ArrayContainer(int capacity) {
+            content = new char[capacity];
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(char x) {
+            return Arrays.binarySearch(content, 0, card, x) >= 0;
+        }
+
+        @Override
+        Container add(char x) {
+            // alta al final (ids crecientes) sin búsqueda binaria
+            int i = (card == 0 || content[card - 1] < x) ? -(card + 1) : Arrays.binarySearch(content, 0, card, x);
+            if (i >= 0) return this;
+            if (card == ARRAY_MAX) return toBitmap().add(x);
+            i = -i - 1;
+            if (card == content.length) content = Arrays.copyOf(content, Math.min(ARRAY_MAX, card * 2));
+            System.arraycopy(content, i, content, i + 1, card - i);
+            content[i] = x;
+            card++;
+            return this;
+        }
+
+        @Override
+        Container remove(char x) {
+            int i = Arrays.binarySearch(content, 0, card, x);
+            if (i < 0) return this;
+            System.arraycopy(content, i + 1, content, i, card - i - 1);
+            card--;
+            return this;
+        }
+
+        @Override
+        Container and(Container other) {
+            ArrayContainer out = new ArrayContainer(Math.max(4, card));
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                int i = 0, j = 0;
+                while (i < card && j < o.card) {
+                    if (content[i] < o.content[j]) i++;
+                    else if (content[i] > o.content[j]) j++;
+                    else {
+                        out.content[out.card++] = content[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < card; i++) {
+                    if (other.contains(content[i])) out.content[out.card++] = content[i];
+                }
+            }
+            return out;
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) return other.or(this);
+            ArrayContainer o = (ArrayContainer) other;
+            if (card + o.card > ARRAY_MAX) {
+                Container b = toBitmap();
+                for (int j = 0; j < o.card; j++) b = b.add(o.content[j]);
+                return b;
+            }
+            ArrayContainer out = new ArrayContainer(Math.max(4, card + o.card));
+            int i = 0, j = 0;
+            while (i < card || j < o.card) {
+                if (j >= o.card || (i < card && content[i] < o.content[j])) {
+                    out.content[out.card++] = content[i++];
+                } else if (i >= card || o.content[j] < content[i]) {
+                    out.content[out.card++] = o.content[j++];
+                } else {
+                    out.content[out.card++] = content[i];
+                    i++;
+                    j++;
+                }
+            }
+            return out;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            ArrayContainer out = new ArrayContainer(Math.max(4, card));
+            for (int i = 0; i < card; i++) {
+                if (!other.contains(content[i])) out.content[out.card++] = content[i];
+            }
+            return out;
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            int n = 0;
+            for (int i = 0; i < card; i++) {
+                if (other.contains(content[i])) n++;
+            }
+            return n;
+        }
+
+        @Override
+        Container copy() {
+            ArrayContainer out = new ArrayContainer(Math.max(4, card));
+            System.arraycopy(content, 0, out.content, 0, card);
+            out.card = card;
+            return out;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer();
+            for (int i = 0; i < card; i++) b.set(content[i]);
+            return b;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        final long[] words = new long[WORDS];
+        int card;
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(char x) {
+            return (words[x >>> 6] & (1L << x)) != 0;
+        }
+
+        void set(char x) {
+            long before = words[x >>> 6];
+            words[x >>> 6] = before | (1L << x);
+            if (before != words[x >>> 6]) card++;
+        }
+
+        @Override
+        Container add(char x) {
+            set(x);
+            return this;
+        }
+
+        @Override
+        Container remove(char x) {
+            long before = words[x >>> 6];
+            words[x >>> 6] = before & ~(1L << x);
+            if (before != words[x >>> 6]) card--;
+            return card <= ARRAY_MAX ? toArray() : this;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) return other.and(this);
+            BitmapContainer o = (BitmapContainer) other;
+            BitmapContainer out = new BitmapContainer();
+            for (int k = 0; k < WORDS; k++) {
+                out.words[k] = words[k] & o.words[k];
+                out.card += Long.bitCount(out.words[k]);
+            }
+            return out.card <= ARRAY_MAX ? out.toArray() : out;
+        }
+
+        @Override
+        Container or(Container other) {
+            BitmapContainer out = (BitmapContainer) copy();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                for (int j = 0; j < o.card; j++) out.set(o.content[j]);
+                return out;
+            }
+            BitmapContainer o = (BitmapContainer) other;
+            out.card = 0;
+            for (int k = 0; k < WORDS; k++) {
+                out.words[k] |= o.words[k];
+                out.card += Long.bitCount(out.words[k]);
+            }
+            return out;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            BitmapContainer out = (BitmapContainer) copy();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                Container c = out;
+                for (int j = 0; j < o.card; j++) c = c.remove(o.content[j]);
+                return c;
+            }
+            BitmapContainer o = (BitmapContainer) other;
+            out.card = 0;
+            for (int k = 0; k < WORDS; k++) {
+                out.words[k] &= ~o.words[k];
+                out.card += Long.bitCount(out.words[k]);
+            }
+            return out.card <= ARRAY_MAX ? out.toArray() : out;
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer) return other.andCardinality(this);
+            BitmapContainer o = (BitmapContainer) other;
+            int n = 0;
+            for (int k = 0; k < WORDS; k++) n += Long.bitCount(words[k] & o.words[k]);
+            return n;
+        }
+
+        @Override
+        Container copy() {
+            BitmapContainer out = new BitmapContainer();
+            System.arraycopy(words, 0, out.words, 0, WORDS);
+            out.card = card;
+            return out;
+        }
+
+        // Menor bit encendido >= from, o -1
+        int nextFrom(int from) {
+            if (from >= 1 << 16) return -1;
+            int k = from >>> 6;
+            long w = words[k] & (-1L << from);
+            while (true) {
+                if (w != 0) return k * 64 + Long.numberOfTrailingZeros(w);
+                if (++k == WORDS) return -1;
+                w = words[k];
+            }
+        }
+
+        private ArrayContainer toArray() {
+            ArrayContainer a = new ArrayContainer(Math.max(4, card));
+            for (int k = 0; k < WORDS; k++) {
+                long w = words[k];
+                while (w != 0) {
+                    a.content[a.card++] = (char) (k * 64 + Long.numberOfTrailingZeros(w));
+                    w &= w - 1;
+                }
+            }
+            return a;
+        }
+    }
+}
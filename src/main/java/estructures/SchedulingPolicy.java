@@ -0,0 +1,33 @@
+package estructures;
+
+import domine.Ticket;
+
+/**
+ * Política que decide cuál es el siguiente ticket a atender entre la cola urgente y la normal.
+ * AttentionQueue avisa a la política cada vez que un ticket entra o sale de una de sus colas,
+ * para que pueda mantener sus propias estructuras (por ejemplo, un montículo indexado).
+ * @author Alejandro Padilla
+ */
+public interface SchedulingPolicy {
+
+    /** Un ticket entró a la cola urgente (urgent = true) o normal, en el instante nowMillis. */
+    default void onEnqueue(Ticket t, boolean urgent, long nowMillis) {}
+
+    /** Un ticket salió de la cola urgente o normal (atendido, cerrado, movido o deshecho). */
+    default void onRemove(Ticket t, boolean urgent) {}
+
+    /**
+     * El ticket elegido pasó a atenderse (AttentionQueue.markServed). Es el único momento en que
+     * se consumen turnos o se anotan métricas: select() es una consulta y puede repetirse.
+     */
+    default void onServed(Ticket t, boolean urgent, long nowMillis) {}
+
+    /**
+     * Elige el siguiente ticket sin quitarlo de su cola ni consumir turnos (ver onServed).
+     * Solo se invoca si al menos una de las colas tiene tickets.
+     */
+    Ticket select(Queue<Ticket> urgentQueue, Queue<Ticket> normalQueue, long nowMillis);
+
+    /** Olvida el estado interno (se vuelve a alimentar con onEnqueue al cambiar de política). */
+    default void reset() {}
+}
@@ -5,16 +5,23 @@
  */
 package estructures;
 
+import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 /**
  * Clase que representa una lista enlazada simple.
+ * Guarda un puntero al último nodo y el tamaño: pushBack y size son O(1).
+ * Los nodos están doblemente enlazados: quien guarda un nodo (lastNode()) lo saca con unlink() en O(1).
+ * Se recorre con for-each (Iterable) o con una ventana de los últimos n elementos.
+ * head es público por compatibilidad de lectura; modificar la lista solo con sus métodos.
  * @param <T> Tipo de dato que almacena la lista.
  * @author Jaime Landázuri
  * */
 
-public class SimpleList<T> {
+public class SimpleList<T> implements Iterable<T> {
     public Node<T> head;
+    private Node<T> tail;
+    private int size;
 
     public SimpleList() {
         this.head = null;
@@ -24,21 +31,23 @@ public class SimpleList<T> {
     public void pushFront(T newData){
         Node<T> newNode = new Node<>(newData);
         newNode.next = head;
+        if (head != null) head.prev = newNode;
         head = newNode;
+        if (tail == null) tail = newNode;
+        size++;
     }
 
-    // Inserta nodo al final de la lista
+    // Inserta nodo al final de la lista, O(1) gracias al puntero tail
     public void pushBack(T newData){
         Node<T> newNode = new Node<>(newData);
         if(head == null){
-            head = newNode;
-            return;
+            head = tail = newNode;
+        } else {
+            newNode.prev = tail;
+            tail.next = newNode;
+            tail = newNode;
         }
-        Node<T> last = head;
-        while(last.next != null){
-            last = last.next;
-        }
-        last.next = newNode;
+        size++;
     }
 
     // Busca un nodo por su valor y devuelve el valor si lo encuentra, -1 si no
@@ -57,36 +66,43 @@ public class SimpleList<T> {
     // Elimina un nodo por su valor y devuelve el valor si lo encuentra, -1 si no
     public T remove(T key){
         Node<T> current = head;
-        Node<T> prev = null;
-
-        // Si el nodo a eliminar es el head
-        if(current != null && current.value.equals(key)){ // BIEN
-            head = current.next;
-            return current.value;
-        }
 
         while(current != null && !current.value.equals(key)){ // BIEN
-            prev = current;
             current = current.next;
         }
 
         if(current == null){
             throw new NoSuchElementException();
         }
+        return unlink(current);
+    }
 
-        prev.next = current.next;
-        return current.value;
+    // Último nodo (el del último pushBack), o null si la lista está vacía
+    public Node<T> lastNode(){
+        return tail;
     }
 
-    // Devuelve el tamaño de la lista haciendo un recorrido y conteo
-    public int size(){
-        int count = 0;
-        Node<T> current = head;
-        while(current != null){
-            count++;
-            current = current.next;
+    // ¿El nodo (obtenido de esta lista) sigue enlazado en ella? O(1)
+    public boolean contains(Node<T> node){
+        if (node == null) return false;
+        return node.prev != null ? node.prev.next == node : head == node;
+    }
+
+    // Saca el nodo en O(1) (enlace doble) y deja sus enlaces en null; devuelve su valor
+    public T unlink(Node<T> node){
+        if (!contains(node)) {
+            throw new NoSuchElementException();
         }
-        return count;
+        if (node.prev == null) head = node.next; else node.prev.next = node.next;
+        if (node.next == null) tail = node.prev; else node.next.prev = node.prev;
+        node.prev = node.next = null;
+        size--;
+        return node.value;
+    }
+
+    // Devuelve el tamaño de la lista (contador mantenido en cada alta/baja)
+    public int size(){
+        return size;
     }
 
     // Verifica si la lista está vacía
@@ -97,10 +113,12 @@ public class SimpleList<T> {
     // Vacía la lista haciendola apuntar a null
     public void clear(){
         head = null;
+        tail = null;
+        size = 0;
     }
 
     public T findByIndex(int index){
-        if(index < 0){
+        if(index < 0 || index >= size){
             throw new IndexOutOfBoundsException();
         }
         Node<T> current = head;
@@ -114,4 +132,50 @@ public class SimpleList<T> {
         }
         throw new IndexOutOfBoundsException();
     }
+
+    // Último elemento, O(1)
+    public T last(){
+        if (tail == null) {
+            throw new NoSuchElementException();
+        }
+        return tail.value;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return iteratorFrom(head);
+    }
+
+    /**
+     * Ventana con los últimos n elementos (todos si hay menos), en orden.
+     * Retrocede n nodos desde tail: O(n) sin copiar nada.
+     */
+    public Iterable<T> lastN(int n) {
+        if (n < 0) throw new IllegalArgumentException("n no puede ser negativo");
+        return () -> {
+            if (n >= size) return iteratorFrom(head);
+            Node<T> start = n == 0 ? null : tail;
+            for (int back = n - 1; back > 0; back--) start = start.prev;
+            return iteratorFrom(start);
+        };
+    }
+
+    private Iterator<T> iteratorFrom(Node<T> start) {
+        return new Iterator<T>() {
+            private Node<T> current = start;
+
+            @Override
+            public boolean hasNext() {
+                return current != null;
+            }
+
+            @Override
+            public T next() {
+                if (current == null) throw new NoSuchElementException();
+                T value = current.value;
+                current = current.next;
+                return value;
+            }
+        };
+    }
 }
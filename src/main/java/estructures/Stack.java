@@ -6,16 +6,23 @@
 
 package estructures;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EmptyStackException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * Clase que representa una pila (LIFO - Last In First Out).
+ * Lleva la cantidad de elementos (size() en O(1)) y se recorre desde la cima hacia el fondo.
  * @param <T> Tipo de dato que almacena la pila.
  * @author Jaime Landázuri
  * */
 
-public class Stack<T> {
+public class Stack<T> implements Iterable<T> {
     private Node<T> top;
+    private int size;
 
     public Stack() {
         this.top = null;
@@ -26,6 +33,7 @@ public class Stack<T> {
         Node<T> newNode = new Node<>(value);
         newNode.next = top;
         top = newNode;
+        size++;
     }
 
     // Elimina y devuelve el elemento en la cima de la pila y si la pila está vacía, devuelve '\0' (Caracter nulo)
@@ -35,6 +43,7 @@ public class Stack<T> {
         }
         T value = top.value;
         top = top.next;
+        size--;
         return value;
     }
 
@@ -53,17 +62,54 @@ public class Stack<T> {
 
     // Devuelve el número de elementos en la pila
     public int size() {
-        int count = 0;
-        Node<T> current = top;
-        while (current != null) {
-            count++;
-            current = current.next;
-        }
-        return count;
+        return size;
     }
 
     public void clear() {
         top = null;
+        size = 0;
+    }
+
+    /**
+     * Deja solo los keep elementos más cercanos a la cima y devuelve los quitados, del más
+     * antiguo (fondo) al más reciente. Recorre keep nodos.
+     */
+    public List<T> truncate(int keep) {
+        if (keep < 0) throw new IllegalArgumentException("keep no puede ser negativo");
+        List<T> removed = new ArrayList<>();
+        if (keep >= size) return removed;
+        Node<T> cut = null;
+        Node<T> rest = top;
+        for (int i = 0; i < keep; i++) {
+            cut = rest;
+            rest = rest.next;
+        }
+        if (cut == null) top = null; else cut.next = null;
+        for (Node<T> n = rest; n != null; n = n.next) removed.add(n.value);
+        Collections.reverse(removed);
+        size = keep;
+        return removed;
+    }
+
+    // Desde la cima hacia el fondo
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private Node<T> current = top;
+
+            @Override
+            public boolean hasNext() {
+                return current != null;
+            }
+
+            @Override
+            public T next() {
+                if (current == null) throw new NoSuchElementException();
+                T value = current.value;
+                current = current.next;
+                return value;
+            }
+        };
     }
 
 }
\ No newline at end of file
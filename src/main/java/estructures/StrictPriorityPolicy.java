@@ -0,0 +1,25 @@
+package estructures;
+
+import domine.Ticket;
+
+/**
+ * Prioridad estricta: mientras haya urgentes se atienden antes que los normales.
+ * Es el comportamiento original de AttentionQueue; puede dejar esperando indefinidamente
+ * a los tickets normales en horas pico.
+ * @author Alejandro Padilla
+ */
+public class StrictPriorityPolicy implements SchedulingPolicy {
+
+    @Override
+    public Ticket select(Queue<Ticket> urgentQueue, Queue<Ticket> normalQueue, long nowMillis) {
+        if (!urgentQueue.isEmpty()) {
+            return urgentQueue.peek();
+        }
+        return normalQueue.peek();
+    }
+
+    @Override
+    public String toString() {
+        return "Prioridad estricta";
+    }
+}
@@ -0,0 +1,43 @@
+package estructures;
+
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+
+import java.util.List;
+
+/**
+ * Almacén de tickets ya cerrados que salieron del historial en memoria de AttentionQueue.
+ * Los tickets archivados son de solo lectura: se devuelven como vistas (no como los objetos
+ * originales) y no pueden cambiar de estado ni recibir notas.
+ * Cada ticket archivado tiene una posición que solo crece con cada alta, para paginar.
+ * @author Alejandro Padilla
+ */
+public interface TicketArchive extends Iterable<Ticket> {
+
+    /** Archiva una copia del ticket (reemplaza la que hubiera con el mismo id). */
+    void append(Ticket t);
+
+    /** Vista del ticket archivado con ese id, o null. */
+    Ticket findById(int id);
+
+    /** Quita (purga) el ticket con ese id; false si no estaba. */
+    boolean remove(int id);
+
+    /** Cantidad de tickets archivados. */
+    int size();
+
+    /** Cantidad con ese estado, tipo y con/sin notas (null = cualquiera), sin crear vistas. */
+    long count(TicketState state, ProcedureType type, Boolean hasNotes);
+
+    /**
+     * Agrega a out hasta limit tickets con posición mayor que after (-1 = desde el principio),
+     * en orden de archivo.
+     *
+     * @return posición del último agregado, o after si no agregó ninguno
+     */
+    long collect(long after, int limit, List<Ticket> out);
+
+    /** ¿Hay tickets con posición mayor que after? */
+    boolean hasAfter(long after);
+}
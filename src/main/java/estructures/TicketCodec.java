@@ -0,0 +1,159 @@
+package estructures;
+
+import domine.Note;
+import domine.ProcedureType;
+import domine.StudentDictionary;
+import domine.Ticket;
+import domine.TicketState;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formato binario de un ticket archivado (con sus notas), compartido por OffHeapArchive
+ * (bloques en losas fuera del heap) y DiskArchive (registros en archivo).
+ *
+ * tipo(1) estado(1) flags(1) libre(1) id(4) estudiante(4) notas(4) creado(8)
+ * [nombre si el diccionario no le dio código] y por nota: hora(8) observación(4 + bytes UTF-8).
+ *
+ * El byte libre lo usa el contenedor (clase de tamaño del bloque, marca de borrado).
+ * Los campos de cabecera se leen sin decodificar el ticket (conteos).
+ * @author Wilson Palma
+ */
+final class TicketCodec {
+
+    static final int TYPE = 0;
+    static final int STATE = 1;
+    static final int FLAGS = 2;
+    static final int SPARE = 3;
+    static final int ID = 4;
+    static final int STUDENT = 8;
+    static final int NOTES = 12;
+    static final int CREATED = 16;
+    static final int HEADER = 24;
+
+    private static final int INLINE_STUDENT = 1;
+    private static final ProcedureType[] TYPES = ProcedureType.values();
+    private static final TicketState[] STATES = TicketState.values();
+
+    private final StudentDictionary dictionary;
+
+    TicketCodec(StudentDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Serializa el ticket en un buffer del heap (posición 0, límite = largo del registro).
+     */
+    ByteBuffer encode(Ticket t) {
+        String student = t.getStudent();
+        int code = dictionary.code(student);
+        byte[] inlineName = code == StudentDictionary.NO_CODE ? utf8(student) : null;
+        List<Note> notes = new ArrayList<>();
+        for (Note n : t.getNoteHistory()) notes.add(n);
+        byte[][] texts = new byte[notes.size()][];
+        int length = HEADER + (inlineName != null ? 4 + lengthOf(inlineName) : 0);
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = utf8(notes.get(i).getObservation());
+            length += 12 + lengthOf(texts[i]);
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        buf.put(TYPE, (byte) t.getProcedureType().ordinal());
+        buf.put(STATE, (byte) t.getState().ordinal());
+        buf.put(FLAGS, (byte) (inlineName != null ? INLINE_STUDENT : 0));
+        buf.putInt(ID, t.getId());
+        buf.putInt(STUDENT, code);
+        buf.putInt(NOTES, texts.length);
+        buf.putLong(CREATED, UnrolledNoteList.toMillis(t.getCreatedAt()));
+        int p = HEADER;
+        if (inlineName != null) p = putBytes(buf, p, inlineName);
+        for (int i = 0; i < texts.length; i++) {
+            buf.putLong(p, UnrolledNoteList.toMillis(notes.get(i).getTimestamp()));
+            p = putBytes(buf, p + 8, texts[i]);
+        }
+        return buf;
+    }
+
+    /**
+     * Lee el registro que empieza en p como copia de solo lectura; owner y position
+     * identifican la copia (equals).
+     */
+    Ticket decode(ByteBuffer buf, int p, TicketArchive owner, long position) {
+        boolean inline = (buf.get(p + FLAGS) & INLINE_STUDENT) != 0;
+        int code = buf.getInt(p + STUDENT);
+        int noteCount = buf.getInt(p + NOTES);
+        int q = p + HEADER;
+
+        String student;
+        if (inline) {
+            student = getString(buf, q);
+            q += 4 + Math.max(0, buf.getInt(q));
+        } else {
+            student = dictionary.name(code);
+        }
+        List<Note> notes = new ArrayList<>(noteCount);
+        for (int i = 0; i < noteCount; i++) {
+            LocalDateTime time = UnrolledNoteList.fromMillis(buf.getLong(q));
+            String observation = getString(buf, q + 8);
+            q += 12 + Math.max(0, buf.getInt(q + 8));
+            notes.add(new Note(observation, time));
+        }
+        return new ArchivedTicket(owner, position, buf.getInt(p + ID), student, type(buf, p), state(buf, p),
+                UnrolledNoteList.fromMillis(buf.getLong(p + CREATED)),
+                notes.isEmpty() ? HistoryTable.FrozenNotes.EMPTY : HistoryTable.FrozenNotes.copyOf(notes));
+    }
+
+    static ProcedureType type(ByteBuffer buf, int p) {
+        return TYPES[buf.get(p + TYPE)];
+    }
+
+    static TicketState state(ByteBuffer buf, int p) {
+        return STATES[buf.get(p + STATE)];
+    }
+
+    static int noteCount(ByteBuffer buf, int p) {
+        return buf.getInt(p + NOTES);
+    }
+
+    // ¿El registro en p cumple el filtro de TicketArchive.count()? (null = cualquiera)
+    static boolean matches(ByteBuffer buf, int p, TicketState state, ProcedureType type, Boolean hasNotes) {
+        return (state == null || buf.get(p + STATE) == state.ordinal())
+                && (type == null || buf.get(p + TYPE) == type.ordinal())
+                && (hasNotes == null || hasNotes == (buf.getInt(p + NOTES) > 0));
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    // Largo (-1 = null) seguido de los bytes; devuelve la posición siguiente
+    private static int putBytes(ByteBuffer buf, int p, byte[] bytes) {
+        if (bytes == null) {
+            buf.putInt(p, -1);
+            return p + 4;
+        }
+        buf.putInt(p, bytes.length);
+        ByteBuffer view = buf.duplicate();
+        view.position(p + 4);
+        view.put(bytes);
+        return p + 4 + bytes.length;
+    }
+
+    private static String getString(ByteBuffer buf, int p) {
+        int length = buf.getInt(p);
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buf.duplicate();
+        view.position(p + 4);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,227 @@
+package estructures;
+
+import domine.Note;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Lista desenrollada (unrolled linked list) de notas: en lugar de un nodo por nota, cada bloque
+ * guarda varias notas en arreglos paralelos, la marca de tiempo como epoch millis en un long[]
+ * y la observación en un String[].
+ *
+ * Con SimpleList<Note> cada nota cuesta un Node, un Note y un LocalDateTime (con su LocalDate y
+ * LocalTime), unos 120 bytes más el texto; aquí son 12 bytes más la parte proporcional de la
+ * cabecera del bloque y de la lista (ver NoteFootprintBenchmark). Los bloques crecen con la
+ * lista (4, 8, ... hasta 64 lugares), así un ticket con una o dos notas no paga un bloque grande.
+ *
+ * Ofrece las operaciones de SimpleList que usa el historial de notas de un Ticket (altas, bajas
+ * por valor, índice, último, ventana de los últimos n y recorrido), pero no extiende SimpleList:
+ * no hay nodos, así que no tiene head, lastNode() ni unlink(). Las notas se reconstruyen al
+ * leerlas: son iguales (equals) a las agregadas, con la hora truncada al milisegundo, pero no la
+ * misma instancia.
+ * @author Jaime Landázuri
+ */
+public class UnrolledNoteList implements Iterable<Note> {
+
+    static final int MIN_CHUNK = 4;
+    static final int MAX_CHUNK = 64;
+    private static final long NO_TIME = Long.MIN_VALUE; // nota sin marca de tiempo
+
+    private Chunk first;
+    private Chunk last;
+    private int size;
+
+    // ------------------ Altas ------------------
+
+    public void pushBack(Note note) {
+        if (last == null || last.count == last.times.length) {
+            Chunk c = new Chunk(nextCapacity());
+            if (last == null) {
+                first = c;
+            } else {
+                last.next = c;
+            }
+            last = c;
+        }
+        last.set(last.count++, note);
+        size++;
+    }
+
+    public void pushFront(Note note) {
+        if (first == null || first.count == first.times.length) {
+            Chunk c = new Chunk(nextCapacity());
+            c.next = first;
+            first = c;
+            if (last == null) last = c;
+        } else {
+            System.arraycopy(first.times, 0, first.times, 1, first.count);
+            System.arraycopy(first.observations, 0, first.observations, 1, first.count);
+        }
+        first.set(0, note);
+        first.count++;
+        size++;
+    }
+
+    // ------------------ Búsquedas y bajas ------------------
+
+    public Note find(Note key) {
+        for (Chunk c = first; c != null; c = c.next) {
+            int i = c.indexOf(key);
+            if (i >= 0) return c.get(i);
+        }
+        throw new NoSuchElementException();
+    }
+
+    public Note remove(Note key) {
+        Chunk prev = null;
+        for (Chunk c = first; c != null; prev = c, c = c.next) {
+            int i = c.indexOf(key);
+            if (i < 0) continue;
+            Note removed = c.get(i);
+            int tail = c.count - i - 1;
+            System.arraycopy(c.times, i + 1, c.times, i, tail);
+            System.arraycopy(c.observations, i + 1, c.observations, i, tail);
+            c.observations[--c.count] = null;
+            if (c.count == 0) unlink(prev, c);
+            size--;
+            return removed;
+        }
+        throw new NoSuchElementException();
+    }
+
+    public Note findByIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+        Chunk c = first;
+        while (index >= c.count) {
+            index -= c.count;
+            c = c.next;
+        }
+        return c.get(index);
+    }
+
+    public Note last() {
+        if (last == null) throw new NoSuchElementException();
+        return last.get(last.count - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        first = last = null;
+        size = 0;
+    }
+
+    // ------------------ Recorridos ------------------
+
+    @Override
+    public Iterator<Note> iterator() {
+        return iteratorFrom(first, 0);
+    }
+
+    // Las últimas n notas (todas si hay menos), en orden: salta size - n notas bloque por bloque
+    public Iterable<Note> lastN(int n) {
+        if (n < 0) throw new IllegalArgumentException("n no puede ser negativo");
+        return () -> {
+            int skip = Math.max(0, size - n);
+            Chunk c = first;
+            while (c != null && skip >= c.count) {
+                skip -= c.count;
+                c = c.next;
+            }
+            return iteratorFrom(c, skip);
+        };
+    }
+
+    /** Cantidad de bloques (para medir el uso de memoria). */
+    public int chunkCount() {
+        int n = 0;
+        for (Chunk c = first; c != null; c = c.next) n++;
+        return n;
+    }
+
+    private Iterator<Note> iteratorFrom(Chunk start, int offset) {
+        return new Iterator<Note>() {
+            private Chunk chunk = start;
+            private int pos = offset;
+
+            @Override
+            public boolean hasNext() {
+                while (chunk != null && pos >= chunk.count) {
+                    chunk = chunk.next;
+                    pos = 0;
+                }
+                return chunk != null;
+            }
+
+            @Override
+            public Note next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return chunk.get(pos++);
+            }
+        };
+    }
+
+    // ------------------ Internos ------------------
+
+    // Crecimiento geométrico: el bloque nuevo tiene tantos lugares como notas hay (entre 4 y 64)
+    private int nextCapacity() {
+        return Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, Integer.highestOneBit(Math.max(1, size))));
+    }
+
+    private void unlink(Chunk prev, Chunk c) {
+        if (prev == null) {
+            first = c.next;
+        } else {
+            prev.next = c.next;
+        }
+        if (last == c) last = prev;
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime fromMillis(long millis) {
+        return millis == NO_TIME ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private static final class Chunk {
+        final long[] times;
+        final String[] observations;
+        int count;
+        Chunk next;
+
+        Chunk(int capacity) {
+            times = new long[capacity];
+            observations = new String[capacity];
+        }
+
+        void set(int i, Note note) {
+            times[i] = toMillis(note.getTimestamp());
+            observations[i] = note.getObservation();
+        }
+
+        Note get(int i) {
+            return new Note(observations[i], fromMillis(times[i]));
+        }
+
+        int indexOf(Note key) {
+            long t = toMillis(key.getTimestamp());
+            for (int i = 0; i < count; i++) {
+                if (times[i] == t && Objects.equals(observations[i], key.getObservation())) return i;
+            }
+            return -1;
+        }
+    }
+}
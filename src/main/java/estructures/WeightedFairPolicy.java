@@ -0,0 +1,273 @@
+package estructures;
+
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cola justa ponderada por carriles: un carril por ProcedureType y por urgencia
+ * (MATRICULA normal, MATRICULA urgente, CERTIFICADO normal, ...).
+ *
+ * Se reparte la atención con Deficit Round Robin: cada carril con tickets recibe en su turno
+ * tantos créditos como su peso y cada ticket atendido consume uno. Así una avalancha de
+ * MATRICULA no entierra a los CERTIFICADO: cada carril avanza en proporción a su peso.
+ * Como todo peso es >= 1, cada turno atiende al menos un ticket.
+ *
+ * select() solo consulta: recorre la ronda desde el carril en turno y devuelve el primer ticket
+ * que no esté en PENDIENTE_DOCS (si todos lo están, el primero que encuentre), sin tocar carriles
+ * ni créditos; consultar varias veces el siguiente devuelve lo mismo. Los créditos se consumen y
+ * la ronda avanza en onServed, cuando el ticket de verdad pasa a atenderse: los carriles que
+ * quedaron antes del suyo pierden el turno (vacíos o solo con tickets en PENDIENTE_DOCS).
+ * Mientras ese ticket sigue EN_ATENCION, select() lo devuelve a él.
+ * Expone métricas por carril para ajustar los pesos con datos reales; también se anotan en
+ * onServed. Cada ticket guarda su nodo en el carril, así sacarlo (cerrar, mover, deshacer) es
+ * O(1) como en AttentionQueue.
+ * @author Alejandro Padilla
+ */
+public class WeightedFairPolicy implements SchedulingPolicy {
+
+    public static final int DEFAULT_WEIGHT = 1;
+    public static final int DEFAULT_URGENT_MULTIPLIER = 2;
+
+    private final Lane[] lanes;
+    private final Queue<Lane> activeLanes = new Queue<>();         // ronda de carriles con tickets
+    private final Map<Ticket, Entry> entries = new IdentityHashMap<>();
+    private Ticket serving; // último ticket que pasó a atenderse (onServed)
+    private long totalServed;
+
+    public WeightedFairPolicy() {
+        ProcedureType[] types = ProcedureType.values();
+        lanes = new Lane[types.length * 2];
+        for (ProcedureType type : types) {
+            lanes[index(type, false)] = new Lane(type, false, DEFAULT_WEIGHT);
+            lanes[index(type, true)] = new Lane(type, true, DEFAULT_WEIGHT * DEFAULT_URGENT_MULTIPLIER);
+        }
+    }
+
+    /**
+     * Cambia el peso (créditos por turno) de un carril. Toma efecto en su próximo turno.
+     */
+    public void setWeight(ProcedureType type, boolean urgent, int weight) {
+        if (weight < 1) throw new IllegalArgumentException("El peso debe ser >= 1");
+        lanes[index(type, urgent)].weight = weight;
+    }
+
+    public int getWeight(ProcedureType type, boolean urgent) {
+        return lanes[index(type, urgent)].weight;
+    }
+
+    // ------------------ SchedulingPolicy ------------------
+
+    @Override
+    public void onEnqueue(Ticket t, boolean urgent, long nowMillis) {
+        Lane lane = lanes[index(t.getProcedureType(), urgent)];
+        lane.tickets.enqueue(t);
+        lane.enqueued++;
+        entries.put(t, new Entry(lane.tickets.getRear(), nowMillis));
+        if (!lane.active) {
+            lane.active = true;
+            lane.inTurn = false;
+            lane.deficit = 0;
+            activeLanes.enqueue(lane);
+        }
+    }
+
+    @Override
+    public void onRemove(Ticket t, boolean urgent) {
+        Entry entry = entries.remove(t);
+        if (entry == null) return;
+        lanes[index(t.getProcedureType(), urgent)].tickets.unlink(entry.node);
+        if (serving == t) serving = null;
+    }
+
+    @Override
+    public void onServed(Ticket t, boolean urgent, long nowMillis) {
+        Entry entry = entries.get(t);
+        if (entry == null) return;
+        Lane lane = lanes[index(t.getProcedureType(), urgent)];
+        long wait = nowMillis - entry.arrivalMillis;
+        lane.served++;
+        lane.waitSumMillis += wait;
+        lane.maxWaitMillis = Math.max(lane.maxWaitMillis, wait);
+        totalServed++;
+        serving = t;
+
+        // Avanza la ronda hasta su carril (los de antes pierden el turno) y consume un crédito
+        if (!lane.active) return;
+        for (int n = activeLanes.size(); n > 0 && activeLanes.peek() != lane; n--) {
+            Lane skipped = activeLanes.dequeue();
+            skipped.inTurn = false;
+            skipped.deficit = 0;
+            if (skipped.tickets.isEmpty()) skipped.active = false;
+            else activeLanes.enqueue(skipped);
+        }
+        if (!lane.inTurn) {
+            lane.deficit += lane.weight;
+            lane.inTurn = true;
+        }
+        lane.deficit--;
+        if (lane.deficit < 1) {
+            lane.inTurn = false;
+            lane.deficit = 0;
+            activeLanes.enqueue(activeLanes.dequeue());
+        }
+    }
+
+    @Override
+    public Ticket select(Queue<Ticket> urgentQueue, Queue<Ticket> normalQueue, long nowMillis) {
+        if (serving != null && serving.getState() == TicketState.EN_ATENCION) return serving;
+
+        Ticket waitingDocs = null;
+        for (Node<Lane> l = activeLanes.getFront(); l != null; l = l.next) {
+            // onServed rota el carril al quedarse sin créditos: el del frente siempre tiene turno
+            for (Node<Ticket> n = l.value.tickets.getFront(); n != null; n = n.next) {
+                if (n.value.getState() != TicketState.PENDIENTE_DOCS) return n.value;
+                if (waitingDocs == null) waitingDocs = n.value;
+            }
+        }
+        if (waitingDocs != null) return waitingDocs;
+        // No debería ocurrir si la política recibió todos los onEnqueue
+        return !urgentQueue.isEmpty() ? urgentQueue.peek() : normalQueue.peek();
+    }
+
+    @Override
+    public void reset() {
+        for (Lane lane : lanes) {
+            lane.tickets = new Queue<>();
+            lane.active = false;
+            lane.inTurn = false;
+            lane.deficit = 0;
+        }
+        while (!activeLanes.isEmpty()) activeLanes.dequeue();
+        entries.clear();
+        serving = null;
+    }
+
+    // ------------------ Métricas ------------------
+
+    /** Métricas de cada carril (en el orden de ProcedureType, normal y luego urgente). */
+    public List<LaneStats> getLaneStats() {
+        List<LaneStats> out = new ArrayList<>();
+        for (Lane lane : lanes) {
+            out.add(new LaneStats(lane.type, lane.urgent, lane.weight, lane.tickets.size(),
+                    lane.enqueued, lane.served, lane.waitSumMillis, lane.maxWaitMillis, totalServed));
+        }
+        return out;
+    }
+
+    /**
+     * Índice de equidad de Jain sobre el throughput normalizado por peso (atendidos / peso)
+     * de los carriles que recibieron tickets. 1.0 = reparto exactamente proporcional a los pesos.
+     * Solo es representativo mientras todos esos carriles tienen demanda acumulada: un carril
+     * con poca demanda recibe menos de su parte porque no la necesita.
+     */
+    public double fairnessIndex() {
+        double sum = 0, sumSq = 0;
+        int n = 0;
+        for (Lane lane : lanes) {
+            if (lane.enqueued == 0) continue;
+            double x = lane.served / (double) lane.weight;
+            sum += x;
+            sumSq += x * x;
+            n++;
+        }
+        return (n == 0 || sumSq == 0) ? 1.0 : (sum * sum) / (n * sumSq);
+    }
+
+    @Override
+    public String toString() {
+        return "Cola justa ponderada (DRR por tipo de trámite)";
+    }
+
+    private static int index(ProcedureType type, boolean urgent) {
+        return type.ordinal() * 2 + (urgent ? 1 : 0);
+    }
+
+    // Nodo del ticket en su carril y momento en que llegó
+    private static final class Entry {
+        final Node<Ticket> node;
+        final long arrivalMillis;
+
+        Entry(Node<Ticket> node, long arrivalMillis) {
+            this.node = node;
+            this.arrivalMillis = arrivalMillis;
+        }
+    }
+
+    private static final class Lane {
+        final ProcedureType type;
+        final boolean urgent;
+        int weight;
+        Queue<Ticket> tickets = new Queue<>();
+        boolean active;
+        boolean inTurn;
+        long deficit;
+        long enqueued;
+        long served;
+        long waitSumMillis;
+        long maxWaitMillis;
+
+        Lane(ProcedureType type, boolean urgent, int weight) {
+            this.type = type;
+            this.urgent = urgent;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Foto inmutable de las métricas de un carril.
+     */
+    public static final class LaneStats {
+        private final ProcedureType type;
+        private final boolean urgent;
+        private final int weight;
+        private final int waiting;
+        private final long enqueued;
+        private final long served;
+        private final long waitSumMillis;
+        private final long maxWaitMillis;
+        private final long totalServed;
+
+        LaneStats(ProcedureType type, boolean urgent, int weight, int waiting, long enqueued,
+                  long served, long waitSumMillis, long maxWaitMillis, long totalServed) {
+            this.type = type;
+            this.urgent = urgent;
+            this.weight = weight;
+            this.waiting = waiting;
+            this.enqueued = enqueued;
+            this.served = served;
+            this.waitSumMillis = waitSumMillis;
+            this.maxWaitMillis = maxWaitMillis;
+            this.totalServed = totalServed;
+        }
+
+        public ProcedureType getType() { return type; }
+        public boolean isUrgent() { return urgent; }
+        public int getWeight() { return weight; }
+        public int getWaiting() { return waiting; }
+        public long getEnqueued() { return enqueued; }
+        public long getServed() { return served; }
+        public long getMaxWaitMillis() { return maxWaitMillis; }
+
+        public double getMeanWaitMillis() {
+            return served == 0 ? 0.0 : waitSumMillis / (double) served;
+        }
+
+        /** Fracción de todos los tickets atendidos que salió de este carril. */
+        public double getThroughputShare() {
+            return totalServed == 0 ? 0.0 : served / (double) totalServed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s%s peso=%d en_cola=%d atendidos=%d (%.1f%%) espera_media=%.0fs máx=%ds",
+                    type, urgent ? "/URGENTE" : "", weight, waiting, served, getThroughputShare() * 100,
+                    getMeanWaitMillis() / 1000, maxWaitMillis / 1000);
+        }
+    }
+}
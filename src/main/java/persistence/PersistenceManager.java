@@ -1,39 +1,81 @@
 package persistence;
 
 import domine.Note;
+import domine.NoteIndex;
+import domine.TicketIndex;
 import domine.ProcedureType;
+import domine.StudentDictionary;
 import domine.Ticket;
 import domine.TicketState;
+import estructures.DiskArchive;
 import estructures.Node;
 import estructures.Queue;
+import estructures.RoaringBitmap;
 import estructures.SimpleList;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Maneja la persistencia simple en CSV de tickets y notas en el directorio 'data/'.
  * Funcionalidades:
  *  - Guardar y cargar listas de tickets (pendientes e historial)
+ *  - Historial en dos archivos: 'completed_history.csv' con los atendidos que están en memoria
+ *    (se reescribe, su tamaño lo acota la ventana del historial) y 'archived_history.csv' con los
+ *    archivados (solo se agregan líneas); al cargar se leen de a una línea, sin juntar todo en memoria
  *  - Guardar y cargar notas individuales por ticket
+ *  - Guardar y cargar el índice de notas (archivo binario 'notes_index.bin')
+ *  - Guardar y cargar los bitmaps de estado/tipo/notas (archivo binario 'ticket_bitmaps.bin')
+ *  - Diccionario de estudiantes ('students.csv', solo se agregan líneas): los snapshots de tickets
+ *    guardan el código del estudiante y los tickets cargados comparten una instancia por nombre
  * Implementación orientada a archivos CSV para uso local.
  * @author Alejandro Padilla
  */
 public class PersistenceManager {
 
-    private final String basePath = "data/";
+    static final String HISTORY_FILE = "completed_history.csv";
+    static final String ARCHIVE_FILE = "archived_history.csv";
+    private static final String TICKET_HEADER = "id,student_id,student,procedure,state,created";
+    private static final String CODED_HEADER_PREFIX = "id,student_id,";
+    // Fecha de los atendidos de archivos anteriores sin columna 'created': antigua a propósito,
+    // para que el límite de antigüedad del historial los archive en vez de tomarlos como recientes
+    public static final LocalDateTime UNDATED_HISTORY = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final String basePath;
+    private final StudentDictionary students;
+    private int studentsPersisted; // códigos ya escritos en students.csv
 
     /**
      * Crea el directorio base de persistencia si no existe.
      */
     public PersistenceManager() {
+        this("data/");
+    }
+
+    /**
+     * Usa un directorio base distinto de 'data/' (útil para pruebas y benchmarks).
+     */
+    public PersistenceManager(String basePath) {
+        this(basePath, new StudentDictionary());
+    }
+
+    /**
+     * Con un diccionario de estudiantes propio; si viene vacío se llena desde 'students.csv'.
+     */
+    public PersistenceManager(String basePath, StudentDictionary students) {
+        this.basePath = basePath.endsWith("/") ? basePath : basePath + "/";
+        this.students = students;
         try {
             Files.createDirectories(Paths.get(basePath));
         } catch (IOException e) {
-            System.err.println("Error creating 'data' directory: " + e.getMessage());
+            System.err.println("Error creating '" + this.basePath + "' directory: " + e.getMessage());
         }
+        if (students.size() == 0) loadStudentDictionary();
     }
 
     /**
@@ -53,31 +95,40 @@ public class PersistenceManager {
     /**
      * Escribe una lista de tickets en un archivo CSV y persiste las notas asociadas.
      */
-    private void saveTicketListToFile(SimpleList<Ticket> tickets, String filename) {
+    private void saveTicketListToFile(Iterable<Ticket> tickets, String filename) {
+        // primero los códigos nuevos al diccionario, así el snapshot nunca referencia uno no guardado
+        for (Ticket t : tickets) students.code(t.getStudent());
+        saveStudentDictionary();
+
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            writer.write("id,student,procedure,state");
+            writer.write(TICKET_HEADER);
             writer.newLine();
 
-            Node<Ticket> current = tickets.head;
-            while (current != null) {
-                Ticket t = current.value;
-                String[] fields = {
-                        String.valueOf(t.getId()),
-                        toCsv(t.getStudent()),
-                        toCsv(t.getProcedureType().toString()),
-                        toCsv(t.getState().name())
-                };
-                writer.write(String.join(",", fields));
+            for (Ticket t : tickets) {
+                writer.write(ticketRow(t));
                 writer.newLine();
 
                 saveNotesForTicket(t);
-                current = current.next;
             }
         } catch (IOException e) {
             System.err.println("Error saving ticket list to " + filename + ": " + e.getMessage());
         }
     }
 
+    // Una fila del CSV de tickets (el estudiante va por código si está en el diccionario)
+    private String ticketRow(Ticket t) {
+        int code = students.lookup(t.getStudent());
+        String[] fields = {
+                String.valueOf(t.getId()),
+                code == StudentDictionary.NO_CODE ? "" : String.valueOf(code),
+                code == StudentDictionary.NO_CODE ? toCsv(t.getStudent()) : "",
+                toCsv(t.getProcedureType().toString()),
+                toCsv(t.getState().name()),
+                toCsv(t.getCreatedAt() == null ? "" : t.getCreatedAt().toString())
+        };
+        return String.join(",", fields);
+    }
+
     /**
      * Guarda los tickets pendientes en 'data/pending_tickets.csv'.
      */
@@ -86,10 +137,83 @@ public class PersistenceManager {
     }
 
     /**
-     * Guarda el historial completado en 'data/completed_history.csv'.
+     * Agrega tickets nuevos (sin notas) al final de 'data/pending_tickets.csv' sin reescribir los
+     * que ya están; al cargar, cada uno vuelve a su cola por su estado (ver BulkImporter).
      */
-    public void saveHistory(SimpleList<Ticket> history) {
-        saveTicketListToFile(history, basePath + "completed_history.csv");
+    public void appendTickets(List<Ticket> tickets) {
+        for (Ticket t : tickets) students.code(t.getStudent());
+        saveStudentDictionary();
+
+        appendRows(tickets, new File(basePath + "pending_tickets.csv"));
+    }
+
+    // Agrega las filas al final del archivo; la cabecera solo si el archivo es nuevo o está vacío.
+    // Un archivo con el formato anterior (nombre en texto) se reescribe una vez al actual antes
+    // de agregar, para que la cabecera describa todas sus filas
+    private void appendRows(List<Ticket> tickets, File file) {
+        upgradeLegacyFile(file);
+        boolean header = !file.exists() || file.length() == 0;
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true))) {
+            if (header) {
+                writer.write(TICKET_HEADER);
+                writer.newLine();
+            }
+            for (Ticket t : tickets) {
+                writer.write(ticketRow(t));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Error appending tickets to " + file + ": " + e.getMessage());
+        }
+    }
+
+    // Reescribe en el formato actual (con student_id) un archivo de tickets con la cabecera anterior
+    private void upgradeLegacyFile(File file) {
+        if (!file.exists() || file.length() == 0) return;
+        String header;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            header = reader.readLine();
+        } catch (IOException e) {
+            System.err.println("Error reading file " + file + ": " + e.getMessage());
+            return;
+        }
+        if (header == null || header.startsWith(CODED_HEADER_PREFIX)) return;
+
+        List<Ticket> rows = new java.util.ArrayList<>();
+        loadTicketFile(file.getPath(), rows::add, null);
+        for (Ticket t : rows) students.code(t.getStudent());
+        saveStudentDictionary();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write(TICKET_HEADER);
+            writer.newLine();
+            for (Ticket t : rows) {
+                writer.write(ticketRow(t));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Error rewriting " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Guarda en 'data/completed_history.csv' los atendidos que siguen en memoria
+     * (AttentionQueue.getAttendedHistory()); los archivados van a appendArchivedHistory().
+     */
+    public void saveHistory(Iterable<Ticket> history) {
+        saveTicketListToFile(history, basePath + HISTORY_FILE);
+    }
+
+    /**
+     * Agrega al final de 'data/archived_history.csv' los tickets que pasaron al archivo del
+     * historial, sin reescribir los anteriores (sus notas ya están en su archivo de notas).
+     * Conviene llamarlo antes de saveHistory(): si el proceso se corta entre ambos, el ticket
+     * queda en los dos archivos y al cargar se toma el del archivo (ver loadHistory).
+     */
+    public void appendArchivedHistory(List<Ticket> archived) {
+        if (archived.isEmpty()) return;
+        for (Ticket t : archived) students.code(t.getStudent());
+        saveStudentDictionary();
+        appendRows(archived, new File(basePath + ARCHIVE_FILE));
     }
 
     /**
@@ -101,13 +225,10 @@ public class PersistenceManager {
             writer.write("timestamp,observation");
             writer.newLine();
 
-            Node<Note> current = t.getNoteHistory().head;
-            while (current != null) {
-                Note note = current.value;
+            for (Note note : t.getNoteHistory()) {
                 String[] fields = { toCsv(note.getTimestamp().toString()), toCsv(note.getObservation()) };
                 writer.write(String.join(",", fields));
                 writer.newLine();
-                current = current.next;
             }
         } catch (IOException e) {
             System.err.println("Error saving notes for ticket " + t.getId() + ": " + e.getMessage());
@@ -115,40 +236,191 @@ public class PersistenceManager {
     }
 
     /**
-     * Carga desde archivos CSV las colas pendientes e historial.
+     * Guarda el índice invertido de notas en 'data/notes_index.bin'.
+     */
+    public void saveNoteIndex(NoteIndex index) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(basePath + "notes_index.bin")))) {
+            index.writeTo(out);
+        } catch (IOException e) {
+            System.err.println("Error saving note index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Carga el índice de notas guardado. Retorna false si no existe o no se pudo leer
+     * (en ese caso hay que reconstruirlo desde las notas).
+     */
+    public boolean loadNoteIndex(NoteIndex index) {
+        File file = new File(basePath + "notes_index.bin");
+        if (!file.exists()) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            index.readFrom(in);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error reading note index: " + e.getMessage());
+            index.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Guarda los bitmaps del índice de tickets en 'data/ticket_bitmaps.bin', junto al snapshot CSV.
+     */
+    public void saveTicketBitmaps(TicketIndex index) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(basePath + "ticket_bitmaps.bin")))) {
+            index.writeBitmapsTo(out);
+        } catch (IOException e) {
+            System.err.println("Error saving ticket bitmaps: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lee los bitmaps guardados ("state:X", "type:Y", "notes" -> ids). Retorna null si no existen.
+     */
+    public Map<String, RoaringBitmap> loadTicketBitmaps() {
+        File file = new File(basePath + "ticket_bitmaps.bin");
+        if (!file.exists()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return TicketIndex.readBitmaps(in);
+        } catch (IOException e) {
+            System.err.println("Error reading ticket bitmaps: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Agrega a 'data/students.csv' los códigos asignados desde la última vez (los anteriores no cambian).
+     */
+    public synchronized void saveStudentDictionary() {
+        int total = students.size();
+        if (total == studentsPersisted) return;
+        File file = new File(basePath + "students.csv");
+        boolean header = studentsPersisted == 0;
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, !header))) {
+            if (header) {
+                writer.write("code,name");
+                writer.newLine();
+                studentsPersisted = 0;
+            }
+            for (int code = studentsPersisted; code < total; code++) {
+                writer.write(code + "," + toCsv(students.name(code)));
+                writer.newLine();
+            }
+            studentsPersisted = total;
+        } catch (IOException e) {
+            System.err.println("Error saving student dictionary: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Carga 'data/students.csv' en el diccionario (vacío). Se llama al construir, antes de que
+     * se asigne cualquier código nuevo.
+     */
+    public synchronized void loadStudentDictionary() {
+        try (BufferedReader reader = new BufferedReader(new FileReader(basePath + "students.csv"))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                java.util.List<String> fields = parseCsvLine(line);
+                if (fields.size() < 2) continue;
+                students.restore(Integer.parseInt(fields.get(0)), fields.get(1));
+            }
+        } catch (FileNotFoundException e) {
+            // Normal on first run
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading student dictionary: " + e.getMessage());
+        }
+        studentsPersisted = students.size();
+    }
+
+    public StudentDictionary getStudentDictionary() {
+        return students;
+    }
+
+    /**
+     * Abre el nivel en disco del historial ('history_archive.dat/.idx' en el directorio base),
+     * con los mismos códigos de estudiante que los snapshots.
+     *
+     * @param cacheCapacity tickets archivados que se mantienen en la caché LRU
+     */
+    public DiskArchive openHistoryArchive(int cacheCapacity) throws IOException {
+        return new DiskArchive(Paths.get(basePath), students, cacheCapacity);
+    }
+
+    /**
+     * Abre (o crea) un diario de acciones de undo/redo en el directorio base (ver ActionStack).
+     */
+    public UndoJournal openUndoJournal(String filename) throws IOException {
+        return new UndoJournal(Paths.get(basePath + filename));
+    }
+
+    /**
+     * Carga desde archivos CSV las colas pendientes e historial (archivados y luego recientes,
+     * todo en memoria; para pruebas y herramientas; el controlador usa loadHistory()).
      */
     public void loadData(Queue<Ticket> pendingQueue, Queue<Ticket> historyQueue) {
-        loadTicketFile(basePath + "pending_tickets.csv", pendingQueue);
-        loadTicketFile(basePath + "completed_history.csv", historyQueue);
+        loadPending(pendingQueue);
+        loadHistory(historyQueue::enqueue, historyQueue::enqueue);
+    }
+
+    /**
+     * Carga los tickets pendientes en la cola provista.
+     */
+    public void loadPending(Queue<Ticket> pendingQueue) {
+        loadTicketFile(basePath + "pending_tickets.csv", pendingQueue::enqueue, null);
     }
 
     /**
-     * Lee un archivo CSV de tickets y encola cada ticket en la cola provista.
+     * Recorre el historial de a una línea: primero 'archived_history.csv' (a archived) y luego
+     * 'completed_history.csv' (a recent), en orden de atención. Los atendidos sin fecha de
+     * creación (archivos anteriores) reciben UNDATED_HISTORY.
+     */
+    public void loadHistory(Consumer<Ticket> archived, Consumer<Ticket> recent) {
+        loadTicketFile(basePath + ARCHIVE_FILE, archived, UNDATED_HISTORY);
+        loadTicketFile(basePath + HISTORY_FILE, recent, UNDATED_HISTORY);
+    }
+
+    /**
+     * Lee un archivo CSV de tickets y entrega cada ticket a sink, de a uno.
      * Ignora líneas malformadas y continúa.
+     *
+     * @param undated fecha para las filas sin 'created' (null = la de creación del objeto)
      */
-    private void loadTicketFile(String fileName, Queue<Ticket> queue) {
+    private void loadTicketFile(String fileName, Consumer<Ticket> sink, LocalDateTime undated) {
         try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            // Saltar la línea de cabecera
-            reader.readLine();
+            // La cabecera dice el formato: con student_id (código del diccionario) o el anterior, con el nombre
+            String headerLine = reader.readLine();
+            boolean coded = headerLine != null && headerLine.startsWith(CODED_HEADER_PREFIX);
+            int shift = coded ? 1 : 0;
             String line;
 
             while ((line = reader.readLine()) != null) {
                 try {
                     java.util.List<String> fields = parseCsvLine(line); // BIEN
 
-                    if (fields.size() < 4) continue; // Línea malformada
+                    if (fields.size() < 4 + shift) continue; // Línea malformada
 
                     int id = Integer.parseInt(fields.get(0));
-                    String student = fields.get(1); // Ya no necesita .replace("\"", "")
-                    ProcedureType procedure = ProcedureType.valueOf(fields.get(2));
-                    TicketState state = TicketState.valueOf(fields.get(3));
+                    String student = coded && !fields.get(1).isEmpty()
+                            ? students.name(Integer.parseInt(fields.get(1)))
+                            : students.canonical(fields.get(1 + shift));
+                    ProcedureType procedure = ProcedureType.valueOf(fields.get(2 + shift));
+                    TicketState state = TicketState.valueOf(fields.get(3 + shift));
 
                     Ticket ticket = new Ticket(student, procedure);
                     ticket.setId(id);
                     ticket.setState(state);
+                    // columna opcional: archivos anteriores no tienen fecha de creación
+                    if (fields.size() > 4 + shift && !fields.get(4 + shift).isEmpty()) {
+                        ticket.setCreatedAt(LocalDateTime.parse(fields.get(4 + shift)));
+                    } else if (undated != null) {
+                        ticket.setCreatedAt(undated);
+                    }
 
                     loadNotesForTicket(ticket);
-                    queue.enqueue(ticket);
+                    sink.accept(ticket);
                 } catch (Exception e) {
                     System.err.println("Error processing line: " + line + ". " + e.getMessage());
                 }
@@ -0,0 +1,185 @@
+package persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pila de registros binarios en un archivo: ActionStack guarda aquí sus comandos de undo/redo
+ * ya codificados, así sobreviven a un reinicio.
+ *
+ * Formato: cabecera magia(4) cantidad(4) fin(8) y luego registros [largo(4)][bytes][largo(4)].
+ * El largo al final permite sacar el último registro leyendo hacia atrás y truncando el archivo;
+ * el del principio permite recorrer hacia adelante al compactar.
+ * Agregar escribe el registro y después la cabecera: si el proceso se corta entre ambos, al abrir
+ * se descarta lo que quedó más allá del fin confirmado. Abrir solo lee la cabecera, sin importar
+ * cuántos registros haya.
+ * No es seguro para varios hilos.
+ * @author Jaime Landázuri
+ */
+public class UndoJournal implements Closeable {
+
+    private static final int MAGIC = 0x554E4432; // "UND2"
+    private static final int HEADER = 16;
+
+    private final Path file;
+    private FileChannel channel;
+    private int count;
+    private long end;
+
+    /**
+     * Abre (o crea) el diario. Si el archivo existe y es válido conserva sus registros;
+     * si no, empieza vacío.
+     */
+    public UndoJournal(Path file) throws IOException {
+        this.file = file;
+        this.channel = open(file);
+        if (!readHeader()) clear();
+    }
+
+    public void push(byte[] record) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8 + record.length);
+        buf.putInt(record.length).put(record).putInt(record.length).flip();
+        writeFully(buf, end);
+        end += buf.capacity();
+        count++;
+        writeHeader();
+    }
+
+    /**
+     * Los n registros más recientes sin sacarlos, del más reciente al más antiguo.
+     */
+    public List<byte[]> newest(int n) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        long pos = end;
+        for (int i = 0; i < n && i < count; i++) {
+            int length = readInt(pos - 4);
+            byte[] record = new byte[length];
+            readFully(ByteBuffer.wrap(record), pos - 4 - length);
+            records.add(record);
+            pos -= 8 + length;
+        }
+        return records;
+    }
+
+    /**
+     * Saca el registro más reciente.
+     *
+     * @return los bytes, o null si el diario está vacío
+     */
+    public byte[] pop() throws IOException {
+        if (count == 0) return null;
+        int length = readInt(end - 4);
+        byte[] record = new byte[length];
+        readFully(ByteBuffer.wrap(record), end - 4 - length);
+        end -= 8 + length;
+        count--;
+        writeHeader();          // primero la cabecera: un corte deja cola sobrante, que se descarta al abrir
+        channel.truncate(end);
+        return record;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /** Bytes ocupados en disco. */
+    public long bytes() {
+        return end;
+    }
+
+    public void clear() throws IOException {
+        channel.truncate(HEADER);
+        end = HEADER;
+        count = 0;
+        writeHeader();
+    }
+
+    /**
+     * Deja solo los keepNewest registros más recientes reescribiendo el archivo (los más
+     * antiguos se descartan).
+     *
+     * @return cantidad de registros descartados
+     */
+    public int compact(int keepNewest) throws IOException {
+        if (keepNewest < 0) throw new IllegalArgumentException("keepNewest no puede ser negativo");
+        int drop = count - keepNewest;
+        if (drop <= 0) return 0;
+        long from = HEADER;
+        for (int i = 0; i < drop; i++) from += 8 + readInt(from);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(keepNewest).putLong(HEADER + end - from).flip();
+            while (header.hasRemaining()) out.write(header);
+            long pos = from;
+            while (pos < end) pos += channel.transferTo(pos, end - pos, out);
+            out.force(false);
+        }
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = open(file);
+        readHeader();
+        return drop;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // ------------------ Internos ------------------
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // Lee cantidad y fin confirmados; descarta un registro a medio escribir
+    private boolean readHeader() throws IOException {
+        long size = channel.size();
+        if (size < HEADER) return false;
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        readFully(header, 0);
+        count = header.getInt(4);
+        end = header.getLong(8);
+        if (header.getInt(0) != MAGIC || count < 0 || end < HEADER || end > size) return false;
+        if (size > end) channel.truncate(end);
+        return true;
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putInt(count).putLong(end).flip();
+        writeFully(header, 0);
+    }
+
+    private int readInt(long pos) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4);
+        readFully(buf, pos);
+        return buf.getInt(0);
+    }
+
+    private void readFully(ByteBuffer buf, long pos) throws IOException {
+        long start = pos - buf.position();
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, start + buf.position()) < 0) throw new IOException("Diario truncado: " + file);
+        }
+    }
+
+    private void writeFully(ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) channel.write(buf, pos + buf.position());
+    }
+}
@@ -1,15 +1,22 @@
 package reports;
 
+import domine.ProcedureType;
 import domine.Ticket;
+import domine.TicketIndex;
+import domine.TicketQuery;
 import domine.TicketState;
-import estructures.SimpleList;
-import estructures.Node;
+import estructures.TicketArchive;
 import persistence.FileUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Esta clase maneja la generación de reportes sobre los tickets.
  * Permite mostrar tickets pendientes por tipo, tickets completados,
- * y los Top-K tickets por número de notas.
+ * los Top-K tickets por número de notas y conteos por estado y tipo.
+ * Los listados se arman con TicketQuery sobre el TicketIndex, sin recorrer colas ni historial,
+ * salvo el de pendientes, que va en el orden de atención de las colas.
  * También permite exportar estos reportes a archivos CSV.
  * @author Wilson Palma
  */
@@ -17,29 +24,21 @@ public class ReportManager {
 
     /**
      * Muestra los tickets pendientes por tipo y opcionalmente exporta CSV.
+     * queued son los tickets de las colas en orden de atención (urgente y luego normal, como
+     * CaeController.buildPendingSnapshotFromQueues()); el índice ordenaría por id.
      */
-    public void showPendingByType(SimpleList<Ticket> tickets, boolean exportCsv, String csvPath) {
+    public void showPendingByType(Iterable<Ticket> queued, boolean exportCsv, String csvPath) {
         csvPath = "data/"+csvPath+".csv";
         StringBuilder console = new StringBuilder();
 
         console.append("=== Pending Tickets: URGENT ===\n");
-        Node<Ticket> current = tickets.head;
-        while (current != null) {
-            Ticket t = current.value;
-            if (t.getState() == TicketState.URGENTE) {
-                console.append(formatLine(t)).append("\n");
-            }
-            current = current.next;
+        for (Ticket t : queued) {
+            if (t.getState() == TicketState.URGENTE) console.append(formatLine(t)).append("\n");
         }
 
         console.append("\n=== Pending Tickets: NORMAL ===\n");
-        current = tickets.head;
-        while (current != null) {
-            Ticket t = current.value;
-            if (t.getState() == TicketState.EN_COLA) {
-                console.append(formatLine(t)).append("\n");
-            }
-            current = current.next;
+        for (Ticket t : queued) {
+            if (t.getState() == TicketState.EN_COLA) console.append(formatLine(t)).append("\n");
         }
 
         // always print to console
@@ -49,13 +48,10 @@ public class ReportManager {
         if (exportCsv) {
             StringBuilder csv = new StringBuilder();
             csv.append("ID;Student;Procedure;State;Notes\n");
-            current = tickets.head;
-            while (current != null) {
-                Ticket t = current.value;
+            for (Ticket t : queued) {
                 if (t.getState() == TicketState.URGENTE || t.getState() == TicketState.EN_COLA) {
                     csv.append(formatCsvLine(t)).append("\n");
                 }
-                current = current.next;
             }
             boolean ok = FileUtils.writeFile(csvPath != null ? csvPath : "pending_by_type.csv", csv.toString());
             System.out.println(ok ? "CSV exported: " + (csvPath != null ? csvPath : "pending_by_type.csv")
@@ -66,33 +62,30 @@ public class ReportManager {
     /**
      * Muestra los tickets completados y opcionalmente exporta CSV.
      */
-    public void showCompleted(SimpleList<Ticket> tickets, boolean exportCsv, String csvPath) {
+    public void showCompleted(TicketIndex index, boolean exportCsv, String csvPath) {
+        showCompleted(index, null, exportCsv, csvPath);
+    }
+
+    /**
+     * Igual que showCompleted(index, ...) pero incluye primero los tickets archivados (archive puede ser null).
+     */
+    public void showCompleted(TicketIndex index, TicketArchive archive, boolean exportCsv, String csvPath) {
         csvPath = "data/"+csvPath+".csv";
+        List<Ticket> completed = new ArrayList<>();
+        if (archive != null) {
+            for (Ticket t : archive) if (t.getState() == TicketState.COMPLETADO) completed.add(t);
+        }
+        completed.addAll(new TicketQuery().states(TicketState.COMPLETADO).list(index));
         StringBuilder console = new StringBuilder();
         console.append("=== Completed Tickets ===\n");
-
-        Node<Ticket> current = tickets.head;
-        while (current != null) {
-            Ticket t = current.value;
-            if (t.getState() == TicketState.COMPLETADO) {
-                console.append(formatLine(t)).append("\n");
-            }
-            current = current.next;
-        }
+        for (Ticket t : completed) console.append(formatLine(t)).append("\n");
 
         System.out.println(console.toString());
 
         if (exportCsv) {
             StringBuilder csv = new StringBuilder();
             csv.append("ID;Student;Procedure;FinalState;Notes\n");
-            current = tickets.head;
-            while (current != null) {
-                Ticket t = current.value;
-                if (t.getState() == TicketState.COMPLETADO) {
-                    csv.append(formatCsvLine(t)).append("\n");
-                }
-                current = current.next;
-            }
+            for (Ticket t : completed) csv.append(formatCsvLine(t)).append("\n");
             boolean ok = FileUtils.writeFile(csvPath != null ? csvPath : "completed_tickets.csv", csv.toString());
             System.out.println(ok ? "CSV exported: " + (csvPath != null ? csvPath : "completed_tickets.csv")
                     : "CSV export failed.");
@@ -100,44 +93,26 @@ public class ReportManager {
     }
 
     /**
-     * Muestra los Top-K tickets por número de notas y opcionalmente exporta CSV.
+     * Muestra los Top-K tickets de las colas (en cualquier estado: en cola, urgentes, esperando
+     * documentos o en atención) por número de notas y opcionalmente exporta CSV. La consulta mantiene solo k candidatos
+     * en un montículo en lugar de ordenar todos los tickets.
      */
-    public void showTopKByNotes(SimpleList<Ticket> tickets, int k, boolean exportCsv, String csvPath) {
+    public void showTopKByNotes(TicketIndex index, int k, boolean exportCsv, String csvPath) {
         csvPath = "data/"+csvPath+".csv";
-        int n = tickets.size();
-        if (n == 0) {
+        List<Ticket> top = new TicketQuery()
+                .states(TicketState.URGENTE, TicketState.EN_COLA, TicketState.PENDIENTE_DOCS, TicketState.EN_ATENCION)
+                .orderBy(TicketQuery.SortField.NOTES, true)
+                .limit(k)
+                .list(index);
+        if (top.isEmpty()) {
             System.out.println("No tickets available.");
             return;
         }
 
-        // llenar arreglo temporal con tickets
-        Ticket[] arr = new Ticket[n];
-        Node<Ticket> current = tickets.head;
-        int idx = 0;
-        while (current != null && idx < n) {
-            arr[idx++] = current.value;
-            current = current.next;
-        }
-
-        // ordenar por selection sort (mayor a menor)
-        for (int i = 0; i < n - 1; i++) {
-            int maxIdx = i;
-            for (int j = i + 1; j < n; j++) {
-                if (arr[j].getNoteHistory().size() > arr[maxIdx].getNoteHistory().size()) {
-                    maxIdx = j;
-                }
-            }
-            Ticket tmp = arr[i];
-            arr[i] = arr[maxIdx];
-            arr[maxIdx] = tmp;
-        }
-
-        if (k > n) k = n;
-
         StringBuilder console = new StringBuilder();
-        console.append("=== Top ").append(k).append(" Tickets by Notes ===\n");
-        for (int i = 0; i < k; i++) {
-            Ticket t = arr[i];
+        console.append("=== Top ").append(top.size()).append(" Tickets by Notes ===\n");
+        for (int i = 0; i < top.size(); i++) {
+            Ticket t = top.get(i);
             console.append((i + 1)).append(". ").append(t.getStudent())
                     .append(" (ID:").append(t.getId()).append(") - ")
                     .append(t.getNoteHistory().size()).append(" notes\n");
@@ -148,9 +123,8 @@ public class ReportManager {
         if (exportCsv) {
             StringBuilder csv = new StringBuilder();
             csv.append("Rank;ID;Student;Procedure;Notes\n");
-            for (int i = 0; i < k; i++) {
-                Ticket t = arr[i];
-                csv.append((i + 1)).append(";").append(formatCsvLine(t)).append("\n");
+            for (int i = 0; i < top.size(); i++) {
+                csv.append((i + 1)).append(";").append(formatCsvLine(top.get(i))).append("\n");
             }
             boolean ok = FileUtils.writeFile(csvPath != null ? csvPath : "topk_by_notes.csv", csv.toString());
             System.out.println(ok ? "CSV exported: " + (csvPath != null ? csvPath : "topk_by_notes.csv")
@@ -158,8 +132,63 @@ public class ReportManager {
         }
     }
 
+    /**
+     * Muestra una tabla de conteos tipo x estado (más "con notas") calculada con los bitmaps
+     * del índice, sin recorrer los tickets. Opcionalmente exporta CSV.
+     */
+    public void showCountsByStateAndType(TicketIndex index, boolean exportCsv, String csvPath) {
+        showCountsByStateAndType(index, null, exportCsv, csvPath);
+    }
+
+    /**
+     * Igual que la anterior, sumando los tickets archivados (archive puede ser null).
+     */
+    public void showCountsByStateAndType(TicketIndex index, TicketArchive archive, boolean exportCsv, String csvPath) {
+        csvPath = "data/"+csvPath+".csv";
+        TicketState[] states = TicketState.values();
+        StringBuilder console = new StringBuilder();
+        StringBuilder csv = new StringBuilder("Procedure");
+        console.append("=== Tickets by Procedure and State ===\n");
+        console.append(String.format("%-18s", "Procedure"));
+        for (TicketState s : states) {
+            console.append(String.format("%15s", s));
+            csv.append(";").append(s);
+        }
+        console.append(String.format("%12s%n", "WITH_NOTES"));
+        csv.append(";WITH_NOTES\n");
+
+        for (ProcedureType type : ProcedureType.values()) {
+            console.append(String.format("%-18s", type));
+            csv.append(type);
+            for (TicketState s : states) {
+                long n = index.count(s, type, null) + archived(archive, s, type, null);
+                console.append(String.format("%15d", n));
+                csv.append(";").append(n);
+            }
+            long withNotes = index.count(null, type, true) + archived(archive, null, type, true);
+            console.append(String.format("%12d%n", withNotes));
+            csv.append(";").append(withNotes).append("\n");
+        }
+        console.append(String.format("%-18s", "TOTAL"));
+        for (TicketState s : states) {
+            console.append(String.format("%15d", index.count(s, null, null) + archived(archive, s, null, null)));
+        }
+        console.append(String.format("%12d%n", index.count(null, null, true) + archived(archive, null, null, true)));
+
+        System.out.println(console.toString());
+
+        if (exportCsv) {
+            boolean ok = FileUtils.writeFile(csvPath, csv.toString());
+            System.out.println(ok ? "CSV exported: " + csvPath : "CSV export failed.");
+        }
+    }
+
     // --- helpers ---
 
+    private long archived(TicketArchive archive, TicketState state, ProcedureType type, Boolean hasNotes) {
+        return archive == null ? 0 : archive.count(state, type, hasNotes);
+    }
+
     private String formatLine(Ticket t) {
         return "ID:" + t.getId() + " | " + t.getStudent()
                 + " | " + t.getProcedureType() + " | " + t.getState()
@@ -0,0 +1,49 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asignador de ids de tickets por bloques: una importación masiva reserva de una vez los ids
+ * de todo un lote (ids consecutivos, en el orden del archivo) en lugar de calcular uno por fila.
+ * Thread-safe.
+ * @author Wilson Palma
+ */
+public final class IdAllocator {
+
+    private final AtomicInteger next;
+
+    public IdAllocator() {
+        this(1);
+    }
+
+    public IdAllocator(int first) {
+        this.next = new AtomicInteger(first);
+    }
+
+    // Un solo id
+    public int next() {
+        return allocate(1);
+    }
+
+    /**
+     * Reserva n ids consecutivos.
+     *
+     * @return el primero del bloque
+     */
+    public int allocate(int n) {
+        if (n < 0) throw new IllegalArgumentException("n no puede ser negativo");
+        int first = next.getAndAdd(n);
+        if (first < 0 || first + n < first) throw new IllegalStateException("Se agotaron los ids");
+        return first;
+    }
+
+    // Asegura que el próximo id sea mayor que id (ids ya usados por otra vía)
+    public void ensureAbove(int id) {
+        next.accumulateAndGet(id + 1, Math::max);
+    }
+
+    // Próximo id a entregar, sin reservarlo
+    public int peek() {
+        return next.get();
+    }
+}
@@ -0,0 +1,66 @@
+package util;
+
+import domine.ProcedureType;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Estimación del tiempo de atención por tipo de trámite con promedio móvil exponencial (EWMA):
+ * estimación = alpha * última_medición + (1 - alpha) * estimación_anterior.
+ * Hasta recibir mediciones se usa un valor inicial configurable.
+ * Thread-safe.
+ * @author Wilson Palma
+ */
+public final class ServiceTimeEstimator {
+
+    public static final double DEFAULT_ALPHA = 0.2;
+    public static final Duration DEFAULT_INITIAL = Duration.ofMinutes(5);
+
+    private final double alpha;
+    private final Map<ProcedureType, Double> estimatesMillis = new EnumMap<>(ProcedureType.class);
+    private final Map<ProcedureType, Long> samples = new EnumMap<>(ProcedureType.class);
+
+    public ServiceTimeEstimator() {
+        this(DEFAULT_ALPHA, DEFAULT_INITIAL);
+    }
+
+    /**
+     * @param alpha   peso de la última medición (0 < alpha <= 1)
+     * @param initial estimación inicial para todos los tipos
+     */
+    public ServiceTimeEstimator(double alpha, Duration initial) {
+        if (!(alpha > 0 && alpha <= 1)) throw new IllegalArgumentException("alpha debe estar en (0, 1]");
+        this.alpha = alpha;
+        for (ProcedureType type : ProcedureType.values()) {
+            estimatesMillis.put(type, (double) initial.toMillis());
+            samples.put(type, 0L);
+        }
+    }
+
+    // Registra la duración de una atención terminada
+    public synchronized void record(ProcedureType type, Duration serviceTime) {
+        if (serviceTime.isNegative()) return;
+        double prev = estimatesMillis.get(type);
+        estimatesMillis.put(type, alpha * serviceTime.toMillis() + (1 - alpha) * prev);
+        samples.merge(type, 1L, Long::sum);
+    }
+
+    // Fija la estimación de un tipo (por ejemplo, con datos históricos)
+    public synchronized void setEstimate(ProcedureType type, Duration estimate) {
+        estimatesMillis.put(type, (double) estimate.toMillis());
+    }
+
+    public synchronized Duration estimate(ProcedureType type) {
+        return Duration.ofMillis(Math.round(estimatesMillis.get(type)));
+    }
+
+    public synchronized double estimateMillis(ProcedureType type) {
+        return estimatesMillis.get(type);
+    }
+
+    public synchronized long sampleCount(ProcedureType type) {
+        return samples.get(type);
+    }
+}
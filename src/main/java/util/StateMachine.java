@@ -63,11 +63,13 @@ public final class StateMachine {
         addTransition(TicketState.EN_ATENCION, TicketState.PENDIENTE_DOCS,
                 "Solicitar documentos durante la atención");
 
-        // PENDIENTE_DOCS -> EN_COLA, EN_ATENCION
+        // PENDIENTE_DOCS -> EN_COLA, EN_ATENCION, URGENTE
         addTransition(TicketState.PENDIENTE_DOCS, TicketState.EN_COLA,
                 "Volver a la cola una vez completados los documentos");
         addTransition(TicketState.PENDIENTE_DOCS, TicketState.EN_ATENCION,
                 "Reanudar atención tras recibir documentos");
+        addTransition(TicketState.PENDIENTE_DOCS, TicketState.URGENTE,
+                "Escalar a urgente cuando vence el plazo de documentos");
 
         // COMPLETADO -> (no transiciones)
         // se deja explícitamente vacío
@@ -0,0 +1,44 @@
+package util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de texto para búsquedas: minúsculas, sin tildes ni diéresis
+ * ("José Ñúñez" y "jose  nunez" dan la misma clave) y espacios colapsados.
+ * tokenize() parte el texto normalizado en palabras y descarta las palabras vacías del español.
+ * @author Wilson Palma
+ */
+public final class TextNormalizer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9]+");
+    private static final Set<String> STOPWORDS = new HashSet<>(Arrays.asList(
+            "a", "al", "con", "de", "del", "el", "en", "es", "la", "las", "lo", "los",
+            "o", "para", "por", "que", "se", "su", "un", "una", "y"));
+
+    private TextNormalizer() {}
+
+    // Clave de búsqueda de un texto; null se trata como vacío
+    public static String normalize(String text) {
+        if (text == null) return "";
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Palabras normalizadas del texto, en orden y con repeticiones, sin palabras vacías
+    public static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>();
+        for (String token : NON_WORD.split(normalize(text))) {
+            if (!token.isEmpty() && !STOPWORDS.contains(token)) out.add(token);
+        }
+        return out;
+    }
+}
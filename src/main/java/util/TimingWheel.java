@@ -0,0 +1,233 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Rueda de temporizadores jerárquica (hashed hierarchical timing wheel) movida por SystemClock.
+ *
+ * - 4 niveles de 64 ranuras: el nivel 0 cubre 64 ticks, el 1 cubre 64^2, etc. (2^24 ticks en total;
+ *   con tick de 1 s son ~194 días). Lo que queda más lejos espera en una lista de desborde.
+ * - schedule() y cancel() son O(1): cada ranura es una lista doblemente enlazada.
+ * - advance() avanza tick a tick hasta la hora actual del reloj; cuando un nivel da la vuelta,
+ *   las entradas del nivel superior bajan (cascada) a su ranura definitiva.
+ * Como el tiempo viene de SystemClock, se puede probar con setFixed()/setOffset().
+ * Las tareas vencidas se ejecutan fuera del lock, en el hilo que llama a advance().
+ * @author Wilson Palma
+ */
+public final class TimingWheel {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_SPAN = 1L << (BITS * LEVELS);
+
+    private final SystemClock clock;
+    private final long tickMillis;
+    private final Timeout[][] wheels = new Timeout[LEVELS][SLOTS];   // cabeza de cada ranura
+    private Timeout overflow;                                          // más allá de MAX_SPAN
+    private long currentTick;
+    private int size;
+    private final Object lock = new Object();
+
+    /**
+     * @param clock      reloj del sistema (no null)
+     * @param tickMillis resolución de la rueda en milisegundos (> 0)
+     */
+    public TimingWheel(SystemClock clock, long tickMillis) {
+        this.clock = Objects.requireNonNull(clock, "clock no puede ser null");
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis debe ser positivo");
+        this.tickMillis = tickMillis;
+        this.currentTick = clock.getClock().millis() / tickMillis;
+    }
+
+    /**
+     * Programa una tarea para dentro de delayMillis (redondeado hacia arriba al siguiente tick).
+     *
+     * @return handle para cancelar la tarea
+     */
+    public Timeout schedule(long delayMillis, Runnable task) {
+        Objects.requireNonNull(task, "task no puede ser null");
+        long deadline = clock.getClock().millis() + Math.max(0, delayMillis);
+        Timeout t = new Timeout(this, (deadline + tickMillis - 1) / tickMillis, task);
+        synchronized (lock) {
+            place(t, false);
+            size++;
+        }
+        return t;
+    }
+
+    /**
+     * Avanza la rueda hasta la hora actual y ejecuta las tareas vencidas.
+     *
+     * @return cantidad de tareas ejecutadas
+     */
+    public int advance() {
+        List<Timeout> expired = new ArrayList<>();
+        synchronized (lock) {
+            long target = clock.getClock().millis() / tickMillis;
+            if (size == 0) {
+                if (target > currentTick) currentTick = target;
+                return 0;
+            }
+            while (currentTick < target) {
+                long tick = ++currentTick;
+                cascadeIfWrapped(tick);
+                Timeout t = wheels[0][(int) (tick & MASK)];
+                wheels[0][(int) (tick & MASK)] = null;
+                while (t != null) {
+                    Timeout next = t.next;
+                    t.prev = t.next = null;
+                    t.slotLevel = -1;
+                    if (t.deadlineTick <= tick) {
+                        expired.add(t);
+                        size--;
+                    } else {
+                        place(t, false);   // no debería ocurrir; se reubica por seguridad
+                    }
+                    t = next;
+                }
+                if (size == 0) {
+                    currentTick = target;
+                    break;
+                }
+            }
+        }
+        for (Timeout t : expired) {
+            t.expired = true;
+            t.task.run();
+        }
+        return expired.size();
+    }
+
+    /** Cantidad de temporizadores pendientes. */
+    public int size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    // ------------------ Internos (con lock tomado) ------------------
+
+    // cascading: true si se llama durante el tick actual, antes de procesar su ranura del nivel 0
+    private void place(Timeout t, boolean cascading) {
+        long delta = t.deadlineTick - currentTick;
+        if (delta <= 0) {
+            // vencido: a la ranura que se procesa a continuación
+            link(t, 0, (int) ((cascading ? currentTick : currentTick + 1) & MASK));
+            return;
+        }
+        if (delta >= MAX_SPAN) {
+            t.slotLevel = LEVELS; // desborde
+            t.next = overflow;
+            if (overflow != null) overflow.prev = t;
+            overflow = t;
+            return;
+        }
+        int level = 0;
+        while (delta >= (1L << (BITS * (level + 1)))) level++;
+        link(t, level, (int) ((t.deadlineTick >>> (BITS * level)) & MASK));
+    }
+
+    private void link(Timeout t, int level, int slot) {
+        t.slotLevel = level;
+        t.slot = slot;
+        Timeout head = wheels[level][slot];
+        t.prev = null;
+        t.next = head;
+        if (head != null) head.prev = t;
+        wheels[level][slot] = t;
+    }
+
+    private void unlink(Timeout t) {
+        if (t.prev != null) {
+            t.prev.next = t.next;
+        } else if (t.slotLevel == LEVELS) {
+            overflow = t.next;
+        } else {
+            wheels[t.slotLevel][t.slot] = t.next;
+        }
+        if (t.next != null) t.next.prev = t.prev;
+        t.prev = t.next = null;
+        t.slotLevel = -1;
+    }
+
+    // Al completar una vuelta de un nivel, bajar las entradas de la ranura correspondiente del nivel superior
+    private void cascadeIfWrapped(long tick) {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((tick & ((1L << (BITS * level)) - 1)) != 0) return;
+            int slot = (int) ((tick >>> (BITS * level)) & MASK);
+            Timeout t = wheels[level][slot];
+            wheels[level][slot] = null;
+            while (t != null) {
+                Timeout next = t.next;
+                place(t, true);
+                t = next;
+            }
+        }
+        if ((tick & (MAX_SPAN - 1)) == 0) {
+            Timeout t = overflow;
+            overflow = null;
+            while (t != null) {
+                Timeout next = t.next;
+                place(t, true);
+                t = next;
+            }
+        }
+    }
+
+    /**
+     * Handle de una tarea programada.
+     */
+    public static final class Timeout {
+        private final TimingWheel wheel;
+        private final long deadlineTick;
+        private final Runnable task;
+        private Timeout prev;
+        private Timeout next;
+        private int slotLevel = -1;
+        private int slot;
+        private volatile boolean expired;
+        private volatile boolean cancelled;
+
+        private Timeout(TimingWheel wheel, long deadlineTick, Runnable task) {
+            this.wheel = wheel;
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        /**
+         * Cancela la tarea en O(1).
+         *
+         * @return true si estaba pendiente y fue cancelada
+         */
+        public boolean cancel() {
+            synchronized (wheel.lock) {
+                if (slotLevel < 0) return false;
+                wheel.unlink(this);
+                wheel.size--;
+                cancelled = true;
+                return true;
+            }
+        }
+
+        /** Instante de vencimiento (epoch millis, redondeado al tick). */
+        public long getDeadlineMillis() {
+            return deadlineTick * wheel.tickMillis;
+        }
+
+        public boolean isExpired() {
+            return expired;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
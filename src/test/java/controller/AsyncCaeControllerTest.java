@@ -0,0 +1,195 @@
+package controller;
+
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+import estructures.AttentionQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.PersistenceManager;
+import reports.ReportManager;
+import util.StateMachine;
+import util.SystemClock;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncCaeControllerTest {
+
+    @TempDir
+    Path dataDir;
+
+    private ExecutorService executor;
+    private AsyncCaeController async;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        CaeController controller = new CaeController(new AttentionQueue(), new ActionStack(),
+                new PersistenceManager(dataDir.toString()), new ReportManager(),
+                new StateMachine(), new SystemClock(), CLIHelper.silent());
+        async = new AsyncCaeController(controller, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Operaciones encadenadas: crear, atender, nota y cerrar")
+    void pipelinedOperations() {
+        Ticket closed = async.createTicket("Ana", ProcedureType.MATRICULA, false)
+                .thenCompose(t -> async.attendNext())
+                .thenCompose(t -> async.addNote(t.getId(), "falta cédula").thenApply(n -> t))
+                .thenCompose(t -> async.finalizeTicket(t.getId()).thenApply(v -> t))
+                .join();
+
+        assertEquals(TicketState.COMPLETADO, closed.getState());
+        assertEquals(1, closed.getNoteHistory().size());
+        assertTrue(async.listPending().join().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Errores estructurados en lugar de mensajes por consola")
+    void structuredErrors() {
+        CompletionException notFound = assertThrows(CompletionException.class,
+                () -> async.addNote(99, "x").join());
+        assertEquals(CaeOperationException.ErrorCode.NOT_FOUND,
+                ((CaeOperationException) notFound.getCause()).getCode());
+
+        CompletionException invalid = assertThrows(CompletionException.class,
+                () -> async.createTicket(" ", ProcedureType.OTRO, false).join());
+        assertEquals(CaeOperationException.ErrorCode.INVALID_ARGUMENT,
+                ((CaeOperationException) invalid.getCause()).getCode());
+
+        Ticket t = async.createTicket("Luis", ProcedureType.OTRO, false).join();
+        CompletionException conflict = assertThrows(CompletionException.class,
+                () -> async.changeState(t.getId(), TicketState.COMPLETADO).join());
+        assertEquals(CaeOperationException.ErrorCode.CONFLICT,
+                ((CaeOperationException) conflict.getCause()).getCode());
+    }
+
+    @Test
+    @DisplayName("Escribir en un ticket archivado es CONFLICT con mensaje claro, no un error interno")
+    void archivedTicketRejectsWrites() {
+        Ticket t = async.createTicket("Ana", ProcedureType.OTRO, false).join();
+        async.attendNext().join();
+        async.finalizeTicket(t.getId()).join();
+        async.getController().getAttentionQueue().archiveHistory(0);
+        assertTrue(async.getController().findTicketById(t.getId()).isReadOnly());
+
+        CompletionException note = assertThrows(CompletionException.class,
+                () -> async.addNote(t.getId(), "tarde").join());
+        CaeOperationException err = (CaeOperationException) note.getCause();
+        assertEquals(CaeOperationException.ErrorCode.CONFLICT, err.getCode());
+        assertTrue(err.getMessage().contains("archivado"), err.getMessage());
+
+        CompletionException state = assertThrows(CompletionException.class,
+                () -> async.changeState(t.getId(), TicketState.EN_COLA).join());
+        assertEquals(CaeOperationException.ErrorCode.CONFLICT,
+                ((CaeOperationException) state.getCause()).getCode());
+    }
+
+    @Test
+    @DisplayName("undo/redo sin acciones fallan con NOT_FOUND en lugar de completarse")
+    void undoRedoFailuresCompleteExceptionally() {
+        CompletionException nothing = assertThrows(CompletionException.class, () -> async.undo().join());
+        assertEquals(CaeOperationException.ErrorCode.NOT_FOUND,
+                ((CaeOperationException) nothing.getCause()).getCode());
+        assertThrows(CompletionException.class, () -> async.redo().join());
+
+        Ticket t = async.createTicket("Ana", ProcedureType.OTRO, false).join();
+        async.undo().join();
+        assertNull(async.getController().findTicketById(t.getId()));
+        async.redo().join();
+        assertNotNull(async.getController().findTicketById(t.getId()));
+    }
+
+    @Test
+    @DisplayName("Las operaciones encoladas corren de a una y en orden, sin ocupar un hilo cada una")
+    void operationsRunSeriallyInOrder() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        AtomicInteger tasks = new AtomicInteger();
+        CaeController controller = new CaeController(new AttentionQueue(), new ActionStack(),
+                new PersistenceManager(dataDir.toString()), new ReportManager(),
+                new StateMachine(), new SystemClock(), CLIHelper.silent()) {
+            @Override
+            public Ticket createTicket(String student, ProcedureType type, boolean urgentFlag) {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    return super.createTicket(student, type, urgentFlag);
+                } finally {
+                    active.decrementAndGet();
+                }
+            }
+        };
+        AtomicInteger waiting = new AtomicInteger();
+        AtomicInteger maxWaiting = new AtomicInteger();
+        Executor counting = r -> {
+            tasks.incrementAndGet();
+            maxWaiting.accumulateAndGet(waiting.incrementAndGet(), Math::max);
+            executor.execute(() -> {
+                waiting.decrementAndGet();
+                r.run();
+            });
+        };
+        AsyncCaeController serial = new AsyncCaeController(controller, counting);
+
+        List<CompletableFuture<Ticket>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) futures.add(serial.createTicket("E" + i, ProcedureType.OTRO, false));
+        for (int i = 0; i < futures.size(); i++) assertEquals(i + 1, futures.get(i).join().getId());
+        assertEquals(1, maxActive.get());
+        assertEquals(50, tasks.get());
+        assertEquals(1, maxWaiting.get(), "nunca hay tareas esperando turno en el executor");
+    }
+
+    @Test
+    @DisplayName("Con un executor que corre en el llamador, muchas tareas encoladas no desbordan la pila")
+    void callerRunsExecutorDoesNotRecurse() {
+        List<Runnable> deferred = new ArrayList<>();
+        Executor callerRuns = r -> {
+            if (deferred.isEmpty()) deferred.add(r); // la primera espera; las demás corren en el llamador
+            else r.run();
+        };
+        AsyncCaeController inline = new AsyncCaeController(async.getController(), callerRuns);
+        List<CompletableFuture<List<Ticket>>> futures = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) futures.add(inline.listPending());
+
+        deferred.get(0).run();
+
+        assertTrue(futures.get(futures.size() - 1).isDone());
+        assertFalse(futures.get(futures.size() - 1).isCompletedExceptionally());
+    }
+
+    @Test
+    @DisplayName("Un Error en la operación completa el future como INTERNAL y la cola sigue")
+    void errorCompletesFutureExceptionally() {
+        CaeController controller = new CaeController(new AttentionQueue(), new ActionStack(),
+                new PersistenceManager(dataDir.toString()), new ReportManager(),
+                new StateMachine(), new SystemClock(), CLIHelper.silent()) {
+            @Override
+            public List<Ticket> listPending() {
+                throw new AssertionError("falla grave");
+            }
+        };
+        AsyncCaeController failing = new AsyncCaeController(controller, executor);
+
+        CompletionException ex = assertThrows(CompletionException.class, () -> failing.listPending().join());
+        assertEquals(CaeOperationException.ErrorCode.INTERNAL, ((CaeOperationException) ex.getCause()).getCode());
+        assertEquals(1, failing.createTicket("Ana", ProcedureType.OTRO, false).join().getId());
+    }
+}
@@ -2,11 +2,38 @@ package controller;
 
 import domine.ProcedureType;
 import domine.Ticket;
+import domine.StudentDictionary;
 import domine.TicketState;
+import estructures.AgingPolicy;
 import estructures.AttentionQueue;
+import estructures.DiskArchive;
+import estructures.Node;
+import estructures.Page;
+import estructures.Queue;
+import estructures.RatioPolicy;
+import estructures.StrictPriorityPolicy;
+import estructures.WeightedFairPolicy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.PersistenceManager;
+import reports.ReportManager;
+import util.StateMachine;
+import util.SystemClock;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class AtentionQueueTest {
@@ -59,4 +86,332 @@ class AtentionQueueTest {
         assertEquals(normalTicket, next);
         assertEquals("Estudiante Normal", next.getStudent());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Envejecimiento: un normal que esperó más que la bonificación pasa antes que un urgente")
+    void agingPolicyPreventsStarvation() {
+        SystemClock clock = new SystemClock();
+        Instant t0 = Instant.parse("2025-03-01T08:00:00Z");
+        clock.setFixed(t0, ZoneOffset.UTC);
+        AttentionQueue queue = new AttentionQueue(new AgingPolicy(Duration.ofMinutes(30)), clock);
+
+        queue.addTicket(normalTicket);                       // llega a las 08:00
+        clock.setFixed(t0.plus(Duration.ofMinutes(10)), ZoneOffset.UTC);
+        queue.addTicket(urgentTicket);                       // urgente a las 08:10 (vale 07:40)
+        assertEquals(urgentTicket, queue.nextTicket());
+
+        queue.getUrgentQueue().remove(urgentTicket);
+        clock.setFixed(t0.plus(Duration.ofMinutes(45)), ZoneOffset.UTC);
+        Ticket lateUrgent = new Ticket("Urgente tardío", ProcedureType.OTRO);
+        lateUrgent.setState(TicketState.URGENTE);
+        queue.addTicket(lateUrgent);                         // 08:45 (vale 08:15) > 08:00
+        assertEquals(normalTicket, queue.nextTicket());
+    }
+
+    @Test
+    @DisplayName("Proporción 2:1: después de dos urgentes se atiende un normal")
+    void ratioPolicyServesNormalEveryN() {
+        AttentionQueue queue = new AttentionQueue();
+        queue.setPolicy(new RatioPolicy(2));
+        queue.addTicket(normalTicket);
+        for (int i = 0; i < 3; i++) {
+            Ticket u = new Ticket("U" + i, ProcedureType.OTRO);
+            u.setState(TicketState.URGENTE);
+            queue.addTicket(u);
+        }
+
+        StringBuilder order = new StringBuilder();
+        while (queue.getTotalWaiting() > 0) {
+            Ticket next = queue.nextTicket();
+            assertSame(next, queue.nextTicket(), "consultar de nuevo no gasta la cuota");
+            order.append(next.getStudent().charAt(0));
+            queue.markServed(next);
+            if (next.getState() == TicketState.URGENTE) queue.getUrgentQueue().remove(next);
+            else queue.getNormalQueue().remove(next);
+        }
+        assertEquals("UUEU", order.toString());
+    }
+
+    @Test
+    @DisplayName("Cola justa ponderada: CERTIFICADO no queda enterrado bajo MATRICULA")
+    void weightedFairPolicyInterleavesLanes() {
+        WeightedFairPolicy policy = new WeightedFairPolicy();
+        policy.setWeight(ProcedureType.MATRICULA, false, 2);
+        AttentionQueue queue = new AttentionQueue(policy, new SystemClock());
+        for (int i = 0; i < 6; i++) queue.addTicket(new Ticket("M" + i, ProcedureType.MATRICULA));
+        for (int i = 0; i < 2; i++) queue.addTicket(new Ticket("C" + i, ProcedureType.CERTIFICADO));
+
+        StringBuilder order = new StringBuilder();
+        while (queue.getTotalWaiting() > 0) {
+            Ticket next = queue.nextTicket();
+            assertSame(next, queue.nextTicket(), "consultar de nuevo no consume créditos");
+            order.append(next.getStudent().charAt(0));
+            queue.markServed(next);
+            queue.getNormalQueue().remove(next);
+        }
+        assertEquals("MMCMMCMM", order.toString());
+
+        WeightedFairPolicy.LaneStats matricula = policy.getLaneStats().get(ProcedureType.MATRICULA.ordinal() * 2);
+        assertEquals(6, matricula.getServed());
+        assertEquals(0, matricula.getWaiting());
+        assertEquals(0.75, matricula.getThroughputShare(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Cola justa ponderada: las métricas cuentan atenciones, no consultas")
+    void weightedFairPolicyCountsServiceNotSelection() {
+        WeightedFairPolicy policy = new WeightedFairPolicy();
+        AttentionQueue queue = new AttentionQueue(policy, new SystemClock());
+        Ticket lone = new Ticket("Ana", ProcedureType.OTRO);
+        queue.addTicket(lone);
+        lone.setState(TicketState.PENDIENTE_DOCS);
+
+        for (int i = 0; i < 3; i++) assertSame(lone, queue.nextTicket());
+        WeightedFairPolicy.LaneStats otro = policy.getLaneStats().get(ProcedureType.OTRO.ordinal() * 2);
+        assertEquals(0, otro.getServed());
+
+        queue.markServed(lone);
+        queue.getNormalQueue().remove(lone);
+        otro = policy.getLaneStats().get(ProcedureType.OTRO.ordinal() * 2);
+        assertEquals(1, otro.getServed());
+        assertEquals(0, otro.getWaiting());
+    }
+
+    @Test
+    @DisplayName("Cola justa ponderada: consultar no rota carriles y PENDIENTE_DOCS se salta sin moverlo")
+    void weightedFairSelectDoesNotMutateLanes() {
+        WeightedFairPolicy policy = new WeightedFairPolicy();
+        AttentionQueue queue = new AttentionQueue(policy, new SystemClock());
+        Ticket docs = new Ticket("D", ProcedureType.MATRICULA);
+        Ticket m = new Ticket("M", ProcedureType.MATRICULA);
+        Ticket c = new Ticket("C", ProcedureType.CERTIFICADO);
+        queue.addTicket(docs);
+        queue.addTicket(m);
+        queue.addTicket(c);
+        docs.setState(TicketState.PENDIENTE_DOCS);
+
+        for (int i = 0; i < 5; i++) assertSame(m, queue.nextTicket());
+        queue.markServed(m);
+        queue.getNormalQueue().remove(m);
+        assertSame(c, queue.nextTicket(), "el crédito de MATRICULA se consumió al atender, no al consultar");
+
+        docs.setState(TicketState.EN_COLA);
+        queue.markServed(c);
+        queue.getNormalQueue().remove(c);
+        assertSame(docs, queue.nextTicket(), "sigue al frente de su carril");
+    }
+
+    @Test
+    @DisplayName("Posición y espera estimada entre colas urgente y normal")
+    void queuePositionAndEstimatedWait() {
+        attentionQueue.getServiceTimes().setEstimate(ProcedureType.MATRICULA, Duration.ofMinutes(10));
+        attentionQueue.getServiceTimes().setEstimate(ProcedureType.OTRO, Duration.ofMinutes(4));
+        Ticket[] normals = new Ticket[40];
+        for (int i = 0; i < normals.length; i++) {
+            normals[i] = new Ticket("N" + i, ProcedureType.MATRICULA);
+            normals[i].setId(100 + i);
+            attentionQueue.addTicket(normals[i]);
+        }
+        urgentTicket.setId(1);
+        attentionQueue.addTicket(urgentTicket);
+
+        assertEquals(1, attentionQueue.getQueuePosition(1).getPosition());
+        assertEquals(Duration.ZERO, attentionQueue.getQueuePosition(1).getEstimatedWait());
+        // N2: el urgente + N0 + N1 delante -> 4 + 10 + 10 minutos
+        assertEquals(4, attentionQueue.getQueuePosition(102).getPosition());
+        assertEquals(Duration.ofMinutes(24), attentionQueue.getQueuePosition(102).getEstimatedWait());
+
+        attentionQueue.getNormalQueue().remove(normals[0]);
+        attentionQueue.getNormalQueue().dequeue(); // sale N1
+        assertEquals(2, attentionQueue.getQueuePosition(102).getPosition());
+        assertEquals(39, attentionQueue.getQueuePosition(139).getPosition());
+        assertNull(attentionQueue.getQueuePosition(100));
+
+        attentionQueue.setServiceDesks(2);
+        assertEquals(Duration.ofMinutes(2), attentionQueue.getQueuePosition(102).getEstimatedWait());
+
+        // La estimación EWMA se mueve hacia las atenciones medidas
+        attentionQueue.getServiceTimes().record(ProcedureType.OTRO, Duration.ofMinutes(14));
+        assertEquals(Duration.ofMinutes(6), attentionQueue.getServiceTimes().estimate(ProcedureType.OTRO));
+    }
+
+    @Test
+    @DisplayName("Re-insertar al frente con setFront mantiene las posiciones")
+    void setFrontReinsertKeepsPositions() {
+        Ticket[] normals = new Ticket[5];
+        for (int i = 0; i < normals.length; i++) {
+            normals[i] = new Ticket("N" + i, ProcedureType.MATRICULA);
+            normals[i].setId(10 + i);
+            attentionQueue.addTicket(normals[i]);
+        }
+        Queue<Ticket> normal = attentionQueue.getNormalQueue();
+        Ticket first = normal.dequeue();
+        Node<Ticket> node = new Node<>(first);
+        node.next = normal.getFront();
+        normal.setFront(node);
+
+        for (int i = 0; i < normals.length; i++) {
+            assertEquals(i + 1, attentionQueue.getQueuePosition(10 + i).getPosition());
+        }
+        assertEquals(5, normal.size());
+    }
+
+    @Test
+    @DisplayName("Paginación con cursor: estable ante altas y bajas entre páginas")
+    void cursorPagingIsStable() {
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            Ticket t = new Ticket("E" + i, ProcedureType.MATRICULA);
+            t.setId(i);
+            if (i <= 2) t.setState(TicketState.URGENTE);
+            attentionQueue.addTicket(t);
+            tickets.add(t);
+        }
+
+        Page<Ticket> p1 = attentionQueue.page(null, 3);
+        assertEquals(List.of(tickets.get(0), tickets.get(1), tickets.get(2)), p1.getItems());
+        assertTrue(p1.hasMore());
+
+        // Entre páginas: se atiende un ticket ya mostrado y llegan dos nuevos
+        attentionQueue.getUrgentQueue().dequeue();
+        Ticket late = new Ticket("Tarde", ProcedureType.OTRO);
+        late.setId(8);
+        attentionQueue.addTicket(late);
+        Ticket lateUrgent = new Ticket("Tarde urgente", ProcedureType.OTRO);
+        lateUrgent.setId(9);
+        lateUrgent.setState(TicketState.URGENTE);
+        attentionQueue.addTicket(lateUrgent);
+
+        Page<Ticket> p2 = attentionQueue.page(p1.getNextCursor(), 3);
+        assertEquals(List.of(tickets.get(3), tickets.get(4), tickets.get(5)), p2.getItems());
+        Page<Ticket> p3 = attentionQueue.page(p2.getNextCursor(), 3);
+        assertEquals(List.of(tickets.get(6), late), p3.getItems());
+        assertFalse(p3.hasMore());
+
+        attentionQueue.moveToHistory(tickets.get(0));
+        attentionQueue.moveToHistory(tickets.get(1));
+        Page<Ticket> h1 = attentionQueue.pageHistory(null, 1);
+        assertEquals(List.of(tickets.get(0)), h1.getItems());
+        assertEquals(List.of(tickets.get(1)), attentionQueue.pageHistory(h1.getNextCursor(), 1).getItems());
+        assertThrows(IllegalArgumentException.class, () -> attentionQueue.pageHistory("X1", 1));
+    }
+
+    @Test
+    @DisplayName("Ventana de historial: los antiguos pasan al archivo y se siguen paginando y encontrando")
+    void historyWindowArchivesOldest() {
+        attentionQueue.setHistoryWindow(3);
+        for (int i = 1; i <= 8; i++) {
+            Ticket t = new Ticket("E" + i, ProcedureType.CERTIFICADO);
+            t.setId(i);
+            t.setState(TicketState.COMPLETADO);
+            attentionQueue.moveToHistory(t);
+        }
+        assertEquals(3, attentionQueue.getAttendedHistory().size());
+        assertEquals(5, attentionQueue.getArchive().size());
+        assertEquals(8, attentionQueue.getHistorySize());
+        assertEquals(3, attentionQueue.getIndex().size());
+        assertEquals("E2", attentionQueue.findInHistory(2).getStudent());
+        assertEquals("E7", attentionQueue.findInHistory(7).getStudent());
+
+        List<Integer> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page<Ticket> page = attentionQueue.pageHistory(cursor, 3);
+            for (Ticket t : page.getItems()) ids.add(t.getId());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8), ids);
+    }
+
+    @Test
+    @DisplayName("Historial por niveles: recientes en memoria, antiguos en disco con caché LRU")
+    void tieredHistoryWithDiskArchive(@TempDir Path dir) throws Exception {
+        Clock clock = Clock.fixed(Instant.parse("2025-03-31T12:00:00Z"), ZoneOffset.UTC);
+        AttentionQueue queue = new AttentionQueue(new StrictPriorityPolicy(), new SystemClock(clock));
+        try (DiskArchive disk = new DiskArchive(dir, new StudentDictionary(), 2)) {
+            queue.setArchive(disk);
+            queue.setHistoryWindow(5);
+            queue.setHistoryMaxAge(Duration.ofDays(7));
+            LocalDateTime now = LocalDateTime.now(clock);
+            for (int i = 1; i <= 10; i++) {
+                Ticket t = new Ticket("E" + i, ProcedureType.CERTIFICADO);
+                t.setId(i);
+                t.setState(TicketState.COMPLETADO);
+                t.setCreatedAt(now.minusDays(12 - i));  // 1..4 tienen más de 7 días
+                queue.moveToHistory(t);
+            }
+            // 1..4 por antigüedad y 5 por la ventana de 5
+            assertEquals(5, queue.getAttendedHistory().size());
+            assertEquals(5, disk.size());
+            assertEquals(10, queue.getHistorySize());
+
+            assertEquals("E2", queue.findInHistory(2).getStudent());
+            assertEquals("E2", queue.findInHistory(2).getStudent());
+            assertEquals("E9", queue.findInHistory(9).getStudent()); // en memoria, no toca la caché
+            queue.findInHistory(3);
+            queue.findInHistory(4);
+            assertEquals(1, disk.getCacheHits());
+            assertEquals(3, disk.getCacheMisses());
+            assertEquals(1, disk.getCacheEvictions());
+
+            List<Integer> ids = new ArrayList<>();
+            String cursor = null;
+            do {
+                Page<Ticket> page = queue.pageHistory(cursor, 4);
+                for (Ticket t : page.getItems()) ids.add(t.getId());
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), ids);
+        }
+    }
+
+    private static CaeController controllerOn(Path dir, int historyWindow) {
+        AttentionQueue queue = new AttentionQueue();
+        queue.setHistoryWindow(historyWindow);
+        return new CaeController(queue, new ActionStack(), new PersistenceManager(dir + "/"),
+                new ReportManager(), new StateMachine(), new SystemClock(), CLIHelper.silent());
+    }
+
+    @Test
+    @DisplayName("Historial persistido por niveles: los archivados solo se agregan y se cargan sin pasar por memoria")
+    void archivedHistoryIsAppendedNotRewritten(@TempDir Path dir) throws Exception {
+        CaeController first = controllerOn(dir, 2);
+        for (int i = 0; i < 5; i++) first.createTicket("E" + i, ProcedureType.OTRO, false);
+        for (int i = 0; i < 5; i++) first.finalizeTicket(first.attendNext());
+
+        List<String> archived = Files.readAllLines(dir.resolve("archived_history.csv"), StandardCharsets.UTF_8);
+        List<String> recent = Files.readAllLines(dir.resolve("completed_history.csv"), StandardCharsets.UTF_8);
+        assertEquals(4, archived.size(), "cabecera + 3 archivados");
+        assertEquals(3, recent.size(), "cabecera + la ventana de 2");
+        first.shutdown();
+
+        // simula un corte entre agregar al archivo y reescribir los recientes: el 4 queda en ambos
+        Files.write(dir.resolve("archived_history.csv"), List.of(recent.get(1)),
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        CaeController second = controllerOn(dir, 2);
+        second.start();
+        AttentionQueue queue = second.getAttentionQueue();
+        assertEquals(5, queue.getHistorySize());
+        assertEquals(4, queue.getArchive().size());
+        assertEquals(1, queue.getAttendedHistory().size());
+        assertTrue(second.findTicketById(1).isReadOnly());
+        assertFalse(second.findTicketById(5).isReadOnly());
+    }
+
+    @Test
+    @DisplayName("Atendidos sin fecha (formato anterior) se toman como antiguos y se archivan")
+    void undatedLegacyHistoryIsArchivedByAge(@TempDir Path dir) throws Exception {
+        Files.write(dir.resolve("completed_history.csv"), List.of(
+                "id,student,procedure,state",
+                "1,Marta,MATRICULA,COMPLETADO",
+                "2,Luis,OTRO,COMPLETADO"), StandardCharsets.UTF_8);
+        CaeController controller = controllerOn(dir, Integer.MAX_VALUE);
+        controller.getAttentionQueue().setHistoryMaxAge(Duration.ofDays(30));
+        controller.start();
+
+        assertEquals(0, controller.getAttentionQueue().getAttendedHistory().size());
+        assertEquals(2, controller.getAttentionQueue().getArchive().size());
+        assertEquals(PersistenceManager.UNDATED_HISTORY, controller.findTicketById(1).getCreatedAt());
+        assertEquals(3, Files.readAllLines(dir.resolve("archived_history.csv"), StandardCharsets.UTF_8).size());
+    }
+}
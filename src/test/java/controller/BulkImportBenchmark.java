@@ -0,0 +1,78 @@
+package controller;
+
+import domine.ProcedureType;
+import estructures.AttentionQueue;
+import persistence.PersistenceManager;
+import reports.ReportManager;
+import util.StateMachine;
+import util.SystemClock;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Benchmark de tickets/seg de BulkImporter sobre un CSV generado (~1% de filas inválidas),
+ * comparado con crear los tickets de a uno con createTicket() (que reescribe el archivo de
+ * pendientes en cada alta, por eso se mide solo sobre una muestra).
+ *
+ * Uso: java controller.BulkImportBenchmark [filas] [hilos] [tamañoLote] [muestraDeAUno]
+ */
+public class BulkImportBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : BulkImporter.DEFAULT_BATCH_SIZE;
+        int sample = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+
+        Path dir = Files.createTempDirectory("bulk-import");
+        Path input = dir.resolve("tickets.csv");
+        generate(input, rows);
+
+        CaeController controller = controllerOn(Files.createDirectory(dir.resolve("bulk")));
+        BulkImporter.Result result = new BulkImporter(controller, threads, batchSize)
+                .importFile(input, dir.resolve("rejects.csv"));
+        System.out.printf("Filas: %d | hilos: %d | lote: %d%n", rows, threads, batchSize);
+        System.out.println("Importación: " + result);
+        System.out.printf("En cola: %d | archivo de pendientes: %.1f MB%n",
+                controller.getAttentionQueue().getTotalWaiting(),
+                Files.size(dir.resolve("bulk").resolve("pending_tickets.csv")) / 1e6);
+
+        CaeController oneByOne = controllerOn(Files.createDirectory(dir.resolve("single")));
+        ProcedureType[] types = ProcedureType.values();
+        long start = System.nanoTime();
+        for (int i = 0; i < sample; i++) {
+            oneByOne.createTicket("Estudiante " + (i % 50_000), types[i % types.length], i % 10 == 0);
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("De a uno (createTicket, %d tickets): %.0f tickets/s%n", sample, sample * 1e9 / nanos);
+    }
+
+    private static CaeController controllerOn(Path dataDir) {
+        return new CaeController(new AttentionQueue(), new ActionStack(),
+                new PersistenceManager(dataDir + "/"), new ReportManager(),
+                new StateMachine(), new SystemClock(), CLIHelper.silent());
+    }
+
+    private static void generate(Path file, int rows) throws IOException {
+        String[] procedures = { "Matricula", "CERTIFICADO", "homologacion", "Retiro asignatura", "OTRO" };
+        String[] states = { "", "", "", "EN_COLA", "URGENTE", "PENDIENTE_DOCS" };
+        Random random = new Random(42);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("estudiante,tramite,estado,fecha");
+            out.newLine();
+            for (int i = 0; i < rows; i++) {
+                int r = random.nextInt(100);
+                String student = r == 0 ? "" : "Estudiante " + random.nextInt(50_000);
+                String procedure = r == 1 ? "BECA" : procedures[random.nextInt(procedures.length)];
+                out.write(student + "," + procedure + "," + states[random.nextInt(states.length)]
+                        + ",2025-03-" + (10 + random.nextInt(18)) + "T08:" + (10 + random.nextInt(50)));
+                out.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package controller;
+
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+import estructures.AttentionQueue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.PersistenceManager;
+import reports.ReportManager;
+import util.StateMachine;
+import util.SystemClock;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkImporterTest {
+
+    @TempDir
+    Path dir;
+
+    private CaeController controllerOn(Path dataDir) {
+        return new CaeController(new AttentionQueue(), new ActionStack(),
+                new PersistenceManager(dataDir + "/"), new ReportManager(),
+                new StateMachine(), new SystemClock(), CLIHelper.silent());
+    }
+
+    @Test
+    @DisplayName("Importa CSV con cabecera en lotes, en orden, y manda los inválidos al archivo de errores")
+    void importsCsvInBatchesAndRejectsInvalidRows() throws Exception {
+        Path input = dir.resolve("tickets.csv");
+        Files.write(input, Arrays.asList(
+                "fecha,estudiante,tramite,estado",
+                "2025-03-01T08:00,Ana Perez,Matricula,",
+                "2025-03-01,Luis Mora,certificado,urgente",
+                ",,MATRICULA,",                                  // sin estudiante
+                "2025-03-01,\"Vera, Ines\",retiro asignatura,PENDIENTE_DOCS",
+                "2025-03-01,Raul Diaz,BECA,",                    // trámite desconocido
+                "",
+                "2025-03-01,Sara Gil,OTRO,COMPLETADO",           // no es un estado inicial
+                "2025-03-01,Tomas Rey,HOMOLOGACION,EN_COLA"), StandardCharsets.UTF_8);
+        Path dataDir = Files.createDirectory(dir.resolve("data"));
+        CaeController controller = controllerOn(dataDir);
+        controller.createTicket("Previo", ProcedureType.OTRO, false);
+
+        BulkImporter.Result result = new BulkImporter(controller, 2, 2).importFile(input, dir.resolve("rejects.csv"));
+
+        assertEquals(4, result.getImported());
+        assertEquals(3, result.getRejected());
+        List<Ticket> pending = controller.listPending();
+        assertEquals(Arrays.asList("Luis Mora", "Previo", "Ana Perez", "Vera, Ines", "Tomas Rey"),
+                pending.stream().map(Ticket::getStudent).collect(Collectors.toList()));
+        Ticket vera = controller.findTicketById(4);
+        assertEquals("Vera, Ines", vera.getStudent());
+        assertEquals(ProcedureType.RETIRO_ASIGNATURA, vera.getProcedureType());
+        assertEquals(TicketState.PENDIENTE_DOCS, vera.getState());
+        assertEquals(LocalDateTime.of(2025, 3, 1, 8, 0), controller.findTicketById(2).getCreatedAt());
+        assertEquals(TicketState.URGENTE, controller.findTicketById(3).getState());
+        assertTrue(controller.getDocsTimers().isTracked(4));
+        assertEquals(1, controller.getActionStack().undoSize(), "la importación no se deshace");
+
+        List<String> rejects = Files.readAllLines(dir.resolve("rejects.csv"), StandardCharsets.UTF_8);
+        assertEquals("line,reason,raw", rejects.get(0));
+        assertEquals(4, rejects.size());
+        assertTrue(rejects.get(1).startsWith("4,"));
+        assertTrue(rejects.get(2).startsWith("6,") && rejects.get(2).contains("BECA"));
+        assertTrue(rejects.get(3).startsWith("8,") && rejects.get(3).contains("COMPLETADO"));
+
+        // Lo importado quedó persistido junto a lo anterior
+        CaeController reloaded = controllerOn(dataDir);
+        reloaded.start();
+        assertEquals(5, reloaded.listPending().size());
+        assertEquals("Tomas Rey", reloaded.findTicketById(5).getStudent());
+        assertEquals(6, reloaded.createTicket("Nuevo", ProcedureType.OTRO, false).getId());
+    }
+
+    @Test
+    @DisplayName("TSV sin cabecera usa columnas posicionales")
+    void importsPositionalTsv() throws Exception {
+        Path input = dir.resolve("tickets.tsv");
+        Files.write(input, Arrays.asList("Ana Perez\tMATRICULA", "Luis Mora\tOTRO\tURGENTE"), StandardCharsets.UTF_8);
+        CaeController controller = controllerOn(Files.createDirectory(dir.resolve("data")));
+
+        BulkImporter.Result result = new BulkImporter(controller).importFile(input, dir.resolve("rejects.csv"));
+
+        assertEquals(2, result.getImported());
+        assertEquals(0, result.getRejected());
+        assertEquals(ProcedureType.MATRICULA, controller.findTicketById(1).getProcedureType());
+        assertEquals("Luis Mora", controller.getAttentionQueue().getUrgentQueue().peek().getStudent());
+    }
+
+    @Test
+    @DisplayName("Agregar a un archivo de pendientes con cabecera anterior lo reescribe al formato actual")
+    void appendUpgradesLegacyPendingFile() throws Exception {
+        Path dataDir = Files.createDirectory(dir.resolve("data"));
+        Files.write(dataDir.resolve("pending_tickets.csv"), Arrays.asList(
+                "id,student,procedure,state,created",
+                "1,Marta,MATRICULA,EN_COLA,2025-03-01T08:00"), StandardCharsets.UTF_8);
+        Path input = dir.resolve("tickets.csv");
+        Files.write(input, Arrays.asList("Ana Perez,OTRO", "Luis Mora,CERTIFICADO"), StandardCharsets.UTF_8);
+        CaeController controller = controllerOn(dataDir);
+        controller.start();
+
+        new BulkImporter(controller).importFile(input, dir.resolve("rejects.csv"));
+
+        List<String> lines = Files.readAllLines(dataDir.resolve("pending_tickets.csv"), StandardCharsets.UTF_8);
+        assertTrue(lines.get(0).startsWith("id,student_id,"), lines.get(0));
+        assertEquals(4, lines.size());
+        CaeController reloaded = controllerOn(dataDir);
+        reloaded.start();
+        assertEquals(Arrays.asList("Marta", "Ana Perez", "Luis Mora"),
+                reloaded.listPending().stream().map(Ticket::getStudent).collect(Collectors.toList()));
+        assertNotNull(reloaded.findTicketById(3).getCreatedAt());
+    }
+}
@@ -0,0 +1,96 @@
+package controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CLIHelperTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    private final CLIHelper cli = new CLIHelper(false,
+            new PrintStream(out, false), new PrintStream(err, false));
+
+    private String out() {
+        cli.flush();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("La verbosidad filtra por nivel y los errores van a err")
+    void verbosityFiltersByLevel() {
+        cli.setVerbosity(CLIHelper.Level.WARNING);
+        cli.printInfo("info");
+        cli.printSuccess("listo");
+        cli.printAlert("cuidado");
+        cli.printError("falla");
+
+        assertEquals("!(warning)! cuidado" + System.lineSeparator(), out());
+        assertEquals("!!(error)!! falla" + System.lineSeparator(), new String(err.toByteArray(), StandardCharsets.UTF_8));
+        assertFalse(cli.isEnabled(CLIHelper.Level.SUCCESS));
+        assertTrue(cli.isEnabled(CLIHelper.Level.ERROR));
+    }
+
+    @Test
+    @DisplayName("Advertencias repetidas (distintas solo en números) se limitan y se resumen")
+    void repeatedWarningsAreRateLimited() {
+        cli.setRateLimit(2, Duration.ofHours(1));
+        for (int id = 1; id <= 5; id++) cli.printAlert("No se pudo agregar ticket ID=" + id + " durante carga");
+        cli.printAlert("Otro aviso");
+
+        String[] lines = out().split(System.lineSeparator());
+        assertEquals(4, lines.length);
+        assertEquals("!(warning)! No se pudo agregar ticket ID=1 durante carga", lines[0]);
+        assertEquals("!(warning)! No se pudo agregar ticket ID=2 durante carga", lines[1]);
+        assertEquals("!(warning)! Otro aviso", lines[2]);
+        assertTrue(lines[3].contains("3 mensajes similares omitidos") && lines[3].contains("ID=5"), lines[3]);
+
+        // los resúmenes ya escritos no se repiten
+        out.reset();
+        assertEquals("", out());
+    }
+
+    @Test
+    @DisplayName("Al cerrar la ventana el resumen sale con el siguiente mensaje, aunque sea otro")
+    void expiredWindowSummaryIsWrittenOnAnyPrint() throws InterruptedException {
+        cli.setRateLimit(1, Duration.ofMillis(50));
+        cli.printAlert("Recordatorio: ticket ID=1 sigue pendiente");
+        cli.printAlert("Recordatorio: ticket ID=2 sigue pendiente");
+        Thread.sleep(100);
+        cli.printInfo("Atendiendo ticket ID=3");
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split(System.lineSeparator());
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].contains("1 mensajes similares omitidos") && lines[1].contains("ID=2"), lines[1]);
+        assertEquals("?(info)? Atendiendo ticket ID=3", lines[2]);
+    }
+
+    @Test
+    @DisplayName("Olvidar un mensaje con omitidos escribe su resumen en vez de retenerlo")
+    void evictedEntryWritesItsSummary() {
+        cli.setRateLimit(1, Duration.ofHours(1));
+        cli.printAlert("Falla ID=1");
+        cli.printAlert("Falla ID=2");
+        for (int i = 0; i < 300; i++) {
+            cli.printAlert("Aviso " + (char) ('a' + i % 26) + (char) ('a' + i / 26));
+        }
+
+        String written = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(written.contains("1 mensajes similares omitidos") && written.contains("Falla ID=2"), written);
+    }
+
+    @Test
+    void silentDiscardsEverything() {
+        CLIHelper silent = CLIHelper.silent();
+        silent.printError("nada");
+        silent.flush();
+        assertFalse(silent.isEnabled(CLIHelper.Level.ERROR));
+        silent.close();
+    }
+}
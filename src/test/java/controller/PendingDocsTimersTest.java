@@ -0,0 +1,90 @@
+package controller;
+
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+import estructures.AttentionQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.PersistenceManager;
+import reports.ReportManager;
+import util.StateMachine;
+import util.SystemClock;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingDocsTimersTest {
+
+    private static final Instant T0 = Instant.parse("2025-03-01T08:00:00Z");
+
+    @TempDir
+    Path dataDir;
+
+    private SystemClock clock;
+    private CaeController controller;
+
+    @BeforeEach
+    void setUp() {
+        clock = new SystemClock();
+        clock.setFixed(T0, ZoneOffset.UTC);
+        controller = new CaeController(new AttentionQueue(), new ActionStack(),
+                new PersistenceManager(dataDir.toString()), new ReportManager(),
+                new StateMachine(), clock, CLIHelper.silent());
+        controller.getDocsTimers().configure(Duration.ofHours(24), Duration.ofHours(72),
+                PendingDocsTimers.ExpiryAction.REQUEUE);
+    }
+
+    private void at(Duration elapsed) {
+        clock.setFixed(T0.plus(elapsed), ZoneOffset.UTC);
+        controller.processTimers();
+    }
+
+    @Test
+    @DisplayName("Recordatorio y reencolado automático tras vencer el plazo")
+    void reminderThenRequeue() {
+        Ticket t = controller.createTicket("Ana", ProcedureType.MATRICULA, false);
+        controller.changeTicketState(t.getId(), TicketState.PENDIENTE_DOCS);
+        assertTrue(controller.getDocsTimers().isTracked(t.getId()));
+
+        at(Duration.ofHours(24));
+        assertEquals(1, t.getNoteHistory().size());
+        assertEquals(TicketState.PENDIENTE_DOCS, t.getState());
+
+        at(Duration.ofHours(72));
+        assertEquals(TicketState.EN_COLA, t.getState());
+        assertFalse(controller.getDocsTimers().isTracked(t.getId()));
+    }
+
+    @Test
+    @DisplayName("Escalar a urgente mueve el ticket a la cola urgente")
+    void escalate() {
+        controller.getDocsTimers().configure(null, Duration.ofHours(1), PendingDocsTimers.ExpiryAction.ESCALATE);
+        Ticket t = controller.createTicket("Luis", ProcedureType.CERTIFICADO, false);
+        controller.changeTicketState(t.getId(), TicketState.PENDIENTE_DOCS);
+
+        at(Duration.ofHours(1));
+        assertEquals(TicketState.URGENTE, t.getState());
+        assertSame(t, controller.getAttentionQueue().getUrgentQueue().peek());
+        assertTrue(controller.getAttentionQueue().getNormalQueue().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Salir de PENDIENTE_DOCS cancela los plazos")
+    void leavingStateCancels() {
+        Ticket t = controller.createTicket("Eva", ProcedureType.MATRICULA, false);
+        controller.changeTicketState(t.getId(), TicketState.PENDIENTE_DOCS);
+        controller.changeTicketState(t.getId(), TicketState.EN_ATENCION);
+        assertFalse(controller.getDocsTimers().isTracked(t.getId()));
+
+        at(Duration.ofHours(100));
+        assertEquals(TicketState.EN_ATENCION, t.getState());
+        assertEquals(0, t.getNoteHistory().size());
+    }
+}
@@ -0,0 +1,82 @@
+package controller;
+
+import domine.Ticket;
+import domine.TicketState;
+import estructures.AttentionQueue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.PersistenceManager;
+import reports.ReportManager;
+import util.StateMachine;
+import util.SystemClock;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptRunnerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Un guion corre contra el controlador, sigue tras un error y resume por comando")
+    void runsScriptAndSummarizes() throws Exception {
+        CaeController controller = new CaeController(new AttentionQueue(), new ActionStack(),
+                new PersistenceManager(dir + "/"), new ReportManager(),
+                new StateMachine(), new SystemClock(), CLIHelper.silent());
+        String script = String.join("\n",
+                "# sesión de prueba",
+                "create \"Ana Perez\" MATRICULA",
+                "create \"Luis Mora\" certificado urgente",
+                "create Sara OTRO",
+                "",
+                "attend",
+                "note 2 trae la cedula",
+                "close",
+                "state 3 PENDIENTE_DOCS",
+                "state 99 URGENTE",
+                "volar 1",
+                "undo",
+                "redo",
+                "report counts");
+
+        ScriptRunner.Summary summary = new ScriptRunner(controller).run(new StringReader(script));
+
+        assertEquals(12, summary.getCommands());
+        assertEquals(2, summary.getErrors());
+        assertEquals(3, summary.count("create"));
+        assertTrue(summary.getErrorMessages().get(0).startsWith("línea 10"));
+        assertTrue(summary.getErrorMessages().get(1).contains("volar"));
+        assertTrue(summary.toString().contains("create"));
+
+        Ticket luis = controller.findTicketById(2);
+        assertEquals(TicketState.COMPLETADO, luis.getState());
+        assertEquals(1, luis.getNoteHistory().size());
+        assertEquals(TicketState.PENDIENTE_DOCS, controller.findTicketById(3).getState());
+    }
+
+    @Test
+    @DisplayName("Un undo/redo sin acciones cuenta como error del guion")
+    void undoWithoutActionsIsAnError() throws Exception {
+        CaeController controller = new CaeController(new AttentionQueue(), new ActionStack(),
+                new PersistenceManager(dir + "/"), new ReportManager(),
+                new StateMachine(), new SystemClock(), CLIHelper.silent());
+
+        ScriptRunner.Summary summary = new ScriptRunner(controller).run(new StringReader("undo\nredo"));
+
+        assertEquals(2, summary.getErrors());
+        assertTrue(summary.getErrorMessages().get(0).contains("No hay acciones por deshacer"));
+        assertTrue(summary.getErrorMessages().get(1).contains("No hay acciones por rehacer"));
+    }
+
+    @Test
+    void tokenizesQuotedArguments() {
+        List<String> args = ScriptRunner.tokenize("  note 4 \"texto con  espacios\" \"\" fin ");
+        assertEquals(Arrays.asList("note", "4", "texto con  espacios", "", "fin"), args);
+    }
+}
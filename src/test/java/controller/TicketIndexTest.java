@@ -0,0 +1,99 @@
+package controller;
+
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketIndex;
+import domine.TicketState;
+import estructures.AttentionQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.PersistenceManager;
+import reports.ReportManager;
+import util.StateMachine;
+import util.SystemClock;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketIndexTest {
+
+    @TempDir
+    Path dataDir;
+
+    private CaeController controller;
+    private TicketIndex index;
+
+    @BeforeEach
+    void setUp() {
+        AttentionQueue queue = new AttentionQueue();
+        controller = new CaeController(queue, new ActionStack(),
+                new PersistenceManager(dataDir.toString()), new ReportManager(),
+                new StateMachine(), new SystemClock(), CLIHelper.silent());
+        index = queue.getIndex();
+    }
+
+    @Test
+    @DisplayName("Búsqueda por estudiante ignora tildes, mayúsculas y espacios")
+    void byStudentNormalized() {
+        Ticket a = controller.createTicket("José  Núñez", ProcedureType.MATRICULA, false);
+        Ticket b = controller.createTicket("jose nunez", ProcedureType.CERTIFICADO, true);
+        controller.createTicket("Ana", ProcedureType.MATRICULA, false);
+
+        assertEquals(List.of(a, b), controller.findTicketsByStudent("JOSE NUÑEZ"));
+        assertTrue(controller.findTicketsByStudent("Pedro").isEmpty());
+    }
+
+    @Test
+    @DisplayName("El índice sigue cambios de estado, cierres y sus undo/redo")
+    void followsStateCloseAndUndo() {
+        Ticket h = controller.createTicket("Eva", ProcedureType.HOMOLOGACION, false);
+        Ticket m = controller.createTicket("Luis", ProcedureType.MATRICULA, false);
+
+        controller.changeTicketState(m.getId(), TicketState.PENDIENTE_DOCS);
+        assertEquals(List.of(m), controller.findTicketsByState(TicketState.PENDIENTE_DOCS));
+        assertEquals(List.of(h), controller.findTicketsByState(TicketState.EN_COLA));
+
+        controller.attendNext();
+        controller.finalizeTicket(h);
+        assertEquals(List.of(h), index.byTypeAndState(ProcedureType.HOMOLOGACION, TicketState.COMPLETADO));
+        assertEquals(2, index.size());
+
+        controller.undo(); // reabre el cierre
+        assertTrue(index.byTypeAndState(ProcedureType.HOMOLOGACION, TicketState.COMPLETADO).isEmpty());
+        assertEquals(List.of(h), controller.findTicketsByType(ProcedureType.HOMOLOGACION));
+        assertEquals(2, index.size());
+
+        controller.redo();
+        assertEquals(List.of(h), controller.findTicketsByState(TicketState.COMPLETADO));
+
+        controller.undo(); // reabre
+        controller.undo(); // deshace creación de Luis
+        assertFalse(index.contains(m));
+        assertTrue(controller.findTicketsByStudent("luis").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Filtros combinados con bitmaps: estado, tipo y con notas")
+    void bitmapFilters() {
+        Ticket a = controller.createTicket("Ana", ProcedureType.MATRICULA, true);
+        Ticket b = controller.createTicket("Luis", ProcedureType.MATRICULA, true);
+        controller.createTicket("Eva", ProcedureType.CERTIFICADO, true);
+        controller.createTicket("Rosa", ProcedureType.MATRICULA, false);
+        controller.addNoteToTicket(b, "falta cédula");
+
+        assertEquals(List.of(a, b), controller.filterTickets(TicketState.URGENTE, ProcedureType.MATRICULA, null));
+        assertEquals(List.of(b), controller.filterTickets(TicketState.URGENTE, ProcedureType.MATRICULA, true));
+        assertEquals(3, index.count(null, ProcedureType.MATRICULA, null));
+        assertEquals(3, index.count(null, null, false));
+
+        controller.undo(); // quita la nota
+        assertTrue(controller.filterTickets(null, null, true).isEmpty());
+        controller.changeTicketState(a.getId(), TicketState.EN_COLA);
+        assertEquals(2, index.count(TicketState.EN_COLA, ProcedureType.MATRICULA, null));
+        assertSame(a, controller.findTicketById(a.getId()));
+    }
+}
@@ -1,16 +1,41 @@
 package controller.command;
 
 import controller.ActionStack;
+import controller.CLIHelper;
+import controller.CaeController;
+import controller.IAction;
 import domine.Note;
 import domine.ProcedureType;
 import domine.Ticket;
 import domine.TicketState;
+import estructures.AttentionQueue;
+import estructures.Node;
 import estructures.Queue;
 import estructures.SimpleList;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.PersistenceManager;
+import persistence.UndoJournal;
+import reports.ReportManager;
+import util.StateMachine;
+import util.SystemClock;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CommandActionStackTest {
@@ -108,4 +133,388 @@ class CommandActionStackTest {
         // assertEquals(0, historyList.size());
         // assertEquals(TicketState.EN_COLA, testTicket.getState());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("ActionStack acotado: los comandos antiguos bajan a disco y vuelven al deshacer")
+    void boundedStackSpillsToJournal(@TempDir Path dir) throws Exception {
+        AttentionQueue attention = new AttentionQueue();
+        ActionStack bounded = new ActionStack(8, 1L << 20);
+        try (UndoJournal undoJournal = new UndoJournal(dir.resolve("undo.bin"));
+             UndoJournal redoJournal = new UndoJournal(dir.resolve("redo.bin"))) {
+            bounded.enableSpill(new TicketCommandCodec(attention, null, null), undoJournal, redoJournal);
+
+            List<Ticket> created = new ArrayList<>();
+            for (int i = 1; i <= 50; i++) {
+                Ticket t = new Ticket("E" + i, ProcedureType.MATRICULA);
+                t.setId(i);
+                AddTicketCommand add = new AddTicketCommand(attention.getNormalQueue(), t);
+                add.execute();
+                bounded.registerAction(add);
+                created.add(t);
+            }
+            AddNoteCommand note = new AddNoteCommand(created.get(0), new Note("nota"));
+            note.execute();
+            bounded.registerAction(note);
+
+            assertTrue(bounded.getUndoStack().size() <= 8);
+            assertEquals(51, bounded.undoSize());
+            assertTrue(bounded.getSpilledCount() > 0);
+
+            while (!bounded.isEmpty()) bounded.undo();
+            assertTrue(attention.getNormalQueue().isEmpty());
+            assertTrue(created.get(0).getNoteHistory().isEmpty());
+            assertEquals(51, bounded.redoSize());
+            assertTrue(bounded.getRedoStack().size() <= 8);
+
+            for (int i = 0; i < 51; i++) bounded.redo();
+            List<Integer> ids = new ArrayList<>();
+            while (!attention.getNormalQueue().isEmpty()) ids.add(attention.getNormalQueue().dequeue().getId());
+            assertEquals(IntStream.rangeClosed(1, 50).boxed().collect(Collectors.toList()), ids);
+            assertEquals(0, bounded.getDroppedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("ActionStack acotado por memoria y sin diario: descarta los más antiguos")
+    void boundedStackWithoutJournalDrops() {
+        ActionStack bounded = new ActionStack(1_000, 1_000);
+        for (int i = 0; i < 40; i++) {
+            AddNoteCommand cmd = new AddNoteCommand(testTicket, new Note("nota " + i));
+            cmd.execute();
+            bounded.registerAction(cmd);
+        }
+        assertTrue(bounded.getMemoryBytes() <= 1_000);
+        assertEquals(40, bounded.undoSize() + bounded.getDroppedCount());
+        assertTrue(bounded.getDroppedCount() > 0);
+    }
+
+    @Test
+    @DisplayName("ActionStack: la memoria se descuenta con la estimación tomada al apilar")
+    void memoryAccountingUsesEstimateFromPush() {
+        ActionStack bounded = new ActionStack(4, 1L << 20);
+        AtomicInteger growth = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            bounded.registerAction(new IAction() {
+                @Override public void execute() { }
+                @Override public void undo() { }
+                // crece después de apilarse (como un comando cuyo ticket recibe más notas)
+                @Override public long estimatedBytes() { return 100 + growth.getAndAdd(50); }
+            });
+        }
+        assertEquals(4, bounded.getUndoStack().size());
+        assertTrue(bounded.getMemoryBytes() > 0);
+
+        while (!bounded.isEmpty()) bounded.undo();
+        while (bounded.redoSize() > 0) bounded.redo();
+        while (!bounded.isEmpty()) bounded.undo();
+        // la pila de undo quedó vacía y registrar una acción vacía la de redo: solo queda la nueva
+        bounded.registerAction(new IAction() {
+            @Override public void execute() { }
+            @Override public void undo() { }
+        });
+        assertEquals(64, bounded.getMemoryBytes());
+    }
+
+    @Test
+    @DisplayName("ActionStack: un undo que falla no saca el comando de la pila ni del diario")
+    void failedUndoKeepsActionJournaled(@TempDir Path dir) throws Exception {
+        AttentionQueue attention = new AttentionQueue();
+        ActionStack stack = new ActionStack();
+        try (UndoJournal undoJournal = new UndoJournal(dir.resolve("undo.bin"));
+             UndoJournal redoJournal = new UndoJournal(dir.resolve("redo.bin"))) {
+            stack.enableSpill(new TicketCommandCodec(attention, null, null), undoJournal, redoJournal);
+            AddNoteCommand note = new AddNoteCommand(testTicket, new Note("nota"));
+            note.execute();
+            stack.registerAction(note);
+            IAction failing = new IAction() {
+                @Override public void execute() { }
+                @Override public void undo() { throw new NoSuchElementException("archivado"); }
+            };
+            stack.registerAction(failing);
+
+            assertThrows(NoSuchElementException.class, stack::undo);
+            assertSame(failing, stack.peekUndo());
+            assertEquals(2, stack.undoSize());
+            assertEquals(2, undoJournal.size());
+            assertEquals(0, stack.redoSize());
+        }
+    }
+
+    @Test
+    @DisplayName("ChangeStateCommand: si el ticket se movió por otro camino, el undo lo lleva a la cola de su estado")
+    void changeStateUndoWithStaleNode() {
+        AttentionQueue attention = new AttentionQueue();
+        Ticket other = new Ticket("Otro", ProcedureType.OTRO);
+        other.setId(2);
+        attention.addTicket(testTicket);
+        attention.addTicket(other);
+        ChangeStateCommand cmd = new ChangeStateCommand(attention, testTicket, TicketState.URGENTE, null);
+        cmd.execute();
+        assertNotNull(attention.getUrgentQueue().nodeOf(testTicket));
+
+        // otro camino lo saca y lo vuelve a encolar: el nodo que guardó el comando ya no está
+        attention.getUrgentQueue().remove(testTicket);
+        attention.getUrgentQueue().enqueue(testTicket);
+        cmd.undo();
+
+        assertEquals(TicketState.EN_COLA, testTicket.getState());
+        assertNull(attention.getUrgentQueue().nodeOf(testTicket));
+        assertNotNull(attention.getNormalQueue().nodeOf(testTicket));
+    }
+
+    private static CaeController controllerOn(Path dir) {
+        return new CaeController(new AttentionQueue(), new ActionStack(4, 1L << 20),
+                new PersistenceManager(dir.toString() + "/"), new ReportManager(),
+                new StateMachine(), new SystemClock(), CLIHelper.silent());
+    }
+
+    @Test
+    @DisplayName("Diario de undo/redo: sobrevive a un reinicio y se puede deshacer y rehacer")
+    void journalSurvivesRestart(@TempDir Path dir) {
+        CaeController first = controllerOn(dir);
+        first.start();
+        Ticket a = first.createTicket("Ana", ProcedureType.MATRICULA, false);
+        Ticket b = first.createTicket("Beto", ProcedureType.CERTIFICADO, true);
+        first.finalizeTicket(first.attendNext());          // el urgente B
+        first.addNoteToTicket(a, "falta foto");
+        first.shutdown();
+
+        CaeController second = controllerOn(dir);
+        second.start();
+        ActionStack stack = second.getActionStack();
+        assertEquals(4, stack.undoSize());
+        assertEquals(0, stack.getUndoStack().size());   // aún no se decodificó nada
+
+        second.undo();                                   // nota
+        assertTrue(second.findTicketById(a.getId()).getNoteHistory().isEmpty());
+        second.undo();                                   // finalizar
+        Ticket back = second.getAttentionQueue().getUrgentQueue().peek();
+        assertEquals(b.getId(), back.getId());
+        assertEquals(0, second.getAttentionQueue().getAttendedHistory().size());
+        second.undo();                                   // crear B
+        assertTrue(second.getAttentionQueue().getUrgentQueue().isEmpty());
+        assertEquals(1, stack.undoSize());
+        assertEquals(3, stack.redoSize());
+        second.shutdown();
+
+        // el redo también se conserva: crear B (se reconstruye), finalizar, nota
+        CaeController third = controllerOn(dir);
+        third.start();
+        third.redo();
+        third.redo();
+        third.redo();
+        assertEquals(0, third.getActionStack().redoSize());
+        assertEquals(b.getId(), third.getAttentionQueue().getAttendedHistory().findByIndex(0).getId());
+        assertEquals(1, third.findTicketById(a.getId()).getNoteHistory().size());
+        assertEquals(0, third.getActionStack().getDroppedCount());
+        third.shutdown();
+    }
+
+    @Test
+    @DisplayName("UndoJournal: descarta un registro a medio escribir y no pierde los confirmados")
+    void journalDiscardsTornAppend(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("undo.bin");
+        try (UndoJournal journal = new UndoJournal(file)) {
+            journal.push(new byte[]{ 1 });
+            journal.push(new byte[]{ 2, 2 });
+        }
+        // simula un corte después de escribir datos pero antes de actualizar la cabecera
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ch.write(ByteBuffer.wrap(new byte[]{ 0, 0, 0, 9, 7, 7 }));
+        }
+        try (UndoJournal journal = new UndoJournal(file)) {
+            assertEquals(2, journal.size());
+            assertArrayEquals(new byte[]{ 2, 2 }, journal.newest(1).get(0));
+            journal.push(new byte[]{ 3 });
+            assertArrayEquals(new byte[]{ 3 }, journal.pop());
+            assertArrayEquals(new byte[]{ 2, 2 }, journal.pop());
+            assertArrayEquals(new byte[]{ 1 }, journal.pop());
+            assertNull(journal.pop());
+        }
+    }
+
+    private static List<Integer> idsOf(Queue<Ticket> queue) {
+        List<Integer> ids = new ArrayList<>(queue.size());
+        for (Node<Ticket> n = queue.getFront(); n != null; n = n.next) ids.add(n.value.getId());
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Undo/redo en O(1) sobre 100k tickets: cierres en cualquier posición vuelven a su lugar exacto")
+    void constantTimeUndoKeepsExactOrderAt100k() {
+        AttentionQueue attention = new AttentionQueue();
+        Queue<Ticket> normal = attention.getNormalQueue();
+        ActionStack stack = new ActionStack();
+        int n = 100_000;
+        int closes = 20_000;
+        List<Ticket> tickets = new ArrayList<>(n);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+            for (int i = 0; i < n; i++) {
+                Ticket t = new Ticket("E" + i, ProcedureType.values()[i % ProcedureType.values().length]);
+                t.setId(i);
+                AddTicketCommand add = new AddTicketCommand(normal, t);
+                add.execute();
+                stack.registerAction(add);
+                tickets.add(t);
+            }
+            List<Integer> original = idsOf(normal);
+
+            Random random = new Random(7);
+            for (int i = 0; i < closes; i++) {
+                Ticket t = tickets.get(random.nextInt(n));
+                if (t.getState() == TicketState.COMPLETADO) continue;
+                CloseCaseCommand close = new CloseCaseCommand(t, normal, attention.getAttendedHistory());
+                close.execute();
+                stack.registerAction(close);
+            }
+            int closed = attention.getAttendedHistory().size();
+            List<Integer> afterCloses = idsOf(normal);
+            assertEquals(n - closed, normal.size());
+
+            for (int i = 0; i < closed; i++) stack.undo();
+            assertEquals(original, idsOf(normal));
+            assertTrue(attention.getAttendedHistory().isEmpty());
+            // los índices también quedan como antes: posición = orden de llegada
+            for (int id : new int[]{ 0, 1, n / 2, n - 1 }) {
+                assertEquals(id + 1, attention.getPositionIndex().positionOf(tickets.get(id)));
+            }
+            assertEquals(n, attention.page(null, n).size());
+            assertEquals(original.subList(0, 5), attention.page(null, 5).getItems().stream()
+                    .map(Ticket::getId).collect(Collectors.toList()));
+
+            for (int i = 0; i < closed; i++) stack.redo();
+            assertEquals(afterCloses, idsOf(normal));
+            assertEquals(closed, attention.getAttendedHistory().size());
+
+            while (!stack.isEmpty()) stack.undo();
+            assertTrue(normal.isEmpty());
+            assertNull(normal.getRear());
+            for (int i = 0; i < n + closed; i++) stack.redo();
+            assertEquals(afterCloses, idsOf(normal));
+        });
+    }
+
+    @Test
+    @DisplayName("Queue: unlink/insertAfter en O(1) mantienen frente, final y tamaño; setFront corrige el final")
+    void queueNodeHandles() {
+        Queue<Integer> queue = new Queue<>();
+        for (int i = 0; i < 100_000; i++) queue.enqueue(i);
+        Node<Integer> last = queue.getRear();
+        Node<Integer> before = last.prev;
+        assertEquals(99_999, queue.unlink(last));
+        assertFalse(queue.contains(last));
+        assertEquals(99_998, queue.getRear().value);
+        queue.insertAfter(before, last);
+        assertSame(last, queue.getRear());
+        assertEquals(100_000, queue.size());
+        assertThrows(IllegalStateException.class, () -> queue.insertAfter(null, last));
+
+        // setFront sobre una cola vacía: antes dejaba rear en null y el siguiente enqueue se perdía
+        Queue<Integer> empty = new Queue<>();
+        empty.setFront(new Node<>(1));
+        empty.enqueue(2);
+        assertEquals(2, empty.size());
+        assertEquals(1, empty.dequeue());
+        assertEquals(2, empty.dequeue());
+        assertTrue(empty.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Lote: una sola entrada de undo y un solo guardado; el undo devuelve cada ticket a su lugar")
+    void batchIsOneUndoEntryAndOneFlush(@TempDir Path dir) {
+        AtomicInteger saves = new AtomicInteger();
+        PersistenceManager counting = new PersistenceManager(dir.toString() + "/") {
+            @Override
+            public void saveTickets(SimpleList<Ticket> tickets) {
+                saves.incrementAndGet();
+                super.saveTickets(tickets);
+            }
+        };
+        CaeController controller = new CaeController(new AttentionQueue(), new ActionStack(),
+                counting, new ReportManager(), new StateMachine(), new SystemClock(), CLIHelper.silent());
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) ids.add(controller.createTicket("E" + i, ProcedureType.MATRICULA, false).getId());
+        Queue<Ticket> normal = controller.getAttentionQueue().getNormalQueue();
+        Queue<Ticket> urgent = controller.getAttentionQueue().getUrgentQueue();
+        List<Integer> original = idsOf(normal);
+        int entries = controller.getActionStack().undoSize();
+
+        saves.set(0);
+        List<Integer> cohort = List.of(ids.get(5), ids.get(1), ids.get(3));
+        assertEquals(3, controller.batch(cohort, TicketState.URGENTE));
+        assertEquals(1, saves.get());
+        assertEquals(cohort, idsOf(urgent));
+        assertEquals(entries + 1, controller.getActionStack().undoSize());
+
+        controller.undo();
+        assertTrue(urgent.isEmpty());
+        assertEquals(original, idsOf(normal));
+        assertEquals(TicketState.EN_COLA, controller.findTicketById(ids.get(1)).getState());
+
+        // cerrar todo (EN_COLA -> EN_ATENCION -> COMPLETADO por cada uno) y deshacerlo de una vez
+        assertEquals(8, controller.batch(ids, TicketState.COMPLETADO));
+        assertTrue(normal.isEmpty());
+        assertEquals(8, controller.getAttentionQueue().getAttendedHistory().size());
+        controller.undo();
+        assertEquals(original, idsOf(normal));
+        assertTrue(controller.getAttentionQueue().getAttendedHistory().isEmpty());
+        controller.redo();
+        assertTrue(normal.isEmpty());
+        controller.shutdown();
+    }
+
+    @Test
+    @DisplayName("Lote: se valida completo antes de aplicar; con un problema no cambia nada")
+    void batchRejectedAsAWhole(@TempDir Path dir) {
+        CaeController controller = controllerOn(dir);
+        Ticket a = controller.createTicket("Ana", ProcedureType.MATRICULA, false);
+        Ticket b = controller.createTicket("Beto", ProcedureType.MATRICULA, false);
+        controller.finalizeTicket(controller.attendNext());   // A queda COMPLETADO
+        int entries = controller.getActionStack().undoSize();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.batch(List.of(b.getId(), a.getId()), TicketState.URGENTE));
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.batch(List.of(b.getId(), 999), TicketState.URGENTE));
+        assertEquals(TicketState.EN_COLA, b.getState());
+        assertTrue(controller.getAttentionQueue().getUrgentQueue().isEmpty());
+        assertEquals(entries, controller.getActionStack().undoSize());
+        controller.shutdown();
+    }
+
+    @Test
+    @DisplayName("Lote: atómico (si un comando falla se revierten los anteriores) y se conserva en el diario")
+    void batchIsAtomicAndJournaled(@TempDir Path dir) {
+        Ticket t = new Ticket("Ana", ProcedureType.OTRO);
+        t.setId(1);
+        IAction failing = new IAction() {
+            @Override
+            public void execute() {
+                throw new IllegalStateException("falla");
+            }
+
+            @Override
+            public void undo() {
+            }
+        };
+        BatchCommand broken = new BatchCommand(List.of(new AddNoteCommand(t, new Note("a")), failing));
+        assertThrows(IllegalStateException.class, broken::execute);
+        assertTrue(t.getNoteHistory().isEmpty());
+
+        CaeController first = controllerOn(dir);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) ids.add(first.createTicket("E" + i, ProcedureType.OTRO, false).getId());
+        first.batch(ids.subList(0, 2), TicketState.URGENTE);
+        first.shutdown();
+
+        CaeController second = controllerOn(dir);
+        second.start();
+        assertEquals(ids.subList(0, 2), idsOf(second.getAttentionQueue().getUrgentQueue()));
+        second.undo();
+        assertTrue(second.getAttentionQueue().getUrgentQueue().isEmpty());
+        assertEquals(4, second.getAttentionQueue().getNormalQueue().size());
+        assertEquals(0, second.getActionStack().getDroppedCount());
+        second.shutdown();
+    }
+}
@@ -0,0 +1,59 @@
+package controller.event;
+
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketEvent;
+import domine.TicketState;
+import util.SystemClock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de eventos/seg con varios suscriptores (la mitad por lotes, la mitad evento a evento).
+ *
+ * Uso: java controller.event.TicketEventBenchmark [eventos] [suscriptores] [tamañoLote]
+ */
+public class TicketEventBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int subscribers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(2, subscribers));
+        TicketEventPublisher publisher = new TicketEventPublisher(new SystemClock(), executor, 8192);
+        List<BatchingSubscriber> subs = new ArrayList<>();
+        for (int i = 0; i < subscribers; i++) {
+            int size = (i % 2 == 0) ? batchSize : 1;
+            subs.add(publisher.subscribeBatched(size, Duration.ofMillis(50), batch -> { }));
+        }
+
+        Ticket t = new Ticket("Benchmark", ProcedureType.MATRICULA);
+        t.setId(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            publisher.publish(TicketEvent.Type.STATE_CHANGED, t, TicketState.EN_COLA, TicketState.EN_ATENCION, null);
+        }
+        long publishNanos = System.nanoTime() - start;
+        publisher.close();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        long totalNanos = System.nanoTime() - start;
+
+        long delivered = 0;
+        for (BatchingSubscriber s : subs) delivered += s.getDeliveredCount();
+        System.out.printf("Eventos: %d | Suscriptores: %d (lote %d / 1)%n", events, subscribers, batchSize);
+        System.out.printf("Publicación: %.0f eventos/s (%.1f ms)%n", events / (publishNanos / 1e9), publishNanos / 1e6);
+        System.out.printf("Entrega: %.0f entregas/s | entregados: %d | descartados: %d%n",
+                delivered / (totalNanos / 1e9), delivered, publisher.getDroppedCount());
+        for (int i = 0; i < subs.size(); i++) {
+            System.out.printf("  suscriptor %d: %d eventos en %d lotes%n",
+                    i, subs.get(i).getDeliveredCount(), subs.get(i).getBatchCount());
+        }
+    }
+}
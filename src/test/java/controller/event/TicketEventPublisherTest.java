@@ -0,0 +1,159 @@
+package controller.event;
+
+import controller.command.AddNoteCommand;
+import controller.command.AddTicketCommand;
+import controller.command.CloseCaseCommand;
+import domine.Note;
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketEvent;
+import domine.TicketState;
+import estructures.Queue;
+import estructures.SimpleList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import util.SystemClock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketEventPublisherTest {
+
+    @Test
+    @DisplayName("Los comandos publican eventos tipados en orden, entregados en lotes")
+    void commandsPublishEventsInBatches() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        TicketEventPublisher events = new TicketEventPublisher(new SystemClock(), executor, 16);
+        List<TicketEvent> received = new ArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        events.subscribeBatched(2, Duration.ofSeconds(1), batch -> {
+            synchronized (received) {
+                received.addAll(batch);
+            }
+        });
+        events.subscribe(new BatchingSubscriber(100, null, b -> {}) {
+            @Override
+            public void onComplete() {
+                super.onComplete();
+                completed.countDown();
+            }
+        });
+
+        Ticket t = new Ticket("Ana", ProcedureType.CERTIFICADO);
+        t.setId(7);
+        Queue<Ticket> queue = new Queue<>();
+        SimpleList<Ticket> history = new SimpleList<>();
+        new AddTicketCommand(queue, t, events).execute();
+        new AddNoteCommand(t, new Note("falta cédula"), events).execute();
+        new CloseCaseCommand(t, queue, history, events).execute();
+
+        events.close();
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(3, received.size());
+        assertEquals(TicketEvent.Type.CREATED, received.get(0).getType());
+        assertEquals(TicketEvent.Type.NOTE_ADDED, received.get(1).getType());
+        assertEquals("falta cédula", received.get(1).getDetail());
+        assertEquals(TicketEvent.Type.CLOSED, received.get(2).getType());
+        assertEquals(7, received.get(2).getTicketId());
+        assertEquals(0, events.getDroppedCount());
+    }
+
+    @Test
+    @DisplayName("Deshacer un cierre restaura el estado previo y publica REOPENED con el ticket ya en su cola")
+    void undoCloseRestoresPriorStateAndPublishesAfterMove() {
+        TicketEventPublisher events = new TicketEventPublisher(new SystemClock(), Runnable::run, 16);
+        Queue<Ticket> queue = new Queue<>();
+        SimpleList<Ticket> history = new SimpleList<>();
+        List<String> seen = new ArrayList<>();
+        events.subscribeBatched(1, null, batch -> {
+            for (TicketEvent e : batch) seen.add(e.getType() + " " + e.getToState() + " en_cola=" + queue.size());
+        });
+
+        Ticket t = new Ticket("Ana", ProcedureType.CERTIFICADO);
+        t.setId(7);
+        queue.enqueue(t);
+        t.setState(TicketState.EN_ATENCION);
+        CloseCaseCommand close = new CloseCaseCommand(t, queue, history, events);
+        close.execute();
+        close.undo();
+
+        assertEquals(TicketState.EN_ATENCION, t.getState());
+        assertSame(t, queue.peek());
+        assertEquals(List.of("CLOSED COMPLETADO en_cola=0", "REOPENED EN_ATENCION en_cola=1"), seen);
+
+        // si el ticket ya no está en el historial, undo falla sin tocar el estado ni publicar
+        close.execute();
+        history.clear();
+        assertThrows(NoSuchElementException.class, close::undo);
+        assertEquals(TicketState.COMPLETADO, t.getState());
+        assertEquals(3, seen.size());
+        events.close();
+    }
+
+    @Test
+    @DisplayName("Un suscriptor lento no bloquea la publicación: se descartan eventos")
+    void slowSubscriberNeverBlocksPublisher() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        TicketEventPublisher events = new TicketEventPublisher(new SystemClock(), executor, 4);
+        CountDownLatch release = new CountDownLatch(1);
+        events.subscribeBatched(1, null, batch -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Ticket t = new Ticket("Luis", ProcedureType.OTRO);
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            events.publish(TicketEvent.Type.NOTE_ADDED, t, null, null, "n" + i);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        release.countDown();
+        events.close();
+        executor.shutdownNow();
+
+        assertEquals(1000, events.getPublishedCount());
+        assertTrue(events.getDroppedCount() > 0);
+        assertTrue(elapsedMs < 5000, "publish() no debe esperar al suscriptor");
+    }
+
+    @Test
+    @DisplayName("Un lote incompleto se entrega al cumplir maxDelay aunque no lleguen más eventos")
+    void partialBatchIsFlushedByTimer() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        TicketEventPublisher events = new TicketEventPublisher(new SystemClock(), executor, 16);
+        CountDownLatch delivered = new CountDownLatch(1);
+        List<Integer> sizes = new ArrayList<>();
+        BatchingSubscriber sub = events.subscribeBatched(100, Duration.ofMillis(50), batch -> {
+            synchronized (sizes) {
+                sizes.add(batch.size());
+            }
+            delivered.countDown();
+        });
+
+        Ticket t = new Ticket("Ana", ProcedureType.OTRO);
+        t.setId(1);
+        for (int i = 0; i < 3; i++) events.publish(TicketEvent.Type.CREATED, t, null, t.getState(), null);
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS), "el lote parcial no se entregó");
+        assertEquals(3, sub.getDeliveredCount());
+        events.close();
+        executor.shutdown();
+        synchronized (sizes) {
+            assertEquals(List.of(3), sizes);
+        }
+    }
+}
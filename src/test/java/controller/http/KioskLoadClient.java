@@ -0,0 +1,84 @@
+package controller.http;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cliente de carga para CaeHttpServer: simula miles de kioscos concurrentes en localhost.
+ * Cada kiosco crea tickets y, cada 10 peticiones, consulta la lista de pendientes
+ * (como lo haría una pantalla de sala de espera). Al final reporta throughput y latencias p50/p99.
+ *
+ * Uso: java controller.http.KioskLoadClient [baseUrl] [kioscos] [peticionesPorKiosco]
+ *   baseUrl por defecto: http://localhost:8080
+ */
+public class KioskLoadClient {
+
+    private static final String[] TYPES = {"CERTIFICADO", "MATRICULA", "HOMOLOGACION", "RETIRO_ASIGNATURA", "OTRO"};
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int kiosks = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int perKiosk = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        long[][] latencies = new long[kiosks][perKiosk];
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(kiosks);
+        ExecutorService executor = CaeHttpServer.newPerRequestExecutor();
+
+        long start = System.nanoTime();
+        for (int k = 0; k < kiosks; k++) {
+            final int kiosk = k;
+            executor.execute(() -> {
+                try {
+                    for (int i = 0; i < perKiosk; i++) {
+                        HttpRequest req = (i % 10 == 9)
+                                ? HttpRequest.newBuilder(URI.create(baseUrl + "/tickets/pending")).GET().build()
+                                : HttpRequest.newBuilder(URI.create(baseUrl + "/tickets"))
+                                    .header("Content-Type", "application/x-www-form-urlencoded")
+                                    .POST(HttpRequest.BodyPublishers.ofString(
+                                            "student=Kiosco+" + kiosk + "&type=" + TYPES[i % TYPES.length]
+                                                    + "&urgent=" + (i % 7 == 0)))
+                                    .build();
+                        long t0 = System.nanoTime();
+                        try {
+                            HttpResponse<Void> resp = client.send(req, HttpResponse.BodyHandlers.discarding());
+                            if (resp.statusCode() >= 400) errors.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[kiosk][i] = System.nanoTime() - t0;
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = elapsed / 1e9;
+        System.out.printf("Kioscos: %d | Peticiones: %d | Errores: %d | Tiempo: %.2f s%n",
+                kiosks, all.length, errors.get(), seconds);
+        System.out.printf("Throughput: %.0f req/s%n", all.length / seconds);
+        System.out.printf("Latencia p50: %.2f ms | p99: %.2f ms | max: %.2f ms%n",
+                percentile(all, 50) / 1e6, percentile(all, 99) / 1e6, all[all.length - 1] / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,88 @@
+package domine;
+
+import controller.command.AddNoteCommand;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteIndexTest {
+
+    private NoteIndex index;
+    private Ticket t1;
+    private Ticket t2;
+
+    @BeforeEach
+    void setUp() {
+        index = new NoteIndex();
+        t1 = new Ticket("Ana", ProcedureType.MATRICULA);
+        t1.setId(1);
+        t2 = new Ticket("Luis", ProcedureType.CERTIFICADO);
+        t2.setId(2);
+    }
+
+    private AddNoteCommand note(Ticket t, String text) {
+        AddNoteCommand cmd = new AddNoteCommand(t, new Note(text), null, index);
+        cmd.execute();
+        return cmd;
+    }
+
+    @Test
+    @DisplayName("Términos sin tildes ni mayúsculas, prefijos y orden por coincidencias")
+    void termPrefixAndRanking() {
+        note(t1, "Falta CÉDULA del estudiante");
+        note(t2, "Pago pendiente; falta cédula y cedulación");
+        note(t2, "Se recibió la cédula");
+
+        assertEquals(List.of(2, 1), index.searchTerm("cedula"));
+        assertEquals(List.of(2, 1), index.searchPrefix("céd"));
+        assertEquals(List.of(2), index.searchTerm("Pago"));
+        assertEquals(List.of(2, 1), index.search("falta pago"));
+        assertEquals(List.of(2), index.search("cedulac*"));
+        assertTrue(index.searchTerm("de").isEmpty()); // palabra vacía
+    }
+
+    @Test
+    @DisplayName("Deshacer la nota la quita del índice")
+    void undoRemovesPostings() {
+        note(t1, "pago pendiente");
+        AddNoteCommand cmd = note(t2, "pago pendiente");
+        cmd.undo();
+        assertEquals(List.of(1), index.searchTerm("pago"));
+        assertEquals(1, index.noteCount());
+
+        index.removeTicket(1);
+        assertTrue(index.searchTerm("pago").isEmpty());
+        assertEquals(0, index.termCount());
+    }
+
+    @Test
+    @DisplayName("Se guarda y carga en formato binario compacto")
+    void binaryRoundTrip() throws IOException {
+        for (int id = 1; id <= 500; id++) {
+            Ticket t = new Ticket("E" + id, ProcedureType.OTRO);
+            t.setId(id);
+            note(t, id % 2 == 0 ? "falta cédula" : "pago pendiente número " + id);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+
+        NoteIndex loaded = new NoteIndex();
+        loaded.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(index.noteCount(), loaded.noteCount());
+        assertEquals(index.termCount(), loaded.termCount());
+        assertEquals(index.search("cedula pago"), loaded.search("cedula pago"));
+        assertEquals(List.of(7), loaded.searchTerm("7"));
+
+        loaded.removeTicket(2); // el índice de ids por ticket también se reconstruye
+        assertEquals(249, loaded.searchTerm("cedula").size());
+    }
+}
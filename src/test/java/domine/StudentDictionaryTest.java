@@ -0,0 +1,131 @@
+package domine;
+
+import estructures.Queue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.PersistenceManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentDictionaryTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    @DisplayName("Códigos compactos, instancia compartida y límite de entradas")
+    void codesAndBound() {
+        StudentDictionary dict = new StudentDictionary(2);
+        assertEquals(0, dict.code("Ana"));
+        assertEquals(1, dict.code("Luis"));
+        assertEquals(0, dict.code(new String("Ana")));
+
+        String copy = new String("Luis");
+        assertSame(dict.name(1), dict.canonical(copy));
+
+        // lleno: los nombres nuevos no reciben código y se usan tal cual
+        assertTrue(dict.isFull());
+        assertEquals(StudentDictionary.NO_CODE, dict.code("Eva"));
+        String eva = new String("Eva");
+        assertSame(eva, dict.canonical(eva));
+        assertEquals(2, dict.size());
+        assertThrows(IllegalArgumentException.class, () -> dict.name(2));
+    }
+
+    @Test
+    @DisplayName("Altas concurrentes: cada nombre recibe un único código")
+    void concurrentIntake() throws Exception {
+        StudentDictionary dict = new StudentDictionary();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch go = new CountDownLatch(1);
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        for (int w = 0; w < 8; w++) {
+            pool.execute(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 2_000; i++) {
+                    String name = "Estudiante " + i;
+                    int code = dict.code(name);
+                    if (!dict.name(code).equals(name)) seen.add("mal: " + name);
+                    seen.add(name + "=" + code);
+                }
+            });
+        }
+        go.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(2_000, dict.size());
+        assertEquals(2_000, seen.size()); // sin errores y un solo código por nombre
+    }
+
+    @Test
+    @DisplayName("Los snapshots guardan el código y al recargar se recupera el mismo diccionario")
+    void persistedWithSnapshots() throws Exception {
+        PersistenceManager pm = new PersistenceManager(dataDir.toString());
+        Ticket a = new Ticket("Ana, Perez", ProcedureType.MATRICULA);
+        a.setId(1);
+        Ticket b = new Ticket("Luis", ProcedureType.CERTIFICADO);
+        b.setId(2);
+        Ticket c = new Ticket("Ana, Perez", ProcedureType.HOMOLOGACION);
+        c.setId(3);
+        c.setState(TicketState.COMPLETADO);
+        pm.saveHistory(List.of(a, b, c));
+        pm.saveHistory(List.of(a, b, c)); // sin códigos nuevos: no repite líneas
+
+        List<String> dictLines = Files.readAllLines(dataDir.resolve("students.csv"));
+        assertEquals(List.of("code,name", "0,\"Ana, Perez\"", "1,Luis"), dictLines);
+        assertTrue(Files.readAllLines(dataDir.resolve("completed_history.csv")).get(1).startsWith("1,0,,"));
+
+        PersistenceManager reloaded = new PersistenceManager(dataDir.toString());
+        assertEquals(2, reloaded.getStudentDictionary().size());
+        Queue<Ticket> pending = new Queue<>();
+        Queue<Ticket> history = new Queue<>();
+        reloaded.loadData(pending, history);
+        Ticket first = history.dequeue();
+        history.dequeue();
+        Ticket third = history.dequeue();
+        assertEquals("Ana, Perez", first.getStudent());
+        assertSame(first.getStudent(), third.getStudent());
+        assertEquals(TicketState.COMPLETADO, third.getState());
+
+        // un estudiante nuevo se agrega al final del archivo con el siguiente código
+        Ticket d = new Ticket("Eva", ProcedureType.MATRICULA);
+        d.setId(4);
+        reloaded.saveHistory(List.of(first, third, d));
+        assertEquals("2,Eva", Files.readAllLines(dataDir.resolve("students.csv")).get(3));
+    }
+
+    @Test
+    @DisplayName("Se siguen leyendo los archivos con el nombre en texto (formato anterior)")
+    void readsLegacyFormat() throws Exception {
+        Files.write(dataDir.resolve("pending_tickets.csv"), List.of(
+                "id,student,procedure,state,created",
+                "7,Marta,MATRICULA,EN_COLA,2025-03-01T08:00",
+                "8,Marta,CERTIFICADO,URGENTE,"));
+        PersistenceManager pm = new PersistenceManager(dataDir.toString());
+        Queue<Ticket> pending = new Queue<>();
+        pm.loadData(pending, new Queue<>());
+        Ticket t7 = pending.dequeue();
+        Ticket t8 = pending.dequeue();
+        assertEquals(7, t7.getId());
+        assertSame(t7.getStudent(), t8.getStudent());
+        assertEquals(TicketState.URGENTE, t8.getState());
+        assertEquals(0, pm.getStudentDictionary().lookup("Marta"));
+    }
+}
@@ -0,0 +1,91 @@
+package domine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketQueryTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    private TicketIndex index;
+    private final List<Ticket> all = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        index = new TicketIndex();
+        all.clear();
+        ProcedureType[] types = ProcedureType.values();
+        TicketState[] states = { TicketState.EN_COLA, TicketState.URGENTE, TicketState.COMPLETADO };
+        for (int id = 1; id <= 60; id++) {
+            Ticket t = new Ticket(id % 10 == 0 ? "Ana Pérez" : "Estudiante " + id, types[id % types.length]);
+            t.setId(id);
+            t.setState(states[id % states.length]);
+            t.setCreatedAt(BASE.plusMinutes(id));
+            for (int n = 0; n < id % 4; n++) t.getNoteHistory().pushBack(new Note("nota " + n));
+            index.add(t);
+            all.add(t);
+        }
+    }
+
+    private static List<Integer> ids(List<Ticket> tickets) {
+        return tickets.stream().map(Ticket::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Los filtros combinados equivalen a filtrar la lista completa")
+    void filtersMatchBruteForce() {
+        List<Ticket> found = new TicketQuery()
+                .states(TicketState.EN_COLA, TicketState.URGENTE)
+                .types(ProcedureType.values()[0])
+                .minNotes(1).maxNotes(2)
+                .createdBetween(BASE.plusMinutes(10), BASE.plusMinutes(50))
+                .list(index);
+
+        List<Integer> expected = all.stream()
+                .filter(t -> t.getState() != TicketState.COMPLETADO)
+                .filter(t -> t.getProcedureType() == ProcedureType.values()[0])
+                .filter(t -> t.getNoteHistory().size() >= 1 && t.getNoteHistory().size() <= 2)
+                .filter(t -> t.getId() >= 10 && t.getId() < 50)
+                .map(Ticket::getId).collect(Collectors.toList());
+        assertEquals(expected, ids(found));
+        assertFalse(expected.isEmpty());
+    }
+
+    @Test
+    @DisplayName("El planificador elige rango de ids, estudiante, bitmaps o recorrido completo")
+    void plannerPicksCheapestPath() {
+        assertEquals(TicketQuery.AccessPath.ID_RANGE, new TicketQuery().idBetween(5, 7).plan(index).getAccessPath());
+        assertEquals(List.of(5, 6, 7), ids(new TicketQuery().idBetween(5, 7).list(index)));
+
+        TicketQuery byStudent = new TicketQuery().student("ana perez").states(TicketState.EN_COLA);
+        assertEquals(TicketQuery.AccessPath.STUDENT, byStudent.plan(index).getAccessPath());
+        assertEquals(List.of(30, 60), ids(byStudent.list(index)));
+
+        assertEquals(TicketQuery.AccessPath.BITMAP,
+                new TicketQuery().states(TicketState.URGENTE).plan(index).getAccessPath());
+        assertEquals(TicketQuery.AccessPath.FULL_SCAN, new TicketQuery().maxNotes(2).plan(index).getAccessPath());
+        assertEquals(45, new TicketQuery().maxNotes(2).count(index));
+    }
+
+    @Test
+    @DisplayName("Orden, offset y límite (top-k con montículo)")
+    void sortOffsetAndLimit() {
+        List<Ticket> top = new TicketQuery().orderBy(TicketQuery.SortField.NOTES, true).limit(5).list(index);
+        assertEquals(List.of(3, 7, 11, 15, 19), ids(top)); // 3 notas, desempate por id
+
+        List<Ticket> page = new TicketQuery().states(TicketState.COMPLETADO)
+                .orderBy(TicketQuery.SortField.CREATED, true).offset(2).limit(3).list(index);
+        assertEquals(List.of(53, 50, 47), ids(page));
+
+        assertEquals(List.of(4, 5), ids(new TicketQuery().offset(3).limit(2).list(index)));
+        assertTrue(new TicketQuery().limit(0).list(index).isEmpty());
+    }
+}
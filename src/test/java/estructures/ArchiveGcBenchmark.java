@@ -0,0 +1,71 @@
+package estructures;
+
+import domine.Note;
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pausas de GC según dónde vive el historial atendido: objetos en memoria, HistoryTable (en el
+ * heap, por columnas) y OffHeapArchive (fuera del heap). Con el historial ya armado mide la
+ * pausa de un GC completo (promedio de System.gc(), que recorre y compacta todo lo vivo), el
+ * heap que queda ocupado y, para el archivo fuera del heap, los bytes en losas.
+ * Con objetos la pausa crece con el historial; fuera del heap solo quedan unos arreglos
+ * primitivos (índice id -> dirección) que el GC no recorre por dentro.
+ *
+ * Uso: java -Xms4g -Xmx4g estructures.ArchiveGcBenchmark [tickets=2000000] [notasCada=5]
+ */
+public class ArchiveGcBenchmark {
+
+    private static final String[] TEXTS = {
+            "Falta cédula", "Pago verificado", "Se envió correo al estudiante", "Listo para firma"
+    };
+
+    public static void main(String[] args) {
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int notesEvery = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        System.out.printf("%,d tickets atendidos (uno de cada %d con notas)%n", tickets, notesEvery);
+        measure("Sin historial", null, 0, notesEvery);
+        measure("Objetos en memoria", new AttentionQueue(), tickets, notesEvery);
+        measure("HistoryTable", withArchive(new HistoryTable()), tickets, notesEvery);
+        measure("OffHeapArchive", withArchive(new OffHeapArchive()), tickets, notesEvery);
+    }
+
+    private static AttentionQueue withArchive(TicketArchive archive) {
+        AttentionQueue queue = new AttentionQueue();
+        queue.setArchive(archive);
+        queue.setHistoryWindow(0);
+        return queue;
+    }
+
+    private static void measure(String name, AttentionQueue queue, int tickets, int notesEvery) {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 8, 0);
+        ProcedureType[] types = ProcedureType.values();
+        for (int id = 1; id <= tickets; id++) {
+            Ticket t = new Ticket("Estudiante " + (id % 50_000), types[id % types.length]);
+            t.setId(id);
+            t.setState(TicketState.COMPLETADO);
+            t.setCreatedAt(base.plusSeconds(id));
+            if (id % notesEvery == 0) t.getNoteHistory().pushBack(new Note(TEXTS[id % TEXTS.length], base.plusSeconds(id)));
+            queue.moveToHistory(t);
+        }
+
+        long fullGc = 0;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            System.gc();
+            fullGc += System.nanoTime() - start;
+        }
+
+        Runtime rt = Runtime.getRuntime();
+        long heap = rt.totalMemory() - rt.freeMemory();
+        TicketArchive archive = queue == null ? null : queue.getArchive();
+        String offHeap = archive instanceof OffHeapArchive
+                ? String.format("  fuera del heap=%,d MB", ((OffHeapArchive) archive).reservedBytes() >> 20) : "";
+        System.out.printf("%-20s GC completo=%.1f ms  heap=%,d MB%s%n",
+                name, fullGc / 3 / 1e6, heap >> 20, offHeap);
+        if (queue != null && queue.getHistorySize() != tickets) throw new IllegalStateException("tamaño inesperado");
+    }
+}
@@ -1,10 +1,22 @@
 package estructures;
 
+import domine.Note;
+import domine.ProcedureType;
+import domine.StudentDictionary;
+import domine.Ticket;
+import domine.TicketState;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.EmptyStackException;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
 import static org.junit.jupiter.api.Assertions.*;
 
 class EstructuresTest {
@@ -41,6 +53,227 @@ class EstructuresTest {
 
     // --- Queue<T> ---
 
+    @Test
+    @DisplayName("SimpleList: tail y tamaño se mantienen tras altas y bajas; ventana de últimos n")
+    void simpleListTailSizeAndWindow() {
+        SimpleList<Integer> list = new SimpleList<>();
+        for (int i = 1; i <= 5; i++) list.pushBack(i);
+        list.pushFront(0);
+        list.remove(5);                 // el último: tail retrocede
+        list.pushBack(6);
+        list.remove(0);                 // el primero
+        assertEquals(5, list.size());
+        assertEquals(6, list.last());
+
+        StringBuilder all = new StringBuilder();
+        for (int v : list) all.append(v);
+        assertEquals("12346", all.toString());
+
+        StringBuilder window = new StringBuilder();
+        for (int v : list.lastN(2)) window.append(v);
+        assertEquals("46", window.toString());
+        assertEquals(5, countOf(list.lastN(10)));
+
+        list.clear();
+        list.pushBack(7);
+        assertEquals(1, list.size());
+        assertEquals(7, list.last());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.findByIndex(1));
+    }
+
+    @Test
+    @DisplayName("UnrolledNoteList: se comporta como SimpleList a lo largo de varios bloques")
+    void unrolledNoteListMatchesSimpleList() {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 8, 0, 0, 123_456_789);
+        SimpleList<Note> expected = new SimpleList<>();
+        UnrolledNoteList notes = new UnrolledNoteList();
+        for (int i = 0; i < 200; i++) {
+            Note n = new Note("nota " + i, base.plusSeconds(i));
+            if (i % 7 == 0) {
+                expected.pushFront(n);
+                notes.pushFront(n);
+            } else {
+                expected.pushBack(n);
+                notes.pushBack(n);
+            }
+        }
+        for (int i = 0; i < 200; i += 3) {
+            Note n = new Note("nota " + i, base.plusSeconds(i));
+            assertEquals(expected.remove(n), notes.remove(n)); // iguales al milisegundo
+        }
+        assertEquals(expected.size(), notes.size());
+        Iterator<Note> it = notes.iterator();
+        for (Note n : expected) assertEquals(n, it.next());
+        assertFalse(it.hasNext());
+        assertEquals(expected.findByIndex(50), notes.findByIndex(50));
+        assertEquals(expected.last(), notes.last());
+
+        Iterator<Note> window = notes.lastN(3).iterator();
+        for (Note n : expected.lastN(3)) assertEquals(n, window.next());
+        assertFalse(window.hasNext());
+        assertTrue(notes.chunkCount() < notes.size() / 4);
+
+        notes.clear();
+        assertTrue(notes.isEmpty());
+        assertThrows(NoSuchElementException.class, () -> notes.remove(new Note("x")));
+    }
+
+    @Test
+    @DisplayName("Ticket.notesSince: una nota sin marca de tiempo cuenta como anterior")
+    void notesSinceSkipsUndatedNotes() {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 8, 0);
+        Ticket t = new Ticket("Ana", ProcedureType.OTRO);
+        t.getNoteHistory().pushBack(new Note("sin fecha", null));
+        t.getNoteHistory().pushBack(new Note("antes", base.minusHours(1)));
+        t.getNoteHistory().pushBack(new Note("después", base.plusHours(1)));
+
+        List<String> since = new ArrayList<>();
+        for (Note n : t.notesSince(base)) since.add(n.getObservation());
+        assertEquals(List.of("después"), since);
+    }
+
+    @Test
+    @DisplayName("HistoryTable: filas por columnas, vistas de solo lectura, purga y conteos")
+    void historyTableColumnsAndViews() {
+        HistoryTable table = new HistoryTable();
+        ProcedureType[] types = ProcedureType.values();
+        for (int id = 1; id <= 100; id++) {
+            Ticket t = new Ticket("Estudiante " + (id % 7), types[id % types.length]);
+            t.setId(id);
+            t.setState(TicketState.COMPLETADO);
+            t.setCreatedAt(LocalDateTime.of(2025, 3, 1, 8, 0).plusMinutes(id));
+            if (id % 10 == 0) t.getNoteHistory().pushBack(new Note("nota " + id));
+            table.append(t);
+        }
+        assertEquals(100, table.size());
+        assertEquals(7, table.studentCount());
+
+        Ticket view = table.findById(40);
+        assertEquals(40, view.getId());
+        assertEquals("Estudiante 5", view.getStudent());
+        assertEquals(types[40 % types.length], view.getProcedureType());
+        assertEquals(LocalDateTime.of(2025, 3, 1, 8, 40), view.getCreatedAt());
+        assertEquals(1, view.getNoteHistory().size());
+        assertThrows(UnsupportedOperationException.class, () -> view.setState(TicketState.EN_COLA));
+        assertThrows(UnsupportedOperationException.class, () -> view.getNoteHistory().pushBack(new Note("x")));
+
+        assertTrue(table.remove(40));
+        assertFalse(table.remove(40));
+        assertNull(table.findById(40));
+        assertEquals(99, countOf(table));
+        assertEquals(9, table.count(TicketState.COMPLETADO, null, true));
+        long expected = 0;
+        for (int id = 1; id <= 100; id++) if (id != 40 && id % types.length == 0) expected++;
+        assertEquals(expected, table.count(null, types[0], null));
+
+        List<Ticket> page = new ArrayList<>();
+        long pos = table.collect(36, 5, page);   // filas 37..42 sin la purgada (id 40)
+        assertEquals(List.of(38, 39, 41, 42, 43),
+                page.stream().map(Ticket::getId).collect(Collectors.toList()));
+        assertTrue(table.hasAfter(pos));
+    }
+
+    @Test
+    @DisplayName("OffHeapArchive: ida y vuelta por losas, lista libre, nombres sin código y conteos")
+    void offHeapArchiveRoundTripAndReuse() {
+        // losas chicas para forzar varias y un ticket con notas que necesita losa propia
+        OffHeapArchive archive = new OffHeapArchive(new StudentDictionary(3), 1024);
+        ProcedureType[] types = ProcedureType.values();
+        for (int id = 1; id <= 200; id++) {
+            Ticket t = new Ticket("Estudiante " + (id % 5), types[id % types.length]);
+            t.setId(id);
+            t.setState(TicketState.COMPLETADO);
+            t.setCreatedAt(LocalDateTime.of(2025, 3, 1, 8, 0).plusMinutes(id));
+            if (id % 10 == 0) t.getNoteHistory().pushBack(new Note("nota ñ " + id, LocalDateTime.of(2025, 3, 2, 9, 0)));
+            if (id == 100) for (int n = 0; n < 200; n++) t.getNoteHistory().pushBack(new Note("larga " + n));
+            archive.append(t);
+        }
+        assertEquals(200, archive.size());
+        assertTrue(archive.slabCount() > 1);
+
+        Ticket view = archive.findById(40);
+        assertEquals("Estudiante 0", view.getStudent());
+        assertEquals(types[40 % types.length], view.getProcedureType());
+        assertEquals(LocalDateTime.of(2025, 3, 1, 8, 40), view.getCreatedAt());
+        assertEquals(new Note("nota ñ 40", LocalDateTime.of(2025, 3, 2, 9, 0)), view.getNoteHistory().last());
+        assertEquals("Estudiante 4", archive.findById(4).getStudent()); // diccionario lleno: nombre en el bloque
+        assertEquals(201, archive.findById(100).getNoteHistory().size());
+        assertThrows(UnsupportedOperationException.class, () -> view.setState(TicketState.EN_COLA));
+        assertEquals(20, archive.count(TicketState.COMPLETADO, null, true));
+
+        // los bloques purgados se reutilizan antes de pedir otra losa
+        for (int id = 1; id <= 50; id++) assertTrue(archive.remove(id));
+        assertFalse(archive.remove(1));
+        assertNull(archive.findById(1));
+        int slabs = archive.slabCount();
+        int free = archive.freeBlockCount();
+        for (int id = 201; id <= 230; id++) {
+            Ticket t = new Ticket("Estudiante 1", types[0]);
+            t.setId(id);
+            t.setState(TicketState.COMPLETADO);
+            archive.append(t);
+        }
+        assertEquals(slabs, archive.slabCount());
+        assertTrue(archive.freeBlockCount() < free);
+        assertEquals(180, countOf(archive));
+
+        List<Ticket> page = new ArrayList<>();
+        long pos = archive.collect(-1, 3, page);
+        assertEquals(List.of(51, 52, 53), page.stream().map(Ticket::getId).collect(Collectors.toList()));
+        assertTrue(archive.hasAfter(pos));
+    }
+
+    @Test
+    @DisplayName("DiskArchive: lecturas desde disco con caché LRU acotada, purga y paginación")
+    void diskArchiveWithLruCache(@TempDir Path dir) throws Exception {
+        ProcedureType[] types = ProcedureType.values();
+        try (DiskArchive archive = new DiskArchive(dir, new StudentDictionary(), 2)) {
+            for (int id = 1; id <= 30; id++) {
+                Ticket t = new Ticket("Estudiante " + (id % 4), types[id % types.length]);
+                t.setId(id);
+                t.setState(TicketState.COMPLETADO);
+                t.setCreatedAt(LocalDateTime.of(2025, 3, 1, 8, 0).plusMinutes(id));
+                if (id % 3 == 0) t.getNoteHistory().pushBack(new Note("nota " + id, LocalDateTime.of(2025, 3, 2, 9, 0)));
+                archive.append(t);
+            }
+            assertEquals(30, archive.size());
+            assertEquals(10, archive.count(null, null, true));
+            assertNull(archive.findById(99));
+
+            Ticket t9 = archive.findById(9);
+            assertEquals("Estudiante 1", t9.getStudent());
+            assertEquals(new Note("nota 9", LocalDateTime.of(2025, 3, 2, 9, 0)), t9.getNoteHistory().last());
+            assertSame(t9, archive.findById(9));             // acierto
+            archive.findById(10);
+            archive.findById(11);                             // desaloja el 9 (el menos usado)
+            assertEquals(2, archive.getCacheSize());
+            assertEquals(1, archive.getCacheHits());
+            assertEquals(4, archive.getCacheMisses());
+            assertEquals(1, archive.getCacheEvictions());
+            assertEquals(t9, archive.findById(9));            // vuelve a leerse de disco
+
+            assertTrue(archive.remove(10));
+            assertFalse(archive.remove(10));
+            assertNull(archive.findById(10));
+            assertEquals(29, countOf(archive));
+            assertEquals(19, archive.count(TicketState.COMPLETADO, null, false));
+
+            List<Ticket> page = new ArrayList<>();
+            long pos = archive.collect(-1, 9, page);
+            assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9), page.stream().map(Ticket::getId).collect(Collectors.toList()));
+            page.clear();
+            archive.collect(pos, 2, page);                    // salta el purgado
+            assertEquals(List.of(11, 12), page.stream().map(Ticket::getId).collect(Collectors.toList()));
+            assertTrue(archive.hasAfter(pos));
+        }
+    }
+
+    private static int countOf(Iterable<?> items) {
+        int n = 0;
+        for (Object ignored : items) n++;
+        return n;
+    }
+
     @Test
     @DisplayName("Queue: Correcto: encuentra y remueve por contenido (.equals())")
     void queueFindAndRemoveWorksCorrectly() {
@@ -95,4 +328,151 @@ class EstructuresTest {
         Stack<Integer> stack = new Stack<>();
         assertThrows(EmptyStackException.class, stack::pop);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Stack: truncate deja los más recientes y devuelve los antiguos en orden")
+    void stackTruncateKeepsTop() {
+        Stack<Integer> stack = new Stack<>();
+        for (int i = 1; i <= 6; i++) stack.push(i);
+
+        assertEquals(List.of(1, 2, 3, 4), stack.truncate(2));
+        assertEquals(2, stack.size());
+        List<Integer> rest = new ArrayList<>();
+        for (int v : stack) rest.add(v);
+        assertEquals(List.of(6, 5), rest);
+        assertTrue(stack.truncate(5).isEmpty());
+
+        assertEquals(List.of(5, 6), stack.truncate(0));
+        assertTrue(stack.isEmpty());
+        assertEquals(0, stack.size());
+    }
+
+    // --- IndexedMinHeap<T> ---
+
+    @Test
+    @DisplayName("IndexedMinHeap: orden por clave, FIFO en empates, remove y updateKey")
+    void indexedMinHeapOrdering() {
+        IndexedMinHeap<String> heap = new IndexedMinHeap<>(2);
+        heap.add("c", 30);
+        heap.add("a", 10);
+        heap.add("b1", 20);
+        heap.add("b2", 20);
+        heap.add("d", 40);
+
+        assertEquals("a", heap.peek());
+        assertTrue(heap.remove("a"));
+        assertFalse(heap.remove("a"));
+        heap.updateKey("d", 5);
+        assertEquals(5, heap.keyOf("d"));
+
+        assertEquals("d", heap.poll());
+        assertEquals("b1", heap.poll());
+        assertEquals("b2", heap.poll());
+        assertEquals("c", heap.poll());
+        assertTrue(heap.isEmpty());
+        assertThrows(NoSuchElementException.class, heap::peek);
+    }
+
+    @Test
+    @DisplayName("IndexedMinHeap: se mantiene consistente con muchas altas y bajas")
+    void indexedMinHeapRandomized() {
+        IndexedMinHeap<Integer> heap = new IndexedMinHeap<>();
+        java.util.Random rnd = new java.util.Random(42);
+        List<Integer> alive = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Integer item = i; // objetos distintos: el índice usa identidad
+            heap.add(item, rnd.nextInt(1000));
+            alive.add(item);
+            if (i % 3 == 0) {
+                heap.remove(alive.remove(rnd.nextInt(alive.size())));
+            }
+        }
+        assertEquals(alive.size(), heap.size());
+        long prev = Long.MIN_VALUE;
+        while (!heap.isEmpty()) {
+            long key = heap.keyOf(heap.peek());
+            assertTrue(key >= prev);
+            prev = key;
+            heap.poll();
+        }
+    }
+
+    // --- FenwickTree ---
+
+    @Test
+    @DisplayName("FenwickTree: sumas de prefijo y de rango coinciden con el conteo directo")
+    void fenwickPrefixSums() {
+        FenwickTree tree = new FenwickTree(100);
+        long[] plain = new long[100];
+        java.util.Random rnd = new java.util.Random(3);
+        for (int k = 0; k < 1000; k++) {
+            int i = rnd.nextInt(100);
+            long d = rnd.nextInt(5) - 2;
+            tree.add(i, d);
+            plain[i] += d;
+        }
+        long running = 0;
+        for (int i = 0; i < 100; i++) {
+            running += plain[i];
+            assertEquals(running, tree.prefixSum(i));
+        }
+        assertEquals(0, tree.prefixSum(-1));
+        assertEquals(tree.prefixSum(59) - tree.prefixSum(19), tree.rangeSum(20, 59));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.add(100, 1));
+    }
+
+    // --- RoaringBitmap ---
+
+    @Test
+    @DisplayName("RoaringBitmap: altas/bajas y AND/OR/ANDNOT coinciden con TreeSet (contenedores arreglo y bitmap)")
+    void roaringBitmapMatchesTreeSet() {
+        java.util.Random rnd = new java.util.Random(11);
+        RoaringBitmap a = new RoaringBitmap();
+        RoaringBitmap b = new RoaringBitmap();
+        java.util.TreeSet<Integer> sa = new java.util.TreeSet<>();
+        java.util.TreeSet<Integer> sb = new java.util.TreeSet<>();
+        // a: denso en el primer bloque (bitmap), disperso más allá; b: disperso
+        for (int i = 0; i < 30_000; i++) {
+            int x = i % 3 == 0 ? rnd.nextInt(1 << 20) : rnd.nextInt(40_000);
+            a.add(x);
+            sa.add(x);
+            int y = rnd.nextInt(1 << 18);
+            b.add(y);
+            sb.add(y);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            int x = rnd.nextInt(40_000);
+            assertEquals(sa.remove(x), a.remove(x));
+        }
+        assertEquals(sa.size(), a.cardinality());
+        assertArrayEquals(sa.stream().mapToInt(Integer::intValue).toArray(), a.toArray());
+
+        java.util.TreeSet<Integer> and = new java.util.TreeSet<>(sa);
+        and.retainAll(sb);
+        java.util.TreeSet<Integer> or = new java.util.TreeSet<>(sa);
+        or.addAll(sb);
+        java.util.TreeSet<Integer> andNot = new java.util.TreeSet<>(sa);
+        andNot.removeAll(sb);
+        assertArrayEquals(and.stream().mapToInt(Integer::intValue).toArray(), RoaringBitmap.and(a, b).toArray());
+        assertEquals(and.size(), RoaringBitmap.andCardinality(a, b));
+        assertArrayEquals(or.stream().mapToInt(Integer::intValue).toArray(), RoaringBitmap.or(a, b).toArray());
+        assertArrayEquals(andNot.stream().mapToInt(Integer::intValue).toArray(), RoaringBitmap.andNot(a, b).toArray());
+    }
+
+    @Test
+    @DisplayName("RoaringBitmap: serialización compacta ida y vuelta")
+    void roaringBitmapSerialization() throws java.io.IOException {
+        RoaringBitmap dense = new RoaringBitmap();
+        for (int i = 1; i <= 1_000_000; i++) dense.add(i);
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        dense.writeTo(new java.io.DataOutputStream(bytes));
+        assertEquals(dense.serializedSize(), bytes.size());
+        assertTrue(bytes.size() < 140_000, "un millón de ids densos ocupa ~8 KB por bloque");
+
+        RoaringBitmap back = RoaringBitmap.readFrom(
+                new java.io.DataInputStream(new java.io.ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(dense, back);
+        assertTrue(back.contains(777_777));
+        assertFalse(back.contains(0));
+    }
+}
@@ -0,0 +1,65 @@
+package estructures;
+
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+
+import java.time.LocalDateTime;
+
+/**
+ * Memoria por ticket atendido: historial como objetos (SimpleList + TicketIndex) contra
+ * HistoryTable (ventana de historial 0). Los nombres salen de un pool de estudiantes que
+ * vuelven varias veces, como en la oficina real.
+ *
+ * Uso: java -Xmx4g estructures.HistoryFootprintBenchmark [tickets=1000000] [estudiantes=50000]
+ */
+public class HistoryFootprintBenchmark {
+
+    public static void main(String[] args) {
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        System.out.printf("%,d tickets atendidos, %,d estudiantes distintos%n", tickets, students);
+        measure("Objetos en memoria", tickets, students, Integer.MAX_VALUE);
+        measure("HistoryTable", tickets, students, 0);
+    }
+
+    private static void measure(String name, int tickets, int students, int window) {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 8, 0);
+        ProcedureType[] types = ProcedureType.values();
+        long before = usedHeap();
+        long start = System.nanoTime();
+        AttentionQueue queue = new AttentionQueue();
+        queue.setHistoryWindow(window);
+        for (int id = 1; id <= tickets; id++) {
+            // String nuevo por ticket, como al leerlo del CSV
+            Ticket t = new Ticket(new String("Estudiante " + (id % students)), types[id % types.length]);
+            t.setId(id);
+            t.setState(TicketState.COMPLETADO);
+            t.setCreatedAt(base.plusSeconds(id));
+            queue.moveToHistory(t);
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        long bytes = usedHeap() - before;
+
+        start = System.nanoTime();
+        long certificados = queue.getArchive().count(null, ProcedureType.CERTIFICADO, null)
+                + queue.getIndex().count(null, ProcedureType.CERTIFICADO, null);
+        long countMicros = (System.nanoTime() - start) / 1000;
+        System.out.printf("%-20s heap=%,d MB  bytes/ticket=%.1f  armado=%d ms  conteo=%d (%d us)%n",
+                name, bytes / (1024 * 1024), bytes / (double) tickets, buildMillis, certificados, countMicros);
+        if (queue.getHistorySize() != tickets) throw new IllegalStateException("tamaño inesperado");
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,77 @@
+package estructures;
+
+import domine.Note;
+
+import java.time.LocalDateTime;
+
+/**
+ * Memoria ocupada por los historiales de notas: SimpleList<Note> contra UnrolledNoteList.
+ * Arma tickets con notasPorTicket notas cada uno hasta llegar al total pedido y mide el heap usado
+ * antes y después (tras forzar GC). Las observaciones salen de un pool compartido, así se mide
+ * solo el costo de la estructura y no el del texto.
+ *
+ * Uso: java -Xmx4g estructures.NoteFootprintBenchmark [totalNotas=10000000] [notasPorTicket=10]
+ */
+public class NoteFootprintBenchmark {
+
+    private static final String[] TEXTS = {
+            "Falta cédula", "Pago verificado", "Se envió correo al estudiante",
+            "Documento ilegible, pedir nuevamente", "Listo para firma"
+    };
+
+    public static void main(String[] args) {
+        int total = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int perTicket = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int tickets = Math.max(1, total / perTicket);
+
+        System.out.printf("%,d notas en %,d tickets (%d por ticket)%n", (long) tickets * perTicket, tickets, perTicket);
+        measure("SimpleList<Note>", tickets, perTicket, false);
+        measure("UnrolledNoteList", tickets, perTicket, true);
+    }
+
+    private static void measure(String name, int tickets, int perTicket, boolean unrolled) {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 8, 0);
+        long before = usedHeap();
+        long start = System.nanoTime();
+        Object[] histories = new Object[tickets];
+        for (int t = 0; t < tickets; t++) {
+            if (unrolled) {
+                UnrolledNoteList notes = new UnrolledNoteList();
+                for (int n = 0; n < perTicket; n++) notes.pushBack(note(t, n, perTicket, base));
+                histories[t] = notes;
+            } else {
+                SimpleList<Note> notes = new SimpleList<>();
+                for (int n = 0; n < perTicket; n++) notes.pushBack(note(t, n, perTicket, base));
+                histories[t] = notes;
+            }
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        long after = usedHeap();
+
+        long notes = (long) tickets * perTicket;
+        long bytes = after - before;
+        System.out.printf("%-18s heap=%,d MB  bytes/nota=%.1f  armado=%d ms%n",
+                name, bytes / (1024 * 1024), bytes / (double) notes, buildMillis);
+        Object lastHistory = histories[tickets - 1];
+        int lastSize = lastHistory instanceof UnrolledNoteList
+                ? ((UnrolledNoteList) lastHistory).size() : ((SimpleList<?>) lastHistory).size();
+        if (lastSize != perTicket) throw new IllegalStateException("tamaño inesperado");
+    }
+
+    private static Note note(int ticket, int n, int perTicket, LocalDateTime base) {
+        return new Note(TEXTS[(ticket + n) % TEXTS.length], base.plusSeconds((long) ticket * perTicket + n));
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
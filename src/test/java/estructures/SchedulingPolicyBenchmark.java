@@ -0,0 +1,111 @@
+package estructures;
+
+import domine.ProcedureType;
+import domine.Ticket;
+import domine.TicketState;
+import util.SystemClock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Simulación de un pico de matrículas: durante las primeras horas llegan más tickets de los que
+ * las ventanillas pueden atender (casi todos MATRICULA), luego la demanda baja. Para cada política reporta la espera
+ * media y máxima de urgentes y normales, los tickets que quedaron sin atender y el costo de nextTicket().
+ *
+ * Uso: java estructures.SchedulingPolicyBenchmark [llegadasPorMinutoEnPico] [ventanillas]
+ */
+public class SchedulingPolicyBenchmark {
+
+    private static final int SIM_MINUTES = 8 * 60;
+    private static final int PEAK_MINUTES = 4 * 60;
+    private static final int SERVICE_MINUTES = 5;
+    private static final double URGENT_FRACTION = 0.7;
+
+    public static void main(String[] args) {
+        double peakRate = args.length > 0 ? Double.parseDouble(args[0]) : 1.5;
+        int desks = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.printf("Pico: %.1f llegadas/min durante %d min | capacidad: %.1f/min | %d%% urgentes%n",
+                peakRate, PEAK_MINUTES, desks / (double) SERVICE_MINUTES, (int) (URGENT_FRACTION * 100));
+        run("Prioridad estricta", new StrictPriorityPolicy(), peakRate, desks);
+        run("Envejecimiento 30 min", new AgingPolicy(Duration.ofMinutes(30)), peakRate, desks);
+        run("Proporción 3:1", new RatioPolicy(3), peakRate, desks);
+        run("Cola justa ponderada", new WeightedFairPolicy(), peakRate, desks);
+    }
+
+    private static void run(String name, SchedulingPolicy policy, double peakRate, int desks) {
+        SystemClock clock = new SystemClock();
+        Instant t0 = Instant.parse("2025-03-01T08:00:00Z");
+        clock.setFixed(t0, ZoneOffset.UTC);
+        AttentionQueue queue = new AttentionQueue(policy, clock);
+        Map<Ticket, Integer> arrival = new IdentityHashMap<>();
+        Random rnd = new Random(7);
+        int[] deskFreeAt = new int[desks];
+
+        long[] waitSum = new long[2];
+        int[] waitMax = new int[2];
+        int[] served = new int[2];
+        long selectNanos = 0;
+        long selects = 0;
+        double carry = 0;
+
+        for (int minute = 0; minute < SIM_MINUTES; minute++) {
+            clock.setFixed(t0.plus(Duration.ofMinutes(minute)), ZoneOffset.UTC);
+            carry += minute < PEAK_MINUTES ? peakRate : peakRate * 0.4;
+            while (carry >= 1) {
+                carry--;
+                // 80% matrículas (la avalancha de inicio de período), el resto repartido
+                ProcedureType type = rnd.nextDouble() < 0.8 ? ProcedureType.MATRICULA
+                        : ProcedureType.values()[rnd.nextInt(ProcedureType.values().length)];
+                Ticket t = new Ticket("E" + arrival.size(), type);
+                if (rnd.nextDouble() < URGENT_FRACTION) t.setState(TicketState.URGENTE);
+                arrival.put(t, minute);
+                queue.addTicket(t);
+            }
+            for (int d = 0; d < desks; d++) {
+                if (deskFreeAt[d] > minute || queue.getTotalWaiting() == 0) continue;
+                long s = System.nanoTime();
+                Ticket next = queue.nextTicket();
+                selectNanos += System.nanoTime() - s;
+                selects++;
+                boolean urgent = next.getState() == TicketState.URGENTE;
+                queue.markServed(next);
+                (urgent ? queue.getUrgentQueue() : queue.getNormalQueue()).remove(next);
+                int lane = urgent ? 0 : 1;
+                int wait = minute - arrival.get(next);
+                waitSum[lane] += wait;
+                waitMax[lane] = Math.max(waitMax[lane], wait);
+                served[lane]++;
+                deskFreeAt[d] = minute + SERVICE_MINUTES;
+            }
+        }
+
+        int leftUrgent = queue.getUrgentQueue().size();
+        int leftNormal = queue.getNormalQueue().size();
+        int oldestLeft = 0;
+        for (Queue<Ticket> q : Arrays.asList(queue.getUrgentQueue(), queue.getNormalQueue())) {
+            if (!q.isEmpty()) oldestLeft = Math.max(oldestLeft, SIM_MINUTES - arrival.get(q.peek()));
+        }
+
+        System.out.println("--- " + name + " ---");
+        System.out.printf("  Urgentes: atendidos %d | espera media %.1f min | máx %d min | sin atender %d%n",
+                served[0], served[0] == 0 ? 0.0 : waitSum[0] / (double) served[0], waitMax[0], leftUrgent);
+        System.out.printf("  Normales: atendidos %d | espera media %.1f min | máx %d min | sin atender %d%n",
+                served[1], served[1] == 0 ? 0.0 : waitSum[1] / (double) served[1], waitMax[1], leftNormal);
+        System.out.printf("  Espera del más antiguo sin atender: %d min | nextTicket(): %.0f ns promedio%n",
+                oldestLeft, selects == 0 ? 0.0 : selectNanos / (double) selects);
+        if (policy instanceof WeightedFairPolicy) {
+            WeightedFairPolicy wfq = (WeightedFairPolicy) policy;
+            for (WeightedFairPolicy.LaneStats lane : wfq.getLaneStats()) {
+                if (lane.getEnqueued() > 0) System.out.println("    " + lane);
+            }
+            System.out.printf("  Índice de equidad (Jain): %.3f%n", wfq.fairnessIndex());
+        }
+    }
+}
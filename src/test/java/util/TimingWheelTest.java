@@ -0,0 +1,108 @@
+package util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final Instant T0 = Instant.parse("2025-03-01T08:00:00Z");
+
+    private SystemClock clock;
+    private TimingWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        clock = new SystemClock();
+        clock.setFixed(T0, ZoneOffset.UTC);
+        wheel = new TimingWheel(clock, 1000);
+    }
+
+    private void at(Duration elapsed) {
+        clock.setFixed(T0.plus(elapsed), ZoneOffset.UTC);
+    }
+
+    @Test
+    @DisplayName("Dispara cada tarea en su tick, también tras cascadas entre niveles")
+    void firesAtDeadlineAcrossLevels() {
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(5_000, () -> fired.add("5s"));
+        wheel.schedule(Duration.ofMinutes(3).toMillis(), () -> fired.add("3m"));      // nivel 1
+        wheel.schedule(Duration.ofHours(3).toMillis(), () -> fired.add("3h"));        // nivel 2
+        wheel.schedule(Duration.ofDays(30).toMillis(), () -> fired.add("30d"));       // nivel 3
+
+        at(Duration.ofSeconds(4));
+        assertEquals(0, wheel.advance());
+        at(Duration.ofSeconds(5));
+        assertEquals(1, wheel.advance());
+        at(Duration.ofMinutes(3).minusSeconds(1));
+        wheel.advance();
+        assertEquals(List.of("5s"), fired);
+        at(Duration.ofMinutes(3));
+        wheel.advance();
+        at(Duration.ofHours(3).minusSeconds(1));
+        wheel.advance();
+        assertEquals(List.of("5s", "3m"), fired);
+        at(Duration.ofHours(3));
+        wheel.advance();
+        at(Duration.ofDays(30));
+        wheel.advance();
+        assertEquals(List.of("5s", "3m", "3h", "30d"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Cancelar evita la ejecución y libera el temporizador")
+    void cancel() {
+        List<String> fired = new ArrayList<>();
+        TimingWheel.Timeout a = wheel.schedule(10_000, () -> fired.add("a"));
+        wheel.schedule(10_000, () -> fired.add("b"));
+        assertTrue(a.cancel());
+        assertFalse(a.cancel());
+        assertEquals(1, wheel.size());
+
+        clock.setOffset(Duration.ofSeconds(30));
+        wheel.advance();
+        assertEquals(List.of("b"), fired);
+        assertTrue(a.isCancelled());
+    }
+
+    @Test
+    @DisplayName("Una tarea puede programar otra desde su ejecución")
+    void rescheduleFromTask() {
+        List<Long> fired = new ArrayList<>();
+        wheel.schedule(1_000, () -> wheel.schedule(1_000, () -> fired.add(clock.getClock().millis())));
+        at(Duration.ofSeconds(1));
+        wheel.advance();
+        assertTrue(fired.isEmpty());
+        at(Duration.ofSeconds(2));
+        wheel.advance();
+        assertEquals(1, fired.size());
+    }
+
+    @Test
+    @DisplayName("100k temporizadores: cancelar la mitad y disparar el resto")
+    void manyTimers() {
+        int n = 100_000;
+        int[] fired = new int[1];
+        List<TimingWheel.Timeout> handles = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            handles.add(wheel.schedule((i % 7_200) * 1_000L, () -> fired[0]++));
+        }
+        for (int i = 0; i < n; i += 2) handles.get(i).cancel();
+        assertEquals(n / 2, wheel.size());
+
+        at(Duration.ofHours(2));
+        assertEquals(n / 2, wheel.advance());
+        assertEquals(n / 2, fired[0]);
+        assertEquals(0, wheel.size());
+    }
+}